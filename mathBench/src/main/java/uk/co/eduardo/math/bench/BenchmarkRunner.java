@@ -0,0 +1,38 @@
+package uk.co.eduardo.math.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the geometry benchmarks with the GC profiler attached so that allocation rates are reported alongside throughput.
+ * <p>
+ * Accepts the standard JMH command line, e.g. <code>java -jar benchmarks.jar Matrix3Benchmark -p size=100000</code>.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class BenchmarkRunner
+{
+   private BenchmarkRunner()
+   {
+      // Entry point only
+   }
+
+   /**
+    * Runs the benchmarks.
+    *
+    * @param args the JMH command line arguments.
+    * @throws CommandLineOptionException if the command line could not be parsed.
+    * @throws RunnerException if the benchmarks could not be run.
+    */
+   public static void main( final String[] args ) throws CommandLineOptionException, RunnerException
+   {
+      final Options options = new OptionsBuilder().parent( new CommandLineOptions( args ) ).addProfiler( GCProfiler.class ).build();
+      new Runner( options ).run();
+   }
+}
@@ -0,0 +1,84 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks computing the {@link BoundingBox3} of a point cloud.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class BoundingBox3Benchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private List< Vector3 > points;
+
+   private double[] interleaved;
+
+   /**
+    * Generates the input points.
+    */
+   @Setup
+   public void setup()
+   {
+      this.points = Points.random3( this.size, 1 );
+      this.interleaved = Points.interleave( this.points );
+   }
+
+   /**
+    * Computes the bounding box of the points.
+    *
+    * @return the bounding box.
+    */
+   @Benchmark
+   public BoundingBox3 fromPoints()
+   {
+      return BoundingBox3.fromPoints( this.points );
+   }
+
+   /**
+    * Computes the bounding box of the points as an interleaved coordinate array.
+    *
+    * @return the bounding box.
+    */
+   @Benchmark
+   public BoundingBox3 fromInterleaved()
+   {
+      return BoundingBox3.fromPoints( this.interleaved, 0, this.size );
+   }
+
+   /**
+    * Computes the bounding box of the points with a parallel stream.
+    *
+    * @return the bounding box.
+    */
+   @Benchmark
+   public BoundingBox3 parallelCollector()
+   {
+      return this.points.parallelStream().collect( BoundingBox3.collector() );
+   }
+}
@@ -0,0 +1,232 @@
+package uk.co.eduardo.math.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.GeometryReader;
+import uk.co.eduardo.math.geom.GeometryWriter;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks writing and reading {@link Vector3} points in the binary geometry format, against {@link DataOutputStream} and
+ * lossless text.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class GeometryFormatBenchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000" } )
+   public int size;
+
+   private List< Vector3 > points;
+
+   private double[] interleaved;
+
+   private ByteBuffer buffer;
+
+   private ByteArrayOutputStream bytes;
+
+   private ByteBuffer records;
+
+   private ByteBuffer packed;
+
+   private byte[] data;
+
+   private String text;
+
+   /**
+    * Generates the input points and serializes them in every format.
+    *
+    * @throws IOException on failure.
+    */
+   @Setup
+   public void setup() throws IOException
+   {
+      this.points = Points.random3( this.size, 1 );
+      this.interleaved = Points.interleave( this.points );
+      this.buffer = ByteBuffer.allocateDirect( ( 32 * this.size ) + 64 );
+      this.bytes = new ByteArrayOutputStream( 24 * this.size );
+
+      this.records = ByteBuffer.allocateDirect( ( 32 * this.size ) + 64 );
+      final GeometryWriter writer = new GeometryWriter( this.records );
+      for( final Vector3 p : this.points )
+      {
+         writer.write( p );
+      }
+      this.records.flip();
+
+      this.packed = ByteBuffer.allocateDirect( ( 24 * this.size ) + 64 );
+      new GeometryWriter( this.packed ).write( this.interleaved, 0, this.interleaved.length );
+      this.packed.flip();
+
+      this.data = writeDataOutput().toByteArray();
+      this.text = writeText();
+   }
+
+   /**
+    * Writes each point as a record.
+    *
+    * @return the buffer written.
+    * @throws IOException on failure.
+    */
+   @Benchmark
+   public ByteBuffer writeRecords() throws IOException
+   {
+      this.buffer.clear();
+      final GeometryWriter writer = new GeometryWriter( this.buffer );
+      for( final Vector3 p : this.points )
+      {
+         writer.write( p );
+      }
+      return this.buffer;
+   }
+
+   /**
+    * Writes the points as a single packed array of interleaved coordinates.
+    *
+    * @return the buffer written.
+    * @throws IOException on failure.
+    */
+   @Benchmark
+   public ByteBuffer writePacked() throws IOException
+   {
+      this.buffer.clear();
+      new GeometryWriter( this.buffer ).write( this.interleaved, 0, this.interleaved.length );
+      return this.buffer;
+   }
+
+   /**
+    * Writes the coordinates of each point to a {@link DataOutputStream}.
+    *
+    * @return the stream written.
+    * @throws IOException on failure.
+    */
+   @Benchmark
+   public ByteArrayOutputStream writeDataOutput() throws IOException
+   {
+      this.bytes.reset();
+      final DataOutputStream out = new DataOutputStream( this.bytes );
+      for( final Vector3 p : this.points )
+      {
+         out.writeDouble( p.x );
+         out.writeDouble( p.y );
+         out.writeDouble( p.z );
+      }
+      out.flush();
+      return this.bytes;
+   }
+
+   /**
+    * Writes the coordinates of each point as a line of text, with enough digits to read them back exactly.
+    *
+    * @return the text written.
+    */
+   @Benchmark
+   public String writeText()
+   {
+      final StringBuilder builder = new StringBuilder( 64 * this.size );
+      for( final Vector3 p : this.points )
+      {
+         builder.append( p.x ).append( ' ' ).append( p.y ).append( ' ' ).append( p.z ).append( '\n' );
+      }
+      return builder.toString();
+   }
+
+   /**
+    * Reads each point from a record.
+    *
+    * @param bh consumes the points.
+    * @throws IOException on failure.
+    */
+   @Benchmark
+   public void readRecords( final Blackhole bh ) throws IOException
+   {
+      final GeometryReader reader = new GeometryReader( this.records.duplicate() );
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( reader.readVector3() );
+      }
+   }
+
+   /**
+    * Reads the packed coordinates in place and sums them.
+    *
+    * @return the sum of the coordinates.
+    * @throws IOException on failure.
+    */
+   @Benchmark
+   public double readPacked() throws IOException
+   {
+      final DoubleBuffer coords = new GeometryReader( this.packed.duplicate() ).readDoubleBuffer();
+      double sum = 0;
+      for( int i = 0, n = coords.limit(); i < n; i++ )
+      {
+         sum += coords.get( i );
+      }
+      return sum;
+   }
+
+   /**
+    * Reads each point from a {@link DataInputStream}.
+    *
+    * @param bh consumes the points.
+    * @throws IOException on failure.
+    */
+   @Benchmark
+   public void readDataInput( final Blackhole bh ) throws IOException
+   {
+      final DataInputStream in = new DataInputStream( new ByteArrayInputStream( this.data ) );
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( new Vector3( in.readDouble(), in.readDouble(), in.readDouble() ) );
+      }
+   }
+
+   /**
+    * Parses each point from a line of text.
+    *
+    * @param bh consumes the points.
+    */
+   @Benchmark
+   public void readText( final Blackhole bh )
+   {
+      int start = 0;
+      for( int i = 0; i < this.size; i++ )
+      {
+         final int x = this.text.indexOf( ' ', start );
+         final int y = this.text.indexOf( ' ', x + 1 );
+         final int z = this.text.indexOf( '\n', y + 1 );
+         bh.consume( new Vector3( Double.parseDouble( this.text.substring( start, x ) ),
+                                         Double.parseDouble( this.text.substring( x + 1, y ) ),
+                                         Double.parseDouble( this.text.substring( y + 1, z ) ) ) );
+         start = z + 1;
+      }
+   }
+}
@@ -0,0 +1,82 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.Instrumentation;
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks the overhead of instrumentation on a bulk operation, with instrumentation disabled and enabled. Small sizes show
+ * the fixed cost per call.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class InstrumentationBenchmark
+{
+   /** The number of points. */
+   @Param( { "10", "1000", "100000" } )
+   public int size;
+
+   /** Whether instrumentation is enabled. */
+   @Param( { "false", "true" } )
+   public boolean instrumented;
+
+   private Vector3Buffer points;
+
+   private Vector3Buffer result;
+
+   private Matrix3 matrix;
+
+   /**
+    * Generates the input points and enables or disables instrumentation.
+    */
+   @Setup
+   public void setup()
+   {
+      this.points = Vector3Buffer.fromPoints( Points.random3( this.size, 1 ) );
+      this.result = new Vector3Buffer( this.size );
+      this.matrix = new Matrix3( 0, -1, 0, 1, 0, 0, 0, 0, 1 );
+      Instrumentation.setEnabled( this.instrumented );
+   }
+
+   /**
+    * Disables instrumentation again.
+    */
+   @TearDown
+   public void tearDown()
+   {
+      Instrumentation.setEnabled( false );
+   }
+
+   /**
+    * Multiplies every point by a matrix.
+    *
+    * @return the transformed points.
+    */
+   @Benchmark
+   public Vector3Buffer mul()
+   {
+      this.matrix.mul( this.points, this.result );
+      return this.result;
+   }
+}
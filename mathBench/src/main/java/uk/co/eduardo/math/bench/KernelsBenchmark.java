@@ -0,0 +1,167 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.Kernels;
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks the bulk operations that go through {@link Kernels}, once with the plain loops and once with the Vector API
+ * kernels. Each backend runs in its own fork, since the backend is chosen when the JVM starts. The vectorized run needs Java
+ * 17 or later.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@State( Scope.Thread )
+public abstract class KernelsBenchmark
+{
+   /** The number of vectors. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3Buffer a;
+
+   private Vector3Buffer b;
+
+   private Vector3Buffer result;
+
+   private double[] dots;
+
+   private Matrix3 m;
+
+   /**
+    * Generates the input vectors, and checks that the expected backend is in use.
+    */
+   @Setup
+   public void setup()
+   {
+      if( Kernels.isVectorized() != isVectorized() )
+      {
+         throw new IllegalStateException( "Unexpected backend: " + Kernels.getBackend() ); //$NON-NLS-1$
+      }
+      final List< Vector3 > points = Points.random3( this.size, 1 );
+      this.a = Vector3Buffer.fromPoints( points );
+      this.b = Vector3Buffer.fromPoints( Points.random3( this.size, 2 ) );
+      this.result = new Vector3Buffer( this.size );
+      this.dots = new double[ this.size ];
+      this.m = Matrix3.createRotationMatrix( points.get( 0 ).normalize(), 37 );
+   }
+
+   /**
+    * Determines which backend this benchmark expects.
+    *
+    * @return <code>true</code> for the vectorized kernels, <code>false</code> for the plain loops.
+    */
+   protected abstract boolean isVectorized();
+
+   /**
+    * Computes the dot product of every pair of vectors.
+    *
+    * @return the dot products.
+    */
+   @Benchmark
+   public double[] dot()
+   {
+      this.a.dot( this.b, this.dots );
+      return this.dots;
+   }
+
+   /**
+    * Computes the cross product of every pair of vectors.
+    *
+    * @return the cross products.
+    */
+   @Benchmark
+   public Vector3Buffer cross()
+   {
+      this.a.cross( this.b, this.result );
+      return this.result;
+   }
+
+   /**
+    * Normalizes every vector.
+    *
+    * @return the unit vectors.
+    */
+   @Benchmark
+   public Vector3Buffer normalize()
+   {
+      this.a.normalize( this.result );
+      return this.result;
+   }
+
+   /**
+    * Transforms every vector by a matrix.
+    *
+    * @return the transformed vectors.
+    */
+   @Benchmark
+   public Vector3Buffer mul()
+   {
+      this.m.mul( this.a, this.result );
+      return this.result;
+   }
+
+   /**
+    * Calculates the bounding box of the vectors.
+    *
+    * @return the bounding box.
+    */
+   @Benchmark
+   public BoundingBox3 boundingBox()
+   {
+      return BoundingBox3.fromPoints( this.a );
+   }
+
+   /**
+    * Runs the benchmarks with the plain loops.
+    */
+   @Fork( value = 1, jvmArgsAppend = "-D" + Kernels.VECTOR_PROPERTY + "=false" )
+   public static class Scalar extends KernelsBenchmark
+   {
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      protected boolean isVectorized()
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Runs the benchmarks with the Vector API kernels.
+    */
+   @Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+   public static class Vector extends KernelsBenchmark
+   {
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      protected boolean isVectorized()
+      {
+         return true;
+      }
+   }
+}
@@ -0,0 +1,178 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks {@link Matrix3} point transforms, composition, inversion and rotation matrix construction.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class Matrix3Benchmark
+{
+   /** The number of points or matrices. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3[] points;
+
+   private double[] interleaved;
+
+   private double[] transformed;
+
+   private Vector3Buffer buffer;
+
+   private Vector3Buffer bufferResult;
+
+   private Matrix3[] matrices;
+
+   private Vector3[] axes;
+
+   private double[] angles;
+
+   private Matrix3 m;
+
+   /**
+    * Generates the input points and matrices.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > list = Points.random3( this.size, 1 );
+      this.points = list.toArray( new Vector3[ this.size ] );
+      this.interleaved = Points.interleave( list );
+      this.transformed = new double[ this.interleaved.length ];
+      this.buffer = Vector3Buffer.fromPoints( list );
+      this.bufferResult = new Vector3Buffer( this.size );
+
+      this.axes = new Vector3[ this.size ];
+      this.angles = new double[ this.size ];
+      this.matrices = new Matrix3[ this.size ];
+      for( int i = 0; i < this.size; i++ )
+      {
+         this.axes[ i ] = this.points[ i ].normalize();
+         this.angles[ i ] = ( i * 7.3 ) % 360;
+         this.matrices[ i ] = Matrix3.createRotationMatrix( this.axes[ i ], this.angles[ i ] ).mul( 1 + ( i % 5 ) );
+      }
+      this.m = this.matrices[ 0 ];
+   }
+
+   /**
+    * Transforms each point with the scalar {@link Matrix3#mul(Vector3)}.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void mulVector( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.m.mul( this.points[ i ] ) );
+      }
+   }
+
+   /**
+    * Transforms the points as an interleaved coordinate array.
+    *
+    * @return the transformed coordinates.
+    */
+   @Benchmark
+   public double[] mulInterleaved()
+   {
+      this.m.mul( this.interleaved, 0, this.transformed, 0, this.size );
+      return this.transformed;
+   }
+
+   /**
+    * Transforms the points held in a buffer.
+    *
+    * @return the transformed points.
+    */
+   @Benchmark
+   public Vector3Buffer mulBuffer()
+   {
+      this.m.mul( this.buffer, this.bufferResult );
+      return this.bufferResult;
+   }
+
+   /**
+    * Composes pairs of matrices.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void mulMatrix( final Blackhole bh )
+   {
+      for( int i = 1; i < this.size; i++ )
+      {
+         bh.consume( this.matrices[ i - 1 ].mul( this.matrices[ i ] ) );
+      }
+   }
+
+   /**
+    * Inverts each matrix.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void inv( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.matrices[ i ].inv() );
+      }
+   }
+
+   /**
+    * Calculates the determinant of each matrix.
+    *
+    * @return the sum of the determinants.
+    */
+   @Benchmark
+   public double det()
+   {
+      double sum = 0;
+      for( int i = 0; i < this.size; i++ )
+      {
+         sum += this.matrices[ i ].det();
+      }
+      return sum;
+   }
+
+   /**
+    * Creates a rotation matrix for each axis and angle.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void createRotationMatrix( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( Matrix3.createRotationMatrix( this.axes[ i ], this.angles[ i ] ) );
+      }
+   }
+}
@@ -0,0 +1,215 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.KdTree3;
+import uk.co.eduardo.math.geom.Octree3;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks building, updating and querying a dynamic octree, against rebuilding and querying a static k-d tree, and
+ * querying the octree from several threads while another thread moves its points.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class Octree3Benchmark
+{
+   /** The number of points moved or queried by each operation. */
+   private static final int BATCH = 1000;
+
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private List< Vector3 > points;
+
+   private List< Vector3 > queries;
+
+   private Octree3 octree;
+
+   private KdTree3 kdTree;
+
+   private Random random;
+
+   /**
+    * The octree shared by the threads of the concurrent benchmark.
+    */
+   @State( Scope.Group )
+   public static class Shared
+   {
+      /** The number of points. */
+      @Param( { "1000", "100000", "1000000" } )
+      public int size;
+
+      private Octree3 octree;
+
+      /**
+       * Fills the shared octree.
+       */
+      @Setup
+      public void setup()
+      {
+         this.octree = fill( Points.random3( this.size, 1 ) );
+      }
+   }
+
+   private static BoundingBox3 bounds()
+   {
+      return new BoundingBox3().union( new Vector3( -Points.EXTENT, -Points.EXTENT, -Points.EXTENT ) )
+                               .union( new Vector3( Points.EXTENT, Points.EXTENT, Points.EXTENT ) );
+   }
+
+   private static Octree3 fill( final List< Vector3 > points )
+   {
+      final Octree3 tree = new Octree3( bounds() );
+      for( int i = 0; i < points.size(); i++ )
+      {
+         tree.insert( i, points.get( i ) );
+      }
+      return tree;
+   }
+
+   private static Vector3 randomPoint( final Random random )
+   {
+      return new Vector3( ( random.nextDouble() - 0.5 ) * 2 * Points.EXTENT,
+                          ( random.nextDouble() - 0.5 ) * 2 * Points.EXTENT,
+                          ( random.nextDouble() - 0.5 ) * 2 * Points.EXTENT );
+   }
+
+   /**
+    * Generates the input points and builds both trees.
+    */
+   @Setup
+   public void setup()
+   {
+      this.points = Points.random3( this.size, 1 );
+      this.queries = Points.random3( BATCH, 2 );
+      this.octree = fill( this.points );
+      this.kdTree = KdTree3.fromPoints( this.points );
+      this.random = new Random( 3 );
+   }
+
+   /**
+    * Builds an octree by inserting the points one at a time.
+    *
+    * @return the octree.
+    */
+   @Benchmark
+   public Octree3 buildOctree()
+   {
+      return fill( this.points );
+   }
+
+   /**
+    * Builds a k-d tree over the points, which is what a static index must do whenever any point moves.
+    *
+    * @return the k-d tree.
+    */
+   @Benchmark
+   public KdTree3 buildKdTree()
+   {
+      return KdTree3.fromPoints( this.points );
+   }
+
+   /**
+    * Moves a batch of random points in the octree.
+    *
+    * @return the octree.
+    */
+   @Benchmark
+   public Octree3 updateOctree()
+   {
+      for( int i = 0; i < BATCH; i++ )
+      {
+         this.octree.update( this.random.nextInt( this.size ), randomPoint( this.random ) );
+      }
+      return this.octree;
+   }
+
+   /**
+    * Finds the nearest point in the octree to each of a batch of query points.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void nearestOctree( final Blackhole bh )
+   {
+      for( final Vector3 q : this.queries )
+      {
+         bh.consume( this.octree.nearest( q ) );
+      }
+   }
+
+   /**
+    * Finds the nearest point in the k-d tree to each of a batch of query points.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void nearestKdTree( final Blackhole bh )
+   {
+      for( final Vector3 q : this.queries )
+      {
+         bh.consume( this.kdTree.nearest( q ) );
+      }
+   }
+
+   /**
+    * Finds the nearest point in a shared octree to each of a batch of query points, while another thread moves its points.
+    *
+    * @param shared the shared octree.
+    * @param bh the black hole.
+    */
+   @Benchmark
+   @Group( "concurrent" )
+   @GroupThreads( 3 )
+   public void concurrentNearest( final Shared shared, final Blackhole bh )
+   {
+      for( final Vector3 q : this.queries )
+      {
+         bh.consume( shared.octree.nearest( q ) );
+      }
+   }
+
+   /**
+    * Moves a batch of random points in a shared octree, while other threads query it.
+    *
+    * @param shared the shared octree.
+    * @return the octree.
+    */
+   @Benchmark
+   @Group( "concurrent" )
+   @GroupThreads( 1 )
+   public Octree3 concurrentUpdate( final Shared shared )
+   {
+      for( int i = 0; i < BATCH; i++ )
+      {
+         shared.octree.update( this.random.nextInt( shared.size ), randomPoint( this.random ) );
+      }
+      return shared.octree;
+   }
+}
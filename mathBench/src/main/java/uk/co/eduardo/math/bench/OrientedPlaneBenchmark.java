@@ -0,0 +1,164 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.OrientedPlane;
+import uk.co.eduardo.math.geom.Vector2Buffer;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks projecting a point cloud onto an {@link OrientedPlane}, one point at a time and in batches.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class OrientedPlaneBenchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3[] points;
+
+   private double[] interleaved;
+
+   private double[] projected;
+
+   private double[] uv;
+
+   private double[] distances;
+
+   private Vector3Buffer buffer;
+
+   private Vector3Buffer bufferResult;
+
+   private Vector2Buffer uvBuffer;
+
+   private OrientedPlane plane;
+
+   /**
+    * Generates the input points and plane.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > list = Points.random3( this.size, 1 );
+      this.points = list.toArray( new Vector3[ this.size ] );
+      this.interleaved = Points.interleave( list );
+      this.projected = new double[ this.interleaved.length ];
+      this.uv = new double[ 2 * this.size ];
+      this.distances = new double[ this.size ];
+      this.buffer = Vector3Buffer.fromPoints( list );
+      this.bufferResult = new Vector3Buffer( this.size );
+      this.uvBuffer = new Vector2Buffer( this.size );
+      this.plane = new OrientedPlane( new Vector3( 1, 1, 0 ), new Vector3( -1, 1, 1 ), new Vector3( 10, 20, 30 ) );
+   }
+
+   /**
+    * Projects each point onto the plane.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void project( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.plane.project( this.points[ i ] ) );
+      }
+   }
+
+   /**
+    * Projects the points as an interleaved coordinate array.
+    *
+    * @return the projected coordinates.
+    */
+   @Benchmark
+   public double[] projectInterleaved()
+   {
+      this.plane.project( this.interleaved, 0, this.projected, 0, this.size );
+      return this.projected;
+   }
+
+   /**
+    * Projects the points held in a buffer.
+    *
+    * @return the projected points.
+    */
+   @Benchmark
+   public Vector3Buffer projectBuffer()
+   {
+      this.plane.project( this.buffer, this.bufferResult );
+      return this.bufferResult;
+   }
+
+   /**
+    * Projects each point to plane coordinates with the scalar {@link OrientedPlane#projectToUV(Vector3)}.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void projectToUV( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.plane.projectToUV( this.points[ i ] ) );
+      }
+   }
+
+   /**
+    * Projects the points to interleaved plane coordinates.
+    *
+    * @return the plane coordinates.
+    */
+   @Benchmark
+   public double[] projectToUVInterleaved()
+   {
+      this.plane.projectToUV( this.interleaved, 0, this.uv, 0, this.size );
+      return this.uv;
+   }
+
+   /**
+    * Projects the points held in a buffer to plane coordinates.
+    *
+    * @return the plane coordinates.
+    */
+   @Benchmark
+   public Vector2Buffer projectToUVBuffer()
+   {
+      this.plane.projectToUV( this.buffer, this.uvBuffer );
+      return this.uvBuffer;
+   }
+
+   /**
+    * Calculates the signed distance of the points in an interleaved coordinate array.
+    *
+    * @return the distances.
+    */
+   @Benchmark
+   public double[] signedDistanceInterleaved()
+   {
+      this.plane.signedDistance( this.interleaved, 0, this.distances, 0, this.size );
+      return this.distances;
+   }
+}
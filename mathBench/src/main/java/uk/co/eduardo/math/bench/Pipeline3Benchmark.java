@@ -0,0 +1,107 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Pipeline3;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks applying the chain <code>normalize( ( M.p - c ) * s )</code> to every point one bulk operation at a time, one
+ * point at a time with temporary vectors, and as a fused pipeline.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class Pipeline3Benchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3Buffer points;
+
+   private Vector3Buffer result;
+
+   private Matrix3 matrix;
+
+   private Vector3 centre;
+
+   private double scale;
+
+   private Pipeline3 pipeline;
+
+   /**
+    * Generates the input points and compiles the pipeline.
+    */
+   @Setup
+   public void setup()
+   {
+      this.points = Vector3Buffer.fromPoints( Points.random3( this.size, 1 ) );
+      this.result = new Vector3Buffer( this.size );
+      this.matrix = Matrix3.createRotationMatrix( new Vector3( 1, 2, 3 ).normalize(), 0.5 );
+      this.centre = new Vector3( 10, 20, 30 );
+      this.scale = 0.001;
+      this.pipeline = Pipeline3.IDENTITY.mul( this.matrix ).sub( this.centre ).mul( this.scale ).normalize();
+   }
+
+   /**
+    * Applies the chain with one bulk operation per step, each a full pass over the points.
+    *
+    * @return the results.
+    */
+   @Benchmark
+   public Vector3Buffer stepwise()
+   {
+      this.matrix.mul( this.points, this.result );
+      this.result.sub( this.centre, this.result );
+      this.result.mul( this.scale, this.result );
+      this.result.normalize( this.result );
+      return this.result;
+   }
+
+   /**
+    * Applies the chain to each point in turn, creating a temporary vector at every step.
+    *
+    * @return the results.
+    */
+   @Benchmark
+   public Vector3Buffer perPoint()
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         this.result.set( i, this.matrix.mul( this.points.get( i ) ).sub( this.centre ).mul( this.scale ).normalize() );
+      }
+      return this.result;
+   }
+
+   /**
+    * Applies the chain as a fused pipeline.
+    *
+    * @return the results.
+    */
+   @Benchmark
+   public Vector3Buffer fused()
+   {
+      this.pipeline.apply( this.points, this.result );
+      return this.result;
+   }
+}
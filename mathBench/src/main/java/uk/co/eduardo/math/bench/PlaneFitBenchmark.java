@@ -0,0 +1,115 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.Covariance3;
+import uk.co.eduardo.math.geom.KdTree3;
+import uk.co.eduardo.math.geom.Neighbours;
+import uk.co.eduardo.math.geom.OrientedPlane;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks estimating the normal of every point of a cloud from its nearest neighbours, one plane fit at a time and with the
+ * batch fit. The neighbourhoods are found once in setup.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PlaneFitBenchmark
+{
+   /** The number of neighbours in each neighbourhood. */
+   private static final int K = 16;
+
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3Buffer points;
+
+   private int[] starts;
+
+   private int[] indices;
+
+   private double[] normals;
+
+   /**
+    * Generates the input points and finds the neighbourhood of each.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > random = Points.random3( this.size, 1 );
+      this.points = Vector3Buffer.fromPoints( random );
+      final KdTree3 tree = KdTree3.fromPoints( this.points );
+      final Neighbours neighbours = new Neighbours( K );
+      this.starts = new int[ this.size + 1 ];
+      this.indices = new int[ this.size * K ];
+      for( int i = 0; i < this.size; i++ )
+      {
+         tree.nearest( random.get( i ), K, neighbours );
+         this.starts[ i ] = i * K;
+         for( int j = 0; j < K; j++ )
+         {
+            this.indices[ ( i * K ) + j ] = neighbours.getIndex( j );
+         }
+      }
+      this.starts[ this.size ] = this.indices.length;
+      this.normals = new double[ 3 * this.size ];
+   }
+
+   /**
+    * Fits each neighbourhood with a covariance accumulator and an oriented plane.
+    *
+    * @return the normals.
+    */
+   @Benchmark
+   public double[] perFit()
+   {
+      final Covariance3 covariance = new Covariance3();
+      for( int i = 0; i < this.size; i++ )
+      {
+         covariance.clear();
+         for( int j = this.starts[ i ]; j < this.starts[ i + 1 ]; j++ )
+         {
+            final int n = this.indices[ j ];
+            covariance.add( this.points.x[ n ], this.points.y[ n ], this.points.z[ n ] );
+         }
+         final Vector3 norm = covariance.fitPlane().norm;
+         this.normals[ 3 * i ] = norm.x;
+         this.normals[ ( 3 * i ) + 1 ] = norm.y;
+         this.normals[ ( 3 * i ) + 2 ] = norm.z;
+      }
+      return this.normals;
+   }
+
+   /**
+    * Fits every neighbourhood with the batch fit.
+    *
+    * @return the normals.
+    */
+   @Benchmark
+   public double[] batch()
+   {
+      OrientedPlane.fitNormals( this.points, this.starts, this.indices, this.normals, null );
+      return this.normals;
+   }
+}
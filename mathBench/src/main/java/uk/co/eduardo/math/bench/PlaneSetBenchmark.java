@@ -0,0 +1,151 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.OrientedPlane;
+import uk.co.eduardo.math.geom.PlaneSet3;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks culling boxes against the six planes of a view frustum: one box at a time against the oriented planes, one box
+ * at a time against a plane set, and all boxes at once from packed arrays.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PlaneSetBenchmark
+{
+   /** The number of boxes. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private OrientedPlane[] planes;
+
+   private PlaneSet3 frustum;
+
+   private List< BoundingBox3 > boxes;
+
+   private double[] packed;
+
+   private long[] visible;
+
+   private int[] cache;
+
+   /**
+    * Generates the boxes and a frustum at the origin looking along z with a field of view of 90 degrees.
+    */
+   @Setup
+   public void setup()
+   {
+      this.planes = new OrientedPlane[] { plane( new Vector3( 1, 0, 1 ), Vector3.ZERO ),
+                                          plane( new Vector3( -1, 0, 1 ), Vector3.ZERO ),
+                                          plane( new Vector3( 0, 1, 1 ), Vector3.ZERO ),
+                                          plane( new Vector3( 0, -1, 1 ), Vector3.ZERO ),
+                                          plane( Vector3.Z, new Vector3( 0, 0, 1 ) ),
+                                          plane( Vector3.Z.mul( -1 ), new Vector3( 0, 0, 800 ) ) };
+      this.frustum = new PlaneSet3( this.planes );
+      final Vector3 half = new Vector3( 5, 5, 5 );
+      this.boxes = new ArrayList<>( this.size );
+      this.packed = new double[ 6 * this.size ];
+      int i = 0;
+      for( final Vector3 p : Points.random3( this.size, 1 ) )
+      {
+         final BoundingBox3 box = new BoundingBox3().union( p.sub( half ) ).union( p.add( half ) );
+         this.boxes.add( box );
+         this.packed[ i++ ] = box.start.x;
+         this.packed[ i++ ] = box.start.y;
+         this.packed[ i++ ] = box.start.z;
+         this.packed[ i++ ] = box.end.x;
+         this.packed[ i++ ] = box.end.y;
+         this.packed[ i++ ] = box.end.z;
+      }
+      this.visible = new long[ ( this.size + 63 ) / 64 ];
+      this.cache = new int[ this.size ];
+   }
+
+   /**
+    * Creates a plane whose normal is the given direction.
+    */
+   private static OrientedPlane plane( final Vector3 normal, final Vector3 point )
+   {
+      final Vector3 n = normal.normalize();
+      final Vector3 horiz = n.cross( ( Math.abs( n.x ) < 0.9 ) ? Vector3.X : Vector3.Y ).normalize();
+      return new OrientedPlane( horiz, n.cross( horiz ), point );
+   }
+
+   /**
+    * Tests each box against each oriented plane in turn, creating the corner nearest the inside of the plane.
+    *
+    * @return the number of visible boxes.
+    */
+   @Benchmark
+   public int perObject()
+   {
+      int visibleCount = 0;
+      for( final BoundingBox3 box : this.boxes )
+      {
+         boolean in = true;
+         for( final OrientedPlane plane : this.planes )
+         {
+            final Vector3 n = plane.norm;
+            final Vector3 p = new Vector3( ( n.x >= 0 ) ? box.end.x : box.start.x,
+                                           ( n.y >= 0 ) ? box.end.y : box.start.y,
+                                           ( n.z >= 0 ) ? box.end.z : box.start.z );
+            if( plane.signedDistance( p ) < 0 )
+            {
+               in = false;
+               break;
+            }
+         }
+         visibleCount += in ? 1 : 0;
+      }
+      return visibleCount;
+   }
+
+   /**
+    * Classifies each box against the plane set in turn.
+    *
+    * @return the number of visible boxes.
+    */
+   @Benchmark
+   public int planeSet()
+   {
+      int visibleCount = 0;
+      for( final BoundingBox3 box : this.boxes )
+      {
+         visibleCount += ( this.frustum.classify( box ) != PlaneSet3.OUTSIDE ) ? 1 : 0;
+      }
+      return visibleCount;
+   }
+
+   /**
+    * Classifies all the packed boxes at once, with the coherency cache.
+    *
+    * @return the number of visible boxes.
+    */
+   @Benchmark
+   public int bulk()
+   {
+      return this.frustum.classify( this.packed, 0, this.size, this.visible, null, this.cache );
+   }
+}
@@ -0,0 +1,94 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.Covariance3;
+import uk.co.eduardo.math.geom.PointStatistics3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks summarizing a point set: the bulk statistics, the same statistics one point at a time, and a bounding box and
+ * covariance computed in separate passes.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PointStatisticsBenchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3Buffer points;
+
+   /**
+    * Generates the input points.
+    */
+   @Setup
+   public void setup()
+   {
+      this.points = Vector3Buffer.fromPoints( Points.random3( this.size, 1 ) );
+   }
+
+   /**
+    * Summarizes the points with the bulk method.
+    *
+    * @return the statistics.
+    */
+   @Benchmark
+   public PointStatistics3 bulk()
+   {
+      final PointStatistics3 statistics = new PointStatistics3();
+      statistics.add( this.points );
+      return statistics;
+   }
+
+   /**
+    * Summarizes the points one at a time.
+    *
+    * @return the statistics.
+    */
+   @Benchmark
+   public PointStatistics3 perPoint()
+   {
+      final PointStatistics3 statistics = new PointStatistics3();
+      for( int i = 0; i < this.size; i++ )
+      {
+         statistics.add( this.points.x[ i ], this.points.y[ i ], this.points.z[ i ] );
+      }
+      return statistics;
+   }
+
+   /**
+    * Computes the bounding box and the covariance in separate passes.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void separate( final Blackhole bh )
+   {
+      bh.consume( BoundingBox3.fromPoints( this.points ) );
+      final Covariance3 covariance = new Covariance3();
+      covariance.add( this.points );
+      bh.consume( covariance );
+   }
+}
@@ -0,0 +1,108 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import uk.co.eduardo.math.geom.LineSegment2;
+import uk.co.eduardo.math.geom.Vector2;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Generates reproducible benchmark input.
+ *
+ * @author erodri02
+ */
+final class Points
+{
+   /** The extent of the cube, centred on the origin, in which random points are generated. */
+   static final double EXTENT = 1000;
+
+   private Points()
+   {
+      // Utility class
+   }
+
+   /**
+    * Generates random 3D points.
+    *
+    * @param size the number of points.
+    * @param seed the random seed.
+    * @return the random points.
+    */
+   static List< Vector3 > random3( final int size, final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< Vector3 > points = new ArrayList<>( size );
+      for( int i = 0; i < size; i++ )
+      {
+         points.add( new Vector3( coord( random ), coord( random ), coord( random ) ) );
+      }
+      return points;
+   }
+
+   /**
+    * Generates random 2D points.
+    *
+    * @param size the number of points.
+    * @param seed the random seed.
+    * @return the random points.
+    */
+   static List< Vector2 > random2( final int size, final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< Vector2 > points = new ArrayList<>( size );
+      for( int i = 0; i < size; i++ )
+      {
+         points.add( new Vector2( coord( random ), coord( random ) ) );
+      }
+      return points;
+   }
+
+   /**
+    * Generates random 2D line segments.
+    *
+    * @param size the number of segments.
+    * @param length the typical length of each segment.
+    * @param seed the random seed.
+    * @return the random segments.
+    */
+   static List< LineSegment2 > randomSegments2( final int size, final double length, final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< LineSegment2 > segments = new ArrayList<>( size );
+      for( int i = 0; i < size; i++ )
+      {
+         final double x = coord( random );
+         final double y = coord( random );
+         segments.add( new LineSegment2( new Vector2( x, y ),
+                                         new Vector2( x + ( random.nextGaussian() * length ),
+                                                      y + ( random.nextGaussian() * length ) ) ) );
+      }
+      return segments;
+   }
+
+   /**
+    * Packs 3D points into an interleaved <code>x, y, z</code> array.
+    *
+    * @param points the points to pack.
+    * @return the interleaved coordinates.
+    */
+   static double[] interleave( final List< Vector3 > points )
+   {
+      final double[] coords = new double[ 3 * points.size() ];
+      int i = 0;
+      for( final Vector3 p : points )
+      {
+         coords[ i++ ] = p.x;
+         coords[ i++ ] = p.y;
+         coords[ i++ ] = p.z;
+      }
+      return coords;
+   }
+
+   private static double coord( final Random random )
+   {
+      return ( random.nextDouble() - 0.5 ) * EXTENT;
+   }
+}
@@ -0,0 +1,158 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.BoundingBox3f;
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Matrix3f;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+import uk.co.eduardo.math.geom.Vector3f;
+import uk.co.eduardo.math.geom.Vector3fBuffer;
+
+/**
+ * Benchmarks the same scans over double and single precision buffers, to measure the effect of streaming 12 bytes per point
+ * instead of 24.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PrecisionBenchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3Buffer buffer;
+
+   private Vector3Buffer result;
+
+   private double[] dots;
+
+   private Vector3fBuffer bufferf;
+
+   private Vector3fBuffer resultf;
+
+   private float[] dotsf;
+
+   private Matrix3 m;
+
+   private Matrix3f mf;
+
+   /**
+    * Generates the input points.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > points = Points.random3( this.size, 1 );
+      this.buffer = Vector3Buffer.fromPoints( points );
+      this.result = new Vector3Buffer( this.size );
+      this.dots = new double[ this.size ];
+      this.bufferf = Vector3fBuffer.from( this.buffer );
+      this.resultf = new Vector3fBuffer( this.size );
+      this.dotsf = new float[ this.size ];
+      this.m = Matrix3.createRotationMatrix( points.get( 0 ).normalize(), 37 );
+      this.mf = Matrix3f.from( this.m );
+   }
+
+   /**
+    * Calculates the bounding box of the double precision points.
+    *
+    * @return the bounding box.
+    */
+   @Benchmark
+   public BoundingBox3 boundingBoxDouble()
+   {
+      return BoundingBox3.fromPoints( this.buffer );
+   }
+
+   /**
+    * Calculates the bounding box of the single precision points.
+    *
+    * @return the bounding box.
+    */
+   @Benchmark
+   public BoundingBox3f boundingBoxFloat()
+   {
+      return BoundingBox3f.fromPoints( this.bufferf );
+   }
+
+   /**
+    * Transforms the double precision points by a matrix.
+    *
+    * @return the transformed points.
+    */
+   @Benchmark
+   public Vector3Buffer mulDouble()
+   {
+      this.m.mul( this.buffer, this.result );
+      return this.result;
+   }
+
+   /**
+    * Transforms the single precision points by a matrix.
+    *
+    * @return the transformed points.
+    */
+   @Benchmark
+   public Vector3fBuffer mulFloat()
+   {
+      this.mf.mul( this.bufferf, this.resultf );
+      return this.resultf;
+   }
+
+   /**
+    * Computes the dot product of every double precision point with a fixed direction.
+    *
+    * @return the dot products.
+    */
+   @Benchmark
+   public double[] dotDouble()
+   {
+      this.buffer.dot( Vector3.Z, this.dots );
+      return this.dots;
+   }
+
+   /**
+    * Computes the dot product of every single precision point with a fixed direction.
+    *
+    * @return the dot products.
+    */
+   @Benchmark
+   public float[] dotFloat()
+   {
+      this.bufferf.dot( Vector3f.Z, this.dotsf );
+      return this.dotsf;
+   }
+
+   /**
+    * Converts the double precision points to single precision.
+    *
+    * @return the converted points.
+    */
+   @Benchmark
+   public Vector3fBuffer convert()
+   {
+      return Vector3fBuffer.from( this.buffer );
+   }
+}
@@ -0,0 +1,114 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.QuantizedPoints3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks encoding and decoding {@link QuantizedPoints3}.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class QuantizedPoints3Benchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   /** The number of bits per coordinate. */
+   @Param( { "10", "16", "21" } )
+   public int bits;
+
+   private Vector3Buffer buffer;
+
+   private BoundingBox3 bounds;
+
+   private QuantizedPoints3 fixed;
+
+   private QuantizedPoints3 delta;
+
+   private Vector3Buffer decoded;
+
+   /**
+    * Generates the input points.
+    */
+   @Setup
+   public void setup()
+   {
+      this.buffer = Vector3Buffer.fromPoints( Points.random3( this.size, 1 ) );
+      this.bounds = BoundingBox3.fromPoints( this.buffer );
+      this.fixed = QuantizedPoints3.encode( this.buffer, this.bounds, this.bits, false );
+      this.delta = QuantizedPoints3.encode( this.buffer, this.bounds, this.bits, true );
+      this.decoded = new Vector3Buffer( this.size );
+   }
+
+   /**
+    * Quantizes the points.
+    *
+    * @return the quantized points.
+    */
+   @Benchmark
+   public QuantizedPoints3 encode()
+   {
+      return QuantizedPoints3.encode( this.buffer, this.bounds, this.bits, false );
+   }
+
+   /**
+    * Decodes every fixed width point into a buffer.
+    *
+    * @return the decoded points.
+    */
+   @Benchmark
+   public Vector3Buffer decodeFixed()
+   {
+      this.fixed.decode( this.decoded );
+      return this.decoded;
+   }
+
+   /**
+    * Decodes every delta encoded point into a buffer.
+    *
+    * @return the decoded points.
+    */
+   @Benchmark
+   public Vector3Buffer decodeDelta()
+   {
+      this.delta.decode( this.decoded );
+      return this.decoded;
+   }
+
+   /**
+    * Decodes every fixed width point one at a time.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void getFixed( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.fixed.get( i ) );
+      }
+   }
+}
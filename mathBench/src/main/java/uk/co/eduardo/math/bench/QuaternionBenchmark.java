@@ -0,0 +1,159 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Quaternion;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks composing chains of rotations as {@link Quaternion}s against composing them as {@link Matrix3}s.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class QuaternionBenchmark
+{
+   /** The number of rotations or points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3[] axes;
+
+   private double[] angles;
+
+   private Quaternion[] quaternions;
+
+   private Matrix3[] matrices;
+
+   private double[] interleaved;
+
+   private double[] rotated;
+
+   /**
+    * Generates the input rotations and points.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > list = Points.random3( this.size, 1 );
+      this.interleaved = Points.interleave( list );
+      this.rotated = new double[ this.interleaved.length ];
+      this.axes = new Vector3[ this.size ];
+      this.angles = new double[ this.size ];
+      this.quaternions = new Quaternion[ this.size ];
+      this.matrices = new Matrix3[ this.size ];
+      for( int i = 0; i < this.size; i++ )
+      {
+         this.axes[ i ] = list.get( i ).normalize();
+         this.angles[ i ] = ( i * 7.3 ) % 360;
+         this.quaternions[ i ] = Quaternion.createRotation( this.axes[ i ], this.angles[ i ] );
+         this.matrices[ i ] = Matrix3.createRotationMatrix( this.axes[ i ], this.angles[ i ] );
+      }
+   }
+
+   /**
+    * Composes the whole chain of rotations as quaternions.
+    *
+    * @return the composed rotation.
+    */
+   @Benchmark
+   public Quaternion composeQuaternions()
+   {
+      Quaternion q = Quaternion.IDENTITY;
+      for( int i = 0; i < this.size; i++ )
+      {
+         q = q.mul( this.quaternions[ i ] );
+      }
+      return q.normalize();
+   }
+
+   /**
+    * Composes the whole chain of rotations as matrices.
+    *
+    * @return the composed rotation.
+    */
+   @Benchmark
+   public Matrix3 composeMatrices()
+   {
+      Matrix3 m = Matrix3.IDENTITY;
+      for( int i = 0; i < this.size; i++ )
+      {
+         m = m.mul( this.matrices[ i ] );
+      }
+      return m;
+   }
+
+   /**
+    * Creates a quaternion for each axis and angle.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void createRotation( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( Quaternion.createRotation( this.axes[ i ], this.angles[ i ] ) );
+      }
+   }
+
+   /**
+    * Interpolates spherically between consecutive rotations.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void slerp( final Blackhole bh )
+   {
+      for( int i = 1; i < this.size; i++ )
+      {
+         bh.consume( this.quaternions[ i - 1 ].slerp( this.quaternions[ i ], 0.3 ) );
+      }
+   }
+
+   /**
+    * Interpolates linearly between consecutive rotations.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void nlerp( final Blackhole bh )
+   {
+      for( int i = 1; i < this.size; i++ )
+      {
+         bh.consume( this.quaternions[ i - 1 ].nlerp( this.quaternions[ i ], 0.3 ) );
+      }
+   }
+
+   /**
+    * Rotates the points as an interleaved coordinate array.
+    *
+    * @return the rotated coordinates.
+    */
+   @Benchmark
+   public double[] rotateInterleaved()
+   {
+      this.quaternions[ 0 ].rotate( this.interleaved, 0, this.rotated, 0, this.size );
+      return this.rotated;
+   }
+}
@@ -0,0 +1,152 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.LineSegment3;
+import uk.co.eduardo.math.geom.SegmentDistances3;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks {@link SegmentDistances3}: finding every pair of short {@link LineSegment3} within a distance of each other with
+ * the hierarchy against measuring every pair, and measuring the distances of many pairs in bulk against one
+ * {@link LineSegment3#distance(LineSegment3)} call per pair.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class SegmentDistanceBenchmark
+{
+   /** The distance within which pairs are found. */
+   private static final double DISTANCE = 5;
+
+   /** The number of segments. */
+   @Param( { "1000", "10000" } )
+   public int size;
+
+   private double[] packed;
+
+   private double[] others;
+
+   private double[] distances;
+
+   private List< LineSegment3 > segments;
+
+   private List< LineSegment3 > otherSegments;
+
+   /**
+    * Generates segments about ten units long scattered through the cube.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > starts = Points.random3( this.size, 1 );
+      final List< Vector3 > otherStarts = Points.random3( this.size, 2 );
+      final Random random = new Random( 3 );
+      this.segments = new ArrayList<>( this.size );
+      this.otherSegments = new ArrayList<>( this.size );
+      this.packed = new double[ 6 * this.size ];
+      this.others = new double[ 6 * this.size ];
+      this.distances = new double[ this.size ];
+      for( int i = 0; i < this.size; i++ )
+      {
+         final Vector3 d = new Vector3( random.nextGaussian(), random.nextGaussian(), random.nextGaussian() ).mul( 10 );
+         this.segments.add( new LineSegment3( starts.get( i ), starts.get( i ).add( d ) ) );
+         this.otherSegments.add( new LineSegment3( otherStarts.get( i ), otherStarts.get( i ).sub( d ) ) );
+         pack( this.segments.get( i ), this.packed, 6 * i );
+         pack( this.otherSegments.get( i ), this.others, 6 * i );
+      }
+   }
+
+   private static void pack( final LineSegment3 segment, final double[] dst, final int offset )
+   {
+      dst[ offset ] = segment.start.x;
+      dst[ offset + 1 ] = segment.start.y;
+      dst[ offset + 2 ] = segment.start.z;
+      dst[ offset + 3 ] = segment.end.x;
+      dst[ offset + 4 ] = segment.end.y;
+      dst[ offset + 5 ] = segment.end.z;
+   }
+
+   /**
+    * Finds the pairs within the distance with the hierarchy.
+    *
+    * @return the number of pairs.
+    */
+   @Benchmark
+   public long pairsWithin()
+   {
+      return SegmentDistances3.forEachPairWithin( this.packed, 0, this.size, DISTANCE, ( a, b ) -> {
+         // Only count.
+      } );
+   }
+
+   /**
+    * Finds the pairs within the distance by measuring every pair.
+    *
+    * @return the number of pairs.
+    */
+   @Benchmark
+   public long bruteForce()
+   {
+      long pairs = 0;
+      for( int i = 0; i < this.size; i++ )
+      {
+         final LineSegment3 a = this.segments.get( i );
+         for( int j = i + 1; j < this.size; j++ )
+         {
+            if( a.distance( this.segments.get( j ) ) <= DISTANCE )
+            {
+               pairs++;
+            }
+         }
+      }
+      return pairs;
+   }
+
+   /**
+    * Measures the distances of the pairs in bulk.
+    *
+    * @return the distances.
+    */
+   @Benchmark
+   public double[] bulk()
+   {
+      SegmentDistances3.distancesSquared( this.packed, 0, this.others, 0, this.distances, 0, this.size );
+      return this.distances;
+   }
+
+   /**
+    * Measures the distance of each pair with its own call.
+    *
+    * @return the distances.
+    */
+   @Benchmark
+   public double[] perPair()
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         this.distances[ i ] = this.segments.get( i ).distance( this.otherSegments.get( i ) );
+      }
+      return this.distances;
+   }
+}
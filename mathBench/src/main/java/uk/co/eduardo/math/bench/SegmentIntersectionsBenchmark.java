@@ -0,0 +1,137 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.eduardo.math.geom.LineSegment2;
+import uk.co.eduardo.math.geom.SegmentIntersections;
+import uk.co.eduardo.math.geom.Vector2;
+
+/**
+ * Benchmarks finding all intersecting pairs of {@link LineSegment2} with the plane sweep against testing every pair.
+ * <p>
+ * The layouts are:
+ * </p>
+ * <ul>
+ * <li><code>random</code>: short segments scattered at random, with few intersections;</li>
+ * <li><code>parallel</code>: long horizontal segments stacked on top of each other, with no intersections but every pair
+ * overlapping in x;</li>
+ * <li><code>lattice</code>: horizontal and vertical segments two cells long on an integer lattice, so that every intersection is
+ * degenerate: shared end points, end points on other segments and collinear overlaps;</li>
+ * <li><code>star</code>: segments that all pass through one point, so that every pair intersects.</li>
+ * </ul>
+ * <p>
+ * The sweep's cost grows with the number of intersecting pairs, so brute force remains faster when most pairs intersect.
+ * </p>
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class SegmentIntersectionsBenchmark
+{
+   /** The number of segments. */
+   @Param( { "1000", "10000" } )
+   public int size;
+
+   /** The layout of the segments. */
+   @Param( { "random", "parallel", "lattice", "star" } )
+   public String layout;
+
+   private List< LineSegment2 > segments;
+
+   /**
+    * Generates the input segments.
+    */
+   @Setup
+   public void setup()
+   {
+      switch( this.layout )
+      {
+         case "random": //$NON-NLS-1$
+            this.segments = Points.randomSegments2( this.size, 5, 1 );
+            break;
+         case "parallel": //$NON-NLS-1$
+            this.segments = new ArrayList<>( this.size );
+            for( int i = 0; i < this.size; i++ )
+            {
+               this.segments.add( new LineSegment2( new Vector2( -Points.EXTENT, i ), new Vector2( Points.EXTENT, i + 0.5 ) ) );
+            }
+            break;
+         case "lattice": //$NON-NLS-1$
+            this.segments = new ArrayList<>( this.size );
+            final int columns = ( int ) Math.ceil( Math.sqrt( this.size / 2.0 ) );
+            for( int i = 0; i < this.size; i++ )
+            {
+               final double column = ( i / 2 ) % columns;
+               final double row = ( i / 2 ) / columns;
+               this.segments.add( ( i % 2 ) == 0 ? new LineSegment2( new Vector2( column, row ), new Vector2( column + 2, row ) )
+                                                 : new LineSegment2( new Vector2( column, row ), new Vector2( column, row + 2 ) ) );
+            }
+            break;
+         case "star": //$NON-NLS-1$
+            this.segments = new ArrayList<>( this.size );
+            for( int i = 0; i < this.size; i++ )
+            {
+               final double angle = ( Math.PI * i ) / this.size;
+               final Vector2 d = new Vector2( Math.cos( angle ) * Points.EXTENT, Math.sin( angle ) * Points.EXTENT );
+               this.segments.add( new LineSegment2( d.mul( -1 ), d ) );
+            }
+            break;
+         default:
+            throw new IllegalArgumentException( this.layout );
+      }
+   }
+
+   /**
+    * Finds the intersecting pairs with the plane sweep.
+    *
+    * @return the number of intersecting pairs.
+    */
+   @Benchmark
+   public long sweep()
+   {
+      return SegmentIntersections.count( this.segments );
+   }
+
+   /**
+    * Finds the intersecting pairs by testing every pair.
+    *
+    * @return the number of intersecting pairs.
+    */
+   @Benchmark
+   public long bruteForce()
+   {
+      long pairs = 0;
+      final int n = this.segments.size();
+      for( int i = 0; i < n; i++ )
+      {
+         final LineSegment2 a = this.segments.get( i );
+         for( int j = i + 1; j < n; j++ )
+         {
+            if( a.intersects( this.segments.get( j ) ) )
+            {
+               pairs++;
+            }
+         }
+      }
+      return pairs;
+   }
+}
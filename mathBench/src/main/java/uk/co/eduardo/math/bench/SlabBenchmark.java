@@ -0,0 +1,145 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.BoundingBox3Buffer;
+import uk.co.eduardo.math.geom.Ray3;
+import uk.co.eduardo.math.geom.RayPacket3;
+import uk.co.eduardo.math.geom.Vector3;
+
+/**
+ * Benchmarks slab tests of a ray against many boxes held as {@link BoundingBox3} objects and in a {@link BoundingBox3Buffer},
+ * and of a {@link RayPacket3} against one box against testing each {@link Ray3} on its own.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class SlabBenchmark
+{
+   /** The number of boxes, and of rays in the packet. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private List< BoundingBox3 > boxes;
+
+   private BoundingBox3Buffer buffer;
+
+   private List< Ray3 > rays;
+
+   private RayPacket3 packet;
+
+   private Ray3 ray;
+
+   private BoundingBox3 box;
+
+   private double[] entries;
+
+   private double[] exits;
+
+   /**
+    * Generates boxes around random points, and a coherent packet of nearly parallel rays crossing the cube, as from
+    * neighbouring pixels.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > centres = Points.random3( this.size, 1 );
+      final Vector3 half = new Vector3( 5, 5, 5 );
+      this.boxes = new ArrayList<>( this.size );
+      this.rays = new ArrayList<>( this.size );
+      for( final Vector3 c : centres )
+      {
+         this.boxes.add( new BoundingBox3().union( c.sub( half ) ).union( c.add( half ) ) );
+         final Vector3 origin = new Vector3( -Points.EXTENT, c.y / 20, c.z / 20 );
+         this.rays.add( new Ray3( origin, new Vector3( 1, 0.01 + ( c.x / 1e6 ), 0.02 - ( c.y / 1e6 ) ) ) );
+      }
+      this.buffer = BoundingBox3Buffer.fromBoxes( this.boxes );
+      this.packet = new RayPacket3( this.rays );
+      this.ray = new Ray3( new Vector3( -Points.EXTENT, 1, 2 ), new Vector3( 1, 0.01, -0.02 ) );
+      this.box = new BoundingBox3().union( new Vector3( -50, -50, -50 ) ).union( new Vector3( 50, 50, 50 ) );
+      this.entries = new double[ this.size ];
+      this.exits = new double[ this.size ];
+   }
+
+   /**
+    * Tests the ray against each box object.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void perObject( final Blackhole bh )
+   {
+      for( final BoundingBox3 b : this.boxes )
+      {
+         bh.consume( this.ray.intersect( b ) );
+      }
+   }
+
+   /**
+    * Tests the ray against every box in the buffer.
+    *
+    * @return the number of boxes hit.
+    */
+   @Benchmark
+   public int buffer()
+   {
+      return this.buffer.intersect( this.ray, Double.POSITIVE_INFINITY, this.entries, this.exits );
+   }
+
+   /**
+    * Finds the nearest box in the buffer hit by the ray.
+    *
+    * @return the index of the nearest box.
+    */
+   @Benchmark
+   public int nearest()
+   {
+      return this.buffer.nearest( this.ray, Double.POSITIVE_INFINITY, null );
+   }
+
+   /**
+    * Tests each ray object against the box.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void perRay( final Blackhole bh )
+   {
+      for( final Ray3 r : this.rays )
+      {
+         bh.consume( r.intersect( this.box ) );
+      }
+   }
+
+   /**
+    * Tests the packet of rays against the box.
+    *
+    * @return the number of rays that hit the box.
+    */
+   @Benchmark
+   public int packet()
+   {
+      return this.packet.intersect( this.box, Double.POSITIVE_INFINITY, this.entries, this.exits );
+   }
+}
@@ -0,0 +1,146 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.BoundingBox3;
+import uk.co.eduardo.math.geom.KdTree3;
+import uk.co.eduardo.math.geom.SpaceFillingCurves;
+import uk.co.eduardo.math.geom.SpatialSort;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks calculating space-filling curve keys and sorting points by them, and the effect of the sorted layout on
+ * nearest-neighbour queries made in point order.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class SpatialSortBenchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3Buffer points;
+
+   private Vector3Buffer sorted;
+
+   private BoundingBox3 bounds;
+
+   private long[] keys;
+
+   private KdTree3 tree;
+
+   private KdTree3 sortedTree;
+
+   /**
+    * Generates the input points, and a copy sorted along a Hilbert curve.
+    */
+   @Setup
+   public void setup()
+   {
+      this.points = Vector3Buffer.fromPoints( Points.random3( this.size, 1 ) );
+      this.sorted = new Vector3Buffer( this.points.x.clone(), this.points.y.clone(), this.points.z.clone() );
+      SpatialSort.sort( this.sorted, true );
+      this.bounds = BoundingBox3.fromPoints( this.points );
+      this.keys = new long[ this.size ];
+      SpaceFillingCurves.keys( this.points, this.bounds, false, this.keys );
+      this.tree = KdTree3.fromPoints( this.points );
+      this.sortedTree = KdTree3.fromPoints( this.sorted );
+   }
+
+   /**
+    * Calculates the Morton key of every point.
+    *
+    * @return the keys.
+    */
+   @Benchmark
+   public long[] mortonKeys()
+   {
+      SpaceFillingCurves.keys( this.points, this.bounds, false, this.keys );
+      return this.keys;
+   }
+
+   /**
+    * Calculates the Hilbert key of every point.
+    *
+    * @return the keys.
+    */
+   @Benchmark
+   public long[] hilbertKeys()
+   {
+      SpaceFillingCurves.keys( this.points, this.bounds, true, this.keys );
+      return this.keys;
+   }
+
+   /**
+    * Orders the keys with the radix sort.
+    *
+    * @return the order.
+    */
+   @Benchmark
+   public int[] radixOrder()
+   {
+      return SpatialSort.order( this.keys );
+   }
+
+   /**
+    * Sorts a copy of the keys with the JDK's comparison sort, as a baseline for the radix sort.
+    *
+    * @return the sorted keys.
+    */
+   @Benchmark
+   public long[] comparisonSort()
+   {
+      final long[] copy = this.keys.clone();
+      Arrays.sort( copy );
+      return copy;
+   }
+
+   /**
+    * Finds the nearest neighbour of every point, visiting the points in their original order.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void nearestUnsorted( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.tree.nearest( this.points.x[ i ], this.points.y[ i ], this.points.z[ i ] ) );
+      }
+   }
+
+   /**
+    * Finds the nearest neighbour of every point, visiting the points in Hilbert order.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void nearestSorted( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.sortedTree.nearest( this.sorted.x[ i ], this.sorted.y[ i ], this.sorted.z[ i ] ) );
+      }
+   }
+}
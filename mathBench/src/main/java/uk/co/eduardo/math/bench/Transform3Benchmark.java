@@ -0,0 +1,160 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.Matrix3;
+import uk.co.eduardo.math.geom.Quaternion;
+import uk.co.eduardo.math.geom.Transform3;
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks applying and inverting {@link Transform3}s against chaining {@link Matrix3#mul(Vector3)} with
+ * {@link Vector3#add(Vector3)}.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class Transform3Benchmark
+{
+   /** The number of points or transforms. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3[] points;
+
+   private double[] interleaved;
+
+   private double[] transformed;
+
+   private Vector3Buffer buffer;
+
+   private Vector3Buffer bufferResult;
+
+   private Transform3[] transforms;
+
+   private Transform3 transform;
+
+   /**
+    * Generates the input points and transforms.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > list = Points.random3( this.size, 1 );
+      this.points = list.toArray( new Vector3[ this.size ] );
+      this.interleaved = Points.interleave( list );
+      this.transformed = new double[ this.interleaved.length ];
+      this.buffer = Vector3Buffer.fromPoints( list );
+      this.bufferResult = new Vector3Buffer( this.size );
+      this.transforms = new Transform3[ this.size ];
+      for( int i = 0; i < this.size; i++ )
+      {
+         final Quaternion rotation = Quaternion.createRotation( this.points[ i ].normalize(), ( i * 7.3 ) % 360 );
+         this.transforms[ i ] = Transform3.createRigid( rotation, this.points[ ( i + 1 ) % this.size ] );
+      }
+      this.transform = this.transforms[ 0 ];
+   }
+
+   /**
+    * Transforms each point by multiplying by the matrix and then adding the translation.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void mulThenAdd( final Blackhole bh )
+   {
+      final Matrix3 m = this.transform.linear;
+      final Vector3 t = this.transform.translation;
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( m.mul( this.points[ i ] ).add( t ) );
+      }
+   }
+
+   /**
+    * Transforms each point with the scalar {@link Transform3#mul(Vector3)}.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void mulVector( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.transform.mul( this.points[ i ] ) );
+      }
+   }
+
+   /**
+    * Transforms the points as an interleaved coordinate array in a single pass.
+    *
+    * @return the transformed coordinates.
+    */
+   @Benchmark
+   public double[] mulInterleaved()
+   {
+      this.transform.mul( this.interleaved, 0, this.transformed, 0, this.size );
+      return this.transformed;
+   }
+
+   /**
+    * Transforms the points held in a buffer in a single pass.
+    *
+    * @return the transformed points.
+    */
+   @Benchmark
+   public Vector3Buffer mulBuffer()
+   {
+      this.transform.mul( this.buffer, this.bufferResult );
+      return this.bufferResult;
+   }
+
+   /**
+    * Inverts each rigid transform using the transpose.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void invRigid( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.transforms[ i ].inv() );
+      }
+   }
+
+   /**
+    * Inverts each transform with the general matrix inverse.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void invGeneral( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         final Matrix3 inverse = this.transforms[ i ].linear.inv();
+         bh.consume( new Transform3( inverse, inverse.mul( this.transforms[ i ].translation ).mul( -1 ) ) );
+      }
+   }
+}
@@ -0,0 +1,187 @@
+package uk.co.eduardo.math.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.eduardo.math.geom.Vector3;
+import uk.co.eduardo.math.geom.Vector3Buffer;
+
+/**
+ * Benchmarks element-wise {@link Vector3} arithmetic over a point cloud, comparing the scalar operations with their
+ * {@link Vector3Buffer} equivalents.
+ *
+ * @author erodri02
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class Vector3Benchmark
+{
+   /** The number of points. */
+   @Param( { "1000", "100000", "1000000" } )
+   public int size;
+
+   private Vector3[] a;
+
+   private Vector3[] b;
+
+   private Vector3Buffer bufferA;
+
+   private Vector3Buffer bufferB;
+
+   private Vector3Buffer result;
+
+   private double[] dots;
+
+   /**
+    * Generates the input points.
+    */
+   @Setup
+   public void setup()
+   {
+      final List< Vector3 > listA = Points.random3( this.size, 1 );
+      final List< Vector3 > listB = Points.random3( this.size, 2 );
+      this.a = listA.toArray( new Vector3[ this.size ] );
+      this.b = listB.toArray( new Vector3[ this.size ] );
+      this.bufferA = Vector3Buffer.fromPoints( listA );
+      this.bufferB = Vector3Buffer.fromPoints( listB );
+      this.result = new Vector3Buffer( this.size );
+      this.dots = new double[ this.size ];
+   }
+
+   /**
+    * Adds pairs of vectors.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void add( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.a[ i ].add( this.b[ i ] ) );
+      }
+   }
+
+   /**
+    * Scales the difference of pairs of vectors.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void subMul( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.a[ i ].sub( this.b[ i ] ).mul( 0.5 ) );
+      }
+   }
+
+   /**
+    * Crosses pairs of vectors.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void cross( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.a[ i ].cross( this.b[ i ] ) );
+      }
+   }
+
+   /**
+    * Takes the dot product of pairs of vectors.
+    *
+    * @return the sum of the dot products.
+    */
+   @Benchmark
+   public double dot()
+   {
+      double sum = 0;
+      for( int i = 0; i < this.size; i++ )
+      {
+         sum += this.a[ i ].dot( this.b[ i ] );
+      }
+      return sum;
+   }
+
+   /**
+    * Normalizes vectors.
+    *
+    * @param bh the black hole.
+    */
+   @Benchmark
+   public void normalize( final Blackhole bh )
+   {
+      for( int i = 0; i < this.size; i++ )
+      {
+         bh.consume( this.a[ i ].normalize() );
+      }
+   }
+
+   /**
+    * Adds pairs of vectors held in buffers.
+    *
+    * @return the result buffer.
+    */
+   @Benchmark
+   public Vector3Buffer bufferAdd()
+   {
+      this.bufferA.add( this.bufferB, this.result );
+      return this.result;
+   }
+
+   /**
+    * Crosses pairs of vectors held in buffers.
+    *
+    * @return the result buffer.
+    */
+   @Benchmark
+   public Vector3Buffer bufferCross()
+   {
+      this.bufferA.cross( this.bufferB, this.result );
+      return this.result;
+   }
+
+   /**
+    * Takes the dot product of pairs of vectors held in buffers.
+    *
+    * @return the dot products.
+    */
+   @Benchmark
+   public double[] bufferDot()
+   {
+      this.bufferA.dot( this.bufferB, this.dots );
+      return this.dots;
+   }
+
+   /**
+    * Normalizes vectors held in a buffer.
+    *
+    * @return the result buffer.
+    */
+   @Benchmark
+   public Vector3Buffer bufferNormalize()
+   {
+      this.bufferA.normalize( this.result );
+      return this.result;
+   }
+}
@@ -0,0 +1,330 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
+
+/**
+ * Support for bulk operations over packed coordinate arrays.
+ * <p>
+ * Bulk operations whose input is larger than the parallel threshold are split into chunks of at most that many elements, which
+ * are processed on the common fork-join pool. Smaller inputs are processed on the calling thread.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class Batch
+{
+   /** The default number of elements above which bulk operations run in parallel. */
+   public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+   /** The most chunks per thread of the common pool into which {@link #chunkCount(int)} splits a range. */
+   private static final int CHUNKS_PER_THREAD = 4;
+
+   private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+   private Batch()
+   {
+      // Utility class
+   }
+
+   /**
+    * Gets the number of elements above which bulk operations are split across the common fork-join pool.
+    *
+    * @return the parallel threshold.
+    */
+   public static int getParallelThreshold()
+   {
+      return parallelThreshold;
+   }
+
+   /**
+    * Sets the number of elements above which bulk operations are split across the common fork-join pool. Use
+    * {@link Integer#MAX_VALUE} to always run on the calling thread.
+    *
+    * @param threshold the parallel threshold. Must be positive.
+    */
+   public static void setParallelThreshold( final int threshold )
+   {
+      if( threshold <= 0 )
+      {
+         throw new IllegalArgumentException( "Parallel threshold must be positive: " + threshold ); //$NON-NLS-1$
+      }
+      parallelThreshold = threshold;
+   }
+
+   /**
+    * A task that processes a half-open range of elements.
+    */
+   @FunctionalInterface
+   interface RangeTask
+   {
+      /**
+       * Processes the elements in the range <code>[from, to)</code>.
+       *
+       * @param from the first element to process.
+       * @param to one past the last element to process.
+       */
+      void run( int from, int to );
+   }
+
+   /**
+    * Runs the task over the range <code>[from, to)</code>, splitting it across the common fork-join pool if it is larger than
+    * the parallel threshold.
+    *
+    * @param from the first element to process.
+    * @param to one past the last element to process.
+    * @param task the task to run. Cannot be <code>null</code>.
+    */
+   static void forRange( final int from, final int to, final RangeTask task )
+   {
+      forLongRange( from, to, ( f, t ) -> task.run( (int) f, (int) t ) );
+   }
+
+   /**
+    * A task that processes a half-open range of elements with <code>long</code> indices.
+    */
+   @FunctionalInterface
+   interface LongRangeTask
+   {
+      /**
+       * Processes the elements in the range <code>[from, to)</code>.
+       *
+       * @param from the first element to process.
+       * @param to one past the last element to process.
+       */
+      void run( long from, long to );
+   }
+
+   /**
+    * Runs the task over the range <code>[from, to)</code>, splitting it across the common fork-join pool if it is larger than
+    * the parallel threshold.
+    *
+    * @param from the first element to process.
+    * @param to one past the last element to process.
+    * @param task the task to run. Cannot be <code>null</code>.
+    */
+   static void forLongRange( final long from, final long to, final LongRangeTask task )
+   {
+      final int threshold = parallelThreshold;
+      if( ( to - from ) <= threshold )
+      {
+         task.run( from, to );
+         return;
+      }
+      ForkJoinPool.commonPool().invoke( new RangeAction( from, to, threshold, task ) );
+   }
+
+   /**
+    * Gets the number of chunks into which to split a range, for bulk operations that need fixed chunk boundaries. Chunks hold
+    * at most the parallel threshold, but there are never more than a few per thread of the common pool, since operations
+    * allocate state per chunk and more chunks than that do not balance the load any better.
+    *
+    * @param count the number of elements in the range.
+    * @return the number of chunks, which is at least one.
+    */
+   static int chunkCount( final int count )
+   {
+      final int threshold = parallelThreshold;
+      final long chunks = ( ( count + (long) threshold ) - 1 ) / threshold;
+      final long limit = CHUNKS_PER_THREAD * (long) ForkJoinPool.getCommonPoolParallelism();
+      return (int) Math.max( 1, Math.min( chunks, limit ) );
+   }
+
+   /**
+    * Runs the task once for each chunk index in <code>[0, chunks)</code>, on the common fork-join pool if there is more than
+    * one chunk.
+    *
+    * @param chunks the number of chunks.
+    * @param task the task to run for each chunk index. Cannot be <code>null</code>.
+    */
+   static void forEachChunk( final int chunks, final IntConsumer task )
+   {
+      if( chunks == 1 )
+      {
+         task.accept( 0 );
+         return;
+      }
+      ForkJoinPool.commonPool().invoke( new RangeAction( 0, chunks, 1, ( from, to ) -> {
+         for( long c = from; c < to; c++ )
+         {
+            task.accept( (int) c );
+         }
+      } ) );
+   }
+
+   /**
+    * A function that reduces a half-open range of elements to a single result.
+    *
+    * @param <T> the type of the result.
+    */
+   @FunctionalInterface
+   interface RangeFunction< T >
+   {
+      /**
+       * Reduces the elements in the range <code>[from, to)</code>.
+       *
+       * @param from the first element to reduce.
+       * @param to one past the last element to reduce.
+       * @return the result for the range.
+       */
+      T apply( int from, int to );
+   }
+
+   /**
+    * Reduces the range <code>[from, to)</code>, splitting it across the common fork-join pool if it is larger than the parallel
+    * threshold and combining the results of adjacent chunks in order.
+    *
+    * @param from the first element to reduce.
+    * @param to one past the last element to reduce.
+    * @param function the function that reduces a chunk. Cannot be <code>null</code>.
+    * @param combiner combines the results of two adjacent chunks. Cannot be <code>null</code>.
+    * @param <T> the type of the result.
+    * @return the combined result.
+    */
+   static < T > T reduce( final int from, final int to, final RangeFunction< T > function, final BinaryOperator< T > combiner )
+   {
+      return reduceLongRange( from, to, ( f, t ) -> function.apply( (int) f, (int) t ), combiner );
+   }
+
+   /**
+    * A function that reduces a half-open range of elements with <code>long</code> indices to a single result.
+    *
+    * @param <T> the type of the result.
+    */
+   @FunctionalInterface
+   interface LongRangeFunction< T >
+   {
+      /**
+       * Reduces the elements in the range <code>[from, to)</code>.
+       *
+       * @param from the first element to reduce.
+       * @param to one past the last element to reduce.
+       * @return the result for the range.
+       */
+      T apply( long from, long to );
+   }
+
+   /**
+    * Reduces the range <code>[from, to)</code>, splitting it across the common fork-join pool if it is larger than the parallel
+    * threshold and combining the results of adjacent chunks in order.
+    *
+    * @param from the first element to reduce.
+    * @param to one past the last element to reduce.
+    * @param function the function that reduces a chunk. Cannot be <code>null</code>.
+    * @param combiner combines the results of two adjacent chunks. Cannot be <code>null</code>.
+    * @param <T> the type of the result.
+    * @return the combined result.
+    */
+   static < T > T reduceLongRange( final long from,
+                                   final long to,
+                                   final LongRangeFunction< T > function,
+                                   final BinaryOperator< T > combiner )
+   {
+      final int threshold = parallelThreshold;
+      if( ( to - from ) <= threshold )
+      {
+         return function.apply( from, to );
+      }
+      return ForkJoinPool.commonPool().invoke( new ReduceTask<>( from, to, threshold, function, combiner ) );
+   }
+
+   /**
+    * Checks that <code>count</code> elements of the given stride starting at <code>offset</code> fit in an array.
+    *
+    * @param length the length of the array.
+    * @param offset the index of the first array element.
+    * @param count the number of elements.
+    * @param stride the number of array elements per element.
+    */
+   static void checkRange( final int length, final int offset, final int count, final int stride )
+   {
+      if( ( offset < 0 ) || ( count < 0 ) || ( offset > ( length - ( (long) count * stride ) ) ) )
+      {
+         throw new IndexOutOfBoundsException( String.format( "offset: %d, count: %d, stride: %d, length: %d", //$NON-NLS-1$
+                                                             offset,
+                                                             count,
+                                                             stride,
+                                                             length ) );
+      }
+   }
+
+   private static final class RangeAction extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final long from;
+
+      private final long to;
+
+      private final int threshold;
+
+      private final LongRangeTask task;
+
+      RangeAction( final long from, final long to, final int threshold, final LongRangeTask task )
+      {
+         this.from = from;
+         this.to = to;
+         this.threshold = threshold;
+         this.task = task;
+      }
+
+      @Override
+      protected void compute()
+      {
+         if( ( this.to - this.from ) <= this.threshold )
+         {
+            this.task.run( this.from, this.to );
+            return;
+         }
+         final long mid = ( this.from + this.to ) >>> 1;
+         invokeAll( new RangeAction( this.from, mid, this.threshold, this.task ),
+                    new RangeAction( mid, this.to, this.threshold, this.task ) );
+      }
+   }
+
+   private static final class ReduceTask< T > extends RecursiveTask< T >
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final long from;
+
+      private final long to;
+
+      private final int threshold;
+
+      private final LongRangeFunction< T > function;
+
+      private final BinaryOperator< T > combiner;
+
+      ReduceTask( final long from,
+                  final long to,
+                  final int threshold,
+                  final LongRangeFunction< T > function,
+                  final BinaryOperator< T > combiner )
+      {
+         this.from = from;
+         this.to = to;
+         this.threshold = threshold;
+         this.function = function;
+         this.combiner = combiner;
+      }
+
+      @Override
+      protected T compute()
+      {
+         if( ( this.to - this.from ) <= this.threshold )
+         {
+            return this.function.apply( this.from, this.to );
+         }
+         final long mid = ( this.from + this.to ) >>> 1;
+         final ReduceTask< T > left = new ReduceTask<>( this.from, mid, this.threshold, this.function, this.combiner );
+         final ReduceTask< T > right = new ReduceTask<>( mid, this.to, this.threshold, this.function, this.combiner );
+         left.fork();
+         final T rightResult = right.compute();
+         return this.combiner.apply( left.join(), rightResult );
+      }
+   }
+}
@@ -1,6 +1,7 @@
 package uk.co.eduardo.math.geom;
 
 import java.util.Collection;
+import java.util.stream.Collector;
 
 /**
  * Represents a 2D bounding box.
@@ -67,6 +68,25 @@ public class BoundingBox2
       return this.start.add( this.end ).div( 2 );
    }
 
+   /**
+    * Creates a new bounding box that includes both this bounding box and the other.
+    *
+    * @param other the other bounding box. Cannot be <code>null</code>.
+    * @return a new bounding box that includes both bounding boxes.
+    */
+   public BoundingBox2 union( final BoundingBox2 other )
+   {
+      if( other.isEmpty() )
+      {
+         return this;
+      }
+      if( isEmpty() )
+      {
+         return other;
+      }
+      return new Extent().add( this ).add( other ).toBox();
+   }
+
    /**
     * Factory method for creating a bounding box from a collection of points.
     *
@@ -75,12 +95,72 @@ public class BoundingBox2
     */
    public static BoundingBox2 fromPoints( final Collection< Vector2 > points )
    {
-      BoundingBox2 box = new BoundingBox2();
+      final Extent extent = new Extent();
       for( final Vector2 p : points )
       {
-         box = box.union( p );
+         extent.add( p.x, p.y );
       }
-      return box;
+      return extent.toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from a packed array of interleaved <code>x, y</code> coordinates. Inputs larger
+    * than {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox2 fromPoints( final double[] coords, final int offset, final int count )
+   {
+      Batch.checkRange( coords.length, offset, count, 2 );
+      return Batch.reduce( 0, count, ( from, to ) -> new Extent().addInterleaved( coords, offset, from, to ), Extent::merge )
+                  .toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from points held in separate x and y coordinate arrays. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param xs the x coordinates. Cannot be <code>null</code>.
+    * @param ys the y coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point.
+    * @param count the number of points.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox2 fromPoints( final double[] xs, final double[] ys, final int offset, final int count )
+   {
+      Batch.checkRange( xs.length, offset, count, 1 );
+      Batch.checkRange( ys.length, offset, count, 1 );
+      return Batch.reduce( offset, offset + count, ( from, to ) -> new Extent().addSeparate( xs, ys, from, to ), Extent::merge )
+                  .toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from the vectors in a buffer.
+    *
+    * @param points the points from which to create the bounding box. Cannot be <code>null</code>.
+    * @return the bounding box of the points.
+    * @see #fromPoints(double[], double[], int, int)
+    */
+   public static BoundingBox2 fromPoints( final Vector2Buffer points )
+   {
+      return fromPoints( points.x, points.y, 0, points.size() );
+   }
+
+   /**
+    * Creates a collector that computes the bounding box of a stream of points. The collector can be used with parallel streams.
+    *
+    * @return a collector that computes the bounding box of the points in a stream.
+    */
+   public static Collector< Vector2, ?, BoundingBox2 > collector()
+   {
+      return Collector.of( Extent::new,
+                           ( extent, p ) -> extent.add( p.x, p.y ),
+                           Extent::merge,
+                           Extent::toBox,
+                           Collector.Characteristics.UNORDERED );
    }
 
    /**
@@ -91,4 +171,112 @@ public class BoundingBox2
    {
       return String.format( "%s -> %s", this.start, this.end ); //$NON-NLS-1$
    }
+
+   /**
+    * Mutable accumulator for the minimum and maximum coordinates of a set of points.
+    * <p>
+    * Folding {@link Math#min(double, double)} and {@link Math#max(double, double)} from infinite starting values gives exactly the
+    * same result as repeated {@link BoundingBox2#union(Vector2)}, without allocating per point.
+    * </p>
+    */
+   private static final class Extent
+   {
+      private double minX = Double.POSITIVE_INFINITY;
+
+      private double minY = Double.POSITIVE_INFINITY;
+
+      private double maxX = Double.NEGATIVE_INFINITY;
+
+      private double maxY = Double.NEGATIVE_INFINITY;
+
+      private boolean empty = true;
+
+      Extent add( final double x, final double y )
+      {
+         this.minX = Math.min( x, this.minX );
+         this.minY = Math.min( y, this.minY );
+         this.maxX = Math.max( x, this.maxX );
+         this.maxY = Math.max( y, this.maxY );
+         this.empty = false;
+         return this;
+      }
+
+      Extent add( final BoundingBox2 box )
+      {
+         if( !box.isEmpty() )
+         {
+            add( box.start.x, box.start.y );
+            add( box.end.x, box.end.y );
+         }
+         return this;
+      }
+
+      Extent addInterleaved( final double[] coords, final int offset, final int from, final int to )
+      {
+         double x0 = this.minX;
+         double y0 = this.minY;
+         double x1 = this.maxX;
+         double y1 = this.maxY;
+         for( int i = offset + ( 2 * from ), end = offset + ( 2 * to ); i < end; i += 2 )
+         {
+            final double x = coords[ i ];
+            final double y = coords[ i + 1 ];
+            x0 = Math.min( x, x0 );
+            y0 = Math.min( y, y0 );
+            x1 = Math.max( x, x1 );
+            y1 = Math.max( y, y1 );
+         }
+         return set( x0, y0, x1, y1, to > from );
+      }
+
+      Extent addSeparate( final double[] xs, final double[] ys, final int from, final int to )
+      {
+         double x0 = this.minX;
+         double y0 = this.minY;
+         double x1 = this.maxX;
+         double y1 = this.maxY;
+         for( int i = from; i < to; i++ )
+         {
+            final double x = xs[ i ];
+            final double y = ys[ i ];
+            x0 = Math.min( x, x0 );
+            y0 = Math.min( y, y0 );
+            x1 = Math.max( x, x1 );
+            y1 = Math.max( y, y1 );
+         }
+         return set( x0, y0, x1, y1, to > from );
+      }
+
+      Extent merge( final Extent other )
+      {
+         if( !other.empty )
+         {
+            set( Math.min( other.minX, this.minX ),
+                 Math.min( other.minY, this.minY ),
+                 Math.max( other.maxX, this.maxX ),
+                 Math.max( other.maxY, this.maxY ),
+                 true );
+         }
+         return this;
+      }
+
+      BoundingBox2 toBox()
+      {
+         if( this.empty )
+         {
+            return new BoundingBox2();
+         }
+         return new BoundingBox2( new Vector2( this.minX, this.minY ), new Vector2( this.maxX, this.maxY ) );
+      }
+
+      private Extent set( final double x0, final double y0, final double x1, final double y1, final boolean added )
+      {
+         this.minX = x0;
+         this.minY = y0;
+         this.maxX = x1;
+         this.maxY = y1;
+         this.empty &= !added;
+         return this;
+      }
+   }
 }
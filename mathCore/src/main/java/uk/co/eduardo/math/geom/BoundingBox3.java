@@ -1,6 +1,8 @@
 package uk.co.eduardo.math.geom;
 
+import java.nio.DoubleBuffer;
 import java.util.Collection;
+import java.util.stream.Collector;
 
 /**
  * Represents a bounding box.
@@ -58,7 +60,8 @@ public class BoundingBox3
    }
 
    /**
-    * Gets the centre of the bounding box.
+    * Gets the centre of the bounding box. This is not the mean of the points the box was built from; for that, and the box
+    * itself, in a single pass over the points, see {@link PointStatistics3}.
     *
     * @return the centre of the bounding box.
     */
@@ -67,6 +70,25 @@ public class BoundingBox3
       return this.start.add( this.end ).div( 2 );
    }
 
+   /**
+    * Creates a new bounding box that includes both this bounding box and the other.
+    *
+    * @param other the other bounding box. Cannot be <code>null</code>.
+    * @return a new bounding box that includes both bounding boxes.
+    */
+   public BoundingBox3 union( final BoundingBox3 other )
+   {
+      if( other.isEmpty() )
+      {
+         return this;
+      }
+      if( isEmpty() )
+      {
+         return other;
+      }
+      return new Extent().add( this ).add( other ).toBox();
+   }
+
    /**
     * Factory method for creating a bounding box from a collection of points.
     *
@@ -75,12 +97,95 @@ public class BoundingBox3
     */
    public static BoundingBox3 fromPoints( final Collection< Vector3 > points )
    {
-      BoundingBox3 box = new BoundingBox3();
+      final Extent extent = new Extent();
       for( final Vector3 p : points )
       {
-         box = box.union( p );
+         extent.add( p.x, p.y, p.z );
       }
-      return box;
+      return extent.toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from a packed array of interleaved <code>x, y, z</code> coordinates. Inputs
+    * larger than {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox3 fromPoints( final double[] coords, final int offset, final int count )
+   {
+      Batch.checkRange( coords.length, offset, count, 3 );
+      return Batch.reduce( 0, count, ( from, to ) -> new Extent().addInterleaved( coords, offset, from, to ), Extent::merge )
+                  .toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from points held in separate x, y and z coordinate arrays. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param xs the x coordinates. Cannot be <code>null</code>.
+    * @param ys the y coordinates. Cannot be <code>null</code>.
+    * @param zs the z coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point.
+    * @param count the number of points.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox3 fromPoints( final double[] xs, final double[] ys, final double[] zs, final int offset, final int count )
+   {
+      Batch.checkRange( xs.length, offset, count, 1 );
+      Batch.checkRange( ys.length, offset, count, 1 );
+      Batch.checkRange( zs.length, offset, count, 1 );
+      return Batch.reduce( offset, offset + count, ( from, to ) -> new Extent().addSeparate( xs, ys, zs, from, to ), Extent::merge )
+                  .toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from the vectors in a buffer.
+    *
+    * @param points the points from which to create the bounding box. Cannot be <code>null</code>.
+    * @return the bounding box of the points.
+    * @see #fromPoints(double[], double[], double[], int, int)
+    */
+   public static BoundingBox3 fromPoints( final Vector3Buffer points )
+   {
+      return fromPoints( points.x, points.y, points.z, 0, points.size() );
+   }
+
+   /**
+    * Factory method for creating a bounding box from the points in a memory-mapped store, reading the mapped data in place.
+    * Stores larger than {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param points the points from which to create the bounding box. Cannot be <code>null</code>.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox3 fromPoints( final MappedVector3Store points )
+   {
+      return Batch.reduceLongRange( 0, points.size(), ( from, to ) -> {
+         final Extent extent = new Extent();
+         for( long i = from; i < to; )
+         {
+            final long end = points.segmentEnd( i, to );
+            extent.addMapped( points.segment( i ), points.offset( i ), (int) ( end - i ) );
+            i = end;
+         }
+         return extent;
+      }, Extent::merge ).toBox();
+   }
+
+   /**
+    * Creates a collector that computes the bounding box of a stream of points. The collector can be used with parallel streams.
+    *
+    * @return a collector that computes the bounding box of the points in a stream.
+    */
+   public static Collector< Vector3, ?, BoundingBox3 > collector()
+   {
+      return Collector.of( Extent::new,
+                           ( extent, p ) -> extent.add( p.x, p.y, p.z ),
+                           Extent::merge,
+                           Extent::toBox,
+                           Collector.Characteristics.UNORDERED );
    }
 
    /**
@@ -91,4 +196,145 @@ public class BoundingBox3
    {
       return String.format( "%s -> %s", this.start, this.end ); //$NON-NLS-1$
    }
+
+   /**
+    * Mutable accumulator for the minimum and maximum coordinates of a set of points.
+    * <p>
+    * Folding {@link Math#min(double, double)} and {@link Math#max(double, double)} from infinite starting values gives exactly the
+    * same result as repeated {@link BoundingBox3#union(Vector3)}, without allocating per point.
+    * </p>
+    */
+   private static final class Extent
+   {
+      private double minX = Double.POSITIVE_INFINITY;
+
+      private double minY = Double.POSITIVE_INFINITY;
+
+      private double minZ = Double.POSITIVE_INFINITY;
+
+      private double maxX = Double.NEGATIVE_INFINITY;
+
+      private double maxY = Double.NEGATIVE_INFINITY;
+
+      private double maxZ = Double.NEGATIVE_INFINITY;
+
+      private boolean empty = true;
+
+      Extent add( final double x, final double y, final double z )
+      {
+         this.minX = Math.min( x, this.minX );
+         this.minY = Math.min( y, this.minY );
+         this.minZ = Math.min( z, this.minZ );
+         this.maxX = Math.max( x, this.maxX );
+         this.maxY = Math.max( y, this.maxY );
+         this.maxZ = Math.max( z, this.maxZ );
+         this.empty = false;
+         return this;
+      }
+
+      Extent add( final BoundingBox3 box )
+      {
+         if( !box.isEmpty() )
+         {
+            add( box.start.x, box.start.y, box.start.z );
+            add( box.end.x, box.end.y, box.end.z );
+         }
+         return this;
+      }
+
+      Extent addInterleaved( final double[] coords, final int offset, final int from, final int to )
+      {
+         double x0 = this.minX;
+         double y0 = this.minY;
+         double z0 = this.minZ;
+         double x1 = this.maxX;
+         double y1 = this.maxY;
+         double z1 = this.maxZ;
+         for( int i = offset + ( 3 * from ), end = offset + ( 3 * to ); i < end; i += 3 )
+         {
+            final double x = coords[ i ];
+            final double y = coords[ i + 1 ];
+            final double z = coords[ i + 2 ];
+            x0 = Math.min( x, x0 );
+            y0 = Math.min( y, y0 );
+            z0 = Math.min( z, z0 );
+            x1 = Math.max( x, x1 );
+            y1 = Math.max( y, y1 );
+            z1 = Math.max( z, z1 );
+         }
+         return set( x0, y0, z0, x1, y1, z1, to > from );
+      }
+
+      Extent addMapped( final DoubleBuffer coords, final int offset, final int count )
+      {
+         double x0 = this.minX;
+         double y0 = this.minY;
+         double z0 = this.minZ;
+         double x1 = this.maxX;
+         double y1 = this.maxY;
+         double z1 = this.maxZ;
+         for( int i = offset, end = offset + ( 3 * count ); i < end; i += 3 )
+         {
+            final double x = coords.get( i );
+            final double y = coords.get( i + 1 );
+            final double z = coords.get( i + 2 );
+            x0 = Math.min( x, x0 );
+            y0 = Math.min( y, y0 );
+            z0 = Math.min( z, z0 );
+            x1 = Math.max( x, x1 );
+            y1 = Math.max( y, y1 );
+            z1 = Math.max( z, z1 );
+         }
+         return set( x0, y0, z0, x1, y1, z1, count > 0 );
+      }
+
+      Extent addSeparate( final double[] xs, final double[] ys, final double[] zs, final int from, final int to )
+      {
+         final double[] e = { this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ };
+         Kernels.get().extent( xs, ys, zs, from, to, e );
+         return set( e[ 0 ], e[ 1 ], e[ 2 ], e[ 3 ], e[ 4 ], e[ 5 ], to > from );
+      }
+
+      Extent merge( final Extent other )
+      {
+         if( !other.empty )
+         {
+            set( Math.min( other.minX, this.minX ),
+                 Math.min( other.minY, this.minY ),
+                 Math.min( other.minZ, this.minZ ),
+                 Math.max( other.maxX, this.maxX ),
+                 Math.max( other.maxY, this.maxY ),
+                 Math.max( other.maxZ, this.maxZ ),
+                 true );
+         }
+         return this;
+      }
+
+      BoundingBox3 toBox()
+      {
+         if( this.empty )
+         {
+            return new BoundingBox3();
+         }
+         return new BoundingBox3( new Vector3( this.minX, this.minY, this.minZ ), new Vector3( this.maxX, this.maxY, this.maxZ ) );
+      }
+
+      private Extent set( final double x0,
+                          final double y0,
+                          final double z0,
+                          final double x1,
+                          final double y1,
+                          final double z1,
+                          final boolean added )
+      {
+         this.minX = x0;
+         this.minY = y0;
+         this.minZ = z0;
+         this.maxX = x1;
+         this.maxY = y1;
+         this.maxZ = z1;
+         this.empty &= !added;
+         return this;
+      }
+   }
 }
@@ -0,0 +1,291 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A buffer of 3D bounding boxes stored as a structure of arrays, for ray casting against many boxes at once.
+ * <p>
+ * The minimum and maximum corners are held in six primitive arrays, so testing a ray against every box reads consecutive
+ * values rather than following three references per {@link BoundingBox3}. An empty box is stored with infinite minimum and
+ * negative infinite maximum corners, which no ray hits.
+ * </p>
+ * <p>
+ * Rays are tested with the slab test. Rather than taking the minimum and maximum of the two distances at which a ray crosses
+ * the planes of each slab, the plane crossed first is chosen from the sign of the ray's inverse direction, once per ray rather
+ * than once per box. The loop over the boxes is then straight-line code of subtractions, multiplications and comparisons that
+ * select values, with no early exit. A ray parallel to an axis has an infinite inverse direction, of the sign of its zero
+ * direction component, so a ray outside the slab gets an empty interval. A ray lying exactly in a face of a box produces
+ * <code>0 * &#x221E;</code>, which is NaN, and every comparison with NaN is false, so that slab is ignored and the ray is
+ * treated as hitting the box, consistently with {@link Ray3#intersect(BoundingBox3)}.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class BoundingBox3Buffer
+{
+   /** The minimum x coordinates. */
+   public final double[] minX;
+
+   /** The minimum y coordinates. */
+   public final double[] minY;
+
+   /** The minimum z coordinates. */
+   public final double[] minZ;
+
+   /** The maximum x coordinates. */
+   public final double[] maxX;
+
+   /** The maximum y coordinates. */
+   public final double[] maxY;
+
+   /** The maximum z coordinates. */
+   public final double[] maxZ;
+
+   /**
+    * Initializes a new BoundingBox3Buffer object where every box is empty.
+    *
+    * @param size the number of boxes in the buffer.
+    */
+   public BoundingBox3Buffer( final int size )
+   {
+      this.minX = new double[ size ];
+      this.minY = new double[ size ];
+      this.minZ = new double[ size ];
+      this.maxX = new double[ size ];
+      this.maxY = new double[ size ];
+      this.maxZ = new double[ size ];
+      Arrays.fill( this.minX, Double.POSITIVE_INFINITY );
+      Arrays.fill( this.minY, Double.POSITIVE_INFINITY );
+      Arrays.fill( this.minZ, Double.POSITIVE_INFINITY );
+      Arrays.fill( this.maxX, Double.NEGATIVE_INFINITY );
+      Arrays.fill( this.maxY, Double.NEGATIVE_INFINITY );
+      Arrays.fill( this.maxZ, Double.NEGATIVE_INFINITY );
+   }
+
+   /**
+    * Gets the number of boxes in the buffer.
+    *
+    * @return the number of boxes in the buffer.
+    */
+   public int size()
+   {
+      return this.minX.length;
+   }
+
+   /**
+    * Gets the box at the specified index.
+    *
+    * @param i the index of the box.
+    * @return a new box holding the corners at the specified index.
+    */
+   public BoundingBox3 get( final int i )
+   {
+      if( this.minX[ i ] > this.maxX[ i ] )
+      {
+         return new BoundingBox3();
+      }
+      final double[] corners = { this.minX[ i ], this.minY[ i ], this.minZ[ i ], this.maxX[ i ], this.maxY[ i ], this.maxZ[ i ] };
+      return BoundingBox3.fromPoints( corners, 0, 2 );
+   }
+
+   /**
+    * Sets the box at the specified index.
+    *
+    * @param i the index of the box.
+    * @param box the box to store. Cannot be <code>null</code>.
+    */
+   public void set( final int i, final BoundingBox3 box )
+   {
+      if( box.isEmpty() )
+      {
+         set( i,
+              Double.POSITIVE_INFINITY,
+              Double.POSITIVE_INFINITY,
+              Double.POSITIVE_INFINITY,
+              Double.NEGATIVE_INFINITY,
+              Double.NEGATIVE_INFINITY,
+              Double.NEGATIVE_INFINITY );
+         return;
+      }
+      set( i, box.start.x, box.start.y, box.start.z, box.end.x, box.end.y, box.end.z );
+   }
+
+   /**
+    * Sets the box at the specified index.
+    *
+    * @param i the index of the box.
+    * @param x0 the minimum x coordinate.
+    * @param y0 the minimum y coordinate.
+    * @param z0 the minimum z coordinate.
+    * @param x1 the maximum x coordinate.
+    * @param y1 the maximum y coordinate.
+    * @param z1 the maximum z coordinate.
+    */
+   public void set( final int i,
+                    final double x0,
+                    final double y0,
+                    final double z0,
+                    final double x1,
+                    final double y1,
+                    final double z1 )
+   {
+      this.minX[ i ] = x0;
+      this.minY[ i ] = y0;
+      this.minZ[ i ] = z0;
+      this.maxX[ i ] = x1;
+      this.maxY[ i ] = y1;
+      this.maxZ[ i ] = z1;
+   }
+
+   /**
+    * Calculates where a ray enters and leaves every box in the buffer. A box is hit if the ray is inside it anywhere between
+    * distance zero and the maximum distance, which is the case exactly when its entry distance is no greater than its exit
+    * distance.
+    *
+    * @param ray the ray. Cannot be <code>null</code>.
+    * @param maxDistance the distance along the ray beyond which boxes are ignored.
+    * @param entries receives, for each box, the distance at which the ray enters it, which is zero if the ray starts inside it.
+    *           Needs as many elements as there are boxes. Cannot be <code>null</code>.
+    * @param exits receives, for each box, the distance at which the ray leaves it, which is at most the maximum distance. Needs
+    *           as many elements as there are boxes. An infinite maximum distance is written as {@link Double#MAX_VALUE}.
+    *           Cannot be <code>null</code>.
+    * @return the number of boxes hit.
+    */
+   public int intersect( final Ray3 ray, final double maxDistance, final double[] entries, final double[] exits )
+   {
+      final int n = size();
+      Batch.checkRange( entries.length, 0, n, 1 );
+      Batch.checkRange( exits.length, 0, n, 1 );
+
+      // The planes of each slab in the order the ray crosses them
+      final double[] nearX = ( ray.invX >= 0 ) ? this.minX : this.maxX;
+      final double[] farX = ( ray.invX >= 0 ) ? this.maxX : this.minX;
+      final double[] nearY = ( ray.invY >= 0 ) ? this.minY : this.maxY;
+      final double[] farY = ( ray.invY >= 0 ) ? this.maxY : this.minY;
+      final double[] nearZ = ( ray.invZ >= 0 ) ? this.minZ : this.maxZ;
+      final double[] farZ = ( ray.invZ >= 0 ) ? this.maxZ : this.minZ;
+      final double ox = ray.origin.x;
+      final double oy = ray.origin.y;
+      final double oz = ray.origin.z;
+      final double ix = ray.invX;
+      final double iy = ray.invY;
+      final double iz = ray.invZ;
+      final double limit = limit( maxDistance );
+      int hits = 0;
+      for( int i = 0; i < n; i++ )
+      {
+         double near = 0;
+         double far = limit;
+         final double nx = ( nearX[ i ] - ox ) * ix;
+         final double fx = ( farX[ i ] - ox ) * ix;
+         final double ny = ( nearY[ i ] - oy ) * iy;
+         final double fy = ( farY[ i ] - oy ) * iy;
+         final double nz = ( nearZ[ i ] - oz ) * iz;
+         final double fz = ( farZ[ i ] - oz ) * iz;
+         near = ( nx > near ) ? nx : near;
+         near = ( ny > near ) ? ny : near;
+         near = ( nz > near ) ? nz : near;
+         far = ( fx < far ) ? fx : far;
+         far = ( fy < far ) ? fy : far;
+         far = ( fz < far ) ? fz : far;
+         entries[ i ] = near;
+         exits[ i ] = far;
+         hits += ( near <= far ) ? 1 : 0;
+      }
+      return hits;
+   }
+
+   /**
+    * Finds the box in the buffer that a ray enters first.
+    *
+    * @param ray the ray. Cannot be <code>null</code>.
+    * @param maxDistance the distance along the ray beyond which boxes are ignored.
+    * @param result receives the distances at which the ray enters and leaves the nearest box, the entry being zero if the ray
+    *           starts inside it. Needs two elements. Can be <code>null</code> if the distances are not needed.
+    * @return the index of the nearest box hit, the lowest index if several are entered at the same distance, or -1 if no box is
+    *         hit.
+    */
+   public int nearest( final Ray3 ray, final double maxDistance, final double[] result )
+   {
+      final int n = size();
+      final double[] nearX = ( ray.invX >= 0 ) ? this.minX : this.maxX;
+      final double[] farX = ( ray.invX >= 0 ) ? this.maxX : this.minX;
+      final double[] nearY = ( ray.invY >= 0 ) ? this.minY : this.maxY;
+      final double[] farY = ( ray.invY >= 0 ) ? this.maxY : this.minY;
+      final double[] nearZ = ( ray.invZ >= 0 ) ? this.minZ : this.maxZ;
+      final double[] farZ = ( ray.invZ >= 0 ) ? this.maxZ : this.minZ;
+      final double ox = ray.origin.x;
+      final double oy = ray.origin.y;
+      final double oz = ray.origin.z;
+      final double ix = ray.invX;
+      final double iy = ray.invY;
+      final double iz = ray.invZ;
+      final double limit = limit( maxDistance );
+      int best = -1;
+      double bestEntry = Double.POSITIVE_INFINITY;
+      double bestExit = Double.NEGATIVE_INFINITY;
+      for( int i = 0; i < n; i++ )
+      {
+         double near = 0;
+         double far = limit;
+         final double nx = ( nearX[ i ] - ox ) * ix;
+         final double fx = ( farX[ i ] - ox ) * ix;
+         final double ny = ( nearY[ i ] - oy ) * iy;
+         final double fy = ( farY[ i ] - oy ) * iy;
+         final double nz = ( nearZ[ i ] - oz ) * iz;
+         final double fz = ( farZ[ i ] - oz ) * iz;
+         near = ( nx > near ) ? nx : near;
+         near = ( ny > near ) ? ny : near;
+         near = ( nz > near ) ? nz : near;
+         far = ( fx < far ) ? fx : far;
+         far = ( fy < far ) ? fy : far;
+         far = ( fz < far ) ? fz : far;
+         final boolean closer = ( near <= far ) && ( near < bestEntry );
+         best = closer ? i : best;
+         bestEntry = closer ? near : bestEntry;
+         bestExit = closer ? far : bestExit;
+      }
+      if( ( best >= 0 ) && ( result != null ) )
+      {
+         result[ 0 ] = bestEntry;
+         result[ 1 ] = bestExit;
+      }
+      return best;
+   }
+
+   /**
+    * Gets the distance at which to stop testing a ray: the maximum distance, but finite, so that a box that a ray only reaches
+    * at infinity, as a ray with a zero direction component does a box to one side of it, is missed rather than entered.
+    */
+   static double limit( final double maxDistance )
+   {
+      return ( maxDistance < Double.MAX_VALUE ) ? maxDistance : Double.MAX_VALUE;
+   }
+
+   /**
+    * Factory method for creating a buffer from a collection of boxes.
+    *
+    * @param boxes the boxes. Cannot be <code>null</code>.
+    * @return a new buffer holding the boxes in the collection's iteration order.
+    */
+   public static BoundingBox3Buffer fromBoxes( final Collection< BoundingBox3 > boxes )
+   {
+      final BoundingBox3Buffer buffer = new BoundingBox3Buffer( boxes.size() );
+      int i = 0;
+      for( final BoundingBox3 box : boxes )
+      {
+         buffer.set( i++, box );
+      }
+      return buffer;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "BoundingBox3Buffer[%d boxes]", size() ); //$NON-NLS-1$
+   }
+}
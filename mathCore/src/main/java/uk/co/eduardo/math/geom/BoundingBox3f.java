@@ -0,0 +1,358 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Collection;
+import java.util.stream.Collector;
+
+/**
+ * Represents a bounding box with single precision corners.
+ * <p>
+ * The float counterpart of {@link BoundingBox3}. Use {@link #from(BoundingBox3)} and {@link #toDouble()} to convert between
+ * the two.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class BoundingBox3f
+{
+   /** The start corner of the bounding box. */
+   public final Vector3f start;
+
+   /** The end corner of the bounding box. */
+   public final Vector3f end;
+
+   /**
+    * Initializes a new BoundingBox3f object.
+    */
+   public BoundingBox3f()
+   {
+      this( Vector3f.ZERO, Vector3f.ZERO );
+   }
+
+   private BoundingBox3f( final Vector3f start, final Vector3f end )
+   {
+      this.start = start;
+      this.end = end;
+   }
+
+   /**
+    * Tests to see if the bounding box is empty.
+    *
+    * @return whether the bounding box is empty.
+    */
+   public boolean isEmpty()
+   {
+      return ( this.start == Vector3f.ZERO ) && ( this.end == Vector3f.ZERO );
+   }
+
+   /**
+    * Creates a new bounding box by adding a point to this bounding box.
+    *
+    * @param v the point to add to the bounding box. Cannot be <code>null</code>.
+    * @return a new bounding box that also includes the specified point.
+    */
+   public BoundingBox3f union( final Vector3f v )
+   {
+      if( isEmpty() )
+      {
+         return new BoundingBox3f( v, v );
+      }
+
+      final Vector3f s = new Vector3f( Math.min( v.x, this.start.x ), Math.min( v.y, this.start.y ), Math.min( v.z, this.start.z ) );
+      final Vector3f e = new Vector3f( Math.max( v.x, this.end.x ), Math.max( v.y, this.end.y ), Math.max( v.z, this.end.z ) );
+      return new BoundingBox3f( s, e );
+   }
+
+   /**
+    * Gets the centre of the bounding box.
+    *
+    * @return the centre of the bounding box.
+    */
+   public Vector3f getCentroid()
+   {
+      return this.start.add( this.end ).div( 2 );
+   }
+
+   /**
+    * Creates a new bounding box that includes both this bounding box and the other.
+    *
+    * @param other the other bounding box. Cannot be <code>null</code>.
+    * @return a new bounding box that includes both bounding boxes.
+    */
+   public BoundingBox3f union( final BoundingBox3f other )
+   {
+      if( other.isEmpty() )
+      {
+         return this;
+      }
+      if( isEmpty() )
+      {
+         return other;
+      }
+      return new Extent().add( this ).add( other ).toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from a collection of points.
+    *
+    * @param points the points from which to create the bounding box.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox3f fromPoints( final Collection< Vector3f > points )
+   {
+      final Extent extent = new Extent();
+      for( final Vector3f p : points )
+      {
+         extent.add( p.x, p.y, p.z );
+      }
+      return extent.toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from a packed array of interleaved <code>x, y, z</code> coordinates. Inputs
+    * larger than {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox3f fromPoints( final float[] coords, final int offset, final int count )
+   {
+      Batch.checkRange( coords.length, offset, count, 3 );
+      return Batch.reduce( 0, count, ( from, to ) -> new Extent().addInterleaved( coords, offset, from, to ), Extent::merge )
+                  .toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from points held in separate x, y and z coordinate arrays. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are reduced in parallel.
+    *
+    * @param xs the x coordinates. Cannot be <code>null</code>.
+    * @param ys the y coordinates. Cannot be <code>null</code>.
+    * @param zs the z coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point.
+    * @param count the number of points.
+    * @return the bounding box of the points.
+    */
+   public static BoundingBox3f fromPoints( final float[] xs, final float[] ys, final float[] zs, final int offset, final int count )
+   {
+      Batch.checkRange( xs.length, offset, count, 1 );
+      Batch.checkRange( ys.length, offset, count, 1 );
+      Batch.checkRange( zs.length, offset, count, 1 );
+      return Batch.reduce( offset, offset + count, ( from, to ) -> new Extent().addSeparate( xs, ys, zs, from, to ), Extent::merge )
+                  .toBox();
+   }
+
+   /**
+    * Factory method for creating a bounding box from the vectors in a buffer.
+    *
+    * @param points the points from which to create the bounding box. Cannot be <code>null</code>.
+    * @return the bounding box of the points.
+    * @see #fromPoints(float[], float[], float[], int, int)
+    */
+   public static BoundingBox3f fromPoints( final Vector3fBuffer points )
+   {
+      return fromPoints( points.x, points.y, points.z, 0, points.size() );
+   }
+
+   /**
+    * Creates a collector that computes the bounding box of a stream of points. The collector can be used with parallel streams.
+    *
+    * @return a collector that computes the bounding box of the points in a stream.
+    */
+   public static Collector< Vector3f, ?, BoundingBox3f > collector()
+   {
+      return Collector.of( Extent::new,
+                           ( extent, p ) -> extent.add( p.x, p.y, p.z ),
+                           Extent::merge,
+                           Extent::toBox,
+                           Collector.Characteristics.UNORDERED );
+   }
+
+   /**
+    * Converts a double precision bounding box to single precision. The start corner is rounded down and the end corner up, so
+    * that the converted box still contains every point of the original.
+    *
+    * @param box the bounding box to convert. Cannot be <code>null</code>.
+    * @return the single precision bounding box.
+    */
+   public static BoundingBox3f from( final BoundingBox3 box )
+   {
+      if( box.isEmpty() )
+      {
+         return new BoundingBox3f();
+      }
+      final Vector3f s = new Vector3f( roundDown( box.start.x ), roundDown( box.start.y ), roundDown( box.start.z ) );
+      final Vector3f e = new Vector3f( roundUp( box.end.x ), roundUp( box.end.y ), roundUp( box.end.z ) );
+      return new BoundingBox3f( s, e );
+   }
+
+   /**
+    * Converts this bounding box to double precision. The conversion is exact.
+    *
+    * @return the double precision bounding box.
+    */
+   public BoundingBox3 toDouble()
+   {
+      if( isEmpty() )
+      {
+         return new BoundingBox3();
+      }
+      return new BoundingBox3().union( this.start.toDouble() ).union( this.end.toDouble() );
+   }
+
+   private static float roundDown( final double value )
+   {
+      final float f = (float) value;
+      return ( f > value ) ? Math.nextDown( f ) : f;
+   }
+
+   private static float roundUp( final double value )
+   {
+      final float f = (float) value;
+      return ( f < value ) ? Math.nextUp( f ) : f;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "%s -> %s", this.start, this.end ); //$NON-NLS-1$
+   }
+
+   /**
+    * Mutable accumulator for the minimum and maximum coordinates of a set of points.
+    * <p>
+    * Folding {@link Math#min(float, float)} and {@link Math#max(float, float)} from infinite starting values gives exactly the
+    * same result as repeated {@link BoundingBox3f#union(Vector3f)}, without allocating per point.
+    * </p>
+    */
+   private static final class Extent
+   {
+      private float minX = Float.POSITIVE_INFINITY;
+
+      private float minY = Float.POSITIVE_INFINITY;
+
+      private float minZ = Float.POSITIVE_INFINITY;
+
+      private float maxX = Float.NEGATIVE_INFINITY;
+
+      private float maxY = Float.NEGATIVE_INFINITY;
+
+      private float maxZ = Float.NEGATIVE_INFINITY;
+
+      private boolean empty = true;
+
+      Extent add( final float x, final float y, final float z )
+      {
+         this.minX = Math.min( x, this.minX );
+         this.minY = Math.min( y, this.minY );
+         this.minZ = Math.min( z, this.minZ );
+         this.maxX = Math.max( x, this.maxX );
+         this.maxY = Math.max( y, this.maxY );
+         this.maxZ = Math.max( z, this.maxZ );
+         this.empty = false;
+         return this;
+      }
+
+      Extent add( final BoundingBox3f box )
+      {
+         if( !box.isEmpty() )
+         {
+            add( box.start.x, box.start.y, box.start.z );
+            add( box.end.x, box.end.y, box.end.z );
+         }
+         return this;
+      }
+
+      Extent addInterleaved( final float[] coords, final int offset, final int from, final int to )
+      {
+         float x0 = this.minX;
+         float y0 = this.minY;
+         float z0 = this.minZ;
+         float x1 = this.maxX;
+         float y1 = this.maxY;
+         float z1 = this.maxZ;
+         for( int i = offset + ( 3 * from ), end = offset + ( 3 * to ); i < end; i += 3 )
+         {
+            final float x = coords[ i ];
+            final float y = coords[ i + 1 ];
+            final float z = coords[ i + 2 ];
+            x0 = Math.min( x, x0 );
+            y0 = Math.min( y, y0 );
+            z0 = Math.min( z, z0 );
+            x1 = Math.max( x, x1 );
+            y1 = Math.max( y, y1 );
+            z1 = Math.max( z, z1 );
+         }
+         return set( x0, y0, z0, x1, y1, z1, to > from );
+      }
+
+      Extent addSeparate( final float[] xs, final float[] ys, final float[] zs, final int from, final int to )
+      {
+         float x0 = this.minX;
+         float y0 = this.minY;
+         float z0 = this.minZ;
+         float x1 = this.maxX;
+         float y1 = this.maxY;
+         float z1 = this.maxZ;
+         for( int i = from; i < to; i++ )
+         {
+            final float x = xs[ i ];
+            final float y = ys[ i ];
+            final float z = zs[ i ];
+            x0 = Math.min( x, x0 );
+            y0 = Math.min( y, y0 );
+            z0 = Math.min( z, z0 );
+            x1 = Math.max( x, x1 );
+            y1 = Math.max( y, y1 );
+            z1 = Math.max( z, z1 );
+         }
+         return set( x0, y0, z0, x1, y1, z1, to > from );
+      }
+
+      Extent merge( final Extent other )
+      {
+         if( !other.empty )
+         {
+            set( Math.min( other.minX, this.minX ),
+                 Math.min( other.minY, this.minY ),
+                 Math.min( other.minZ, this.minZ ),
+                 Math.max( other.maxX, this.maxX ),
+                 Math.max( other.maxY, this.maxY ),
+                 Math.max( other.maxZ, this.maxZ ),
+                 true );
+         }
+         return this;
+      }
+
+      BoundingBox3f toBox()
+      {
+         if( this.empty )
+         {
+            return new BoundingBox3f();
+         }
+         return new BoundingBox3f( new Vector3f( this.minX, this.minY, this.minZ ), new Vector3f( this.maxX, this.maxY, this.maxZ ) );
+      }
+
+      private Extent set( final float x0,
+                          final float y0,
+                          final float z0,
+                          final float x1,
+                          final float y1,
+                          final float z1,
+                          final boolean added )
+      {
+         this.minX = x0;
+         this.minY = y0;
+         this.minZ = z0;
+         this.maxX = x1;
+         this.maxY = y1;
+         this.maxZ = z1;
+         this.empty &= !added;
+         return this;
+      }
+   }
+}
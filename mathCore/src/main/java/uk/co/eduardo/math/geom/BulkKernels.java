@@ -0,0 +1,104 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * The inner loops of the bulk operations over vectors held in separate x, y and z coordinate arrays. Each kernel processes
+ * the half-open range of indices <code>[from, to)</code> and performs the same floating point operations in the same order
+ * as the equivalent scalar method, so every implementation gives identical results.
+ *
+ * @author erodri02
+ * @see Kernels
+ */
+interface BulkKernels
+{
+   /**
+    * Computes <code>result[i] = a[i] . b[i]</code>.
+    *
+    * @param ax the x coordinates of a.
+    * @param ay the y coordinates of a.
+    * @param az the z coordinates of a.
+    * @param bx the x coordinates of b.
+    * @param by the y coordinates of b.
+    * @param bz the z coordinates of b.
+    * @param result the array into which to write the dot products.
+    * @param from the first index to process.
+    * @param to one past the last index to process.
+    */
+   void dot( double[] ax, double[] ay, double[] az, double[] bx, double[] by, double[] bz, double[] result, int from, int to );
+
+   /**
+    * Computes <code>r[i] = a[i] x b[i]</code>. The result arrays can be the arrays of a or b.
+    *
+    * @param ax the x coordinates of a.
+    * @param ay the y coordinates of a.
+    * @param az the z coordinates of a.
+    * @param bx the x coordinates of b.
+    * @param by the y coordinates of b.
+    * @param bz the z coordinates of b.
+    * @param rx the array into which to write the x coordinates of the result.
+    * @param ry the array into which to write the y coordinates of the result.
+    * @param rz the array into which to write the z coordinates of the result.
+    * @param from the first index to process.
+    * @param to one past the last index to process.
+    */
+   void cross( double[] ax,
+               double[] ay,
+               double[] az,
+               double[] bx,
+               double[] by,
+               double[] bz,
+               double[] rx,
+               double[] ry,
+               double[] rz,
+               int from,
+               int to );
+
+   /**
+    * Computes <code>r[i] = v[i] / |v[i]|</code>. The result arrays can be the arrays of v.
+    *
+    * @param vx the x coordinates of v.
+    * @param vy the y coordinates of v.
+    * @param vz the z coordinates of v.
+    * @param rx the array into which to write the x coordinates of the result.
+    * @param ry the array into which to write the y coordinates of the result.
+    * @param rz the array into which to write the z coordinates of the result.
+    * @param from the first index to process.
+    * @param to one past the last index to process.
+    */
+   void normalize( double[] vx, double[] vy, double[] vz, double[] rx, double[] ry, double[] rz, int from, int to );
+
+   /**
+    * Computes <code>dst[i] = M.src[i]</code>. The destination arrays can be the source arrays.
+    *
+    * @param m the matrix.
+    * @param srcX the source x coordinates.
+    * @param srcY the source y coordinates.
+    * @param srcZ the source z coordinates.
+    * @param dstX the destination x coordinates.
+    * @param dstY the destination y coordinates.
+    * @param dstZ the destination z coordinates.
+    * @param from the first index to process.
+    * @param to one past the last index to process.
+    */
+   void mul( Matrix3 m,
+             double[] srcX,
+             double[] srcY,
+             double[] srcZ,
+             double[] dstX,
+             double[] dstY,
+             double[] dstZ,
+             int from,
+             int to );
+
+   /**
+    * Grows an extent to include every point in the range, using the same semantics as {@link Math#min(double, double)} and
+    * {@link Math#max(double, double)}.
+    *
+    * @param xs the x coordinates.
+    * @param ys the y coordinates.
+    * @param zs the z coordinates.
+    * @param from the first index to process.
+    * @param to one past the last index to process.
+    * @param extent the minimum x, y and z followed by the maximum x, y and z. Read and updated in place.
+    */
+   void extent( double[] xs, double[] ys, double[] zs, int from, int to, double[] extent );
+}
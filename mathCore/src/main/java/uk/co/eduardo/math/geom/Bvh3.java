@@ -0,0 +1,706 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * A bounding volume hierarchy over a set of {@link BoundingBox3} primitives, for ray, segment and box overlap queries.
+ * <p>
+ * The hierarchy is built top-down with the binned surface area heuristic and stored in flat arrays in depth-first order: the
+ * left child of an interior node immediately follows it and the index of the right child is stored with the node. Queries
+ * traverse the hierarchy with an explicit per-thread stack and do not allocate. Results are reported as indices into the boxes
+ * from which the hierarchy was built.
+ * </p>
+ * <p>
+ * When the boxes move, update them with {@link #setBox(int, BoundingBox3)} and call {@link #refit()} to recompute the node
+ * bounds in place. The tree topology is kept, so its quality degrades if boxes move a long way; rebuild it in that case.
+ * Queries must not run concurrently with updates.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Bvh3
+{
+   /** The number of bins per axis used to evaluate candidate splits. */
+   private static final int BINS = 16;
+
+   /** The number of primitives that can be kept in a leaf even if splitting would be cheaper. */
+   private static final int MAX_LEAF_SIZE = 4;
+
+   /** The cost of traversing a node relative to the cost of testing a primitive. */
+   private static final double TRAVERSAL_COST = 1;
+
+   private static final Operation BUILD = Instrumentation.operation( "Bvh3.build" ); //$NON-NLS-1$
+
+   private static final Operation REFIT = Instrumentation.operation( "Bvh3.refit" ); //$NON-NLS-1$
+
+   /** The primitive bounds in the order given, six values per primitive: min x, y, z then max x, y, z. */
+   private final double[] boxes;
+
+   /** The primitive indices in leaf order. */
+   private final int[] prims;
+
+   /** The node bounds, six values per node. */
+   private final double[] nodes;
+
+   /** For a leaf, the index in prims of its first primitive; for an interior node, the index of its right child. */
+   private final int[] nodeIndex;
+
+   /** For a leaf, the number of primitives; zero for an interior node. */
+   private final int[] nodeCount;
+
+   private int nodeTotal;
+
+   private int depth;
+
+   private final ThreadLocal< Stack > stacks = ThreadLocal.withInitial( () -> new Stack( this.depth + 1 ) );
+
+   private Bvh3( final double[] boxes )
+   {
+      final int n = boxes.length / 6;
+      this.boxes = boxes;
+      this.prims = new int[ n ];
+      for( int i = 0; i < n; i++ )
+      {
+         this.prims[ i ] = i;
+      }
+      final int capacity = Math.max( 1, ( 2 * n ) - 1 );
+      this.nodes = new double[ 6 * capacity ];
+      this.nodeIndex = new int[ capacity ];
+      this.nodeCount = new int[ capacity ];
+      final Operation.Span span = BUILD.begin();
+      if( n > 0 )
+      {
+         new Builder().build( 0, n, 0 );
+      }
+      BUILD.end( span, n );
+   }
+
+   /**
+    * Gets the number of boxes in the hierarchy.
+    *
+    * @return the number of boxes in the hierarchy.
+    */
+   public int size()
+   {
+      return this.prims.length;
+   }
+
+   /**
+    * Gets one of the boxes in the hierarchy.
+    *
+    * @param index the index of the box.
+    * @return the box.
+    */
+   public BoundingBox3 getBox( final int index )
+   {
+      final int b = 6 * index;
+      if( this.boxes[ b ] > this.boxes[ b + 3 ] )
+      {
+         return new BoundingBox3();
+      }
+      return BoundingBox3.fromPoints( this.boxes, b, 2 );
+   }
+
+   /**
+    * Replaces one of the boxes in the hierarchy. The hierarchy is not valid for queries again until {@link #refit()} is called.
+    *
+    * @param index the index of the box.
+    * @param box the new box. Cannot be <code>null</code>.
+    */
+   public void setBox( final int index, final BoundingBox3 box )
+   {
+      storeBox( this.boxes, index, box );
+   }
+
+   /**
+    * Recomputes the bounds of every node from the current boxes, keeping the tree topology.
+    */
+   public void refit()
+   {
+      final Operation.Span span = REFIT.begin();
+      // Children always follow their parent, so a reverse sweep visits children first
+      for( int node = this.nodeTotal - 1; node >= 0; node-- )
+      {
+         final int n = 6 * node;
+         Arrays.fill( this.nodes, n, n + 3, Double.POSITIVE_INFINITY );
+         Arrays.fill( this.nodes, n + 3, n + 6, Double.NEGATIVE_INFINITY );
+         if( this.nodeCount[ node ] > 0 )
+         {
+            final int first = this.nodeIndex[ node ];
+            for( int i = first; i < ( first + this.nodeCount[ node ] ); i++ )
+            {
+               grow( this.nodes, n, this.boxes, 6 * this.prims[ i ] );
+            }
+         }
+         else
+         {
+            grow( this.nodes, n, this.nodes, 6 * ( node + 1 ) );
+            grow( this.nodes, n, this.nodes, 6 * this.nodeIndex[ node ] );
+         }
+      }
+      REFIT.end( span, this.prims.length );
+   }
+
+   /**
+    * Finds the nearest box hit by a ray.
+    *
+    * @param ray the ray. Cannot be <code>null</code>.
+    * @param maxDistance the distance along the ray beyond which boxes are ignored.
+    * @param hit receives the nearest box hit and the distance at which the ray enters it, which is zero if the ray starts inside
+    *           it. Cannot be <code>null</code>.
+    * @return whether any box was hit.
+    */
+   public boolean raycast( final Ray3 ray, final double maxDistance, final RayHit hit )
+   {
+      hit.clear();
+      return traverse( ray.origin.x, ray.origin.y, ray.origin.z, ray.invX, ray.invY, ray.invZ, maxDistance, hit );
+   }
+
+   /**
+    * Finds the box hit nearest to the start of a line segment.
+    *
+    * @param segment the line segment. Cannot be <code>null</code>.
+    * @param hit receives the nearest box hit and the fraction of the way along the segment at which the segment enters it.
+    *           Cannot be <code>null</code>.
+    * @return whether any box was hit.
+    */
+   public boolean raycast( final LineSegment3 segment, final RayHit hit )
+   {
+      hit.clear();
+      final Vector3 start = segment.start;
+      final Vector3 end = segment.end;
+      return traverse( start.x,
+                       start.y,
+                       start.z,
+                       1 / ( end.x - start.x ),
+                       1 / ( end.y - start.y ),
+                       1 / ( end.z - start.z ),
+                       1,
+                       hit );
+   }
+
+   /**
+    * Tests whether a ray hits any box. The traversal stops at the first box found.
+    *
+    * @param ray the ray. Cannot be <code>null</code>.
+    * @param maxDistance the distance along the ray beyond which boxes are ignored.
+    * @return whether any box was hit.
+    */
+   public boolean intersects( final Ray3 ray, final double maxDistance )
+   {
+      return traverse( ray.origin.x, ray.origin.y, ray.origin.z, ray.invX, ray.invY, ray.invZ, maxDistance, null );
+   }
+
+   /**
+    * Tests whether a line segment hits any box. The traversal stops at the first box found.
+    *
+    * @param segment the line segment. Cannot be <code>null</code>.
+    * @return whether any box was hit.
+    */
+   public boolean intersects( final LineSegment3 segment )
+   {
+      final Vector3 start = segment.start;
+      final Vector3 end = segment.end;
+      return traverse( start.x,
+                       start.y,
+                       start.z,
+                       1 / ( end.x - start.x ),
+                       1 / ( end.y - start.y ),
+                       1 / ( end.z - start.z ),
+                       1,
+                       null );
+   }
+
+   /**
+    * Finds every box that overlaps a query box. Boxes that only touch the query box are included.
+    *
+    * @param box the query box. Cannot be <code>null</code>.
+    * @param consumer receives the index of every overlapping box. Cannot be <code>null</code>.
+    * @return the number of overlapping boxes.
+    */
+   public int overlapping( final BoundingBox3 box, final IntConsumer consumer )
+   {
+      if( box.isEmpty() )
+      {
+         return 0;
+      }
+      return overlapping( box.start.x, box.start.y, box.start.z, box.end.x, box.end.y, box.end.z, consumer );
+   }
+
+   /**
+    * Finds every box that overlaps a query box given by its corners, without allocating.
+    *
+    * @param minX the minimum x of the query box.
+    * @param minY the minimum y of the query box.
+    * @param minZ the minimum z of the query box.
+    * @param maxX the maximum x of the query box.
+    * @param maxY the maximum y of the query box.
+    * @param maxZ the maximum z of the query box.
+    * @param consumer receives the index of every overlapping box.
+    * @return the number of overlapping boxes.
+    */
+   int overlapping( final double minX,
+                    final double minY,
+                    final double minZ,
+                    final double maxX,
+                    final double maxY,
+                    final double maxZ,
+                    final IntConsumer consumer )
+   {
+      if( this.nodeTotal == 0 )
+      {
+         return 0;
+      }
+      final Stack stack = this.stacks.get();
+      int sp = 0;
+      int found = 0;
+      int node = 0;
+      while( true )
+      {
+         if( overlaps( this.nodes, 6 * node, minX, minY, minZ, maxX, maxY, maxZ ) )
+         {
+            if( this.nodeCount[ node ] > 0 )
+            {
+               final int first = this.nodeIndex[ node ];
+               for( int i = first; i < ( first + this.nodeCount[ node ] ); i++ )
+               {
+                  final int p = this.prims[ i ];
+                  if( overlaps( this.boxes, 6 * p, minX, minY, minZ, maxX, maxY, maxZ ) )
+                  {
+                     consumer.accept( p );
+                     found++;
+                  }
+               }
+            }
+            else
+            {
+               stack.nodes[ sp++ ] = this.nodeIndex[ node ];
+               node++;
+               continue;
+            }
+         }
+         if( sp == 0 )
+         {
+            return found;
+         }
+         node = stack.nodes[ --sp ];
+      }
+   }
+
+   /**
+    * Traverses the hierarchy front to back along a ray given by its origin and the reciprocals of its direction components, so
+    * that segment queries need not allocate a ray.
+    *
+    * @param hit receives the nearest hit, or <code>null</code> to stop at the first hit.
+    * @return whether any box was hit.
+    */
+   private boolean traverse( final double ox,
+                             final double oy,
+                             final double oz,
+                             final double ix,
+                             final double iy,
+                             final double iz,
+                             final double maxDistance,
+                             final RayHit hit )
+   {
+      if( ( this.nodeTotal == 0 ) || ( entry( this.nodes, 0, ox, oy, oz, ix, iy, iz, maxDistance ) == Double.POSITIVE_INFINITY ) )
+      {
+         return false;
+      }
+
+      final Stack stack = this.stacks.get();
+      int sp = 0;
+      int node = 0;
+      int nearest = -1;
+      double best = maxDistance;
+      while( true )
+      {
+         if( this.nodeCount[ node ] > 0 )
+         {
+            final int first = this.nodeIndex[ node ];
+            for( int i = first; i < ( first + this.nodeCount[ node ] ); i++ )
+            {
+               final int p = this.prims[ i ];
+               final double t = entry( this.boxes, p, ox, oy, oz, ix, iy, iz, best );
+               if( ( t != Double.POSITIVE_INFINITY ) && ( ( nearest < 0 ) || ( t < best ) ) )
+               {
+                  if( hit == null )
+                  {
+                     return true;
+                  }
+                  nearest = p;
+                  best = t;
+               }
+            }
+         }
+         else
+         {
+            final int left = node + 1;
+            final int right = this.nodeIndex[ node ];
+            final double tLeft = entry( this.nodes, left, ox, oy, oz, ix, iy, iz, best );
+            final double tRight = entry( this.nodes, right, ox, oy, oz, ix, iy, iz, best );
+            if( tLeft != Double.POSITIVE_INFINITY )
+            {
+               if( tRight != Double.POSITIVE_INFINITY )
+               {
+                  final boolean leftFirst = tLeft <= tRight;
+                  stack.nodes[ sp ] = leftFirst ? right : left;
+                  stack.distances[ sp++ ] = leftFirst ? tRight : tLeft;
+                  node = leftFirst ? left : right;
+               }
+               else
+               {
+                  node = left;
+               }
+               continue;
+            }
+            if( tRight != Double.POSITIVE_INFINITY )
+            {
+               node = right;
+               continue;
+            }
+         }
+
+         // Pop the next subtree that could still contain a nearer hit
+         do
+         {
+            if( sp == 0 )
+            {
+               if( nearest >= 0 )
+               {
+                  hit.set( nearest, best );
+               }
+               return nearest >= 0;
+            }
+            node = stack.nodes[ --sp ];
+         }
+         while( stack.distances[ sp ] > best );
+      }
+   }
+
+   /**
+    * Calculates the distance along a ray at which it enters the box at an index of an array of boxes stored as six values.
+    */
+   private static double entry( final double[] a,
+                                final int index,
+                                final double ox,
+                                final double oy,
+                                final double oz,
+                                final double ix,
+                                final double iy,
+                                final double iz,
+                                final double tMax )
+   {
+      final int i = 6 * index;
+      return Ray3.entry( ox, oy, oz, ix, iy, iz, a[ i ], a[ i + 1 ], a[ i + 2 ], a[ i + 3 ], a[ i + 4 ], a[ i + 5 ], 0, tMax );
+   }
+
+   private static boolean overlaps( final double[] a,
+                                    final int i,
+                                    final double minX,
+                                    final double minY,
+                                    final double minZ,
+                                    final double maxX,
+                                    final double maxY,
+                                    final double maxZ )
+   {
+      return ( a[ i ] <= maxX ) &&
+             ( a[ i + 3 ] >= minX ) &&
+             ( a[ i + 1 ] <= maxY ) &&
+             ( a[ i + 4 ] >= minY ) &&
+             ( a[ i + 2 ] <= maxZ ) &&
+             ( a[ i + 5 ] >= minZ );
+   }
+
+   private static void grow( final double[] dst, final int d, final double[] src, final int s )
+   {
+      dst[ d ] = Math.min( dst[ d ], src[ s ] );
+      dst[ d + 1 ] = Math.min( dst[ d + 1 ], src[ s + 1 ] );
+      dst[ d + 2 ] = Math.min( dst[ d + 2 ], src[ s + 2 ] );
+      dst[ d + 3 ] = Math.max( dst[ d + 3 ], src[ s + 3 ] );
+      dst[ d + 4 ] = Math.max( dst[ d + 4 ], src[ s + 4 ] );
+      dst[ d + 5 ] = Math.max( dst[ d + 5 ], src[ s + 5 ] );
+   }
+
+   private static double area( final double[] a, final int i )
+   {
+      final double dx = a[ i + 3 ] - a[ i ];
+      final double dy = a[ i + 4 ] - a[ i + 1 ];
+      final double dz = a[ i + 5 ] - a[ i + 2 ];
+      if( ( dx < 0 ) || ( dy < 0 ) || ( dz < 0 ) )
+      {
+         return 0;
+      }
+      return 2 * ( ( dx * dy ) + ( dy * dz ) + ( dz * dx ) );
+   }
+
+   /**
+    * Stores a box as six values. Empty boxes are stored inverted so that nothing intersects them.
+    */
+   private static void storeBox( final double[] dst, final int index, final BoundingBox3 box )
+   {
+      final int b = 6 * index;
+      if( box.isEmpty() )
+      {
+         Arrays.fill( dst, b, b + 3, Double.POSITIVE_INFINITY );
+         Arrays.fill( dst, b + 3, b + 6, Double.NEGATIVE_INFINITY );
+         return;
+      }
+      dst[ b ] = box.start.x;
+      dst[ b + 1 ] = box.start.y;
+      dst[ b + 2 ] = box.start.z;
+      dst[ b + 3 ] = box.end.x;
+      dst[ b + 4 ] = box.end.y;
+      dst[ b + 5 ] = box.end.z;
+   }
+
+   /**
+    * Factory method for creating a hierarchy over packed boxes, six values per box: min x, y, z then max x, y, z. The hierarchy
+    * keeps the array rather than copying it.
+    *
+    * @param boxes the packed boxes.
+    * @return a hierarchy over the boxes.
+    */
+   static Bvh3 fromPacked( final double[] boxes )
+   {
+      return new Bvh3( boxes );
+   }
+
+   /**
+    * Factory method for creating a hierarchy over a collection of boxes. Box indices follow the iteration order of the
+    * collection.
+    *
+    * @param boxes the boxes. Cannot be <code>null</code>.
+    * @return a hierarchy over the boxes.
+    */
+   public static Bvh3 fromBoxes( final Collection< BoundingBox3 > boxes )
+   {
+      final double[] packed = new double[ 6 * boxes.size() ];
+      int i = 0;
+      for( final BoundingBox3 box : boxes )
+      {
+         storeBox( packed, i++, box );
+      }
+      return new Bvh3( packed );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "Bvh3[%d boxes, %d nodes, depth %d]", size(), this.nodeTotal, this.depth ); //$NON-NLS-1$
+   }
+
+   /**
+    * Per-thread traversal stack.
+    */
+   private static final class Stack
+   {
+      final int[] nodes;
+
+      final double[] distances;
+
+      Stack( final int capacity )
+      {
+         this.nodes = new int[ capacity ];
+         this.distances = new double[ capacity ];
+      }
+   }
+
+   /**
+    * Top-down binned SAH builder.
+    */
+   private final class Builder
+   {
+      private final double[] centroids = new double[ 3 * Bvh3.this.prims.length ];
+
+      private final double[] binBounds = new double[ 6 * BINS ];
+
+      private final int[] binCounts = new int[ BINS ];
+
+      private final double[] sweep = new double[ 6 ];
+
+      private final double[] leftAreas = new double[ BINS ];
+
+      private final int[] leftCounts = new int[ BINS ];
+
+      Builder()
+      {
+         final double[] b = Bvh3.this.boxes;
+         for( int p = 0; p < Bvh3.this.prims.length; p++ )
+         {
+            if( b[ 6 * p ] <= b[ ( 6 * p ) + 3 ] )
+            {
+               this.centroids[ 3 * p ] = 0.5 * ( b[ 6 * p ] + b[ ( 6 * p ) + 3 ] );
+               this.centroids[ ( 3 * p ) + 1 ] = 0.5 * ( b[ ( 6 * p ) + 1 ] + b[ ( 6 * p ) + 4 ] );
+               this.centroids[ ( 3 * p ) + 2 ] = 0.5 * ( b[ ( 6 * p ) + 2 ] + b[ ( 6 * p ) + 5 ] );
+            }
+         }
+      }
+
+      void build( final int first, final int count, final int level )
+      {
+         final int node = Bvh3.this.nodeTotal++;
+         Bvh3.this.depth = Math.max( Bvh3.this.depth, level );
+
+         final int n = 6 * node;
+         final double[] nodes = Bvh3.this.nodes;
+         final int[] prims = Bvh3.this.prims;
+         Arrays.fill( nodes, n, n + 3, Double.POSITIVE_INFINITY );
+         Arrays.fill( nodes, n + 3, n + 6, Double.NEGATIVE_INFINITY );
+         double cMinX = Double.POSITIVE_INFINITY;
+         double cMinY = Double.POSITIVE_INFINITY;
+         double cMinZ = Double.POSITIVE_INFINITY;
+         double cMaxX = Double.NEGATIVE_INFINITY;
+         double cMaxY = Double.NEGATIVE_INFINITY;
+         double cMaxZ = Double.NEGATIVE_INFINITY;
+         for( int i = first; i < ( first + count ); i++ )
+         {
+            final int p = prims[ i ];
+            grow( nodes, n, Bvh3.this.boxes, 6 * p );
+            cMinX = Math.min( cMinX, this.centroids[ 3 * p ] );
+            cMinY = Math.min( cMinY, this.centroids[ ( 3 * p ) + 1 ] );
+            cMinZ = Math.min( cMinZ, this.centroids[ ( 3 * p ) + 2 ] );
+            cMaxX = Math.max( cMaxX, this.centroids[ 3 * p ] );
+            cMaxY = Math.max( cMaxY, this.centroids[ ( 3 * p ) + 1 ] );
+            cMaxZ = Math.max( cMaxZ, this.centroids[ ( 3 * p ) + 2 ] );
+         }
+
+         if( count == 1 )
+         {
+            makeLeaf( node, first, count );
+            return;
+         }
+
+         final double[] cMin = { cMinX, cMinY, cMinZ };
+         final double[] cMax = { cMaxX, cMaxY, cMaxZ };
+         double bestCost = Double.POSITIVE_INFINITY;
+         int bestAxis = -1;
+         int bestBin = -1;
+         for( int axis = 0; axis < 3; axis++ )
+         {
+            final double extent = cMax[ axis ] - cMin[ axis ];
+            if( !( extent > 0 ) )
+            {
+               continue;
+            }
+            final double scale = BINS / extent;
+            binPrimitives( first, count, axis, cMin[ axis ], scale );
+
+            // Sweep from the left recording the area and count on the left of each split
+            resetSweep();
+            int leftCount = 0;
+            for( int bin = 0; bin < ( BINS - 1 ); bin++ )
+            {
+               grow( this.sweep, 0, this.binBounds, 6 * bin );
+               leftCount += this.binCounts[ bin ];
+               this.leftAreas[ bin ] = area( this.sweep, 0 );
+               this.leftCounts[ bin ] = leftCount;
+            }
+
+            // Sweep from the right evaluating the cost of splitting after each bin
+            resetSweep();
+            int rightCount = 0;
+            for( int bin = BINS - 1; bin > 0; bin-- )
+            {
+               grow( this.sweep, 0, this.binBounds, 6 * bin );
+               rightCount += this.binCounts[ bin ];
+               final int split = bin - 1;
+               if( ( rightCount == 0 ) || ( this.leftCounts[ split ] == 0 ) )
+               {
+                  continue;
+               }
+               final double cost = ( this.leftCounts[ split ] * this.leftAreas[ split ] ) + ( rightCount * area( this.sweep, 0 ) );
+               if( cost < bestCost )
+               {
+                  bestCost = cost;
+                  bestAxis = axis;
+                  bestBin = split;
+               }
+            }
+         }
+
+         int mid;
+         if( bestAxis < 0 )
+         {
+            // Every centroid coincides, so no split separates anything
+            if( count <= MAX_LEAF_SIZE )
+            {
+               makeLeaf( node, first, count );
+               return;
+            }
+            mid = first + ( count / 2 );
+         }
+         else
+         {
+            final double nodeArea = area( nodes, n );
+            final double splitCost = nodeArea > 0 ? TRAVERSAL_COST + ( bestCost / nodeArea ) : TRAVERSAL_COST + count;
+            if( ( count <= MAX_LEAF_SIZE ) && ( splitCost >= count ) )
+            {
+               makeLeaf( node, first, count );
+               return;
+            }
+            final double scale = BINS / ( cMax[ bestAxis ] - cMin[ bestAxis ] );
+            mid = first;
+            int j = ( first + count ) - 1;
+            while( mid <= j )
+            {
+               if( bin( prims[ mid ], bestAxis, cMin[ bestAxis ], scale ) <= bestBin )
+               {
+                  mid++;
+               }
+               else
+               {
+                  final int p = prims[ mid ];
+                  prims[ mid ] = prims[ j ];
+                  prims[ j-- ] = p;
+               }
+            }
+         }
+
+         build( first, mid - first, level + 1 );
+         Bvh3.this.nodeIndex[ node ] = Bvh3.this.nodeTotal;
+         Bvh3.this.nodeCount[ node ] = 0;
+         build( mid, ( first + count ) - mid, level + 1 );
+      }
+
+      private void makeLeaf( final int node, final int first, final int count )
+      {
+         Bvh3.this.nodeIndex[ node ] = first;
+         Bvh3.this.nodeCount[ node ] = count;
+      }
+
+      private void binPrimitives( final int first, final int count, final int axis, final double min, final double scale )
+      {
+         Arrays.fill( this.binCounts, 0 );
+         for( int bin = 0; bin < BINS; bin++ )
+         {
+            Arrays.fill( this.binBounds, 6 * bin, ( 6 * bin ) + 3, Double.POSITIVE_INFINITY );
+            Arrays.fill( this.binBounds, ( 6 * bin ) + 3, ( 6 * bin ) + 6, Double.NEGATIVE_INFINITY );
+         }
+         for( int i = first; i < ( first + count ); i++ )
+         {
+            final int p = Bvh3.this.prims[ i ];
+            final int bin = bin( p, axis, min, scale );
+            this.binCounts[ bin ]++;
+            grow( this.binBounds, 6 * bin, Bvh3.this.boxes, 6 * p );
+         }
+      }
+
+      private int bin( final int p, final int axis, final double min, final double scale )
+      {
+         final int bin = (int) ( ( this.centroids[ ( 3 * p ) + axis ] - min ) * scale );
+         return Math.min( bin, BINS - 1 );
+      }
+
+      private void resetSweep()
+      {
+         Arrays.fill( this.sweep, 0, 3, Double.POSITIVE_INFINITY );
+         Arrays.fill( this.sweep, 3, 6, Double.NEGATIVE_INFINITY );
+      }
+   }
+}
@@ -0,0 +1,161 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Collection;
+
+/**
+ * Accumulates the mean and covariance of a stream of 3D points in a single pass, without storing the points.
+ * <p>
+ * The points are summarized by a {@link PointStatistics3}, which updates the running mean and the sums of products of
+ * deviations from it, as in Welford's algorithm, and stays accurate when the points are far from the origin compared with their
+ * spread. Summing <code>x * x</code> and subtracting the square of the mean at the end would lose most of its significant digits
+ * in that case. Two accumulators can be merged, so parts of a point set can be accumulated separately, and the bulk methods
+ * use the blocked and parallel summaries of {@link PointStatistics3}.
+ * </p>
+ * <p>
+ * The accumulator is mutable and not thread safe.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Covariance3
+{
+   private final PointStatistics3 statistics = new PointStatistics3();
+
+   /**
+    * Adds a point.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    */
+   public void add( final Vector3 p )
+   {
+      this.statistics.add( p.x, p.y, p.z );
+   }
+
+   /**
+    * Adds a point.
+    *
+    * @param x the x coordinate of the point.
+    * @param y the y coordinate of the point.
+    * @param z the z coordinate of the point.
+    */
+   public void add( final double x, final double y, final double z )
+   {
+      this.statistics.add( x, y, z );
+   }
+
+   /**
+    * Adds every point in a collection.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    */
+   public void add( final Collection< Vector3 > points )
+   {
+      this.statistics.add( points );
+   }
+
+   /**
+    * Adds every point in a buffer. Buffers larger than {@link Batch#getParallelThreshold()} points are summarized in parallel.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    */
+   public void add( final Vector3Buffer points )
+   {
+      this.statistics.add( points );
+   }
+
+   /**
+    * Adds every point in a packed array of interleaved <code>x, y, z</code> coordinates. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are summarized in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param n the number of points.
+    */
+   public void add( final double[] coords, final int offset, final int n )
+   {
+      this.statistics.add( coords, offset, n );
+   }
+
+   /**
+    * Adds all the points accumulated by another accumulator, as though they had been added to this one. The other accumulator
+    * is not changed.
+    *
+    * @param other the accumulator to merge into this one. Cannot be <code>null</code>.
+    */
+   public void add( final Covariance3 other )
+   {
+      this.statistics.combine( other.statistics );
+   }
+
+   /**
+    * Removes all the points.
+    */
+   public void clear()
+   {
+      this.statistics.clear();
+   }
+
+   /**
+    * Gets the number of points added.
+    *
+    * @return the number of points.
+    */
+   public long getCount()
+   {
+      return this.statistics.getCount();
+   }
+
+   /**
+    * Gets the mean of the points added.
+    *
+    * @return the centroid of the points, or the origin if there are none.
+    */
+   public Vector3 getMean()
+   {
+      return this.statistics.getMean();
+   }
+
+   /**
+    * Gets the population covariance of the points added, the sums of products of deviations from the mean divided by the
+    * number of points.
+    *
+    * @return the symmetric covariance matrix, or zero if there are no points.
+    */
+   public Matrix3 getCovariance()
+   {
+      return this.statistics.getCovariance();
+   }
+
+   /**
+    * Fits a plane to the points added, minimizing the sum of the squared distances of the points from it. The plane passes
+    * through the mean and its normal is the direction in which the points vary least. Its horizontal vector is the direction in
+    * which they vary most.
+    * <p>
+    * The sign of the normal is arbitrary. If the points are collinear or coincident the plane is one of many equally good fits.
+    * </p>
+    *
+    * @return the best fit plane, or <code>null</code> if fewer than three points have been added.
+    */
+   public OrientedPlane fitPlane()
+   {
+      if( getCount() < 3 )
+      {
+         return null;
+      }
+      final Matrix3 c = getCovariance();
+      final double[] result = new double[ SymmetricEigen3.RESULT_SIZE ];
+      SymmetricEigen3.decompose( c.a00, c.a01, c.a02, c.a11, c.a12, c.a22, result, 0 );
+      return new OrientedPlane( new Vector3( result[ 9 ], result[ 10 ], result[ 11 ] ),
+                                new Vector3( result[ 6 ], result[ 7 ], result[ 8 ] ),
+                                getMean() );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "Covariance3[count: %d, mean: %s]", getCount(), getMean() ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,135 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Constants of the compact binary format written by {@link GeometryWriter} and read by {@link GeometryReader}.
+ * <p>
+ * A stream starts with an 8 byte header: the ASCII magic <code>GEOM</code>, a version byte and three reserved zero bytes. It is
+ * followed by any number of records, each a one byte type tag and a payload of little-endian IEEE 754 doubles:
+ * </p>
+ * <table summary="Record layouts">
+ * <tr>
+ * <th>Type</th>
+ * <th>Payload</th>
+ * </tr>
+ * <tr>
+ * <td>{@link #VECTOR2}, {@link #VECTOR3}</td>
+ * <td>the components.</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #MATRIX2}, {@link #MATRIX3}</td>
+ * <td>the elements in row-major order.</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #BOUNDING_BOX2}, {@link #BOUNDING_BOX3}</td>
+ * <td>the start and end corners. An empty box is written with a start of positive infinity and an end of negative infinity.</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #LINE_SEGMENT2}, {@link #LINE_SEGMENT3}</td>
+ * <td>the start and end points.</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #DOUBLES}</td>
+ * <td>a little-endian 32 bit count, zero padding up to the next multiple of 8 bytes from the start of the stream, and the
+ * values. The padding lets readers view the values in place.</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #POINT_STATISTICS3}</td>
+ * <td>the number of points, the mean, the minimum and maximum corners of the bounding box, the sums of products of deviations
+ * from the mean <code>xx, xy, xz, yy, yz, zz</code>, and the sums of third and of fourth powers of deviations in x, y and z.
+ * Statistics of no points have a minimum of positive infinity and a maximum of negative infinity.</td>
+ * </tr>
+ * </table>
+ * <p>
+ * Doubles are written bit for bit, so values read back are identical to those written, including infinities, NaNs and negative
+ * zero.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class GeometryFormat
+{
+   /** The magic number at the start of every stream: the ASCII characters <code>GEOM</code>, read as a big-endian int. */
+   public static final int MAGIC = 0x47454F4D;
+
+   /** The version of the format written by this library. */
+   public static final int VERSION = 1;
+
+   /** The length in bytes of the stream header. */
+   public static final int HEADER_SIZE = 8;
+
+   /** Indicates the end of the stream rather than a record type. */
+   public static final int END = -1;
+
+   /** The type of a {@link Vector2} record. */
+   public static final int VECTOR2 = 1;
+
+   /** The type of a {@link Vector3} record. */
+   public static final int VECTOR3 = 2;
+
+   /** The type of a {@link Matrix2} record. */
+   public static final int MATRIX2 = 3;
+
+   /** The type of a {@link Matrix3} record. */
+   public static final int MATRIX3 = 4;
+
+   /** The type of a {@link BoundingBox2} record. */
+   public static final int BOUNDING_BOX2 = 5;
+
+   /** The type of a {@link BoundingBox3} record. */
+   public static final int BOUNDING_BOX3 = 6;
+
+   /** The type of a {@link LineSegment2} record. */
+   public static final int LINE_SEGMENT2 = 7;
+
+   /** The type of a {@link LineSegment3} record. */
+   public static final int LINE_SEGMENT3 = 8;
+
+   /** The type of a packed array of doubles. */
+   public static final int DOUBLES = 9;
+
+   /** The type of a {@link PointStatistics3} record. */
+   public static final int POINT_STATISTICS3 = 10;
+
+   private static final String[] NAMES = { null,
+                                           "Vector2", //$NON-NLS-1$
+                                           "Vector3", //$NON-NLS-1$
+                                           "Matrix2", //$NON-NLS-1$
+                                           "Matrix3", //$NON-NLS-1$
+                                           "BoundingBox2", //$NON-NLS-1$
+                                           "BoundingBox3", //$NON-NLS-1$
+                                           "LineSegment2", //$NON-NLS-1$
+                                           "LineSegment3", //$NON-NLS-1$
+                                           "doubles", //$NON-NLS-1$
+                                           "PointStatistics3" }; //$NON-NLS-1$
+
+   private GeometryFormat()
+   {
+      // Utility class
+   }
+
+   /**
+    * Gets a description of a record type, for error messages.
+    *
+    * @param type the record type.
+    * @return the name of the type.
+    */
+   static String describe( final int type )
+   {
+      if( type == END )
+      {
+         return "end of stream"; //$NON-NLS-1$
+      }
+      return ( type >= VECTOR2 ) && ( type <= POINT_STATISTICS3 ) ? NAMES[ type ] : "unknown record type " + type; //$NON-NLS-1$
+   }
+
+   /**
+    * Gets the number of padding bytes needed to align a position in the stream to a multiple of 8 bytes.
+    *
+    * @param position the position from the start of the stream.
+    * @return the number of padding bytes.
+    */
+   static int padding( final long position )
+   {
+      return (int) ( -position & 7 );
+   }
+}
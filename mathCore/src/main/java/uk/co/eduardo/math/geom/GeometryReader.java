@@ -0,0 +1,389 @@
+package uk.co.eduardo.math.geom;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+
+/**
+ * Reads geometry in the compact binary format described by {@link GeometryFormat}.
+ * <p>
+ * A reader either streams from a channel through an internal buffer, or reads straight from a caller-supplied
+ * {@link ByteBuffer}, such as a memory-mapped file. When reading from a buffer, {@link #readDoubleBuffer()} returns a view of the
+ * packed values in place rather than copying them. Readers are not thread-safe.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class GeometryReader implements Closeable
+{
+   /** The size of the internal buffer used when reading from a channel. */
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   /** The channel from which the buffer is filled, or <code>null</code> when reading from a caller-supplied buffer. */
+   private final ReadableByteChannel channel;
+
+   private final ByteBuffer buffer;
+
+   /** The position in the buffer at which the stream starts. */
+   private final int origin;
+
+   /** The number of bytes discarded from the start of the buffer when it is refilled. */
+   private long discarded;
+
+   /**
+    * Initializes a new GeometryReader object that streams from a channel, and reads the stream header.
+    *
+    * @param channel the channel from which to read. Closed when the reader is closed. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be read or does not start with a supported header.
+    */
+   public GeometryReader( final ReadableByteChannel channel ) throws IOException
+   {
+      this( Objects.requireNonNull( channel ), (ByteBuffer) ( (Buffer) ByteBuffer.allocateDirect( BUFFER_SIZE ) ).flip() );
+   }
+
+   /**
+    * Initializes a new GeometryReader object that reads from a buffer, starting at its position, and reads the stream header.
+    * The buffer's byte order is set to little-endian and its position is advanced past each record as it is read.
+    *
+    * @param buffer the buffer from which to read. Cannot be <code>null</code>.
+    * @throws IOException if the buffer does not start with a supported header.
+    */
+   public GeometryReader( final ByteBuffer buffer ) throws IOException
+   {
+      this( null, buffer );
+   }
+
+   private GeometryReader( final ReadableByteChannel channel, final ByteBuffer buffer ) throws IOException
+   {
+      this.channel = channel;
+      this.buffer = buffer.order( ByteOrder.LITTLE_ENDIAN );
+      this.origin = buffer.position();
+      require( GeometryFormat.HEADER_SIZE );
+      final int magic = this.buffer.order( ByteOrder.BIG_ENDIAN ).getInt();
+      this.buffer.order( ByteOrder.LITTLE_ENDIAN );
+      final int version = this.buffer.get();
+      this.buffer.get();
+      this.buffer.get();
+      this.buffer.get();
+      if( magic != GeometryFormat.MAGIC )
+      {
+         throw new IOException( String.format( "Not a geometry stream: magic number 0x%08X", magic ) ); //$NON-NLS-1$
+      }
+      if( ( version < 1 ) || ( version > GeometryFormat.VERSION ) )
+      {
+         throw new IOException( "Unsupported geometry format version: " + version ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * Gets the type of the next record without reading it.
+    *
+    * @return the type of the next record, one of the record type constants in {@link GeometryFormat}, or
+    *         {@link GeometryFormat#END} at the end of the stream.
+    * @throws IOException if the channel cannot be read.
+    */
+   public int nextType() throws IOException
+   {
+      return fill( 1 ) ? this.buffer.get( this.buffer.position() ) : GeometryFormat.END;
+   }
+
+   /**
+    * Reads a vector.
+    *
+    * @return the vector read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link Vector2}.
+    */
+   public Vector2 readVector2() throws IOException
+   {
+      start( GeometryFormat.VECTOR2, 2 );
+      return new Vector2( this.buffer.getDouble(), this.buffer.getDouble() );
+   }
+
+   /**
+    * Reads a vector.
+    *
+    * @return the vector read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link Vector3}.
+    */
+   public Vector3 readVector3() throws IOException
+   {
+      start( GeometryFormat.VECTOR3, 3 );
+      return new Vector3( this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble() );
+   }
+
+   /**
+    * Reads a matrix.
+    *
+    * @return the matrix read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link Matrix2}.
+    */
+   public Matrix2 readMatrix2() throws IOException
+   {
+      start( GeometryFormat.MATRIX2, 4 );
+      return new Matrix2( this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble() );
+   }
+
+   /**
+    * Reads a matrix.
+    *
+    * @return the matrix read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link Matrix3}.
+    */
+   public Matrix3 readMatrix3() throws IOException
+   {
+      start( GeometryFormat.MATRIX3, 9 );
+      return new Matrix3( this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble(),
+                          this.buffer.getDouble() );
+   }
+
+   /**
+    * Reads a bounding box.
+    *
+    * @return the bounding box read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link BoundingBox2}.
+    */
+   public BoundingBox2 readBoundingBox2() throws IOException
+   {
+      start( GeometryFormat.BOUNDING_BOX2, 4 );
+      final Vector2 start = new Vector2( this.buffer.getDouble(), this.buffer.getDouble() );
+      final Vector2 end = new Vector2( this.buffer.getDouble(), this.buffer.getDouble() );
+      final BoundingBox2 empty = new BoundingBox2();
+      return start.x > end.x ? empty : empty.union( start ).union( end );
+   }
+
+   /**
+    * Reads a bounding box.
+    *
+    * @return the bounding box read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link BoundingBox3}.
+    */
+   public BoundingBox3 readBoundingBox3() throws IOException
+   {
+      start( GeometryFormat.BOUNDING_BOX3, 6 );
+      final Vector3 start = new Vector3( this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble() );
+      final Vector3 end = new Vector3( this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble() );
+      final BoundingBox3 empty = new BoundingBox3();
+      return start.x > end.x ? empty : empty.union( start ).union( end );
+   }
+
+   /**
+    * Reads a line segment.
+    *
+    * @return the line segment read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link LineSegment2}.
+    */
+   public LineSegment2 readLineSegment2() throws IOException
+   {
+      start( GeometryFormat.LINE_SEGMENT2, 4 );
+      final Vector2 start = new Vector2( this.buffer.getDouble(), this.buffer.getDouble() );
+      return new LineSegment2( start, new Vector2( this.buffer.getDouble(), this.buffer.getDouble() ) );
+   }
+
+   /**
+    * Reads a line segment.
+    *
+    * @return the line segment read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link LineSegment3}.
+    */
+   public LineSegment3 readLineSegment3() throws IOException
+   {
+      start( GeometryFormat.LINE_SEGMENT3, 6 );
+      final Vector3 start = new Vector3( this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble() );
+      return new LineSegment3( start, new Vector3( this.buffer.getDouble(), this.buffer.getDouble(), this.buffer.getDouble() ) );
+   }
+
+   /**
+    * Reads point statistics.
+    *
+    * @return the statistics read.
+    * @throws IOException if the channel cannot be read or the next record is not a {@link PointStatistics3}.
+    */
+   public PointStatistics3 readPointStatistics3() throws IOException
+   {
+      start( GeometryFormat.POINT_STATISTICS3, PointStatistics3.SERIALIZED_SIZE );
+      final double[] values = new double[ PointStatistics3.SERIALIZED_SIZE ];
+      for( int i = 0; i < values.length; i++ )
+      {
+         values[ i ] = this.buffer.getDouble();
+      }
+      final PointStatistics3 statistics = PointStatistics3.read( values );
+      if( statistics == null )
+      {
+         throw new IOException( "Invalid point count: " + values[ 0 ] ); //$NON-NLS-1$
+      }
+      return statistics;
+   }
+
+   /**
+    * Reads a packed array of doubles into a new array.
+    *
+    * @return the values read.
+    * @throws IOException if the channel cannot be read or the next record is not a packed array of doubles.
+    */
+   public double[] readDoubles() throws IOException
+   {
+      final DoubleBuffer values = readDoubleBuffer();
+      if( values.hasArray() && ( values.arrayOffset() == 0 ) && ( values.capacity() == values.array().length ) )
+      {
+         return values.array();
+      }
+      final double[] copy = new double[ values.remaining() ];
+      values.get( copy );
+      return copy;
+   }
+
+   /**
+    * Reads a packed array of doubles.
+    * <p>
+    * When reading from a buffer the values are not copied: the result is a view of the buffer's content, which is read-only if
+    * the buffer is, and remains valid for as long as the buffer's content does. When reading from a channel the values are read
+    * into a new heap buffer.
+    * </p>
+    *
+    * @return a buffer whose remaining elements are the values read.
+    * @throws IOException if the channel cannot be read or the next record is not a packed array of doubles.
+    */
+   public DoubleBuffer readDoubleBuffer() throws IOException
+   {
+      expect( GeometryFormat.DOUBLES );
+      require( Integer.BYTES );
+      final int count = this.buffer.getInt();
+      if( count < 0 )
+      {
+         throw new IOException( "Negative array length: " + count ); //$NON-NLS-1$
+      }
+      final int padding = GeometryFormat.padding( position() );
+      require( padding );
+      ( (Buffer) this.buffer ).position( this.buffer.position() + padding );
+
+      if( this.channel == null )
+      {
+         final long bytes = (long) count * Double.BYTES;
+         if( this.buffer.remaining() < bytes )
+         {
+            throw new EOFException( String.format( "Expected %d doubles but only %d bytes remain", //$NON-NLS-1$
+                                                   count,
+                                                   this.buffer.remaining() ) );
+         }
+         final ByteBuffer slice = this.buffer.slice();
+         ( (Buffer) slice ).limit( (int) bytes );
+         ( (Buffer) this.buffer ).position( this.buffer.position() + (int) bytes );
+         return slice.order( ByteOrder.LITTLE_ENDIAN ).asDoubleBuffer();
+      }
+
+      final double[] values = new double[ count ];
+      int done = 0;
+      while( done < count )
+      {
+         require( Double.BYTES );
+         final int n = Math.min( count - done, this.buffer.remaining() / Double.BYTES );
+         this.buffer.asDoubleBuffer().get( values, done, n );
+         ( (Buffer) this.buffer ).position( this.buffer.position() + ( n * Double.BYTES ) );
+         done += n;
+      }
+      return DoubleBuffer.wrap( values );
+   }
+
+   /**
+    * Gets the number of bytes read so far, including the stream header.
+    *
+    * @return the position in the stream.
+    */
+   public long position()
+   {
+      return ( this.discarded + this.buffer.position() ) - this.origin;
+   }
+
+   /**
+    * Closes the channel. Does nothing when reading from a caller-supplied buffer.
+    *
+    * @throws IOException if the channel cannot be closed.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      if( this.channel != null )
+      {
+         this.channel.close();
+      }
+   }
+
+   /**
+    * Reads the type of a record made up of a fixed number of doubles, and makes sure that the whole record is buffered.
+    */
+   private void start( final int type, final int doubles ) throws IOException
+   {
+      expect( type );
+      require( doubles * Double.BYTES );
+   }
+
+   private void expect( final int type ) throws IOException
+   {
+      final int next = nextType();
+      if( next != type )
+      {
+         throw new IOException( String.format( "Expected %s but found %s", //$NON-NLS-1$
+                                               GeometryFormat.describe( type ),
+                                               GeometryFormat.describe( next ) ) );
+      }
+      this.buffer.get();
+   }
+
+   private void require( final int bytes ) throws IOException
+   {
+      if( !fill( bytes ) )
+      {
+         throw new EOFException( "Unexpected end of geometry stream" ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * Makes sure that a number of bytes are buffered, refilling the buffer from the channel if necessary.
+    *
+    * @return whether the bytes are available.
+    */
+   private boolean fill( final int bytes ) throws IOException
+   {
+      if( this.buffer.remaining() >= bytes )
+      {
+         return true;
+      }
+      if( this.channel == null )
+      {
+         return false;
+      }
+      this.discarded += this.buffer.position();
+      this.buffer.compact();
+      while( this.buffer.position() < bytes )
+      {
+         if( this.channel.read( this.buffer ) < 0 )
+         {
+            break;
+         }
+      }
+      ( (Buffer) this.buffer ).flip();
+      return this.buffer.remaining() >= bytes;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "GeometryReader at %d bytes", position() ); //$NON-NLS-1$
+   }
+}
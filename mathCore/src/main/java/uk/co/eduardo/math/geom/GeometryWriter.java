@@ -0,0 +1,325 @@
+package uk.co.eduardo.math.geom;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Writes geometry in the compact binary format described by {@link GeometryFormat}.
+ * <p>
+ * A writer either streams to a channel through an internal buffer, or writes straight into a caller-supplied
+ * {@link ByteBuffer}. Doubles are written bit for bit, so nothing is lost. Writers are not thread-safe.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class GeometryWriter implements Closeable, Flushable
+{
+   /** The size of the internal buffer used when writing to a channel. */
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   /** The channel to which the buffer is flushed, or <code>null</code> when writing to a caller-supplied buffer. */
+   private final WritableByteChannel channel;
+
+   private final ByteBuffer buffer;
+
+   /** The position in the buffer at which the stream starts. */
+   private final int origin;
+
+   /** The number of bytes flushed to the channel. */
+   private long flushed;
+
+   /**
+    * Initializes a new GeometryWriter object that streams to a channel, and writes the stream header.
+    *
+    * @param channel the channel to which to write. Closed when the writer is closed. Cannot be <code>null</code>.
+    */
+   public GeometryWriter( final WritableByteChannel channel )
+   {
+      this( Objects.requireNonNull( channel ), ByteBuffer.allocateDirect( BUFFER_SIZE ) );
+   }
+
+   /**
+    * Initializes a new GeometryWriter object that writes into a buffer, starting at its position, and writes the stream header.
+    * The buffer's byte order is set to little-endian and its position is advanced past each record as it is written.
+    *
+    * @param buffer the buffer into which to write. Writing a record that does not fit throws a
+    *           {@link java.nio.BufferOverflowException}. Cannot be <code>null</code>.
+    */
+   public GeometryWriter( final ByteBuffer buffer )
+   {
+      this( null, buffer );
+   }
+
+   private GeometryWriter( final WritableByteChannel channel, final ByteBuffer buffer )
+   {
+      this.channel = channel;
+      this.buffer = buffer.order( ByteOrder.LITTLE_ENDIAN );
+      this.origin = buffer.position();
+      this.buffer.order( ByteOrder.BIG_ENDIAN ).putInt( GeometryFormat.MAGIC ).order( ByteOrder.LITTLE_ENDIAN );
+      this.buffer.put( (byte) GeometryFormat.VERSION ).put( (byte) 0 ).put( (byte) 0 ).put( (byte) 0 );
+   }
+
+   /**
+    * Writes a vector.
+    *
+    * @param v the vector to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final Vector2 v ) throws IOException
+   {
+      start( GeometryFormat.VECTOR2, 2 );
+      this.buffer.putDouble( v.x ).putDouble( v.y );
+   }
+
+   /**
+    * Writes a vector.
+    *
+    * @param v the vector to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final Vector3 v ) throws IOException
+   {
+      start( GeometryFormat.VECTOR3, 3 );
+      this.buffer.putDouble( v.x ).putDouble( v.y ).putDouble( v.z );
+   }
+
+   /**
+    * Writes a matrix.
+    *
+    * @param m the matrix to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final Matrix2 m ) throws IOException
+   {
+      start( GeometryFormat.MATRIX2, 4 );
+      this.buffer.putDouble( m.a00 ).putDouble( m.a01 ).putDouble( m.a10 ).putDouble( m.a11 );
+   }
+
+   /**
+    * Writes a matrix.
+    *
+    * @param m the matrix to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final Matrix3 m ) throws IOException
+   {
+      start( GeometryFormat.MATRIX3, 9 );
+      this.buffer.putDouble( m.a00 ).putDouble( m.a01 ).putDouble( m.a02 );
+      this.buffer.putDouble( m.a10 ).putDouble( m.a11 ).putDouble( m.a12 );
+      this.buffer.putDouble( m.a20 ).putDouble( m.a21 ).putDouble( m.a22 );
+   }
+
+   /**
+    * Writes a bounding box.
+    *
+    * @param box the bounding box to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final BoundingBox2 box ) throws IOException
+   {
+      start( GeometryFormat.BOUNDING_BOX2, 4 );
+      if( box.isEmpty() )
+      {
+         this.buffer.putDouble( Double.POSITIVE_INFINITY ).putDouble( Double.POSITIVE_INFINITY );
+         this.buffer.putDouble( Double.NEGATIVE_INFINITY ).putDouble( Double.NEGATIVE_INFINITY );
+      }
+      else
+      {
+         this.buffer.putDouble( box.start.x ).putDouble( box.start.y ).putDouble( box.end.x ).putDouble( box.end.y );
+      }
+   }
+
+   /**
+    * Writes a bounding box.
+    *
+    * @param box the bounding box to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final BoundingBox3 box ) throws IOException
+   {
+      start( GeometryFormat.BOUNDING_BOX3, 6 );
+      if( box.isEmpty() )
+      {
+         this.buffer.putDouble( Double.POSITIVE_INFINITY ).putDouble( Double.POSITIVE_INFINITY ).putDouble( Double.POSITIVE_INFINITY );
+         this.buffer.putDouble( Double.NEGATIVE_INFINITY ).putDouble( Double.NEGATIVE_INFINITY ).putDouble( Double.NEGATIVE_INFINITY );
+      }
+      else
+      {
+         this.buffer.putDouble( box.start.x ).putDouble( box.start.y ).putDouble( box.start.z );
+         this.buffer.putDouble( box.end.x ).putDouble( box.end.y ).putDouble( box.end.z );
+      }
+   }
+
+   /**
+    * Writes a line segment.
+    *
+    * @param segment the line segment to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final LineSegment2 segment ) throws IOException
+   {
+      start( GeometryFormat.LINE_SEGMENT2, 4 );
+      this.buffer.putDouble( segment.start.x ).putDouble( segment.start.y );
+      this.buffer.putDouble( segment.end.x ).putDouble( segment.end.y );
+   }
+
+   /**
+    * Writes a line segment.
+    *
+    * @param segment the line segment to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final LineSegment3 segment ) throws IOException
+   {
+      start( GeometryFormat.LINE_SEGMENT3, 6 );
+      this.buffer.putDouble( segment.start.x ).putDouble( segment.start.y ).putDouble( segment.start.z );
+      this.buffer.putDouble( segment.end.x ).putDouble( segment.end.y ).putDouble( segment.end.z );
+   }
+
+   /**
+    * Writes point statistics, which can be read back and combined with others.
+    *
+    * @param statistics the statistics to write. Cannot be <code>null</code>.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final PointStatistics3 statistics ) throws IOException
+   {
+      final double[] values = new double[ PointStatistics3.SERIALIZED_SIZE ];
+      statistics.write( values );
+      start( GeometryFormat.POINT_STATISTICS3, values.length );
+      for( final double value : values )
+      {
+         this.buffer.putDouble( value );
+      }
+   }
+
+   /**
+    * Writes a packed array of doubles, such as interleaved coordinates, as a single record.
+    *
+    * @param values the array holding the values. Cannot be <code>null</code>.
+    * @param offset the index of the first value to write.
+    * @param count the number of values to write.
+    * @throws IOException if the channel cannot be written.
+    */
+   public void write( final double[] values, final int offset, final int count ) throws IOException
+   {
+      Batch.checkRange( values.length, offset, count, 1 );
+      final int header = 1 + Integer.BYTES;
+      if( this.channel == null )
+      {
+         // Nothing to flush to, so the whole record has to fit
+         require( header + GeometryFormat.padding( position() + header ) + ( (long) count * Double.BYTES ) );
+      }
+      else
+      {
+         require( header + 7 );
+      }
+      this.buffer.put( (byte) GeometryFormat.DOUBLES ).putInt( count );
+      for( int i = GeometryFormat.padding( position() ); i > 0; i-- )
+      {
+         this.buffer.put( (byte) 0 );
+      }
+      int done = 0;
+      while( done < count )
+      {
+         require( Double.BYTES );
+         final int n = Math.min( count - done, this.buffer.remaining() / Double.BYTES );
+         this.buffer.asDoubleBuffer().put( values, offset + done, n );
+         ( (Buffer) this.buffer ).position( this.buffer.position() + ( n * Double.BYTES ) );
+         done += n;
+      }
+   }
+
+   /**
+    * Gets the number of bytes written so far, including the stream header.
+    *
+    * @return the position in the stream.
+    */
+   public long position()
+   {
+      return ( this.flushed + this.buffer.position() ) - this.origin;
+   }
+
+   /**
+    * Writes any buffered records to the channel. Does nothing when writing to a caller-supplied buffer.
+    *
+    * @throws IOException if the channel cannot be written.
+    */
+   @Override
+   public void flush() throws IOException
+   {
+      if( this.channel == null )
+      {
+         return;
+      }
+      ( (Buffer) this.buffer ).flip();
+      while( this.buffer.hasRemaining() )
+      {
+         this.flushed += this.channel.write( this.buffer );
+      }
+      ( (Buffer) this.buffer ).clear();
+   }
+
+   /**
+    * Flushes any buffered records and closes the channel.
+    *
+    * @throws IOException if the channel cannot be written or closed.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      if( this.channel != null )
+      {
+         try
+         {
+            flush();
+         }
+         finally
+         {
+            this.channel.close();
+         }
+      }
+   }
+
+   /**
+    * Writes the type of a record made up of a fixed number of doubles, making room for the whole record.
+    */
+   private void start( final int type, final int doubles ) throws IOException
+   {
+      require( 1 + ( doubles * Double.BYTES ) );
+      this.buffer.put( (byte) type );
+   }
+
+   /**
+    * Makes room for a number of bytes in the buffer, flushing it to the channel if necessary.
+    *
+    * @throws BufferOverflowException if there is no channel and the bytes do not fit in the buffer.
+    */
+   private void require( final long bytes ) throws IOException
+   {
+      if( this.buffer.remaining() < bytes )
+      {
+         if( this.channel == null )
+         {
+            throw new BufferOverflowException();
+         }
+         flush();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "GeometryWriter at %d bytes", position() ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,165 @@
+package uk.co.eduardo.math.geom;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in instrumentation of the library's bulk and index operations, such as {@link KdTree3#fromPoints(Vector3Buffer)},
+ * {@link Matrix3#mul(Vector3Buffer, Vector3Buffer)} and {@link SpatialSort#order(long[])}, to find which geometry stage is
+ * responsible when a job slows down.
+ * <p>
+ * Instrumentation is disabled by default, when each instrumented operation only reads one flag. It is enabled by setting the
+ * system property {@value #PROPERTY} to <code>true</code> or by calling {@link #setEnabled(boolean)}. While enabled, every
+ * call of an instrumented operation adds its duration, the number of elements it processed and the bytes allocated by the
+ * calling thread to the counters of the operation. Work done in parallel by other threads is timed but its allocation is not
+ * counted.
+ * </p>
+ * <p>
+ * The counters are published as platform MXBeans named <code>uk.co.eduardo.math:type=Operation,name=&lt;operation&gt;</code>,
+ * registered when an operation is first recorded, and are also available from {@link #getOperations()}. On Java 17 and later
+ * each call is also emitted as a JDK Flight Recorder event named <code>uk.co.eduardo.math.Operation</code>, which costs
+ * nothing unless a recording is running.
+ * </p>
+ *
+ * @author erodri02
+ * @see OperationMXBean
+ */
+public final class Instrumentation
+{
+   /** The system property which, when set to <code>true</code>, enables instrumentation when this class is initialized. */
+   public static final String PROPERTY = "uk.co.eduardo.math.instrumentation"; //$NON-NLS-1$
+
+   /** The Flight Recorder events, which are only present in the Java 17 part of the multi-release jar. */
+   private static final String FLIGHT_RECORDER = "uk.co.eduardo.math.geom.FlightRecorder"; //$NON-NLS-1$
+
+   private static final Map< String, Operation > OPERATIONS = new ConcurrentHashMap<>();
+
+   private static volatile boolean enabled = Boolean.getBoolean( PROPERTY );
+
+   private Instrumentation()
+   {
+      // Utility class
+   }
+
+   /**
+    * Determines whether instrumentation is enabled.
+    *
+    * @return <code>true</code> if operations are being recorded.
+    */
+   public static boolean isEnabled()
+   {
+      return enabled;
+   }
+
+   /**
+    * Enables or disables instrumentation. Calls already in progress when it is enabled are not recorded.
+    *
+    * @param enable <code>true</code> to record operations, <code>false</code> to stop recording them.
+    */
+   public static void setEnabled( final boolean enable )
+   {
+      enabled = enable;
+   }
+
+   /**
+    * Determines whether operations are also emitted as Flight Recorder events while instrumentation is enabled.
+    *
+    * @return <code>true</code> if the Flight Recorder events are available.
+    */
+   public static boolean isFlightRecorderAvailable()
+   {
+      return Holder.RECORDER != null;
+   }
+
+   /**
+    * Gets the counters of every instrumented operation that has been loaded, in order of name.
+    *
+    * @return the counters of the operations.
+    */
+   public static List< OperationMXBean > getOperations()
+   {
+      final List< OperationMXBean > operations = new ArrayList<>( OPERATIONS.values() );
+      operations.sort( Comparator.comparing( OperationMXBean::getName ) );
+      return operations;
+   }
+
+   /**
+    * Gets the counters of an instrumented operation, creating them if necessary.
+    *
+    * @param name the name of the operation, by convention the class and method name. Cannot be <code>null</code>.
+    * @return the counters of the operation.
+    */
+   static Operation operation( final String name )
+   {
+      return OPERATIONS.computeIfAbsent( name, Operation::new );
+   }
+
+   /**
+    * Gets the Flight Recorder events, or <code>null</code> if they are not available.
+    *
+    * @return the recorder.
+    */
+   static Recorder recorder()
+   {
+      return Holder.RECORDER;
+   }
+
+   /**
+    * Gets the total number of bytes allocated by the current thread.
+    *
+    * @return the number of bytes, or zero if the JVM does not measure allocation.
+    */
+   static long allocatedBytes()
+   {
+      return ( Holder.THREADS == null ) ? 0 : Holder.THREADS.getThreadAllocatedBytes( Thread.currentThread().getId() );
+   }
+
+   /**
+    * Holds the JVM services used while recording, so that they are only initialized once instrumentation is used.
+    */
+   private static final class Holder
+   {
+      private static final Recorder RECORDER = selectRecorder();
+
+      private static final com.sun.management.ThreadMXBean THREADS = selectThreads();
+
+      private static Recorder selectRecorder()
+      {
+         try
+         {
+            return (Recorder) Class.forName( FLIGHT_RECORDER ).getDeclaredConstructor().newInstance();
+         }
+         catch( final ReflectiveOperationException | LinkageError e )
+         {
+            // Not on Java 17, or the JVM was built without the Flight Recorder
+            return null;
+         }
+      }
+
+      private static com.sun.management.ThreadMXBean selectThreads()
+      {
+         try
+         {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if( threads instanceof com.sun.management.ThreadMXBean )
+            {
+               final com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+               if( allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled() )
+               {
+                  return allocation;
+               }
+            }
+         }
+         catch( final LinkageError e )
+         {
+            // Not a JVM that measures allocation per thread
+         }
+         return null;
+      }
+   }
+}
@@ -0,0 +1,467 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A static k-d tree over a set of 3D points, for nearest neighbour and radius queries.
+ * <p>
+ * The tree is implicit: the points are stored in flat coordinate arrays, reordered so that every sub-range
+ * <code>[lo, hi)</code> of the arrays is a node whose median element, at <code>(lo + hi) / 2</code>, is the splitting point.
+ * Points before the median lie on or below the splitting plane and points after it lie on or above. Only the splitting axis of
+ * each node is stored in addition to the points, so the index costs 29 bytes per point and no node objects.
+ * </p>
+ * <p>
+ * Building the tree is O(n log n) and runs in parallel for inputs larger than {@link Batch#getParallelThreshold()} points.
+ * Queries are thread-safe and compare squared distances. Results are reported as indices into the points from which the tree
+ * was built.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class KdTree3
+{
+   /** The size of sub-range below which nodes are searched linearly rather than split. */
+   private static final int LEAF_SIZE = 8;
+
+   private static final Operation BUILD = Instrumentation.operation( "KdTree3.build" ); //$NON-NLS-1$
+
+   private final double[] x;
+
+   private final double[] y;
+
+   private final double[] z;
+
+   private final int[] ids;
+
+   private final byte[] axes;
+
+   private KdTree3( final double[] x, final double[] y, final double[] z )
+   {
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      this.ids = new int[ x.length ];
+      for( int i = 0; i < this.ids.length; i++ )
+      {
+         this.ids[ i ] = i;
+      }
+      this.axes = new byte[ x.length ];
+
+      final Operation.Span span = BUILD.begin();
+      final int threshold = Batch.getParallelThreshold();
+      if( x.length <= threshold )
+      {
+         build( 0, x.length );
+      }
+      else
+      {
+         ForkJoinPool.commonPool().invoke( new BuildAction( 0, x.length, threshold ) );
+      }
+      BUILD.end( span, x.length );
+   }
+
+   /**
+    * Gets the number of points in the tree.
+    *
+    * @return the number of points in the tree.
+    */
+   public int size()
+   {
+      return this.ids.length;
+   }
+
+   /**
+    * Finds the point closest to p.
+    *
+    * @param p the query point. Cannot be <code>null</code>.
+    * @return the index of the closest point, or -1 if the tree is empty.
+    */
+   public int nearest( final Vector3 p )
+   {
+      return nearest( p.x, p.y, p.z );
+   }
+
+   /**
+    * Finds the point closest to <code>(px, py, pz)</code>.
+    *
+    * @param px the x coordinate of the query point.
+    * @param py the y coordinate of the query point.
+    * @param pz the z coordinate of the query point.
+    * @return the index of the closest point, or -1 if the tree is empty.
+    */
+   public int nearest( final double px, final double py, final double pz )
+   {
+      final Neighbours result = new Neighbours( 1 );
+      nearest( px, py, pz, 1, result );
+      return result.size() == 0 ? -1 : result.getIndex( 0 );
+   }
+
+   /**
+    * Finds the k points closest to p.
+    *
+    * @param p the query point. Cannot be <code>null</code>.
+    * @param k the number of points to find.
+    * @param result the list into which to write the closest points, in order of increasing distance. Its previous contents are
+    *           discarded. Cannot be <code>null</code>.
+    */
+   public void nearest( final Vector3 p, final int k, final Neighbours result )
+   {
+      nearest( p.x, p.y, p.z, k, result );
+   }
+
+   /**
+    * Finds the k points closest to <code>(px, py, pz)</code>.
+    *
+    * @param px the x coordinate of the query point.
+    * @param py the y coordinate of the query point.
+    * @param pz the z coordinate of the query point.
+    * @param k the number of points to find.
+    * @param result the list into which to write the closest points, in order of increasing distance. Its previous contents are
+    *           discarded. Cannot be <code>null</code>.
+    */
+   public void nearest( final double px, final double py, final double pz, final int k, final Neighbours result )
+   {
+      result.clear();
+      if( k > 0 )
+      {
+         searchNearest( 0, this.ids.length, px, py, pz, k, result );
+         result.sortHeap();
+      }
+   }
+
+   /**
+    * Finds all the points within a radius of p.
+    *
+    * @param p the query point. Cannot be <code>null</code>.
+    * @param radius the search radius.
+    * @param result the list into which to write the points found, in no particular order. Its previous contents are discarded.
+    *           Cannot be <code>null</code>.
+    */
+   public void withinRadius( final Vector3 p, final double radius, final Neighbours result )
+   {
+      withinRadius( p.x, p.y, p.z, radius, result );
+   }
+
+   /**
+    * Finds all the points within a radius of <code>(px, py, pz)</code>.
+    *
+    * @param px the x coordinate of the query point.
+    * @param py the y coordinate of the query point.
+    * @param pz the z coordinate of the query point.
+    * @param radius the search radius.
+    * @param result the list into which to write the points found, in no particular order. Its previous contents are discarded.
+    *           Cannot be <code>null</code>.
+    */
+   public void withinRadius( final double px, final double py, final double pz, final double radius, final Neighbours result )
+   {
+      result.clear();
+      if( radius >= 0 )
+      {
+         searchRadius( 0, this.ids.length, px, py, pz, radius * radius, result );
+      }
+   }
+
+   private void searchNearest( final int lo,
+                               final int hi,
+                               final double px,
+                               final double py,
+                               final double pz,
+                               final int k,
+                               final Neighbours result )
+   {
+      if( ( hi - lo ) <= LEAF_SIZE )
+      {
+         for( int i = lo; i < hi; i++ )
+         {
+            result.offer( this.ids[ i ], distanceSquared( i, px, py, pz ), k );
+         }
+         return;
+      }
+
+      final int mid = ( lo + hi ) >>> 1;
+      result.offer( this.ids[ mid ], distanceSquared( mid, px, py, pz ), k );
+
+      final double diff = axisDelta( mid, px, py, pz );
+      if( diff < 0 )
+      {
+         searchNearest( lo, mid, px, py, pz, k, result );
+         if( ( diff * diff ) < result.bound( k ) )
+         {
+            searchNearest( mid + 1, hi, px, py, pz, k, result );
+         }
+      }
+      else
+      {
+         searchNearest( mid + 1, hi, px, py, pz, k, result );
+         if( ( diff * diff ) < result.bound( k ) )
+         {
+            searchNearest( lo, mid, px, py, pz, k, result );
+         }
+      }
+   }
+
+   private void searchRadius( final int lo,
+                              final int hi,
+                              final double px,
+                              final double py,
+                              final double pz,
+                              final double radiusSquared,
+                              final Neighbours result )
+   {
+      if( ( hi - lo ) <= LEAF_SIZE )
+      {
+         for( int i = lo; i < hi; i++ )
+         {
+            final double d = distanceSquared( i, px, py, pz );
+            if( d <= radiusSquared )
+            {
+               result.add( this.ids[ i ], d );
+            }
+         }
+         return;
+      }
+
+      final int mid = ( lo + hi ) >>> 1;
+      final double d = distanceSquared( mid, px, py, pz );
+      if( d <= radiusSquared )
+      {
+         result.add( this.ids[ mid ], d );
+      }
+
+      final double diff = axisDelta( mid, px, py, pz );
+      final boolean inRange = ( diff * diff ) <= radiusSquared;
+      if( ( diff < 0 ) || inRange )
+      {
+         searchRadius( lo, mid, px, py, pz, radiusSquared, result );
+      }
+      if( ( diff >= 0 ) || inRange )
+      {
+         searchRadius( mid + 1, hi, px, py, pz, radiusSquared, result );
+      }
+   }
+
+   private double distanceSquared( final int i, final double px, final double py, final double pz )
+   {
+      final double dx = this.x[ i ] - px;
+      final double dy = this.y[ i ] - py;
+      final double dz = this.z[ i ] - pz;
+      return ( dx * dx ) + ( dy * dy ) + ( dz * dz );
+   }
+
+   private double axisDelta( final int node, final double px, final double py, final double pz )
+   {
+      switch( this.axes[ node ] )
+      {
+         case 0:
+            return px - this.x[ node ];
+         case 1:
+            return py - this.y[ node ];
+         default:
+            return pz - this.z[ node ];
+      }
+   }
+
+   private void build( final int lo, final int hi )
+   {
+      if( ( hi - lo ) > LEAF_SIZE )
+      {
+         final int mid = split( lo, hi );
+         build( lo, mid );
+         build( mid + 1, hi );
+      }
+   }
+
+   /**
+    * Partitions the sub-range about its median along its widest axis.
+    *
+    * @param lo the first element of the sub-range.
+    * @param hi one past the last element of the sub-range.
+    * @return the index of the median.
+    */
+   private int split( final int lo, final int hi )
+   {
+      final int axis = widestAxis( lo, hi );
+      final int mid = ( lo + hi ) >>> 1;
+      select( lo, hi - 1, mid, axis == 0 ? this.x : axis == 1 ? this.y : this.z );
+      this.axes[ mid ] = (byte) axis;
+      return mid;
+   }
+
+   private int widestAxis( final int lo, final int hi )
+   {
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double minZ = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      double maxZ = Double.NEGATIVE_INFINITY;
+      for( int i = lo; i < hi; i++ )
+      {
+         minX = Math.min( this.x[ i ], minX );
+         minY = Math.min( this.y[ i ], minY );
+         minZ = Math.min( this.z[ i ], minZ );
+         maxX = Math.max( this.x[ i ], maxX );
+         maxY = Math.max( this.y[ i ], maxY );
+         maxZ = Math.max( this.z[ i ], maxZ );
+      }
+      final double dx = maxX - minX;
+      final double dy = maxY - minY;
+      final double dz = maxZ - minZ;
+      if( ( dx >= dy ) && ( dx >= dz ) )
+      {
+         return 0;
+      }
+      return dy >= dz ? 1 : 2;
+   }
+
+   /**
+    * Reorders the elements in <code>[first, last]</code> so that the element at k is the one that would be there if the range
+    * were sorted by the given coordinate, with no greater elements before it and no smaller elements after it.
+    */
+   private void select( final int first, final int last, final int k, final double[] c )
+   {
+      int left = first;
+      int right = last;
+      while( right > left )
+      {
+         final double pivot = median( c[ left ], c[ ( left + right ) >>> 1 ], c[ right ] );
+         int i = left;
+         int j = right;
+         while( i <= j )
+         {
+            while( c[ i ] < pivot )
+            {
+               i++;
+            }
+            while( c[ j ] > pivot )
+            {
+               j--;
+            }
+            if( i <= j )
+            {
+               swap( i, j );
+               i++;
+               j--;
+            }
+         }
+         if( k <= j )
+         {
+            right = j;
+         }
+         else if( k >= i )
+         {
+            left = i;
+         }
+         else
+         {
+            return;
+         }
+      }
+   }
+
+   private static double median( final double a, final double b, final double c )
+   {
+      return Math.max( Math.min( a, b ), Math.min( Math.max( a, b ), c ) );
+   }
+
+   private void swap( final int i, final int j )
+   {
+      final double tx = this.x[ i ];
+      this.x[ i ] = this.x[ j ];
+      this.x[ j ] = tx;
+      final double ty = this.y[ i ];
+      this.y[ i ] = this.y[ j ];
+      this.y[ j ] = ty;
+      final double tz = this.z[ i ];
+      this.z[ i ] = this.z[ j ];
+      this.z[ j ] = tz;
+      final int id = this.ids[ i ];
+      this.ids[ i ] = this.ids[ j ];
+      this.ids[ j ] = id;
+   }
+
+   /**
+    * Factory method for creating a tree from a collection of points. Point indices follow the iteration order of the collection.
+    *
+    * @param points the points to index. Cannot be <code>null</code>.
+    * @return a tree over the points.
+    */
+   public static KdTree3 fromPoints( final Collection< Vector3 > points )
+   {
+      final Vector3Buffer buffer = Vector3Buffer.fromPoints( points );
+      return new KdTree3( buffer.x, buffer.y, buffer.z );
+   }
+
+   /**
+    * Factory method for creating a tree from a packed array of interleaved <code>x, y, z</code> coordinates. The coordinates are
+    * copied. Point indices are relative to offset.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @return a tree over the points.
+    */
+   public static KdTree3 fromPoints( final double[] coords, final int offset, final int count )
+   {
+      Batch.checkRange( coords.length, offset, count, 3 );
+      final Vector3Buffer buffer = new Vector3Buffer( count );
+      for( int i = 0; i < count; i++ )
+      {
+         final int c = offset + ( 3 * i );
+         buffer.set( i, coords[ c ], coords[ c + 1 ], coords[ c + 2 ] );
+      }
+      return new KdTree3( buffer.x, buffer.y, buffer.z );
+   }
+
+   /**
+    * Factory method for creating a tree from the vectors in a buffer. The buffer is copied.
+    *
+    * @param points the points to index. Cannot be <code>null</code>.
+    * @return a tree over the points.
+    */
+   public static KdTree3 fromPoints( final Vector3Buffer points )
+   {
+      return new KdTree3( points.x.clone(), points.y.clone(), points.z.clone() );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "KdTree3[%d]", size() ); //$NON-NLS-1$
+   }
+
+   private final class BuildAction extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final int lo;
+
+      private final int hi;
+
+      private final int threshold;
+
+      BuildAction( final int lo, final int hi, final int threshold )
+      {
+         this.lo = lo;
+         this.hi = hi;
+         this.threshold = threshold;
+      }
+
+      @Override
+      protected void compute()
+      {
+         if( ( this.hi - this.lo ) <= this.threshold )
+         {
+            build( this.lo, this.hi );
+            return;
+         }
+         final int mid = split( this.lo, this.hi );
+         invokeAll( new BuildAction( this.lo, mid, this.threshold ), new BuildAction( mid + 1, this.hi, this.threshold ) );
+      }
+   }
+}
@@ -0,0 +1,80 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Selects the implementation of the inner loops used by bulk operations over separate coordinate arrays, such as
+ * {@link Vector3Buffer#dot(Vector3Buffer, double[])}, {@link Matrix3#mul(Vector3Buffer, Vector3Buffer)} and
+ * {@link BoundingBox3#fromPoints(Vector3Buffer)}.
+ * <p>
+ * On Java 17 and later the library jar also contains kernels written with the incubating JDK Vector API, which process
+ * several coordinates per instruction. They are used when the <code>jdk.incubator.vector</code> module is resolved, by
+ * running with <code>--add-modules jdk.incubator.vector</code>, and the CPU has vector registers wide enough for at least two
+ * doubles. Otherwise, and always on Java 8, the plain loops are used. Both backends give identical results.
+ * </p>
+ * <p>
+ * The backend is chosen once, when this class is initialized. Set the system property {@value #VECTOR_PROPERTY} to
+ * <code>false</code> to force the plain loops.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class Kernels
+{
+   /** The system property which, when set to <code>false</code>, disables the vectorized kernels. */
+   public static final String VECTOR_PROPERTY = "uk.co.eduardo.math.vector"; //$NON-NLS-1$
+
+   /** The vectorized kernels, which are only present in the Java 17 part of the multi-release jar. */
+   private static final String VECTOR_KERNELS = "uk.co.eduardo.math.geom.VectorKernels"; //$NON-NLS-1$
+
+   private static final BulkKernels KERNELS = select();
+
+   private Kernels()
+   {
+      // Utility class
+   }
+
+   /**
+    * Determines whether bulk operations are using the vectorized kernels.
+    *
+    * @return <code>true</code> if the vectorized kernels are in use, <code>false</code> if the plain loops are.
+    */
+   public static boolean isVectorized()
+   {
+      return KERNELS.getClass() != ScalarKernels.class;
+   }
+
+   /**
+    * Gets the name of the backend in use, for logging.
+    *
+    * @return the name of the backend.
+    */
+   public static String getBackend()
+   {
+      return KERNELS.toString();
+   }
+
+   /**
+    * Gets the kernels in use.
+    *
+    * @return the kernels.
+    */
+   static BulkKernels get()
+   {
+      return KERNELS;
+   }
+
+   private static BulkKernels select()
+   {
+      if( Boolean.parseBoolean( System.getProperty( VECTOR_PROPERTY, "true" ) ) ) //$NON-NLS-1$
+      {
+         try
+         {
+            return (BulkKernels) Class.forName( VECTOR_KERNELS ).getDeclaredConstructor().newInstance();
+         }
+         catch( final ReflectiveOperationException | LinkageError e )
+         {
+            // Not on Java 17, the module is not resolved or the CPU cannot vectorize doubles
+         }
+      }
+      return new ScalarKernels();
+   }
+}
@@ -1,5 +1,6 @@
 package uk.co.eduardo.math.geom;
 
+import java.math.BigDecimal;
 import java.util.Objects;
 
 /**
@@ -9,6 +10,9 @@ import java.util.Objects;
  */
 public class LineSegment2
 {
+   /** The relative rounding error bound of a floating point orientation, Shewchuk's <code>(3 + 16e)e</code> for e = 2^-53. */
+   private static final double ORIENTATION_ERROR = ( 3 + ( 16 * 0x1p-53 ) ) * 0x1p-53;
+
    /** The starting point of the line segment. */
    public final Vector2 start;
 
@@ -37,6 +41,161 @@ public class LineSegment2
       return this.start.add( this.end ).div( 2 );
    }
 
+   /**
+    * Tests whether this line segment intersects another. Segments that only touch at an end point, or that overlap along a
+    * common line, are considered to intersect. The test uses exact orientation predicates, so it does not depend on the order of
+    * the end points of either segment.
+    *
+    * @param other the other line segment. Cannot be <code>null</code>.
+    * @return whether the two segments have at least one point in common.
+    */
+   public boolean intersects( final LineSegment2 other )
+   {
+      return intersects( this.start.x,
+                         this.start.y,
+                         this.end.x,
+                         this.end.y,
+                         other.start.x,
+                         other.start.y,
+                         other.end.x,
+                         other.end.y );
+   }
+
+   /**
+    * Calculates the point at which this line segment intersects another.
+    * <p>
+    * If the segments overlap along a common line, the point of the overlap closest to the start of this segment is returned.
+    * </p>
+    *
+    * @param other the other line segment. Cannot be <code>null</code>.
+    * @return the point of intersection, or <code>null</code> if the segments do not intersect.
+    */
+   public Vector2 intersection( final LineSegment2 other )
+   {
+      if( !intersects( other ) )
+      {
+         return null;
+      }
+      final double dx = this.end.x - this.start.x;
+      final double dy = this.end.y - this.start.y;
+      final double ox = other.end.x - other.start.x;
+      final double oy = other.end.y - other.start.y;
+      final double denominator = ( dx * oy ) - ( dy * ox );
+      if( denominator != 0 )
+      {
+         final double t = ( ( ( other.start.x - this.start.x ) * oy ) - ( ( other.start.y - this.start.y ) * ox ) ) / denominator;
+         return new Vector2( this.start.x + ( t * dx ), this.start.y + ( t * dy ) );
+      }
+
+      // Collinear: clip the other segment's extent to this one, in terms of the parameter along this segment.
+      final double lengthSquared = ( dx * dx ) + ( dy * dy );
+      if( lengthSquared == 0 )
+      {
+         return this.start;
+      }
+      final double t0 = ( ( ( other.start.x - this.start.x ) * dx ) + ( ( other.start.y - this.start.y ) * dy ) ) / lengthSquared;
+      final double t1 = ( ( ( other.end.x - this.start.x ) * dx ) + ( ( other.end.y - this.start.y ) * dy ) ) / lengthSquared;
+      final double t = Math.min( Math.max( Math.min( t0, t1 ), 0 ), 1 );
+      return new Vector2( this.start.x + ( t * dx ), this.start.y + ( t * dy ) );
+   }
+
+   /**
+    * Calculates the orientation of three points exactly: the sign of twice the signed area of the triangle <code>p0, p1, p2</code>,
+    * which is positive if the points turn anticlockwise, negative if they turn clockwise and zero if they are collinear.
+    * <p>
+    * The area is first computed in floating point, and its sign is returned if the area is larger than the rounding error
+    * bound of Shewchuk's adaptive predicates. Only nearly collinear points fall back to exact arithmetic. Being exact, the
+    * result is consistent however the points are ordered: swapping two of them negates it and rotating them leaves it
+    * unchanged.
+    * </p>
+    *
+    * @param x0 the x coordinate of the first point.
+    * @param y0 the y coordinate of the first point.
+    * @param x1 the x coordinate of the second point.
+    * @param y1 the y coordinate of the second point.
+    * @param x2 the x coordinate of the third point.
+    * @param y2 the y coordinate of the third point.
+    * @return 1, -1 or 0 as the points turn anticlockwise, turn clockwise or are collinear.
+    */
+   static int orientation( final double x0,
+                           final double y0,
+                           final double x1,
+                           final double y1,
+                           final double x2,
+                           final double y2 )
+   {
+      final double left = ( x1 - x0 ) * ( y2 - y0 );
+      final double right = ( y1 - y0 ) * ( x2 - x0 );
+      final double area = left - right;
+      // The products have opposite signs or one is zero, so the difference has the right sign
+      if( ( ( left > 0 ) && ( right <= 0 ) ) || ( ( left < 0 ) && ( right >= 0 ) ) || ( left == 0 ) )
+      {
+         return (int) Math.signum( area );
+      }
+      final double bound = ORIENTATION_ERROR * Math.abs( left + right );
+      if( ( area > bound ) || ( -area > bound ) )
+      {
+         return (int) Math.signum( area );
+      }
+      final BigDecimal bx0 = new BigDecimal( x0 );
+      final BigDecimal by0 = new BigDecimal( y0 );
+      final BigDecimal dx1 = new BigDecimal( x1 ).subtract( bx0 );
+      final BigDecimal dy1 = new BigDecimal( y1 ).subtract( by0 );
+      final BigDecimal dx2 = new BigDecimal( x2 ).subtract( bx0 );
+      final BigDecimal dy2 = new BigDecimal( y2 ).subtract( by0 );
+      return dx1.multiply( dy2 ).subtract( dy1.multiply( dx2 ) ).signum();
+   }
+
+   /**
+    * Tests whether two line segments, given by their end points, have at least one point in common.
+    *
+    * @param ax0 the x coordinate of the start of the first segment.
+    * @param ay0 the y coordinate of the start of the first segment.
+    * @param ax1 the x coordinate of the end of the first segment.
+    * @param ay1 the y coordinate of the end of the first segment.
+    * @param bx0 the x coordinate of the start of the second segment.
+    * @param by0 the y coordinate of the start of the second segment.
+    * @param bx1 the x coordinate of the end of the second segment.
+    * @param by1 the y coordinate of the end of the second segment.
+    * @return whether the segments intersect.
+    */
+   static boolean intersects( final double ax0,
+                              final double ay0,
+                              final double ax1,
+                              final double ay1,
+                              final double bx0,
+                              final double by0,
+                              final double bx1,
+                              final double by1 )
+   {
+      final int o1 = orientation( ax0, ay0, ax1, ay1, bx0, by0 );
+      final int o2 = orientation( ax0, ay0, ax1, ay1, bx1, by1 );
+      final int o3 = orientation( bx0, by0, bx1, by1, ax0, ay0 );
+      final int o4 = orientation( bx0, by0, bx1, by1, ax1, ay1 );
+      if( ( ( o1 * o2 ) < 0 ) && ( ( o3 * o4 ) < 0 ) )
+      {
+         return true;
+      }
+      // An end point lying on the other segment, including collinear overlaps.
+      return ( ( o1 == 0 ) && within( ax0, ay0, ax1, ay1, bx0, by0 ) ) ||
+             ( ( o2 == 0 ) && within( ax0, ay0, ax1, ay1, bx1, by1 ) ) ||
+             ( ( o3 == 0 ) && within( bx0, by0, bx1, by1, ax0, ay0 ) ) ||
+             ( ( o4 == 0 ) && within( bx0, by0, bx1, by1, ax1, ay1 ) );
+   }
+
+   /**
+    * Tests whether a point known to be collinear with a segment lies within the segment's bounding box.
+    */
+   private static boolean within( final double x0,
+                                  final double y0,
+                                  final double x1,
+                                  final double y1,
+                                  final double x,
+                                  final double y )
+   {
+      return ( x >= Math.min( x0, x1 ) ) && ( x <= Math.max( x0, x1 ) ) && ( y >= Math.min( y0, y1 ) ) && ( y <= Math.max( y0, y1 ) );
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -9,6 +9,9 @@ import java.util.Objects;
  */
 public class LineSegment3
 {
+   /** The squared sine of the angle below which two segments are treated as parallel. */
+   private static final double PARALLEL_TOLERANCE = 1e-14;
+
    /** The starting point of the line segment. */
    public final Vector3 start;
 
@@ -37,6 +40,225 @@ public class LineSegment3
       return this.start.add( this.end ).div( 2 );
    }
 
+   /**
+    * Finds the point on the line segment closest to a point.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    * @return the closest point on the line segment.
+    */
+   public Vector3 closestPoint( final Vector3 p )
+   {
+      final Vector3 a = this.start;
+      final Vector3 b = this.end;
+      return pointAt( closestParameter( p.x, p.y, p.z, a.x, a.y, a.z, b.x, b.y, b.z ) );
+   }
+
+   /**
+    * Calculates the distance from a point to the closest point on the line segment.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    * @return the distance.
+    */
+   public double distance( final Vector3 p )
+   {
+      return p.sub( closestPoint( p ) ).length();
+   }
+
+   /**
+    * Finds the point on this line segment closest to another line segment. If several points are equally close, as when the
+    * segments are parallel and overlap, one of them is chosen.
+    *
+    * @param other the other line segment. Cannot be <code>null</code>.
+    * @return the point on this line segment closest to the other.
+    */
+   public Vector3 closestPoint( final LineSegment3 other )
+   {
+      final double[] st = new double[ 2 ];
+      closest( this.start.x,
+               this.start.y,
+               this.start.z,
+               this.end.x,
+               this.end.y,
+               this.end.z,
+               other.start.x,
+               other.start.y,
+               other.start.z,
+               other.end.x,
+               other.end.y,
+               other.end.z,
+               st,
+               0 );
+      return pointAt( st[ 0 ] );
+   }
+
+   /**
+    * Calculates the shortest distance between this line segment and another, which is zero if they intersect.
+    *
+    * @param other the other line segment. Cannot be <code>null</code>.
+    * @return the distance.
+    */
+   public double distance( final LineSegment3 other )
+   {
+      return Math.sqrt( closest( this.start.x,
+                                 this.start.y,
+                                 this.start.z,
+                                 this.end.x,
+                                 this.end.y,
+                                 this.end.z,
+                                 other.start.x,
+                                 other.start.y,
+                                 other.start.z,
+                                 other.end.x,
+                                 other.end.y,
+                                 other.end.z,
+                                 null,
+                                 0 ) );
+   }
+
+   /**
+    * Calculates the parameter of the point on a line segment closest to a point, where 0 is the start and 1 the end of the
+    * segment. A segment of zero length is closest at its start.
+    *
+    * @param px the x coordinate of the point.
+    * @param py the y coordinate of the point.
+    * @param pz the z coordinate of the point.
+    * @param ax the x coordinate of the start of the segment.
+    * @param ay the y coordinate of the start of the segment.
+    * @param az the z coordinate of the start of the segment.
+    * @param bx the x coordinate of the end of the segment.
+    * @param by the y coordinate of the end of the segment.
+    * @param bz the z coordinate of the end of the segment.
+    * @return the parameter of the closest point, from 0 to 1.
+    */
+   static double closestParameter( final double px,
+                                   final double py,
+                                   final double pz,
+                                   final double ax,
+                                   final double ay,
+                                   final double az,
+                                   final double bx,
+                                   final double by,
+                                   final double bz )
+   {
+      final double dx = bx - ax;
+      final double dy = by - ay;
+      final double dz = bz - az;
+      final double length2 = ( dx * dx ) + ( dy * dy ) + ( dz * dz );
+      if( length2 == 0 )
+      {
+         return 0;
+      }
+      return clamp( ( ( ( px - ax ) * dx ) + ( ( py - ay ) * dy ) + ( ( pz - az ) * dz ) ) / length2 );
+   }
+
+   /**
+    * Finds the closest points of two line segments, after Ericson, <i>Real-Time Collision Detection</i>, section 5.1.9. Zero
+    * length and parallel segments are handled, the latter by choosing one of the equally close pairs of points.
+    *
+    * @param ax0 the x coordinate of the start of the first segment.
+    * @param ay0 the y coordinate of the start of the first segment.
+    * @param az0 the z coordinate of the start of the first segment.
+    * @param ax1 the x coordinate of the end of the first segment.
+    * @param ay1 the y coordinate of the end of the first segment.
+    * @param az1 the z coordinate of the end of the first segment.
+    * @param bx0 the x coordinate of the start of the second segment.
+    * @param by0 the y coordinate of the start of the second segment.
+    * @param bz0 the z coordinate of the start of the second segment.
+    * @param bx1 the x coordinate of the end of the second segment.
+    * @param by1 the y coordinate of the end of the second segment.
+    * @param bz1 the z coordinate of the end of the second segment.
+    * @param st receives the parameters, from 0 to 1, of the closest point on the first segment and on the second. Can be
+    *           <code>null</code> if they are not needed.
+    * @param stOffset the index in st at which to write the parameters.
+    * @return the squared distance between the closest points.
+    */
+   static double closest( final double ax0,
+                          final double ay0,
+                          final double az0,
+                          final double ax1,
+                          final double ay1,
+                          final double az1,
+                          final double bx0,
+                          final double by0,
+                          final double bz0,
+                          final double bx1,
+                          final double by1,
+                          final double bz1,
+                          final double[] st,
+                          final int stOffset )
+   {
+      final double d1x = ax1 - ax0;
+      final double d1y = ay1 - ay0;
+      final double d1z = az1 - az0;
+      final double d2x = bx1 - bx0;
+      final double d2y = by1 - by0;
+      final double d2z = bz1 - bz0;
+      final double rx = ax0 - bx0;
+      final double ry = ay0 - by0;
+      final double rz = az0 - bz0;
+      final double a = ( d1x * d1x ) + ( d1y * d1y ) + ( d1z * d1z );
+      final double e = ( d2x * d2x ) + ( d2y * d2y ) + ( d2z * d2z );
+      final double f = ( d2x * rx ) + ( d2y * ry ) + ( d2z * rz );
+      double s;
+      double t;
+      if( a == 0 )
+      {
+         // The first segment is a point
+         s = 0;
+         t = ( e == 0 ) ? 0 : clamp( f / e );
+      }
+      else
+      {
+         final double c = ( d1x * rx ) + ( d1y * ry ) + ( d1z * rz );
+         if( e == 0 )
+         {
+            // The second segment is a point
+            t = 0;
+            s = clamp( -c / a );
+         }
+         else
+         {
+            // The closest points of the infinite lines, clamped to the first segment, then the closest point on the second
+            // segment to that, then the closest point on the first segment to that if the second had to be clamped. Parallel
+            // lines have no unique closest points, so start from the start of the first segment. Lines within a tiny angle of
+            // parallel are treated as parallel, as their closest points are dominated by rounding error.
+            final double b = ( d1x * d2x ) + ( d1y * d2y ) + ( d1z * d2z );
+            final double denominator = ( a * e ) - ( b * b );
+            s = ( denominator > ( PARALLEL_TOLERANCE * a * e ) ) ? clamp( ( ( b * f ) - ( c * e ) ) / denominator ) : 0;
+            t = ( ( b * s ) + f ) / e;
+            if( t < 0 )
+            {
+               t = 0;
+               s = clamp( -c / a );
+            }
+            else if( t > 1 )
+            {
+               t = 1;
+               s = clamp( ( b - c ) / a );
+            }
+         }
+      }
+      if( st != null )
+      {
+         st[ stOffset ] = s;
+         st[ stOffset + 1 ] = t;
+      }
+      final double dx = ( rx + ( d1x * s ) ) - ( d2x * t );
+      final double dy = ( ry + ( d1y * s ) ) - ( d2y * t );
+      final double dz = ( rz + ( d1z * s ) ) - ( d2z * t );
+      return ( dx * dx ) + ( dy * dy ) + ( dz * dz );
+   }
+
+   private Vector3 pointAt( final double t )
+   {
+      return this.start.add( this.end.sub( this.start ).mul( t ) );
+   }
+
+   private static double clamp( final double t )
+   {
+      return ( t < 0 ) ? 0 : ( ( t > 1 ) ? 1 : t );
+   }
+
    /**
     * {@inheritDoc}
     */
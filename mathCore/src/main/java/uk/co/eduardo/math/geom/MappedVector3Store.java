@@ -0,0 +1,444 @@
+package uk.co.eduardo.math.geom;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A store of 3D points held off-heap in a memory-mapped file.
+ * <p>
+ * The file holds the points as interleaved little-endian <code>x, y, z</code> doubles, 24 bytes per point, with no header. It is
+ * mapped in fixed-size segments so that stores larger than 2GB, and larger than physical memory, can be addressed with
+ * <code>long</code> indices; the operating system pages the data in and out as it is touched, so nothing is copied onto the
+ * Java heap.
+ * </p>
+ * <p>
+ * Reading is thread-safe, and so is writing to different points from different threads. Bulk traversal passes coordinates to a
+ * {@link PointConsumer3} rather than creating a {@link Vector3} per point, and
+ * {@link #parallelForEach(PointConsumer3)} splits the store into chunks of {@link Batch#getParallelThreshold()} points that are
+ * processed on the common fork-join pool. {@link BoundingBox3#fromPoints(MappedVector3Store)} and
+ * {@link Matrix3#mul(MappedVector3Store, MappedVector3Store)} operate on the mapped data directly.
+ * </p>
+ * <p>
+ * Java offers no way to unmap a file explicitly: closing the store closes the file, and the mapped memory is released once the
+ * store is garbage collected.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class MappedVector3Store implements Closeable
+{
+   /** The number of bytes per point. */
+   public static final int BYTES_PER_POINT = 3 * Double.BYTES;
+
+   /** The base 2 logarithm of the number of points in each mapped segment: 2<sup>26</sup> points, or 1.5GB. */
+   static final int DEFAULT_SEGMENT_SHIFT = 26;
+
+   private final Path file;
+
+   private final FileChannel channel;
+
+   private final MappedByteBuffer[] mappings;
+
+   private final DoubleBuffer[] segments;
+
+   private final long size;
+
+   private final boolean writable;
+
+   /** The base 2 logarithm of the number of points in each mapped segment. */
+   final int shift;
+
+   private final long mask;
+
+   private MappedVector3Store( final Path file, final long size, final boolean writable, final int shift ) throws IOException
+   {
+      this.file = file;
+      this.size = size;
+      this.writable = writable;
+      this.shift = shift;
+      this.mask = ( 1L << shift ) - 1;
+      this.channel = writable ? FileChannel.open( file,
+                                                  StandardOpenOption.CREATE,
+                                                  StandardOpenOption.READ,
+                                                  StandardOpenOption.WRITE )
+                              : FileChannel.open( file, StandardOpenOption.READ );
+      try
+      {
+         final long segmentSize = 1L << shift;
+         final int count = (int) ( ( ( size + segmentSize ) - 1 ) >>> shift );
+         this.mappings = new MappedByteBuffer[ count ];
+         this.segments = new DoubleBuffer[ count ];
+         for( int i = 0; i < count; i++ )
+         {
+            final long first = i * segmentSize;
+            final long points = Math.min( segmentSize, size - first );
+            this.mappings[ i ] = this.channel.map( writable ? MapMode.READ_WRITE : MapMode.READ_ONLY,
+                                                   first * BYTES_PER_POINT,
+                                                   points * BYTES_PER_POINT );
+            this.segments[ i ] = this.mappings[ i ].order( ByteOrder.LITTLE_ENDIAN ).asDoubleBuffer();
+         }
+      }
+      catch( final IOException | RuntimeException e )
+      {
+         this.channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Creates a writable store of the given number of points, creating the file or resizing an existing one. Points beyond the
+    * previous end of the file are zero.
+    *
+    * @param file the file in which to store the points. Cannot be <code>null</code>.
+    * @param size the number of points in the store.
+    * @return the new store.
+    * @throws IOException if the file cannot be created or mapped.
+    */
+   public static MappedVector3Store create( final Path file, final long size ) throws IOException
+   {
+      return create( file, size, DEFAULT_SEGMENT_SHIFT );
+   }
+
+   static MappedVector3Store create( final Path file, final long size, final int shift ) throws IOException
+   {
+      if( size < 0 )
+      {
+         throw new IllegalArgumentException( "Size cannot be negative: " + size ); //$NON-NLS-1$
+      }
+      try( FileChannel resize = FileChannel.open( file,
+                                                  StandardOpenOption.CREATE,
+                                                  StandardOpenOption.READ,
+                                                  StandardOpenOption.WRITE ) )
+      {
+         final long bytes = size * BYTES_PER_POINT;
+         if( resize.size() > bytes )
+         {
+            resize.truncate( bytes );
+         }
+      }
+      return new MappedVector3Store( Objects.requireNonNull( file ), size, true, shift );
+   }
+
+   /**
+    * Opens an existing store. The number of points is determined from the length of the file.
+    *
+    * @param file the file holding the points. Cannot be <code>null</code>.
+    * @param writable whether the points can be modified.
+    * @return the store.
+    * @throws IOException if the file cannot be opened or mapped, or its length is not a whole number of points.
+    */
+   public static MappedVector3Store open( final Path file, final boolean writable ) throws IOException
+   {
+      return open( file, writable, DEFAULT_SEGMENT_SHIFT );
+   }
+
+   static MappedVector3Store open( final Path file, final boolean writable, final int shift ) throws IOException
+   {
+      final long bytes;
+      try( FileChannel probe = FileChannel.open( file, StandardOpenOption.READ ) )
+      {
+         bytes = probe.size();
+      }
+      if( ( bytes % BYTES_PER_POINT ) != 0 )
+      {
+         throw new IOException( String.format( "File length %d is not a multiple of %d bytes: %s", //$NON-NLS-1$
+                                               bytes,
+                                               BYTES_PER_POINT,
+                                               file ) );
+      }
+      return new MappedVector3Store( file, bytes / BYTES_PER_POINT, writable, shift );
+   }
+
+   /**
+    * Gets the number of points in the store.
+    *
+    * @return the number of points in the store.
+    */
+   public long size()
+   {
+      return this.size;
+   }
+
+   /**
+    * Tests whether the points in the store can be modified.
+    *
+    * @return whether the store is writable.
+    */
+   public boolean isWritable()
+   {
+      return this.writable;
+   }
+
+   /**
+    * Gets the point at the specified index.
+    *
+    * @param index the index of the point.
+    * @return a new vector holding the point's coordinates.
+    */
+   public Vector3 get( final long index )
+   {
+      checkIndex( index );
+      final DoubleBuffer segment = segment( index );
+      final int i = offset( index );
+      return new Vector3( segment.get( i ), segment.get( i + 1 ), segment.get( i + 2 ) );
+   }
+
+   /**
+    * Gets the x coordinate of the point at the specified index.
+    *
+    * @param index the index of the point.
+    * @return the x coordinate of the point.
+    */
+   public double getX( final long index )
+   {
+      checkIndex( index );
+      return segment( index ).get( offset( index ) );
+   }
+
+   /**
+    * Gets the y coordinate of the point at the specified index.
+    *
+    * @param index the index of the point.
+    * @return the y coordinate of the point.
+    */
+   public double getY( final long index )
+   {
+      checkIndex( index );
+      return segment( index ).get( offset( index ) + 1 );
+   }
+
+   /**
+    * Gets the z coordinate of the point at the specified index.
+    *
+    * @param index the index of the point.
+    * @return the z coordinate of the point.
+    */
+   public double getZ( final long index )
+   {
+      checkIndex( index );
+      return segment( index ).get( offset( index ) + 2 );
+   }
+
+   /**
+    * Sets the point at the specified index.
+    *
+    * @param index the index of the point.
+    * @param p the new point. Cannot be <code>null</code>.
+    */
+   public void set( final long index, final Vector3 p )
+   {
+      set( index, p.x, p.y, p.z );
+   }
+
+   /**
+    * Sets the point at the specified index.
+    *
+    * @param index the index of the point.
+    * @param x the new x coordinate.
+    * @param y the new y coordinate.
+    * @param z the new z coordinate.
+    */
+   public void set( final long index, final double x, final double y, final double z )
+   {
+      checkIndex( index );
+      final DoubleBuffer segment = segment( index );
+      final int i = offset( index );
+      segment.put( i, x );
+      segment.put( i + 1, y );
+      segment.put( i + 2, z );
+   }
+
+   /**
+    * Copies points out of the store into a packed array of interleaved <code>x, y, z</code> coordinates.
+    *
+    * @param index the index of the first point to copy.
+    * @param dst the array into which to copy the coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to copy.
+    */
+   public void get( final long index, final double[] dst, final int dstOffset, final int count )
+   {
+      checkRange( index, count );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      int d = dstOffset;
+      for( long i = index, to = index + count; i < to; )
+      {
+         final long end = segmentEnd( i, to );
+         final DoubleBuffer segment = segment( i );
+         final int s = offset( i );
+         final int n = 3 * (int) ( end - i );
+         for( int j = 0; j < n; j++ )
+         {
+            dst[ d + j ] = segment.get( s + j );
+         }
+         d += n;
+         i = end;
+      }
+   }
+
+   /**
+    * Copies points into the store from a packed array of interleaved <code>x, y, z</code> coordinates.
+    *
+    * @param index the index of the first point to overwrite.
+    * @param src the array from which to copy the coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param count the number of points to copy.
+    */
+   public void set( final long index, final double[] src, final int srcOffset, final int count )
+   {
+      checkRange( index, count );
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      int s = srcOffset;
+      for( long i = index, to = index + count; i < to; )
+      {
+         final long end = segmentEnd( i, to );
+         final DoubleBuffer segment = segment( i );
+         final int d = offset( i );
+         final int n = 3 * (int) ( end - i );
+         for( int j = 0; j < n; j++ )
+         {
+            segment.put( d + j, src[ s + j ] );
+         }
+         s += n;
+         i = end;
+      }
+   }
+
+   /**
+    * Passes every point in the store to a consumer, in index order, on the calling thread.
+    *
+    * @param consumer the consumer of the points. Cannot be <code>null</code>.
+    */
+   public void forEach( final PointConsumer3 consumer )
+   {
+      forEach( 0, this.size, consumer );
+   }
+
+   /**
+    * Passes the points in the range <code>[from, to)</code> to a consumer, in index order, on the calling thread.
+    *
+    * @param from the index of the first point.
+    * @param to one past the index of the last point.
+    * @param consumer the consumer of the points. Cannot be <code>null</code>.
+    */
+   public void forEach( final long from, final long to, final PointConsumer3 consumer )
+   {
+      checkRange( from, to - from );
+      for( long i = from; i < to; )
+      {
+         final long end = segmentEnd( i, to );
+         final DoubleBuffer segment = segment( i );
+         int s = offset( i );
+         for( long j = i; j < end; j++, s += 3 )
+         {
+            consumer.accept( j, segment.get( s ), segment.get( s + 1 ), segment.get( s + 2 ) );
+         }
+         i = end;
+      }
+   }
+
+   /**
+    * Passes every point in the store to a consumer, splitting the store into chunks of {@link Batch#getParallelThreshold()}
+    * points that are processed in parallel on the common fork-join pool. Points within a chunk are passed in index order, but
+    * chunks are processed in no particular order.
+    *
+    * @param consumer the consumer of the points. It is called from several threads at once. Cannot be <code>null</code>.
+    */
+   public void parallelForEach( final PointConsumer3 consumer )
+   {
+      Objects.requireNonNull( consumer );
+      Batch.forLongRange( 0, this.size, ( from, to ) -> forEach( from, to, consumer ) );
+   }
+
+   /**
+    * Forces any changes made to the points to be written to the file.
+    */
+   public void force()
+   {
+      if( this.writable )
+      {
+         for( final MappedByteBuffer mapping : this.mappings )
+         {
+            mapping.force();
+         }
+      }
+   }
+
+   /**
+    * Closes the file. Points that have already been mapped remain accessible until the store is garbage collected.
+    *
+    * @throws IOException if the file cannot be closed.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      this.channel.close();
+   }
+
+   /**
+    * Gets the mapped segment holding a point.
+    *
+    * @param index the index of the point.
+    * @return the segment holding the point.
+    */
+   DoubleBuffer segment( final long index )
+   {
+      return this.segments[ (int) ( index >>> this.shift ) ];
+   }
+
+   /**
+    * Gets the index of a point's x coordinate within its mapped segment.
+    *
+    * @param index the index of the point.
+    * @return the index of the x coordinate within the segment.
+    */
+   int offset( final long index )
+   {
+      return 3 * (int) ( index & this.mask );
+   }
+
+   /**
+    * Gets the end of the run of points starting at an index that lie in the same mapped segment.
+    *
+    * @param index the index of the first point.
+    * @param to one past the index of the last point wanted.
+    * @return one past the index of the last point in the run.
+    */
+   long segmentEnd( final long index, final long to )
+   {
+      return Math.min( to, ( ( index >>> this.shift ) + 1 ) << this.shift );
+   }
+
+   private void checkIndex( final long index )
+   {
+      if( ( index < 0 ) || ( index >= this.size ) )
+      {
+         throw new IndexOutOfBoundsException( "Index: " + index + ", size: " + this.size ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+   }
+
+   private void checkRange( final long index, final long count )
+   {
+      if( ( index < 0 ) || ( count < 0 ) || ( index > ( this.size - count ) ) )
+      {
+         throw new IndexOutOfBoundsException( String.format( "index: %d, count: %d, size: %d", index, count, this.size ) ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "%d points in %s", this.size, this.file ); //$NON-NLS-1$
+   }
+}
@@ -65,6 +65,131 @@ public class Matrix2
       return new Vector2( r0, r1 );
    }
 
+   /**
+    * Calculates the result vector, r, by multiplying this matrix, M, with the specified vector, v:
+    *
+    * <pre>
+    * r = M.v
+    * </pre>
+    *
+    * @param v the vector with which to multiply this matrix.
+    * @return the vector multiplied by this matrix.
+    */
+   public Vector2 mul( final Vector2 v )
+   {
+      final double r0 = ( this.a00 * v.x ) + ( this.a01 * v.y );
+      final double r1 = ( this.a10 * v.x ) + ( this.a11 * v.y );
+      return new Vector2( r0, r1 );
+   }
+
+   /**
+    * Multiplies every point in a packed array of interleaved <code>x, y</code> coordinates by this matrix, writing the results
+    * into another packed array. The results are identical to calling {@link #mul(Vector2)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to transform.
+    */
+   public void mul( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 2 );
+      Batch.checkRange( dst.length, dstOffset, count, 2 );
+      Batch.forRange( 0, count, ( from, to ) -> mulInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Multiplies every point held in separate x and y coordinate arrays by this matrix, writing the results into the destination
+    * arrays at the same indices. The results are identical to calling {@link #mul(Vector2)} on each point.
+    * <p>
+    * The destination arrays can be the source arrays to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param srcX the source x coordinates. Cannot be <code>null</code>.
+    * @param srcY the source y coordinates. Cannot be <code>null</code>.
+    * @param dstX the destination x coordinates. Cannot be <code>null</code>.
+    * @param dstY the destination y coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point to transform.
+    * @param count the number of points to transform.
+    */
+   public void mul( final double[] srcX,
+                    final double[] srcY,
+                    final double[] dstX,
+                    final double[] dstY,
+                    final int offset,
+                    final int count )
+   {
+      Batch.checkRange( srcX.length, offset, count, 1 );
+      Batch.checkRange( srcY.length, offset, count, 1 );
+      Batch.checkRange( dstX.length, offset, count, 1 );
+      Batch.checkRange( dstY.length, offset, count, 1 );
+      Batch.forRange( offset, offset + count, ( from, to ) -> mulSeparate( srcX, srcY, dstX, dstY, from, to ) );
+   }
+
+   /**
+    * Multiplies every vector in the source buffer by this matrix, writing the results into the destination buffer.
+    *
+    * @param src the vectors to transform. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the transformed vectors. Can be src. Must be the same size as src.
+    * @see #mul(double[], double[], double[], double[], int, int)
+    */
+   public void mul( final Vector2Buffer src, final Vector2Buffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      mul( src.x, src.y, dst.x, dst.y, 0, src.size() );
+   }
+
+   private void mulInterleaved( final double[] src,
+                                final int srcOffset,
+                                final double[] dst,
+                                final int dstOffset,
+                                final int from,
+                                final int to )
+   {
+      final double m00 = this.a00;
+      final double m01 = this.a01;
+      final double m10 = this.a10;
+      final double m11 = this.a11;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 2 * i );
+         final int d = dstOffset + ( 2 * i );
+         final double x = src[ s ];
+         final double y = src[ s + 1 ];
+         dst[ d ] = ( m00 * x ) + ( m01 * y );
+         dst[ d + 1 ] = ( m10 * x ) + ( m11 * y );
+      }
+   }
+
+   private void mulSeparate( final double[] srcX,
+                             final double[] srcY,
+                             final double[] dstX,
+                             final double[] dstY,
+                             final int from,
+                             final int to )
+   {
+      final double m00 = this.a00;
+      final double m01 = this.a01;
+      final double m10 = this.a10;
+      final double m11 = this.a11;
+      for( int i = from; i < to; i++ )
+      {
+         final double x = srcX[ i ];
+         final double y = srcY[ i ];
+         dstX[ i ] = ( m00 * x ) + ( m01 * y );
+         dstY[ i ] = ( m10 * x ) + ( m11 * y );
+      }
+   }
+
    /**
     * Calculates the result matrix, R, by multiplying this matrix, M, with the specified matrix, S:
     *
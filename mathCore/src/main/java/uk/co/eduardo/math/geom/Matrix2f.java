@@ -0,0 +1,316 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents a 2x2 matrix with single precision elements.
+ * <p>
+ * The float counterpart of {@link Matrix2}, for transforming points held in single precision. Use {@link #from(Matrix2)} and
+ * {@link #toDouble()} to convert between the two.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Matrix2f
+{
+   /** The 2 x 2 identity matrix. */
+   public static final Matrix2f IDENTITY = new Matrix2f( 1, 0, 0, 1 );
+
+   /** Element at row 0 column 0. */
+   public final float a00;
+
+   /** Element at row 0 column 1. */
+   public final float a01;
+
+   /** Element at row 1 column 0. */
+   public final float a10;
+
+   /** Element at row 1 column 1. */
+   public final float a11;
+
+   /**
+    * Initializes a new Matrix2f object.
+    * <p>
+    * Constructs the following matrix:
+    *
+    * <pre>
+    *  &#x250C;          &#x2510;
+    *  &#x2502; a00, a01 &#x2502;
+    *  &#x2502; a10, a11 &#x2502;
+    *  &#x2514;          &#x2518;
+    * </pre>
+    * </p>
+    *
+    * @param a00 element at row 0 column 0.
+    * @param a01 element at row 0 column 1.
+    * @param a10 element at row 1 column 0.
+    * @param a11 element at row 1 column 1.
+    */
+   public Matrix2f( final float a00, final float a01, final float a10, final float a11 )
+   {
+      this.a00 = a00;
+      this.a01 = a01;
+      this.a10 = a10;
+      this.a11 = a11;
+   }
+
+   /**
+    * Calculates the result vector, r, by multiplying this matrix, M, with the specified vector, v:
+    *
+    * <pre>
+    * r = M.v
+    * </pre>
+    *
+    * @param v the vector with which to multiply this matrix.
+    * @return the vector multiplied by this matrix.
+    */
+   public Vector2f mul( final Vector3f v )
+   {
+      final float r0 = ( this.a00 * v.x ) + ( this.a01 * v.y );
+      final float r1 = ( this.a10 * v.x ) + ( this.a11 * v.y );
+      return new Vector2f( r0, r1 );
+   }
+
+   /**
+    * Calculates the result vector, r, by multiplying this matrix, M, with the specified vector, v:
+    *
+    * <pre>
+    * r = M.v
+    * </pre>
+    *
+    * @param v the vector with which to multiply this matrix.
+    * @return the vector multiplied by this matrix.
+    */
+   public Vector2f mul( final Vector2f v )
+   {
+      final float r0 = ( this.a00 * v.x ) + ( this.a01 * v.y );
+      final float r1 = ( this.a10 * v.x ) + ( this.a11 * v.y );
+      return new Vector2f( r0, r1 );
+   }
+
+   /**
+    * Multiplies every point in a packed array of interleaved <code>x, y</code> coordinates by this matrix, writing the results
+    * into another packed array. The results are identical to calling {@link #mul(Vector2f)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to transform.
+    */
+   public void mul( final float[] src, final int srcOffset, final float[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 2 );
+      Batch.checkRange( dst.length, dstOffset, count, 2 );
+      Batch.forRange( 0, count, ( from, to ) -> mulInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Multiplies every point held in separate x and y coordinate arrays by this matrix, writing the results into the destination
+    * arrays at the same indices. The results are identical to calling {@link #mul(Vector2f)} on each point.
+    * <p>
+    * The destination arrays can be the source arrays to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param srcX the source x coordinates. Cannot be <code>null</code>.
+    * @param srcY the source y coordinates. Cannot be <code>null</code>.
+    * @param dstX the destination x coordinates. Cannot be <code>null</code>.
+    * @param dstY the destination y coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point to transform.
+    * @param count the number of points to transform.
+    */
+   public void mul( final float[] srcX,
+                    final float[] srcY,
+                    final float[] dstX,
+                    final float[] dstY,
+                    final int offset,
+                    final int count )
+   {
+      Batch.checkRange( srcX.length, offset, count, 1 );
+      Batch.checkRange( srcY.length, offset, count, 1 );
+      Batch.checkRange( dstX.length, offset, count, 1 );
+      Batch.checkRange( dstY.length, offset, count, 1 );
+      Batch.forRange( offset, offset + count, ( from, to ) -> mulSeparate( srcX, srcY, dstX, dstY, from, to ) );
+   }
+
+   /**
+    * Multiplies every vector in the source buffer by this matrix, writing the results into the destination buffer.
+    *
+    * @param src the vectors to transform. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the transformed vectors. Can be src. Must be the same size as src.
+    * @see #mul(float[], float[], float[], float[], int, int)
+    */
+   public void mul( final Vector2fBuffer src, final Vector2fBuffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      mul( src.x, src.y, dst.x, dst.y, 0, src.size() );
+   }
+
+   private void mulInterleaved( final float[] src,
+                                final int srcOffset,
+                                final float[] dst,
+                                final int dstOffset,
+                                final int from,
+                                final int to )
+   {
+      final float m00 = this.a00;
+      final float m01 = this.a01;
+      final float m10 = this.a10;
+      final float m11 = this.a11;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 2 * i );
+         final int d = dstOffset + ( 2 * i );
+         final float x = src[ s ];
+         final float y = src[ s + 1 ];
+         dst[ d ] = ( m00 * x ) + ( m01 * y );
+         dst[ d + 1 ] = ( m10 * x ) + ( m11 * y );
+      }
+   }
+
+   private void mulSeparate( final float[] srcX,
+                             final float[] srcY,
+                             final float[] dstX,
+                             final float[] dstY,
+                             final int from,
+                             final int to )
+   {
+      final float m00 = this.a00;
+      final float m01 = this.a01;
+      final float m10 = this.a10;
+      final float m11 = this.a11;
+      for( int i = from; i < to; i++ )
+      {
+         final float x = srcX[ i ];
+         final float y = srcY[ i ];
+         dstX[ i ] = ( m00 * x ) + ( m01 * y );
+         dstY[ i ] = ( m10 * x ) + ( m11 * y );
+      }
+   }
+
+   /**
+    * Calculates the result matrix, R, by multiplying this matrix, M, with the specified matrix, S:
+    *
+    * <pre>
+    * R = M.S
+    * </pre>
+    *
+    * @param S the matrix with which to compose this matrix.
+    * @return the composition of this matrix and the other.
+    */
+   public Matrix2f mul( final Matrix2f S )
+   {
+      final float r00 = ( this.a00 * S.a00 ) + ( this.a01 * S.a10 );
+      final float r01 = ( this.a00 * S.a01 ) + ( this.a01 * S.a11 );
+
+      final float r10 = ( this.a10 * S.a00 ) + ( this.a11 * S.a10 );
+      final float r11 = ( this.a10 * S.a01 ) + ( this.a11 * S.a11 );
+
+      return new Matrix2f( r00, r01, r10, r11 );
+   }
+
+   /**
+    * Calculates the result matix, R, by multiplying this matix, M, with the specified scalar, f.
+    *
+    * <pre>
+    * R = M.f
+    * </pre>
+    *
+    * @param factor the scale factor by which to multiply each element of this matrix.
+    * @return the result of multiplying each element of this matrix by the scale factor.
+    */
+   public Matrix2f mul( final float factor )
+   {
+      return new Matrix2f( this.a00 * factor, this.a01 * factor, this.a10 * factor, this.a11 * factor );
+   }
+
+   /**
+    * Calculates the determinant of this matrix.
+    *
+    * @return the determinant of the matrix.
+    */
+   public float det()
+   {
+      return ( this.a00 * this.a11 ) - ( this.a01 * this.a10 );
+   }
+
+   /**
+    * Calculates the inverse of the matrix, <code>M<sup>-1</sup></code>
+    *
+    * @return the matrix inverse or <code>null</code> if the inverse could not be calculated.
+    */
+   public Matrix2f inv()
+   {
+      final float det = det();
+      if( det == 0 )
+      {
+         return null;
+      }
+
+      return new Matrix2f( this.a11, -this.a01, -this.a10, this.a00 ).mul( 1 / det );
+   }
+
+   /**
+    * Returns the transpose of this matrix, <code>M<sup>T</sup></code>.
+    *
+    * @return the transpose of this matrix.
+    */
+   public Matrix2f transpose()
+   {
+      return new Matrix2f( this.a00, this.a10, this.a01, this.a11 );
+   }
+
+   /**
+    * Creates a rotation matrix.
+    *
+    * @param theta the number of degrees by which to rotate.
+    * @return a rotation matrix.
+    */
+   public static Matrix2f createRotationMatrix( final float theta )
+   {
+      final float ct = (float) Math.cos( Math.toRadians( theta ) );
+      final float st = (float) Math.sin( Math.toRadians( theta ) );
+
+      return new Matrix2f( ct, -st, st, ct );
+   }
+
+   /**
+    * Converts a double precision matrix to single precision, rounding each element to the nearest float.
+    *
+    * @param m the matrix to convert. Cannot be <code>null</code>.
+    * @return the single precision matrix.
+    */
+   public static Matrix2f from( final Matrix2 m )
+   {
+      return new Matrix2f( (float) m.a00, (float) m.a01, (float) m.a10, (float) m.a11 );
+   }
+
+   /**
+    * Converts this matrix to double precision. The conversion is exact.
+    *
+    * @return the double precision matrix.
+    */
+   public Matrix2 toDouble()
+   {
+      return new Matrix2( this.a00, this.a01, this.a10, this.a11 );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "| %.3f, %.3f |\n| %.3f, %.3f |", //$NON-NLS-1$
+                            this.a00,
+                            this.a01,
+                            this.a10,
+                            this.a11 );
+   }
+}
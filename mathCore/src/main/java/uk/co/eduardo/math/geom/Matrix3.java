@@ -1,5 +1,7 @@
 package uk.co.eduardo.math.geom;
 
+import java.nio.DoubleBuffer;
+
 /**
  * Represents a 3x3 matrix.
  *
@@ -10,6 +12,8 @@ public class Matrix3
    /** The 3 x 3 identity matrix. */
    public static final Matrix3 IDENTITY = new Matrix3( 1, 0, 0, 0, 1, 0, 0, 0, 1 );
 
+   private static final Operation MUL = Instrumentation.operation( "Matrix3.mul" ); //$NON-NLS-1$
+
    /** Element at row 0 column 0. */
    public final double a00;
 
@@ -100,6 +104,174 @@ public class Matrix3
       return new Vector3( r0, r1, r2 );
    }
 
+   /**
+    * Multiplies every point in a packed array of interleaved <code>x, y, z</code> coordinates by this matrix, writing the results
+    * into another packed array. The results are identical to calling {@link #mul(Vector3)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to transform.
+    */
+   public void mul( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      final Operation.Span span = MUL.begin();
+      Batch.forRange( 0, count, ( from, to ) -> mulInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+      MUL.end( span, count );
+   }
+
+   /**
+    * Multiplies every point held in separate x, y and z coordinate arrays by this matrix, writing the results into the
+    * destination arrays at the same indices. The results are identical to calling {@link #mul(Vector3)} on each point.
+    * <p>
+    * The destination arrays can be the source arrays to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param srcX the source x coordinates. Cannot be <code>null</code>.
+    * @param srcY the source y coordinates. Cannot be <code>null</code>.
+    * @param srcZ the source z coordinates. Cannot be <code>null</code>.
+    * @param dstX the destination x coordinates. Cannot be <code>null</code>.
+    * @param dstY the destination y coordinates. Cannot be <code>null</code>.
+    * @param dstZ the destination z coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point to transform.
+    * @param count the number of points to transform.
+    */
+   public void mul( final double[] srcX,
+                    final double[] srcY,
+                    final double[] srcZ,
+                    final double[] dstX,
+                    final double[] dstY,
+                    final double[] dstZ,
+                    final int offset,
+                    final int count )
+   {
+      Batch.checkRange( srcX.length, offset, count, 1 );
+      Batch.checkRange( srcY.length, offset, count, 1 );
+      Batch.checkRange( srcZ.length, offset, count, 1 );
+      Batch.checkRange( dstX.length, offset, count, 1 );
+      Batch.checkRange( dstY.length, offset, count, 1 );
+      Batch.checkRange( dstZ.length, offset, count, 1 );
+      final Operation.Span span = MUL.begin();
+      final BulkKernels kernels = Kernels.get();
+      Batch.forRange( offset, offset + count, ( from, to ) -> kernels.mul( this, srcX, srcY, srcZ, dstX, dstY, dstZ, from, to ) );
+      MUL.end( span, count );
+   }
+
+   /**
+    * Multiplies every vector in the source buffer by this matrix, writing the results into the destination buffer.
+    *
+    * @param src the vectors to transform. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the transformed vectors. Can be src. Must be the same size as src.
+    * @see #mul(double[], double[], double[], double[], double[], double[], int, int)
+    */
+   public void mul( final Vector3Buffer src, final Vector3Buffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      mul( src.x, src.y, src.z, dst.x, dst.y, dst.z, 0, src.size() );
+   }
+
+   /**
+    * Multiplies every point in a memory-mapped store by this matrix, writing the results into another store, reading and
+    * writing the mapped data in place. The results are identical to calling {@link #mul(Vector3)} on each point.
+    * <p>
+    * The destination can be the source to transform the points in place. Stores larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the points to transform. Cannot be <code>null</code>.
+    * @param dst the writable store into which to write the transformed points. Can be src. Must be the same size as src.
+    * @throws IllegalArgumentException if the stores differ in size or segment size, or the destination is not writable.
+    */
+   public void mul( final MappedVector3Store src, final MappedVector3Store dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Store size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      if( dst.shift != src.shift )
+      {
+         throw new IllegalArgumentException( String.format( "Store segment size mismatch: %d != %d", //$NON-NLS-1$
+                                                            1L << dst.shift,
+                                                            1L << src.shift ) );
+      }
+      if( !dst.isWritable() )
+      {
+         throw new IllegalArgumentException( "Destination store is not writable" ); //$NON-NLS-1$
+      }
+      final Operation.Span span = MUL.begin();
+      Batch.forLongRange( 0, src.size(), ( from, to ) -> {
+         for( long i = from; i < to; )
+         {
+            final long end = src.segmentEnd( i, to );
+            mulMapped( src.segment( i ), dst.segment( i ), src.offset( i ), (int) ( end - i ) );
+            i = end;
+         }
+      } );
+      MUL.end( span, src.size() );
+   }
+
+   private void mulMapped( final DoubleBuffer src, final DoubleBuffer dst, final int offset, final int count )
+   {
+      final double m00 = this.a00;
+      final double m01 = this.a01;
+      final double m02 = this.a02;
+      final double m10 = this.a10;
+      final double m11 = this.a11;
+      final double m12 = this.a12;
+      final double m20 = this.a20;
+      final double m21 = this.a21;
+      final double m22 = this.a22;
+      for( int i = offset, end = offset + ( 3 * count ); i < end; i += 3 )
+      {
+         final double x = src.get( i );
+         final double y = src.get( i + 1 );
+         final double z = src.get( i + 2 );
+         dst.put( i, ( m00 * x ) + ( m01 * y ) + ( m02 * z ) );
+         dst.put( i + 1, ( m10 * x ) + ( m11 * y ) + ( m12 * z ) );
+         dst.put( i + 2, ( m20 * x ) + ( m21 * y ) + ( m22 * z ) );
+      }
+   }
+
+   private void mulInterleaved( final double[] src,
+                                final int srcOffset,
+                                final double[] dst,
+                                final int dstOffset,
+                                final int from,
+                                final int to )
+   {
+      final double m00 = this.a00;
+      final double m01 = this.a01;
+      final double m02 = this.a02;
+      final double m10 = this.a10;
+      final double m11 = this.a11;
+      final double m12 = this.a12;
+      final double m20 = this.a20;
+      final double m21 = this.a21;
+      final double m22 = this.a22;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 3 * i );
+         final int d = dstOffset + ( 3 * i );
+         final double x = src[ s ];
+         final double y = src[ s + 1 ];
+         final double z = src[ s + 2 ];
+         dst[ d ] = ( m00 * x ) + ( m01 * y ) + ( m02 * z );
+         dst[ d + 1 ] = ( m10 * x ) + ( m11 * y ) + ( m12 * z );
+         dst[ d + 2 ] = ( m20 * x ) + ( m21 * y ) + ( m22 * z );
+      }
+   }
+
    /**
     * Calculates the result matrix, R, by multiplying this matrix, M, with the specified matrix, S:
     *
@@ -189,8 +361,9 @@ public class Matrix3
       final double s21 = -1 * ( ( this.a00 * this.a12 ) - ( this.a02 * this.a10 ) );
       final double s22 = +1 * ( ( this.a00 * this.a11 ) - ( this.a01 * this.a10 ) );
 
-      // Transpose and divide by determinant
-      return new Matrix3( s00, s01, s02, s10, s11, s12, s20, s21, s22 ).transpose().mul( 1 / det );
+      // Transpose and divide by determinant in one step, without the temporary matrices
+      final double f = 1 / det;
+      return new Matrix3( s00 * f, s10 * f, s20 * f, s01 * f, s11 * f, s21 * f, s02 * f, s12 * f, s22 * f );
    }
 
    /**
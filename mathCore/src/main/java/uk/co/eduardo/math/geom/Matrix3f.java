@@ -0,0 +1,420 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents a 3x3 matrix with single precision elements.
+ * <p>
+ * The float counterpart of {@link Matrix3}, for transforming points held in single precision. Use {@link #from(Matrix3)} and
+ * {@link #toDouble()} to convert between the two.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Matrix3f
+{
+   /** The 3 x 3 identity matrix. */
+   public static final Matrix3f IDENTITY = new Matrix3f( 1, 0, 0, 0, 1, 0, 0, 0, 1 );
+
+   /** Element at row 0 column 0. */
+   public final float a00;
+
+   /** Element at row 0 column 1. */
+   public final float a01;
+
+   /** Element at row 0 column 2. */
+   public final float a02;
+
+   /** Element at row 1 column 0. */
+   public final float a10;
+
+   /** Element at row 1 column 1. */
+   public final float a11;
+
+   /** Element at row 1 column 2. */
+   public final float a12;
+
+   /** Element at row 2 column 0. */
+   public final float a20;
+
+   /** Element at row 2 column 1. */
+   public final float a21;
+
+   /** Element at row 2 column 2. */
+   public final float a22;
+
+   /**
+    * Initializes a new Matrix3f object.
+    * <p>
+    * Constructs the following matrix:
+    *
+    * <pre>
+    *  &#x250C;               &#x2510;
+    *  &#x2502; a00, a01, a02 &#x2502;
+    *  &#x2502; a10, a11, a12 &#x2502;
+    *  &#x2502; a20, a21, a22 &#x2502;
+    *  &#x2514;               &#x2518;
+    * </pre>
+    * </p>
+    *
+    * @param a00 element at row 0 column 0.
+    * @param a01 element at row 0 column 1.
+    * @param a02 element at row 0 column 2.
+    * @param a10 element at row 1 column 0.
+    * @param a11 element at row 1 column 1.
+    * @param a12 element at row 1 column 2.
+    * @param a20 element at row 2 column 0.
+    * @param a21 element at row 2 column 1.
+    * @param a22 element at row 2 column 2.
+    */
+   public Matrix3f( final float a00,
+                   final float a01,
+                   final float a02,
+                   final float a10,
+                   final float a11,
+                   final float a12,
+                   final float a20,
+                   final float a21,
+                   final float a22 )
+   {
+      this.a00 = a00;
+      this.a01 = a01;
+      this.a02 = a02;
+      this.a10 = a10;
+      this.a11 = a11;
+      this.a12 = a12;
+      this.a20 = a20;
+      this.a21 = a21;
+      this.a22 = a22;
+   }
+
+   /**
+    * Calculates the result vector, r, by multiplying this matrix, M, with the specified vector, v:
+    *
+    * <pre>
+    * r = M.v
+    * </pre>
+    *
+    * @param v the vector with which to multiply this matrix.
+    * @return the vector multiplied by this matrix.
+    */
+   public Vector3f mul( final Vector3f v )
+   {
+      final float r0 = ( this.a00 * v.x ) + ( this.a01 * v.y ) + ( this.a02 * v.z );
+      final float r1 = ( this.a10 * v.x ) + ( this.a11 * v.y ) + ( this.a12 * v.z );
+      final float r2 = ( this.a20 * v.x ) + ( this.a21 * v.y ) + ( this.a22 * v.z );
+      return new Vector3f( r0, r1, r2 );
+   }
+
+   /**
+    * Multiplies every point in a packed array of interleaved <code>x, y, z</code> coordinates by this matrix, writing the results
+    * into another packed array. The results are identical to calling {@link #mul(Vector3f)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to transform.
+    */
+   public void mul( final float[] src, final int srcOffset, final float[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      Batch.forRange( 0, count, ( from, to ) -> mulInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Multiplies every point held in separate x, y and z coordinate arrays by this matrix, writing the results into the
+    * destination arrays at the same indices. The results are identical to calling {@link #mul(Vector3f)} on each point.
+    * <p>
+    * The destination arrays can be the source arrays to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param srcX the source x coordinates. Cannot be <code>null</code>.
+    * @param srcY the source y coordinates. Cannot be <code>null</code>.
+    * @param srcZ the source z coordinates. Cannot be <code>null</code>.
+    * @param dstX the destination x coordinates. Cannot be <code>null</code>.
+    * @param dstY the destination y coordinates. Cannot be <code>null</code>.
+    * @param dstZ the destination z coordinates. Cannot be <code>null</code>.
+    * @param offset the index of the first point to transform.
+    * @param count the number of points to transform.
+    */
+   public void mul( final float[] srcX,
+                    final float[] srcY,
+                    final float[] srcZ,
+                    final float[] dstX,
+                    final float[] dstY,
+                    final float[] dstZ,
+                    final int offset,
+                    final int count )
+   {
+      Batch.checkRange( srcX.length, offset, count, 1 );
+      Batch.checkRange( srcY.length, offset, count, 1 );
+      Batch.checkRange( srcZ.length, offset, count, 1 );
+      Batch.checkRange( dstX.length, offset, count, 1 );
+      Batch.checkRange( dstY.length, offset, count, 1 );
+      Batch.checkRange( dstZ.length, offset, count, 1 );
+      Batch.forRange( offset, offset + count, ( from, to ) -> mulSeparate( srcX, srcY, srcZ, dstX, dstY, dstZ, from, to ) );
+   }
+
+   /**
+    * Multiplies every vector in the source buffer by this matrix, writing the results into the destination buffer.
+    *
+    * @param src the vectors to transform. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the transformed vectors. Can be src. Must be the same size as src.
+    * @see #mul(float[], float[], float[], float[], float[], float[], int, int)
+    */
+   public void mul( final Vector3fBuffer src, final Vector3fBuffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      mul( src.x, src.y, src.z, dst.x, dst.y, dst.z, 0, src.size() );
+   }
+
+   private void mulInterleaved( final float[] src,
+                                final int srcOffset,
+                                final float[] dst,
+                                final int dstOffset,
+                                final int from,
+                                final int to )
+   {
+      final float m00 = this.a00;
+      final float m01 = this.a01;
+      final float m02 = this.a02;
+      final float m10 = this.a10;
+      final float m11 = this.a11;
+      final float m12 = this.a12;
+      final float m20 = this.a20;
+      final float m21 = this.a21;
+      final float m22 = this.a22;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 3 * i );
+         final int d = dstOffset + ( 3 * i );
+         final float x = src[ s ];
+         final float y = src[ s + 1 ];
+         final float z = src[ s + 2 ];
+         dst[ d ] = ( m00 * x ) + ( m01 * y ) + ( m02 * z );
+         dst[ d + 1 ] = ( m10 * x ) + ( m11 * y ) + ( m12 * z );
+         dst[ d + 2 ] = ( m20 * x ) + ( m21 * y ) + ( m22 * z );
+      }
+   }
+
+   private void mulSeparate( final float[] srcX,
+                             final float[] srcY,
+                             final float[] srcZ,
+                             final float[] dstX,
+                             final float[] dstY,
+                             final float[] dstZ,
+                             final int from,
+                             final int to )
+   {
+      final float m00 = this.a00;
+      final float m01 = this.a01;
+      final float m02 = this.a02;
+      final float m10 = this.a10;
+      final float m11 = this.a11;
+      final float m12 = this.a12;
+      final float m20 = this.a20;
+      final float m21 = this.a21;
+      final float m22 = this.a22;
+      for( int i = from; i < to; i++ )
+      {
+         final float x = srcX[ i ];
+         final float y = srcY[ i ];
+         final float z = srcZ[ i ];
+         dstX[ i ] = ( m00 * x ) + ( m01 * y ) + ( m02 * z );
+         dstY[ i ] = ( m10 * x ) + ( m11 * y ) + ( m12 * z );
+         dstZ[ i ] = ( m20 * x ) + ( m21 * y ) + ( m22 * z );
+      }
+   }
+
+   /**
+    * Calculates the result matrix, R, by multiplying this matrix, M, with the specified matrix, S:
+    *
+    * <pre>
+    * R = M.S
+    * </pre>
+    *
+    * @param S the matrix with which to compose this matrix.
+    * @return the composition of this matrix and the other.
+    */
+   public Matrix3f mul( final Matrix3f S )
+   {
+      final float r00 = ( this.a00 * S.a00 ) + ( this.a01 * S.a10 ) + ( this.a02 * S.a20 );
+      final float r01 = ( this.a00 * S.a01 ) + ( this.a01 * S.a11 ) + ( this.a02 * S.a21 );
+      final float r02 = ( this.a00 * S.a02 ) + ( this.a01 * S.a12 ) + ( this.a02 * S.a22 );
+
+      final float r10 = ( this.a10 * S.a00 ) + ( this.a11 * S.a10 ) + ( this.a12 * S.a20 );
+      final float r11 = ( this.a10 * S.a01 ) + ( this.a11 * S.a11 ) + ( this.a12 * S.a21 );
+      final float r12 = ( this.a10 * S.a02 ) + ( this.a11 * S.a12 ) + ( this.a12 * S.a22 );
+
+      final float r20 = ( this.a20 * S.a00 ) + ( this.a21 * S.a10 ) + ( this.a22 * S.a20 );
+      final float r21 = ( this.a20 * S.a01 ) + ( this.a21 * S.a11 ) + ( this.a22 * S.a21 );
+      final float r22 = ( this.a20 * S.a02 ) + ( this.a21 * S.a12 ) + ( this.a22 * S.a22 );
+
+      return new Matrix3f( r00, r01, r02, r10, r11, r12, r20, r21, r22 );
+   }
+
+   /**
+    * Calculates the result matix, R, by multiplying this matix, M, with the specified scalar, f.
+    *
+    * <pre>
+    * R = M.f
+    * </pre>
+    *
+    * @param factor the scale factor by which to multiply each element of this matrix.
+    * @return the result of multiplying each element of this matrix by the scale factor.
+    */
+   public Matrix3f mul( final float factor )
+   {
+      return new Matrix3f( this.a00 * factor,
+                          this.a01 * factor,
+                          this.a02 * factor,
+                          this.a10 * factor,
+                          this.a11 * factor,
+                          this.a12 * factor,
+                          this.a20 * factor,
+                          this.a21 * factor,
+                          this.a22 * factor );
+   }
+
+   /**
+    * Calculates the determinant of this matrix.
+    *
+    * @return the determinant of the matrix.
+    */
+   public float det()
+   {
+      final float s1 = this.a00 * ( ( this.a11 * this.a22 ) - ( this.a12 * this.a21 ) );
+      final float s2 = this.a01 * ( ( this.a10 * this.a22 ) - ( this.a12 * this.a20 ) );
+      final float s3 = this.a02 * ( ( this.a10 * this.a21 ) - ( this.a11 * this.a20 ) );
+      return ( s1 - s2 ) + s3;
+   }
+
+   /**
+    * Calculates the inverse of the matrix, <code>M<sup>-1</sup></code>
+    *
+    * @return the matrix inverse or <code>null</code> if the inverse could not be calculated.
+    */
+   public Matrix3f inv()
+   {
+      final float det = det();
+      if( det == 0 )
+      {
+         return null;
+      }
+
+      // Calculate matrix of minors with correct cofactor
+      final float s00 = +1 * ( ( this.a11 * this.a22 ) - ( this.a12 * this.a21 ) );
+      final float s01 = -1 * ( ( this.a10 * this.a22 ) - ( this.a12 * this.a20 ) );
+      final float s02 = +1 * ( ( this.a10 * this.a21 ) - ( this.a11 * this.a20 ) );
+
+      final float s10 = -1 * ( ( this.a01 * this.a22 ) - ( this.a02 * this.a21 ) );
+      final float s11 = +1 * ( ( this.a00 * this.a22 ) - ( this.a02 * this.a20 ) );
+      final float s12 = -1 * ( ( this.a00 * this.a21 ) - ( this.a01 * this.a20 ) );
+
+      final float s20 = +1 * ( ( this.a01 * this.a12 ) - ( this.a02 * this.a11 ) );
+      final float s21 = -1 * ( ( this.a00 * this.a12 ) - ( this.a02 * this.a10 ) );
+      final float s22 = +1 * ( ( this.a00 * this.a11 ) - ( this.a01 * this.a10 ) );
+
+      // Transpose and divide by determinant
+      return new Matrix3f( s00, s01, s02, s10, s11, s12, s20, s21, s22 ).transpose().mul( 1 / det );
+   }
+
+   /**
+    * Returns the transpose of this matrix, <code>M<sup>T</sup></code>.
+    *
+    * @return the transpose of this matrix.
+    */
+   public Matrix3f transpose()
+   {
+      return new Matrix3f( this.a00, this.a10, this.a20, this.a01, this.a11, this.a21, this.a02, this.a12, this.a22 );
+   }
+
+   /**
+    * Creates a rotation matrix that rotates about the unit vector, v.
+    *
+    * @param v the vector about which to rotate. Must be a unit vector.
+    * @param theta the number of degrees to rotate. If the vector v points to the viewer, then a positive value will rotate
+    *           anticlockwise.
+    * @return a rotation matrix for rotating around the given axis.
+    */
+   public static Matrix3f createRotationMatrix( final Vector3f v, final float theta )
+   {
+      final float ct = (float) Math.cos( Math.toRadians( theta ) );
+      final float st = (float) Math.sin( Math.toRadians( theta ) );
+
+      final float r00 = ct + ( v.x * v.x * ( 1 - ct ) );
+      final float r01 = ( v.x * v.y * ( 1 - ct ) ) - ( v.z * st );
+      final float r02 = ( v.x * v.z * ( 1 - ct ) ) + ( v.y * st );
+      final float r10 = ( v.y * v.x * ( 1 - ct ) ) + ( v.z * st );
+      final float r11 = ct + ( v.y * v.y * ( 1 - ct ) );
+      final float r12 = ( v.y * v.z * ( 1 - ct ) ) - ( v.x * st );
+      final float r20 = ( v.z * v.x * ( 1 - ct ) ) - ( v.y * st );
+      final float r21 = ( v.z * v.y * ( 1 - ct ) ) + ( v.x * st );
+      final float r22 = ct + ( v.z * v.z * ( 1 - ct ) );
+
+      return new Matrix3f( r00, r01, r02, r10, r11, r12, r20, r21, r22 );
+   }
+
+   /**
+    * Converts a double precision matrix to single precision, rounding each element to the nearest float.
+    *
+    * @param m the matrix to convert. Cannot be <code>null</code>.
+    * @return the single precision matrix.
+    */
+   public static Matrix3f from( final Matrix3 m )
+   {
+      return new Matrix3f( (float) m.a00,
+                           (float) m.a01,
+                           (float) m.a02,
+                           (float) m.a10,
+                           (float) m.a11,
+                           (float) m.a12,
+                           (float) m.a20,
+                           (float) m.a21,
+                           (float) m.a22 );
+   }
+
+   /**
+    * Converts this matrix to double precision. The conversion is exact.
+    *
+    * @return the double precision matrix.
+    */
+   public Matrix3 toDouble()
+   {
+      return new Matrix3( this.a00,
+                          this.a01,
+                          this.a02,
+                          this.a10,
+                          this.a11,
+                          this.a12,
+                          this.a20,
+                          this.a21,
+                          this.a22 );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "| %.3f, %.3f, %.3f |\n| %.3f, %.3f, %.3f |\n| %.3f, %.3f, %.3f |", //$NON-NLS-1$
+                            this.a00,
+                            this.a01,
+                            this.a02,
+                            this.a10,
+                            this.a11,
+                            this.a12,
+                            this.a20,
+                            this.a21,
+                            this.a22 );
+   }
+}
@@ -0,0 +1,214 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of neighbouring points found by a spatial query, each identified by its index in the indexed point set and
+ * paired with its squared distance from the query point.
+ * <p>
+ * The storage grows as needed and is retained between queries, so repeatedly querying into the same list does not allocate once
+ * it has reached its working size.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Neighbours
+{
+   private int[] indices;
+
+   private double[] distancesSquared;
+
+   private int size;
+
+   /**
+    * Initializes a new Neighbours object.
+    */
+   public Neighbours()
+   {
+      this( 16 );
+   }
+
+   /**
+    * Initializes a new Neighbours object.
+    *
+    * @param capacity the initial capacity.
+    */
+   public Neighbours( final int capacity )
+   {
+      this.indices = new int[ Math.max( 1, capacity ) ];
+      this.distancesSquared = new double[ this.indices.length ];
+   }
+
+   /**
+    * Gets the number of neighbours in the list.
+    *
+    * @return the number of neighbours.
+    */
+   public int size()
+   {
+      return this.size;
+   }
+
+   /**
+    * Gets the index of a neighbour in the indexed point set.
+    *
+    * @param i the position of the neighbour in this list.
+    * @return the index of the neighbour in the indexed point set.
+    */
+   public int getIndex( final int i )
+   {
+      checkPosition( i );
+      return this.indices[ i ];
+   }
+
+   /**
+    * Gets the squared distance of a neighbour from the query point.
+    *
+    * @param i the position of the neighbour in this list.
+    * @return the squared distance of the neighbour from the query point.
+    */
+   public double getDistanceSquared( final int i )
+   {
+      checkPosition( i );
+      return this.distancesSquared[ i ];
+   }
+
+   /**
+    * Removes all the neighbours from the list, retaining its storage.
+    */
+   public void clear()
+   {
+      this.size = 0;
+   }
+
+   /**
+    * Appends a neighbour.
+    *
+    * @param index the index of the neighbour.
+    * @param distanceSquared the squared distance of the neighbour.
+    */
+   void add( final int index, final double distanceSquared )
+   {
+      if( this.size == this.indices.length )
+      {
+         final int capacity = this.size * 2;
+         this.indices = Arrays.copyOf( this.indices, capacity );
+         this.distancesSquared = Arrays.copyOf( this.distancesSquared, capacity );
+      }
+      this.indices[ this.size ] = index;
+      this.distancesSquared[ this.size ] = distanceSquared;
+      this.size++;
+   }
+
+   /**
+    * Offers a neighbour to the list treated as a max-heap that keeps only the k closest neighbours.
+    *
+    * @param index the index of the neighbour.
+    * @param distanceSquared the squared distance of the neighbour.
+    * @param k the maximum number of neighbours to keep.
+    */
+   void offer( final int index, final double distanceSquared, final int k )
+   {
+      if( this.size < k )
+      {
+         add( index, distanceSquared );
+         siftUp( this.size - 1 );
+      }
+      else if( distanceSquared < this.distancesSquared[ 0 ] )
+      {
+         this.indices[ 0 ] = index;
+         this.distancesSquared[ 0 ] = distanceSquared;
+         siftDown( 0, this.size );
+      }
+   }
+
+   /**
+    * Gets the squared distance beyond which an offered neighbour would be rejected.
+    *
+    * @param k the maximum number of neighbours to keep.
+    * @return the squared distance of the furthest kept neighbour, or infinity if fewer than k are kept.
+    */
+   double bound( final int k )
+   {
+      return this.size < k ? Double.POSITIVE_INFINITY : this.distancesSquared[ 0 ];
+   }
+
+   /**
+    * Sorts a list built with {@link #offer(int, double, int)} into order of increasing distance.
+    */
+   void sortHeap()
+   {
+      for( int end = this.size - 1; end > 0; end-- )
+      {
+         swap( 0, end );
+         siftDown( 0, end );
+      }
+   }
+
+   private void siftUp( final int start )
+   {
+      int child = start;
+      while( child > 0 )
+      {
+         final int parent = ( child - 1 ) >>> 1;
+         if( this.distancesSquared[ parent ] >= this.distancesSquared[ child ] )
+         {
+            return;
+         }
+         swap( parent, child );
+         child = parent;
+      }
+   }
+
+   private void siftDown( final int start, final int end )
+   {
+      int parent = start;
+      while( true )
+      {
+         int largest = parent;
+         final int left = ( 2 * parent ) + 1;
+         final int right = left + 1;
+         if( ( left < end ) && ( this.distancesSquared[ left ] > this.distancesSquared[ largest ] ) )
+         {
+            largest = left;
+         }
+         if( ( right < end ) && ( this.distancesSquared[ right ] > this.distancesSquared[ largest ] ) )
+         {
+            largest = right;
+         }
+         if( largest == parent )
+         {
+            return;
+         }
+         swap( parent, largest );
+         parent = largest;
+      }
+   }
+
+   private void swap( final int i, final int j )
+   {
+      final int index = this.indices[ i ];
+      this.indices[ i ] = this.indices[ j ];
+      this.indices[ j ] = index;
+      final double distanceSquared = this.distancesSquared[ i ];
+      this.distancesSquared[ i ] = this.distancesSquared[ j ];
+      this.distancesSquared[ j ] = distanceSquared;
+   }
+
+   private void checkPosition( final int i )
+   {
+      if( ( i < 0 ) || ( i >= this.size ) )
+      {
+         throw new IndexOutOfBoundsException( String.format( "position: %d, size: %d", i, this.size ) ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "Neighbours[%d]", this.size ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,641 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * A dynamic octree over a changing set of {@link Vector3} points and {@link BoundingBox3} items, for nearest neighbour,
+ * radius and box overlap queries.
+ * <p>
+ * Each item is identified by an integer id chosen by the caller and is stored in the deepest node whose cell contains it
+ * completely. Items that straddle the centre planes of a cell stay in that cell, and items outside the root bounds stay in the
+ * root, so the tree accepts anything but performs best when the root bounds cover the items. A leaf splits into octants when
+ * it holds more than {@link #SPLIT_SIZE} items, and a node merges back into a leaf when its subtree holds no more than
+ * {@link #MERGE_SIZE} items, so the tree adapts as items are inserted, removed and moved.
+ * </p>
+ * <p>
+ * Nodes are immutable. Every change copies the nodes on the path from the changed leaf to the root and then publishes the new
+ * root with a single volatile write. Any number of threads can therefore query the tree while one thread changes it: a query
+ * reads the root once and searches a consistent snapshot without locking, and never sees a partly applied change. Changes are
+ * serialized with the tree's monitor. Distances to box items are measured to the nearest point of the box, so they are zero
+ * for a query point inside the box.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Octree3
+{
+   /** The number of items above which a leaf is split into octants. */
+   public static final int SPLIT_SIZE = 16;
+
+   /** The number of items in a subtree at or below which the subtree is merged into a leaf. */
+   public static final int MERGE_SIZE = 8;
+
+   /** The maximum depth of a leaf below the root. */
+   public static final int MAX_DEPTH = 20;
+
+   private static final int[] NO_IDS = new int[ 0 ];
+
+   private static final double[] NO_BOXES = new double[ 0 ];
+
+   private final BoundingBox3 bounds;
+
+   /** The bounds of every item in the tree, six values per item: min x, y, z then max x, y, z. Only used by writers. */
+   private final Map< Integer, double[] > items = new HashMap<>();
+
+   private volatile Node root;
+
+   /**
+    * Initializes a new empty Octree3 object.
+    *
+    * @param bounds the bounds of the root cell. Cannot be <code>null</code> or empty.
+    */
+   public Octree3( final BoundingBox3 bounds )
+   {
+      if( bounds.isEmpty() )
+      {
+         throw new IllegalArgumentException( "Bounds are empty" ); //$NON-NLS-1$
+      }
+      this.bounds = bounds;
+      this.root = new Node( bounds.start.x, bounds.start.y, bounds.start.z, bounds.end.x, bounds.end.y, bounds.end.z );
+   }
+
+   /**
+    * Gets the bounds of the root cell.
+    *
+    * @return the bounds of the root cell.
+    */
+   public BoundingBox3 getBounds()
+   {
+      return this.bounds;
+   }
+
+   /**
+    * Gets the number of items in the tree.
+    *
+    * @return the number of items in the tree.
+    */
+   public int size()
+   {
+      return this.root.count;
+   }
+
+   /**
+    * Gets the depth of the deepest node below the root. An unsplit tree has depth zero.
+    *
+    * @return the depth of the tree.
+    */
+   public int depth()
+   {
+      return this.root.depth();
+   }
+
+   /**
+    * Inserts a point.
+    *
+    * @param id the id of the point. Must not already be in the tree.
+    * @param p the point. Cannot be <code>null</code>.
+    */
+   public void insert( final int id, final Vector3 p )
+   {
+      insert( id, new double[] { p.x, p.y, p.z, p.x, p.y, p.z } );
+   }
+
+   /**
+    * Inserts a box.
+    *
+    * @param id the id of the box. Must not already be in the tree.
+    * @param box the box. Cannot be <code>null</code> or empty.
+    */
+   public void insert( final int id, final BoundingBox3 box )
+   {
+      insert( id, toArray( box ) );
+   }
+
+   /**
+    * Removes an item.
+    *
+    * @param id the id of the item to remove.
+    * @return <code>true</code> if the item was removed, <code>false</code> if it was not in the tree.
+    */
+   public synchronized boolean remove( final int id )
+   {
+      final double[] box = this.items.remove( id );
+      if( box == null )
+      {
+         return false;
+      }
+      this.root = remove( this.root, id, box );
+      return true;
+   }
+
+   /**
+    * Moves an item to a point. Queries see the item either at its old place or at its new place, never both or neither.
+    *
+    * @param id the id of the item. Must already be in the tree.
+    * @param p the new position of the item. Cannot be <code>null</code>.
+    */
+   public void update( final int id, final Vector3 p )
+   {
+      update( id, new double[] { p.x, p.y, p.z, p.x, p.y, p.z } );
+   }
+
+   /**
+    * Moves an item to a box. Queries see the item either at its old place or at its new place, never both or neither.
+    *
+    * @param id the id of the item. Must already be in the tree.
+    * @param box the new bounds of the item. Cannot be <code>null</code> or empty.
+    */
+   public void update( final int id, final BoundingBox3 box )
+   {
+      update( id, toArray( box ) );
+   }
+
+   /**
+    * Finds the item closest to p.
+    *
+    * @param p the query point. Cannot be <code>null</code>.
+    * @return the id of the closest item, or -1 if the tree is empty.
+    */
+   public int nearest( final Vector3 p )
+   {
+      return nearest( p.x, p.y, p.z );
+   }
+
+   /**
+    * Finds the item closest to <code>(px, py, pz)</code>.
+    *
+    * @param px the x coordinate of the query point.
+    * @param py the y coordinate of the query point.
+    * @param pz the z coordinate of the query point.
+    * @return the id of the closest item, or -1 if the tree is empty.
+    */
+   public int nearest( final double px, final double py, final double pz )
+   {
+      final Neighbours result = new Neighbours( 1 );
+      nearest( px, py, pz, 1, result );
+      return result.size() == 0 ? -1 : result.getIndex( 0 );
+   }
+
+   /**
+    * Finds the k items closest to p.
+    *
+    * @param p the query point. Cannot be <code>null</code>.
+    * @param k the number of items to find.
+    * @param result the list into which to write the ids of the closest items, in order of increasing distance. Its previous
+    *           contents are discarded. Cannot be <code>null</code>.
+    */
+   public void nearest( final Vector3 p, final int k, final Neighbours result )
+   {
+      nearest( p.x, p.y, p.z, k, result );
+   }
+
+   /**
+    * Finds the k items closest to <code>(px, py, pz)</code>.
+    *
+    * @param px the x coordinate of the query point.
+    * @param py the y coordinate of the query point.
+    * @param pz the z coordinate of the query point.
+    * @param k the number of items to find.
+    * @param result the list into which to write the ids of the closest items, in order of increasing distance. Its previous
+    *           contents are discarded. Cannot be <code>null</code>.
+    */
+   public void nearest( final double px, final double py, final double pz, final int k, final Neighbours result )
+   {
+      result.clear();
+      if( k > 0 )
+      {
+         searchNearest( this.root, px, py, pz, k, result );
+         result.sortHeap();
+      }
+   }
+
+   /**
+    * Finds all the items within a radius of p.
+    *
+    * @param p the query point. Cannot be <code>null</code>.
+    * @param radius the search radius.
+    * @param result the list into which to write the ids of the items found, in no particular order. Its previous contents are
+    *           discarded. Cannot be <code>null</code>.
+    */
+   public void withinRadius( final Vector3 p, final double radius, final Neighbours result )
+   {
+      withinRadius( p.x, p.y, p.z, radius, result );
+   }
+
+   /**
+    * Finds all the items within a radius of <code>(px, py, pz)</code>.
+    *
+    * @param px the x coordinate of the query point.
+    * @param py the y coordinate of the query point.
+    * @param pz the z coordinate of the query point.
+    * @param radius the search radius.
+    * @param result the list into which to write the ids of the items found, in no particular order. Its previous contents are
+    *           discarded. Cannot be <code>null</code>.
+    */
+   public void withinRadius( final double px, final double py, final double pz, final double radius, final Neighbours result )
+   {
+      result.clear();
+      if( radius >= 0 )
+      {
+         searchRadius( this.root, px, py, pz, radius * radius, result );
+      }
+   }
+
+   /**
+    * Finds every item that overlaps a query box. Items that only touch the query box are included.
+    *
+    * @param box the query box. Cannot be <code>null</code>.
+    * @param consumer receives the id of every overlapping item. Cannot be <code>null</code>.
+    * @return the number of overlapping items.
+    */
+   public int overlapping( final BoundingBox3 box, final IntConsumer consumer )
+   {
+      if( box.isEmpty() )
+      {
+         return 0;
+      }
+      return searchOverlapping( this.root, toArray( box ), consumer );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "Octree3[%d]", size() ); //$NON-NLS-1$
+   }
+
+   private synchronized void insert( final int id, final double[] box )
+   {
+      if( this.items.containsKey( id ) )
+      {
+         throw new IllegalArgumentException( String.format( "Duplicate id: %d", id ) ); //$NON-NLS-1$
+      }
+      this.items.put( id, box );
+      this.root = insert( this.root, 0, id, box );
+   }
+
+   private synchronized void update( final int id, final double[] box )
+   {
+      final double[] old = this.items.get( id );
+      if( old == null )
+      {
+         throw new IllegalArgumentException( String.format( "Unknown id: %d", id ) ); //$NON-NLS-1$
+      }
+      this.items.put( id, box );
+      this.root = insert( remove( this.root, id, old ), 0, id, box );
+   }
+
+   private static double[] toArray( final BoundingBox3 box )
+   {
+      if( box.isEmpty() )
+      {
+         throw new IllegalArgumentException( "Box is empty" ); //$NON-NLS-1$
+      }
+      return new double[] { box.start.x, box.start.y, box.start.z, box.end.x, box.end.y, box.end.z };
+   }
+
+   private static Node insert( final Node node, final int depth, final int id, final double[] box )
+   {
+      if( node.children != null )
+      {
+         final int octant = node.octant( box );
+         if( octant >= 0 )
+         {
+            final Node[] children = node.children.clone();
+            final Node child = ( children[ octant ] == null ) ? node.createChild( octant ) : children[ octant ];
+            children[ octant ] = insert( child, depth + 1, id, box );
+            return node.with( node.ids, node.boxes, children, node.count + 1 );
+         }
+         return node.withItem( id, box );
+      }
+      final Node leaf = node.withItem( id, box );
+      return ( ( leaf.ids.length > SPLIT_SIZE ) && ( depth < MAX_DEPTH ) ) ? split( leaf, depth ) : leaf;
+   }
+
+   private static Node split( final Node leaf, final int depth )
+   {
+      Node node = leaf.with( NO_IDS, NO_BOXES, new Node[ 8 ], 0 );
+      final double[] box = new double[ 6 ];
+      for( int i = 0; i < leaf.ids.length; i++ )
+      {
+         System.arraycopy( leaf.boxes, 6 * i, box, 0, 6 );
+         node = insert( node, depth, leaf.ids[ i ], box.clone() );
+      }
+      return node;
+   }
+
+   private static Node remove( final Node node, final int id, final double[] box )
+   {
+      final Node result;
+      final int octant = ( node.children == null ) ? -1 : node.octant( box );
+      if( octant >= 0 )
+      {
+         final Node child = remove( node.children[ octant ], id, box );
+         final Node[] children = node.children.clone();
+         children[ octant ] = ( child.count == 0 ) ? null : child;
+         result = node.with( node.ids, node.boxes, children, node.count - 1 );
+      }
+      else
+      {
+         result = node.withoutItem( id );
+      }
+      return ( ( result.children != null ) && ( result.count <= MERGE_SIZE ) ) ? merge( result ) : result;
+   }
+
+   private static Node merge( final Node node )
+   {
+      final int[] ids = new int[ node.count ];
+      final double[] boxes = new double[ 6 * node.count ];
+      node.collect( ids, boxes, 0 );
+      return node.with( ids, boxes, null, node.count );
+   }
+
+   private static void searchNearest( final Node node,
+                                      final double px,
+                                      final double py,
+                                      final double pz,
+                                      final int k,
+                                      final Neighbours result )
+   {
+      for( int i = 0; i < node.ids.length; i++ )
+      {
+         result.offer( node.ids[ i ], distanceSquared( node.boxes, 6 * i, px, py, pz ), k );
+      }
+      if( node.children == null )
+      {
+         return;
+      }
+
+      // Visit the octant containing the query point first, as it most likely holds the closest items
+      final int first = ( ( px <= node.centreX() ) ? 0 : 1 ) | ( ( py <= node.centreY() ) ? 0 : 2 ) | ( ( pz <= node.centreZ() ) ? 0 : 4 );
+      for( int i = 0; i < 8; i++ )
+      {
+         final Node child = node.children[ i ^ first ];
+         if( ( child != null ) && ( child.cellDistanceSquared( px, py, pz ) < result.bound( k ) ) )
+         {
+            searchNearest( child, px, py, pz, k, result );
+         }
+      }
+   }
+
+   private static void searchRadius( final Node node,
+                                     final double px,
+                                     final double py,
+                                     final double pz,
+                                     final double radiusSquared,
+                                     final Neighbours result )
+   {
+      for( int i = 0; i < node.ids.length; i++ )
+      {
+         final double d2 = distanceSquared( node.boxes, 6 * i, px, py, pz );
+         if( d2 <= radiusSquared )
+         {
+            result.add( node.ids[ i ], d2 );
+         }
+      }
+      if( node.children == null )
+      {
+         return;
+      }
+      for( final Node child : node.children )
+      {
+         if( ( child != null ) && ( child.cellDistanceSquared( px, py, pz ) <= radiusSquared ) )
+         {
+            searchRadius( child, px, py, pz, radiusSquared, result );
+         }
+      }
+   }
+
+   private static int searchOverlapping( final Node node, final double[] box, final IntConsumer consumer )
+   {
+      int found = 0;
+      for( int i = 0; i < node.ids.length; i++ )
+      {
+         final int offset = 6 * i;
+         if( ( node.boxes[ offset ] <= box[ 3 ] ) && ( node.boxes[ offset + 3 ] >= box[ 0 ] ) &&
+             ( node.boxes[ offset + 1 ] <= box[ 4 ] ) && ( node.boxes[ offset + 4 ] >= box[ 1 ] ) &&
+             ( node.boxes[ offset + 2 ] <= box[ 5 ] ) && ( node.boxes[ offset + 5 ] >= box[ 2 ] ) )
+         {
+            consumer.accept( node.ids[ i ] );
+            found++;
+         }
+      }
+      if( node.children != null )
+      {
+         for( final Node child : node.children )
+         {
+            if( ( child != null ) && ( child.minX <= box[ 3 ] ) && ( child.maxX >= box[ 0 ] ) && ( child.minY <= box[ 4 ] ) &&
+                ( child.maxY >= box[ 1 ] ) && ( child.minZ <= box[ 5 ] ) && ( child.maxZ >= box[ 2 ] ) )
+            {
+               found += searchOverlapping( child, box, consumer );
+            }
+         }
+      }
+      return found;
+   }
+
+   private static double distanceSquared( final double[] boxes,
+                                          final int offset,
+                                          final double px,
+                                          final double py,
+                                          final double pz )
+   {
+      final double dx = Math.max( 0, Math.max( boxes[ offset ] - px, px - boxes[ offset + 3 ] ) );
+      final double dy = Math.max( 0, Math.max( boxes[ offset + 1 ] - py, py - boxes[ offset + 4 ] ) );
+      final double dz = Math.max( 0, Math.max( boxes[ offset + 2 ] - pz, pz - boxes[ offset + 5 ] ) );
+      return ( dx * dx ) + ( dy * dy ) + ( dz * dz );
+   }
+
+   /**
+    * An immutable node of the tree: a cell, the items stored in the cell itself and, for an interior node, the eight octants.
+    */
+   private static final class Node
+   {
+      private final double minX;
+
+      private final double minY;
+
+      private final double minZ;
+
+      private final double maxX;
+
+      private final double maxY;
+
+      private final double maxZ;
+
+      /** The ids of the items stored in this node. */
+      private final int[] ids;
+
+      /** The bounds of the items stored in this node, six values per item. */
+      private final double[] boxes;
+
+      /** The octants, indexed by x | y &lt;&lt; 1 | z &lt;&lt; 2 where each bit is set for the upper half, or null for a leaf. */
+      private final Node[] children;
+
+      /** The number of items in the subtree rooted at this node. */
+      private final int count;
+
+      private Node( final double minX, final double minY, final double minZ, final double maxX, final double maxY, final double maxZ )
+      {
+         this( minX, minY, minZ, maxX, maxY, maxZ, NO_IDS, NO_BOXES, null, 0 );
+      }
+
+      private Node( final double minX,
+                    final double minY,
+                    final double minZ,
+                    final double maxX,
+                    final double maxY,
+                    final double maxZ,
+                    final int[] ids,
+                    final double[] boxes,
+                    final Node[] children,
+                    final int count )
+      {
+         this.minX = minX;
+         this.minY = minY;
+         this.minZ = minZ;
+         this.maxX = maxX;
+         this.maxY = maxY;
+         this.maxZ = maxZ;
+         this.ids = ids;
+         this.boxes = boxes;
+         this.children = children;
+         this.count = count;
+      }
+
+      private Node with( final int[] newIds, final double[] newBoxes, final Node[] newChildren, final int newCount )
+      {
+         return new Node( this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ, newIds, newBoxes, newChildren, newCount );
+      }
+
+      private Node withItem( final int id, final double[] box )
+      {
+         final int n = this.ids.length;
+         final int[] newIds = Arrays.copyOf( this.ids, n + 1 );
+         final double[] newBoxes = Arrays.copyOf( this.boxes, 6 * ( n + 1 ) );
+         newIds[ n ] = id;
+         System.arraycopy( box, 0, newBoxes, 6 * n, 6 );
+         return with( newIds, newBoxes, this.children, this.count + 1 );
+      }
+
+      private Node withoutItem( final int id )
+      {
+         final int n = this.ids.length;
+         int index = 0;
+         while( this.ids[ index ] != id )
+         {
+            index++;
+         }
+         final int[] newIds = new int[ n - 1 ];
+         final double[] newBoxes = new double[ 6 * ( n - 1 ) ];
+         System.arraycopy( this.ids, 0, newIds, 0, index );
+         System.arraycopy( this.ids, index + 1, newIds, index, n - index - 1 );
+         System.arraycopy( this.boxes, 0, newBoxes, 0, 6 * index );
+         System.arraycopy( this.boxes, 6 * ( index + 1 ), newBoxes, 6 * index, 6 * ( n - index - 1 ) );
+         return with( newIds, newBoxes, this.children, this.count - 1 );
+      }
+
+      private Node createChild( final int octant )
+      {
+         final double cx = centreX();
+         final double cy = centreY();
+         final double cz = centreZ();
+         return new Node( ( ( octant & 1 ) == 0 ) ? this.minX : cx,
+                          ( ( octant & 2 ) == 0 ) ? this.minY : cy,
+                          ( ( octant & 4 ) == 0 ) ? this.minZ : cz,
+                          ( ( octant & 1 ) == 0 ) ? cx : this.maxX,
+                          ( ( octant & 2 ) == 0 ) ? cy : this.maxY,
+                          ( ( octant & 4 ) == 0 ) ? cz : this.maxZ );
+      }
+
+      /**
+       * Finds the octant that contains a box completely.
+       *
+       * @return the octant, or -1 if the box is not inside this cell or straddles a centre plane.
+       */
+      private int octant( final double[] box )
+      {
+         if( ( box[ 0 ] < this.minX ) || ( box[ 1 ] < this.minY ) || ( box[ 2 ] < this.minZ ) || ( box[ 3 ] > this.maxX ) ||
+             ( box[ 4 ] > this.maxY ) || ( box[ 5 ] > this.maxZ ) )
+         {
+            return -1;
+         }
+         final int x = side( box[ 0 ], box[ 3 ], centreX() );
+         final int y = side( box[ 1 ], box[ 4 ], centreY() );
+         final int z = side( box[ 2 ], box[ 5 ], centreZ() );
+         return ( ( x | y | z ) < 0 ) ? -1 : ( x | ( y << 1 ) | ( z << 2 ) );
+      }
+
+      private static int side( final double min, final double max, final double centre )
+      {
+         if( max <= centre )
+         {
+            return 0;
+         }
+         return ( min >= centre ) ? 1 : -1;
+      }
+
+      private double centreX()
+      {
+         return ( this.minX + this.maxX ) / 2;
+      }
+
+      private double centreY()
+      {
+         return ( this.minY + this.maxY ) / 2;
+      }
+
+      private double centreZ()
+      {
+         return ( this.minZ + this.maxZ ) / 2;
+      }
+
+      private double cellDistanceSquared( final double px, final double py, final double pz )
+      {
+         final double dx = Math.max( 0, Math.max( this.minX - px, px - this.maxX ) );
+         final double dy = Math.max( 0, Math.max( this.minY - py, py - this.maxY ) );
+         final double dz = Math.max( 0, Math.max( this.minZ - pz, pz - this.maxZ ) );
+         return ( dx * dx ) + ( dy * dy ) + ( dz * dz );
+      }
+
+      private int collect( final int[] allIds, final double[] allBoxes, final int start )
+      {
+         int n = start;
+         System.arraycopy( this.ids, 0, allIds, n, this.ids.length );
+         System.arraycopy( this.boxes, 0, allBoxes, 6 * n, this.boxes.length );
+         n += this.ids.length;
+         if( this.children != null )
+         {
+            for( final Node child : this.children )
+            {
+               if( child != null )
+               {
+                  n = child.collect( allIds, allBoxes, n );
+               }
+            }
+         }
+         return n;
+      }
+
+      private int depth()
+      {
+         int depth = 0;
+         if( this.children != null )
+         {
+            for( final Node child : this.children )
+            {
+               if( child != null )
+               {
+                  depth = Math.max( depth, child.depth() + 1 );
+               }
+            }
+         }
+         return depth;
+      }
+   }
+}
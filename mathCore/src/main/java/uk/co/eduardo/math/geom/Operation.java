@@ -0,0 +1,201 @@
+package uk.co.eduardo.math.geom;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The counters of an instrumented operation. An instrumented method holds its operation in a static field and brackets its
+ * work with {@link #begin()} and {@link #end(Span, long)}:
+ *
+ * <pre>
+ * final Operation.Span span = BUILD.begin();
+ * ...
+ * BUILD.end( span, count );
+ * </pre>
+ * <p>
+ * When {@link Instrumentation} is disabled {@link #begin()} returns <code>null</code> without reading the clock and
+ * {@link #end(Span, long)} does nothing. Calls that throw are not recorded.
+ * </p>
+ *
+ * @author erodri02
+ */
+final class Operation implements OperationMXBean
+{
+   private final String name;
+
+   private final LongAdder calls = new LongAdder();
+
+   private final LongAdder items = new LongAdder();
+
+   private final LongAdder nanos = new LongAdder();
+
+   private final LongAdder bytes = new LongAdder();
+
+   private final AtomicBoolean registered = new AtomicBoolean();
+
+   /**
+    * Initializes a new Operation object.
+    *
+    * @param name the name of the operation.
+    */
+   Operation( final String name )
+   {
+      this.name = name;
+   }
+
+   /**
+    * Starts recording a call of the operation.
+    *
+    * @return the call, or <code>null</code> if instrumentation is disabled.
+    */
+   Span begin()
+   {
+      if( !Instrumentation.isEnabled() )
+      {
+         return null;
+      }
+      final Recorder recorder = Instrumentation.recorder();
+      final Object event = ( recorder == null ) ? null : recorder.begin();
+      return new Span( event, Instrumentation.allocatedBytes(), System.nanoTime() );
+   }
+
+   /**
+    * Finishes recording a call of the operation.
+    *
+    * @param span the call returned by {@link #begin()}. Can be <code>null</code>, in which case nothing is recorded.
+    * @param count the number of elements processed by the call.
+    */
+   void end( final Span span, final long count )
+   {
+      if( span == null )
+      {
+         return;
+      }
+      final long elapsed = System.nanoTime() - span.start;
+      final long allocated = Instrumentation.allocatedBytes() - span.allocated;
+      if( span.event != null )
+      {
+         Instrumentation.recorder().end( span.event, this.name, count, allocated );
+      }
+      this.calls.increment();
+      this.items.add( count );
+      this.nanos.add( elapsed );
+      this.bytes.add( allocated );
+      if( !this.registered.get() && this.registered.compareAndSet( false, true ) )
+      {
+         register();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String getName()
+   {
+      return this.name;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public long getCalls()
+   {
+      return this.calls.sum();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public long getItems()
+   {
+      return this.items.sum();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public long getTotalNanos()
+   {
+      return this.nanos.sum();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public long getAllocatedBytes()
+   {
+      return this.bytes.sum();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public double getItemsPerSecond()
+   {
+      final long total = this.nanos.sum();
+      return ( total == 0 ) ? 0 : ( ( this.items.sum() * 1e9 ) / total );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void reset()
+   {
+      this.calls.reset();
+      this.items.reset();
+      this.nanos.reset();
+      this.bytes.reset();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "Operation[%s, %d calls, %d items]", this.name, getCalls(), getItems() ); //$NON-NLS-1$
+   }
+
+   private void register()
+   {
+      try
+      {
+         final ObjectName objectName = new ObjectName( "uk.co.eduardo.math:type=Operation,name=" + this.name ); //$NON-NLS-1$
+         ManagementFactory.getPlatformMBeanServer().registerMBean( this, objectName );
+      }
+      catch( final JMException | SecurityException e )
+      {
+         // The counters are still available from Instrumentation.getOperations()
+      }
+   }
+
+   /**
+    * A call of an operation being recorded.
+    */
+   static final class Span
+   {
+      private final Object event;
+
+      private final long allocated;
+
+      private final long start;
+
+      private Span( final Object event, final long allocated, final long start )
+      {
+         this.event = event;
+         this.allocated = allocated;
+         this.start = start;
+      }
+   }
+}
@@ -0,0 +1,56 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * The counters of an instrumented operation, published through JMX while {@link Instrumentation} is enabled.
+ *
+ * @author erodri02
+ */
+public interface OperationMXBean
+{
+   /**
+    * Gets the name of the operation, by convention the class and method name such as <code>KdTree3.build</code>.
+    *
+    * @return the name of the operation.
+    */
+   String getName();
+
+   /**
+    * Gets the number of calls recorded.
+    *
+    * @return the number of calls.
+    */
+   long getCalls();
+
+   /**
+    * Gets the total number of elements, such as points or boxes, processed by the calls recorded.
+    *
+    * @return the number of elements.
+    */
+   long getItems();
+
+   /**
+    * Gets the total duration of the calls recorded.
+    *
+    * @return the duration in nanoseconds.
+    */
+   long getTotalNanos();
+
+   /**
+    * Gets the total number of bytes allocated by the calling threads during the calls recorded.
+    *
+    * @return the number of bytes.
+    */
+   long getAllocatedBytes();
+
+   /**
+    * Gets the rate at which the calls recorded processed elements.
+    *
+    * @return the number of elements per second of call duration, or zero if no time has been recorded.
+    */
+   double getItemsPerSecond();
+
+   /**
+    * Resets the counters to zero.
+    */
+   void reset();
+}
@@ -1,5 +1,7 @@
 package uk.co.eduardo.math.geom;
 
+import java.util.Collection;
+
 /**
  * An oriented plane is described by its horizontal vector and its vertical vector. There are infinite parallel planes with the same
  * horizontal and vertical vectors. We define a specific one by additionally specifying a point on the plane.
@@ -17,6 +19,8 @@ public class OrientedPlane
    /** The standard XZ plane that crosses the origin. */
    public static final OrientedPlane XZ = new OrientedPlane( Vector3.X, Vector3.Z, Vector3.ZERO );
 
+   private static final Operation FIT_NORMALS = Instrumentation.operation( "OrientedPlane.fitNormals" ); //$NON-NLS-1$
+
    /** The horizontal unit vector for the plane. */
    public final Vector3 horiz;
 
@@ -44,6 +48,87 @@ public class OrientedPlane
       this.norm = this.horiz.cross( this.vert );
    }
 
+   /**
+    * Fits a plane to a set of points, minimizing the sum of the squared distances of the points from it.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    * @return the best fit plane, or <code>null</code> if there are fewer than three points.
+    * @see Covariance3#fitPlane()
+    */
+   public static OrientedPlane fit( final Collection< Vector3 > points )
+   {
+      final Covariance3 covariance = new Covariance3();
+      covariance.add( points );
+      return covariance.fitPlane();
+   }
+
+   /**
+    * Fits a plane to the points in a buffer, minimizing the sum of the squared distances of the points from it.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    * @return the best fit plane, or <code>null</code> if there are fewer than three points.
+    * @see Covariance3#fitPlane()
+    */
+   public static OrientedPlane fit( final Vector3Buffer points )
+   {
+      final Covariance3 covariance = new Covariance3();
+      covariance.add( points );
+      return covariance.fitPlane();
+   }
+
+   /**
+    * Fits a plane to each of many neighbourhoods of points and writes its normal, for example to estimate the normals of a
+    * point cloud. Each normal is the normal of the plane {@link #fit(Vector3Buffer)} returns for the neighbourhood, up to its
+    * sign, but no objects are created per fit.
+    * <p>
+    * The neighbourhoods are lists of indices of points, stored one after another in an index array. Neighbourhood <i>j</i> is
+    * the points <code>indices[ starts[ j ] ]</code> to <code>indices[ starts[ j + 1 ] - 1 ]</code>, so starts has one more
+    * element than there are neighbourhoods. The normal and centroid of each neighbourhood are written as interleaved
+    * <code>x, y, z</code> coordinates. The sign of each normal is arbitrary, and neighbourhoods of fewer than three points get a
+    * NaN normal. Inputs with more than {@link Batch#getParallelThreshold()} neighbourhoods are fitted in parallel.
+    * </p>
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    * @param starts the index in indices of the first point of each neighbourhood, followed by the total number of indices.
+    *           Cannot be <code>null</code> or empty.
+    * @param indices the indices of the points in each neighbourhood. Cannot be <code>null</code>.
+    * @param normals the array into which to write the interleaved unit normals. Cannot be <code>null</code>.
+    * @param centroids the array into which to write the interleaved centroids. Can be <code>null</code> if they are not
+    *           needed.
+    */
+   public static void fitNormals( final Vector3Buffer points,
+                                  final int[] starts,
+                                  final int[] indices,
+                                  final double[] normals,
+                                  final double[] centroids )
+   {
+      fitNormals( points.x, 0, points.y, 0, points.z, 0, 1, starts, indices, normals, centroids );
+   }
+
+   /**
+    * Fits a plane to each of many neighbourhoods of points in a packed array of interleaved <code>x, y, z</code> coordinates,
+    * and writes its normal.
+    *
+    * @param coords the interleaved coordinates of the points. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of point 0.
+    * @param starts the index in indices of the first point of each neighbourhood, followed by the total number of indices.
+    *           Cannot be <code>null</code> or empty.
+    * @param indices the indices of the points in each neighbourhood. Cannot be <code>null</code>.
+    * @param normals the array into which to write the interleaved unit normals. Cannot be <code>null</code>.
+    * @param centroids the array into which to write the interleaved centroids. Can be <code>null</code> if they are not
+    *           needed.
+    * @see #fitNormals(Vector3Buffer, int[], int[], double[], double[])
+    */
+   public static void fitNormals( final double[] coords,
+                                  final int offset,
+                                  final int[] starts,
+                                  final int[] indices,
+                                  final double[] normals,
+                                  final double[] centroids )
+   {
+      fitNormals( coords, offset, coords, offset + 1, coords, offset + 2, 3, starts, indices, normals, centroids );
+   }
+
    /**
     * Projects a point, p, onto this plane along this plane's normal vector.
     *
@@ -55,6 +140,128 @@ public class OrientedPlane
       return p.sub( this.norm.mul( p.sub( this.pointOnPlane ).dot( this.norm ) ) );
    }
 
+   /**
+    * Calculates the signed distance of a point from this plane, measured along this plane's normal vector.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    * @return the distance of p from the plane: positive on the side the normal points to and negative on the other.
+    */
+   public double signedDistance( final Vector3 p )
+   {
+      return p.sub( this.pointOnPlane ).dot( this.norm );
+   }
+
+   /**
+    * Projects a point onto this plane and expresses it in the plane's own 2D coordinates: the components of its offset from the
+    * point on the plane along the horizontal and vertical vectors.
+    *
+    * @param p the point to project. Cannot be <code>null</code>.
+    * @return the horizontal and vertical coordinates of p on this plane.
+    */
+   public Vector2 projectToUV( final Vector3 p )
+   {
+      final Vector3 offset = p.sub( this.pointOnPlane );
+      return new Vector2( offset.dot( this.horiz ), offset.dot( this.vert ) );
+   }
+
+   /**
+    * Projects every point in a packed array of interleaved <code>x, y, z</code> coordinates onto this plane, writing the results
+    * into another packed array without allocating. The results are identical to calling {@link #project(Vector3)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to project the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are projected in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to project.
+    */
+   public void project( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      Batch.forRange( 0, count, ( from, to ) -> projectInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Projects every vector in the source buffer onto this plane, writing the results into the destination buffer.
+    *
+    * @param src the points to project. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the projected points. Can be src. Must be the same size as src.
+    * @see #project(double[], int, double[], int, int)
+    */
+   public void project( final Vector3Buffer src, final Vector3Buffer dst )
+   {
+      checkSize( src.size(), dst.size() );
+      Batch.forRange( 0, src.size(), ( from, to ) -> projectSeparate( src, dst, from, to ) );
+   }
+
+   /**
+    * Projects every point in a packed array of interleaved <code>x, y, z</code> coordinates onto this plane and writes its
+    * horizontal and vertical plane coordinates, as interleaved <code>u, v</code> pairs, into another packed array. The results
+    * are identical to calling {@link #projectToUV(Vector3)} on each point. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are projected in parallel.
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination plane coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the horizontal coordinate of the first point.
+    * @param count the number of points to project.
+    */
+   public void projectToUV( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 2 );
+      Batch.forRange( 0, count, ( from, to ) -> projectToUVInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Projects every vector in the source buffer onto this plane and writes its horizontal and vertical plane coordinates into
+    * the destination buffer.
+    *
+    * @param src the points to project. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the plane coordinates. Must be the same size as src.
+    * @see #projectToUV(double[], int, double[], int, int)
+    */
+   public void projectToUV( final Vector3Buffer src, final Vector2Buffer dst )
+   {
+      checkSize( src.size(), dst.size() );
+      Batch.forRange( 0, src.size(), ( from, to ) -> projectToUVSeparate( src, dst, from, to ) );
+   }
+
+   /**
+    * Calculates the signed distance from this plane of every point in a packed array of interleaved <code>x, y, z</code>
+    * coordinates. The results are identical to calling {@link #signedDistance(Vector3)} on each point. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are processed in parallel.
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the array into which to write the distances. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the distance of the first point.
+    * @param count the number of points.
+    */
+   public void signedDistance( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 1 );
+      Batch.forRange( 0, count, ( from, to ) -> signedDistanceInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Calculates the signed distance from this plane of every vector in a buffer.
+    *
+    * @param src the points. Cannot be <code>null</code>.
+    * @param dst the array into which to write the distances. Cannot be <code>null</code>. Must be the same length as src.
+    * @see #signedDistance(double[], int, double[], int, int)
+    */
+   public void signedDistance( final Vector3Buffer src, final double[] dst )
+   {
+      checkSize( src.size(), dst.length );
+      Batch.forRange( 0, src.size(), ( from, to ) -> signedDistanceSeparate( src, dst, from, to ) );
+   }
+
    /**
     * Creates a new oriented plane with the same orientation as this one but at a different location relative to this plane.
     * <p>
@@ -69,6 +276,256 @@ public class OrientedPlane
       return new OrientedPlane( this.horiz, this.vert, this.pointOnPlane.add( offset ) );
    }
 
+   private void projectInterleaved( final double[] src,
+                                    final int srcOffset,
+                                    final double[] dst,
+                                    final int dstOffset,
+                                    final int from,
+                                    final int to )
+   {
+      final double ox = this.pointOnPlane.x;
+      final double oy = this.pointOnPlane.y;
+      final double oz = this.pointOnPlane.z;
+      final double nx = this.norm.x;
+      final double ny = this.norm.y;
+      final double nz = this.norm.z;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 3 * i );
+         final int d = dstOffset + ( 3 * i );
+         final double x = src[ s ];
+         final double y = src[ s + 1 ];
+         final double z = src[ s + 2 ];
+         final double distance = ( ( x - ox ) * nx ) + ( ( y - oy ) * ny ) + ( ( z - oz ) * nz );
+         dst[ d ] = x - ( nx * distance );
+         dst[ d + 1 ] = y - ( ny * distance );
+         dst[ d + 2 ] = z - ( nz * distance );
+      }
+   }
+
+   private void projectSeparate( final Vector3Buffer src, final Vector3Buffer dst, final int from, final int to )
+   {
+      final double ox = this.pointOnPlane.x;
+      final double oy = this.pointOnPlane.y;
+      final double oz = this.pointOnPlane.z;
+      final double nx = this.norm.x;
+      final double ny = this.norm.y;
+      final double nz = this.norm.z;
+      for( int i = from; i < to; i++ )
+      {
+         final double x = src.x[ i ];
+         final double y = src.y[ i ];
+         final double z = src.z[ i ];
+         final double distance = ( ( x - ox ) * nx ) + ( ( y - oy ) * ny ) + ( ( z - oz ) * nz );
+         dst.x[ i ] = x - ( nx * distance );
+         dst.y[ i ] = y - ( ny * distance );
+         dst.z[ i ] = z - ( nz * distance );
+      }
+   }
+
+   private void projectToUVInterleaved( final double[] src,
+                                        final int srcOffset,
+                                        final double[] dst,
+                                        final int dstOffset,
+                                        final int from,
+                                        final int to )
+   {
+      final double ox = this.pointOnPlane.x;
+      final double oy = this.pointOnPlane.y;
+      final double oz = this.pointOnPlane.z;
+      final double hx = this.horiz.x;
+      final double hy = this.horiz.y;
+      final double hz = this.horiz.z;
+      final double vx = this.vert.x;
+      final double vy = this.vert.y;
+      final double vz = this.vert.z;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 3 * i );
+         final int d = dstOffset + ( 2 * i );
+         final double x = src[ s ] - ox;
+         final double y = src[ s + 1 ] - oy;
+         final double z = src[ s + 2 ] - oz;
+         dst[ d ] = ( x * hx ) + ( y * hy ) + ( z * hz );
+         dst[ d + 1 ] = ( x * vx ) + ( y * vy ) + ( z * vz );
+      }
+   }
+
+   private void projectToUVSeparate( final Vector3Buffer src, final Vector2Buffer dst, final int from, final int to )
+   {
+      final double ox = this.pointOnPlane.x;
+      final double oy = this.pointOnPlane.y;
+      final double oz = this.pointOnPlane.z;
+      final double hx = this.horiz.x;
+      final double hy = this.horiz.y;
+      final double hz = this.horiz.z;
+      final double vx = this.vert.x;
+      final double vy = this.vert.y;
+      final double vz = this.vert.z;
+      for( int i = from; i < to; i++ )
+      {
+         final double x = src.x[ i ] - ox;
+         final double y = src.y[ i ] - oy;
+         final double z = src.z[ i ] - oz;
+         dst.x[ i ] = ( x * hx ) + ( y * hy ) + ( z * hz );
+         dst.y[ i ] = ( x * vx ) + ( y * vy ) + ( z * vz );
+      }
+   }
+
+   private void signedDistanceInterleaved( final double[] src,
+                                           final int srcOffset,
+                                           final double[] dst,
+                                           final int dstOffset,
+                                           final int from,
+                                           final int to )
+   {
+      final double ox = this.pointOnPlane.x;
+      final double oy = this.pointOnPlane.y;
+      final double oz = this.pointOnPlane.z;
+      final double nx = this.norm.x;
+      final double ny = this.norm.y;
+      final double nz = this.norm.z;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 3 * i );
+         dst[ dstOffset + i ] = ( ( src[ s ] - ox ) * nx ) + ( ( src[ s + 1 ] - oy ) * ny ) + ( ( src[ s + 2 ] - oz ) * nz );
+      }
+   }
+
+   private void signedDistanceSeparate( final Vector3Buffer src, final double[] dst, final int from, final int to )
+   {
+      final double ox = this.pointOnPlane.x;
+      final double oy = this.pointOnPlane.y;
+      final double oz = this.pointOnPlane.z;
+      final double nx = this.norm.x;
+      final double ny = this.norm.y;
+      final double nz = this.norm.z;
+      for( int i = from; i < to; i++ )
+      {
+         dst[ i ] = ( ( src.x[ i ] - ox ) * nx ) + ( ( src.y[ i ] - oy ) * ny ) + ( ( src.z[ i ] - oz ) * nz );
+      }
+   }
+
+   /**
+    * Fits the neighbourhoods of points whose coordinates on each axis are at <code>offset + ( stride * i )</code> in the array
+    * for that axis, with the offset for that axis.
+    */
+   private static void fitNormals( final double[] x,
+                                   final int xOffset,
+                                   final double[] y,
+                                   final int yOffset,
+                                   final double[] z,
+                                   final int zOffset,
+                                   final int stride,
+                                   final int[] starts,
+                                   final int[] indices,
+                                   final double[] normals,
+                                   final double[] centroids )
+   {
+      if( starts.length == 0 )
+      {
+         throw new IllegalArgumentException( "The neighbourhood starts must end with the number of indices" ); //$NON-NLS-1$
+      }
+      final int count = starts.length - 1;
+      Batch.checkRange( indices.length, 0, starts[ count ], 1 );
+      Batch.checkRange( normals.length, 0, count, 3 );
+      if( centroids != null )
+      {
+         Batch.checkRange( centroids.length, 0, count, 3 );
+      }
+      final Operation.Span span = FIT_NORMALS.begin();
+      Batch.forRange( 0, count, ( from, to ) -> {
+         // One decomposition buffer per range rather than per fit
+         final double[] eigen = new double[ SymmetricEigen3.RESULT_SIZE ];
+         for( int j = from; j < to; j++ )
+         {
+            final int d = 3 * j;
+            fitNormal( x, xOffset, y, yOffset, z, zOffset, stride, indices, starts[ j ], starts[ j + 1 ], eigen, normals, centroids, d );
+         }
+      } );
+      FIT_NORMALS.end( span, count );
+   }
+
+   /**
+    * Fits one neighbourhood in two passes over its points, the first for the centroid and the second for the sums of products
+    * of deviations from it.
+    */
+   private static void fitNormal( final double[] x,
+                                  final int xOffset,
+                                  final double[] y,
+                                  final int yOffset,
+                                  final double[] z,
+                                  final int zOffset,
+                                  final int stride,
+                                  final int[] indices,
+                                  final int from,
+                                  final int to,
+                                  final double[] eigen,
+                                  final double[] normals,
+                                  final double[] centroids,
+                                  final int d )
+   {
+      double cx = 0;
+      double cy = 0;
+      double cz = 0;
+      for( int k = from; k < to; k++ )
+      {
+         final int i = stride * indices[ k ];
+         cx += x[ xOffset + i ];
+         cy += y[ yOffset + i ];
+         cz += z[ zOffset + i ];
+      }
+      final int n = to - from;
+      cx /= n;
+      cy /= n;
+      cz /= n;
+      if( centroids != null )
+      {
+         centroids[ d ] = cx;
+         centroids[ d + 1 ] = cy;
+         centroids[ d + 2 ] = cz;
+      }
+      if( n < 3 )
+      {
+         normals[ d ] = Double.NaN;
+         normals[ d + 1 ] = Double.NaN;
+         normals[ d + 2 ] = Double.NaN;
+         return;
+      }
+
+      double sxx = 0;
+      double sxy = 0;
+      double sxz = 0;
+      double syy = 0;
+      double syz = 0;
+      double szz = 0;
+      for( int k = from; k < to; k++ )
+      {
+         final int i = stride * indices[ k ];
+         final double dx = x[ xOffset + i ] - cx;
+         final double dy = y[ yOffset + i ] - cy;
+         final double dz = z[ zOffset + i ] - cz;
+         sxx += dx * dx;
+         sxy += dx * dy;
+         sxz += dx * dz;
+         syy += dy * dy;
+         syz += dy * dz;
+         szz += dz * dz;
+      }
+      SymmetricEigen3.decompose( sxx, sxy, sxz, syy, syz, szz, eigen, 0 );
+      normals[ d ] = eigen[ 3 ];
+      normals[ d + 1 ] = eigen[ 4 ];
+      normals[ d + 2 ] = eigen[ 5 ];
+   }
+
+   private static void checkSize( final int srcSize, final int dstSize )
+   {
+      if( dstSize != srcSize )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dstSize, srcSize ) ); //$NON-NLS-1$
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -0,0 +1,18 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Receives pairs of item indices from spatial queries that enumerate pairs.
+ *
+ * @author erodri02
+ */
+@FunctionalInterface
+public interface PairConsumer
+{
+   /**
+    * Accepts a pair of item indices.
+    *
+    * @param a the smaller index of the pair.
+    * @param b the larger index of the pair.
+    */
+   void accept( int a, int b );
+}
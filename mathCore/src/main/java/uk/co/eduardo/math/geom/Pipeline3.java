@@ -0,0 +1,379 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+
+/**
+ * A lazy sequence of operations on 3D points, which is built once and then applied to whole buffers in a single pass over
+ * memory. A chain of operations such as
+ *
+ * <pre>
+ * m.mul( p ).sub( c ).mul( s ).normalize()
+ * </pre>
+ *
+ * creates a temporary vector at every step, and applied to a buffer with the bulk methods of {@link Matrix3} and
+ * {@link Vector3Buffer} it reads and writes every point once per step. The same chain recorded as a pipeline,
+ *
+ * <pre>
+ * Pipeline3.IDENTITY.mul( m ).sub( c ).mul( s ).normalize()
+ * </pre>
+ *
+ * is compiled as it is built: consecutive affine operations are folded into one {@link Transform3}, so the example has two
+ * stages however many affine operations precede the normalization. The stages are then run one after another over chunks of
+ * points small enough to stay in cache, so an N-step pipeline reads its input and writes its output once.
+ * <p>
+ * Folding changes the order of the floating point operations, so the results agree with applying the operations one at a time
+ * to within rounding but are not always identical. Pipelines are immutable and can be applied from several threads at once.
+ * Inputs larger than {@link Batch#getParallelThreshold()} points are processed in parallel.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class Pipeline3
+{
+   /** The empty pipeline, which leaves points unchanged. Every pipeline is built from this one. */
+   public static final Pipeline3 IDENTITY = new Pipeline3( new Stage[ 0 ] );
+
+   /** The number of points each stage processes before the next stage runs, small enough for the chunk to stay in cache. */
+   private static final int CHUNK_SIZE = 256;
+
+   private static final Operation APPLY = Instrumentation.operation( "Pipeline3.apply" ); //$NON-NLS-1$
+
+   private final Stage[] stages;
+
+   private Pipeline3( final Stage[] stages )
+   {
+      this.stages = stages;
+   }
+
+   /**
+    * Appends multiplying each point by a matrix, <code>p' = M.p</code>.
+    *
+    * @param m the matrix. Cannot be <code>null</code>.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 mul( final Matrix3 m )
+   {
+      return then( new Transform3( m, Vector3.ZERO ) );
+   }
+
+   /**
+    * Appends transforming each point, <code>p' = L.p + t</code>.
+    *
+    * @param t the transform. Cannot be <code>null</code>.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 mul( final Transform3 t )
+   {
+      return then( t );
+   }
+
+   /**
+    * Appends multiplying each point by a scale factor, <code>p' = p * factor</code>.
+    *
+    * @param factor the scale factor.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 mul( final double factor )
+   {
+      return then( new Transform3( Matrix3.IDENTITY.mul( factor ), Vector3.ZERO ) );
+   }
+
+   /**
+    * Appends dividing each point by a scale factor, <code>p' = p / factor</code>.
+    *
+    * @param factor the scale factor.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 div( final double factor )
+   {
+      return mul( 1 / factor );
+   }
+
+   /**
+    * Appends adding a vector to each point, <code>p' = p + v</code>.
+    *
+    * @param v the vector to add. Cannot be <code>null</code>.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 add( final Vector3 v )
+   {
+      return then( Transform3.createTranslation( v ) );
+   }
+
+   /**
+    * Appends subtracting a vector from each point, <code>p' = p - v</code>.
+    *
+    * @param v the vector to subtract. Cannot be <code>null</code>.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 sub( final Vector3 v )
+   {
+      return then( Transform3.createTranslation( v.mul( -1 ) ) );
+   }
+
+   /**
+    * Appends the cross product of each point with a vector, <code>p' = p x v</code>.
+    *
+    * @param v the vector. Cannot be <code>null</code>.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 cross( final Vector3 v )
+   {
+      return mul( new Matrix3( 0, v.z, -v.y, -v.z, 0, v.x, v.y, -v.x, 0 ) );
+   }
+
+   /**
+    * Appends scaling each point to unit length, as {@link Vector3#normalize()} does.
+    *
+    * @return the extended pipeline.
+    */
+   public Pipeline3 normalize()
+   {
+      final Stage[] extended = Arrays.copyOf( this.stages, this.stages.length + 1 );
+      extended[ this.stages.length ] = new Normalize();
+      return new Pipeline3( extended );
+   }
+
+   /**
+    * Appends the operations of another pipeline, which are applied after the operations of this one.
+    *
+    * @param next the pipeline to append. Cannot be <code>null</code>.
+    * @return the extended pipeline.
+    */
+   public Pipeline3 then( final Pipeline3 next )
+   {
+      Pipeline3 result = this;
+      for( final Stage stage : next.stages )
+      {
+         result = ( stage instanceof Affine ) ? result.then( ( (Affine) stage ).transform ) : result.normalize();
+      }
+      return result;
+   }
+
+   /**
+    * Gets the number of stages the pipeline compiled to, which is the number of passes over each chunk of points.
+    *
+    * @return the number of stages.
+    */
+   public int getStageCount()
+   {
+      return this.stages.length;
+   }
+
+   /**
+    * Gets the single transform equivalent to this pipeline, if it only contains affine operations.
+    *
+    * @return the transform, or <code>null</code> if the pipeline contains a normalization.
+    */
+   public Transform3 toTransform()
+   {
+      if( this.stages.length == 0 )
+      {
+         return Transform3.IDENTITY;
+      }
+      return ( ( this.stages.length == 1 ) && ( this.stages[ 0 ] instanceof Affine ) ) ? ( (Affine) this.stages[ 0 ] ).transform : null;
+   }
+
+   /**
+    * Applies the pipeline to a point.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    * @return the result of the pipeline.
+    */
+   public Vector3 apply( final Vector3 p )
+   {
+      Vector3 result = p;
+      for( final Stage stage : this.stages )
+      {
+         result = stage.apply( result );
+      }
+      return result;
+   }
+
+   /**
+    * Applies the pipeline to every point in a packed array of interleaved <code>x, y, z</code> coordinates, writing the results
+    * into another packed array. The source and destination can be the same array with the same offset to process the points in
+    * place.
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points.
+    */
+   public void apply( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      final Operation.Span span = APPLY.begin();
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int start = from; start < to; start += CHUNK_SIZE )
+         {
+            final int end = Math.min( to, start + CHUNK_SIZE );
+            if( this.stages.length == 0 )
+            {
+               System.arraycopy( src, srcOffset + ( 3 * start ), dst, dstOffset + ( 3 * start ), 3 * ( end - start ) );
+               continue;
+            }
+            // The first stage reads the source, the others work in place on the chunk of the destination while it is in cache
+            this.stages[ 0 ].apply( src, srcOffset, dst, dstOffset, start, end );
+            for( int s = 1; s < this.stages.length; s++ )
+            {
+               this.stages[ s ].apply( dst, dstOffset, dst, dstOffset, start, end );
+            }
+         }
+      } );
+      APPLY.end( span, count );
+   }
+
+   /**
+    * Applies the pipeline to every point in a buffer, writing the results into another buffer.
+    *
+    * @param src the source points. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the results. Can be src. Must be the same size as src.
+    */
+   public void apply( final Vector3Buffer src, final Vector3Buffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      final Operation.Span span = APPLY.begin();
+      Batch.forRange( 0, src.size(), ( from, to ) -> {
+         for( int start = from; start < to; start += CHUNK_SIZE )
+         {
+            final int end = Math.min( to, start + CHUNK_SIZE );
+            if( this.stages.length == 0 )
+            {
+               System.arraycopy( src.x, start, dst.x, start, end - start );
+               System.arraycopy( src.y, start, dst.y, start, end - start );
+               System.arraycopy( src.z, start, dst.z, start, end - start );
+               continue;
+            }
+            this.stages[ 0 ].apply( src, dst, start, end );
+            for( int s = 1; s < this.stages.length; s++ )
+            {
+               this.stages[ s ].apply( dst, dst, start, end );
+            }
+         }
+      } );
+      APPLY.end( span, src.size() );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return "Pipeline3" + Arrays.toString( this.stages ); //$NON-NLS-1$
+   }
+
+   /**
+    * Appends an affine stage, folding it into the last stage if that is affine too.
+    */
+   private Pipeline3 then( final Transform3 t )
+   {
+      final int n = this.stages.length;
+      if( ( n > 0 ) && ( this.stages[ n - 1 ] instanceof Affine ) )
+      {
+         final Stage[] folded = this.stages.clone();
+         folded[ n - 1 ] = new Affine( t.mul( ( (Affine) this.stages[ n - 1 ] ).transform ) );
+         return new Pipeline3( folded );
+      }
+      final Stage[] extended = Arrays.copyOf( this.stages, n + 1 );
+      extended[ n ] = new Affine( t );
+      return new Pipeline3( extended );
+   }
+
+   /**
+    * One compiled step of a pipeline. Each method processes the points <code>[from, to)</code>, and the destination can be the
+    * source.
+    */
+   private abstract static class Stage
+   {
+      abstract Vector3 apply( Vector3 p );
+
+      abstract void apply( double[] src, int srcOffset, double[] dst, int dstOffset, int from, int to );
+
+      abstract void apply( Vector3Buffer src, Vector3Buffer dst, int from, int to );
+   }
+
+   /**
+    * A stage that applies any number of folded affine operations as one transform.
+    */
+   private static final class Affine extends Stage
+   {
+      private final Transform3 transform;
+
+      private Affine( final Transform3 transform )
+      {
+         this.transform = transform;
+      }
+
+      @Override
+      Vector3 apply( final Vector3 p )
+      {
+         return this.transform.mul( p );
+      }
+
+      @Override
+      void apply( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int from, final int to )
+      {
+         this.transform.mulInterleaved( src, srcOffset, dst, dstOffset, from, to );
+      }
+
+      @Override
+      void apply( final Vector3Buffer src, final Vector3Buffer dst, final int from, final int to )
+      {
+         this.transform.mulSeparate( src, dst, from, to );
+      }
+
+      @Override
+      public String toString()
+      {
+         return "affine"; //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * A stage that scales each point to unit length.
+    */
+   private static final class Normalize extends Stage
+   {
+      @Override
+      Vector3 apply( final Vector3 p )
+      {
+         return p.normalize();
+      }
+
+      @Override
+      void apply( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int from, final int to )
+      {
+         for( int i = from; i < to; i++ )
+         {
+            final int s = srcOffset + ( 3 * i );
+            final int d = dstOffset + ( 3 * i );
+            final double x = src[ s ];
+            final double y = src[ s + 1 ];
+            final double z = src[ s + 2 ];
+            final double length = Math.sqrt( ( x * x ) + ( y * y ) + ( z * z ) );
+            dst[ d ] = x / length;
+            dst[ d + 1 ] = y / length;
+            dst[ d + 2 ] = z / length;
+         }
+      }
+
+      @Override
+      void apply( final Vector3Buffer src, final Vector3Buffer dst, final int from, final int to )
+      {
+         Kernels.get().normalize( src.x, src.y, src.z, dst.x, dst.y, dst.z, from, to );
+      }
+
+      @Override
+      public String toString()
+      {
+         return "normalize"; //$NON-NLS-1$
+      }
+   }
+}
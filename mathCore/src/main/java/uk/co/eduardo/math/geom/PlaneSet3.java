@@ -0,0 +1,231 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Collection;
+
+/**
+ * A convex region bounded by a set of planes, such as a view frustum, against which many boxes can be culled at once.
+ * <p>
+ * The region is the intersection of the sides of the planes that their normals point to, so a point is inside when its
+ * {@link OrientedPlane#signedDistance(Vector3) signed distance} from every plane is positive or zero. For a view frustum the
+ * normals point inwards. Each plane is reduced to its normal and offset when the set is created, so build the set once per
+ * frame rather than once per test.
+ * </p>
+ * <p>
+ * Boxes are classified with the p-vertex and n-vertex test: a box is outside a plane if its corner furthest along the normal,
+ * the p-vertex, is outside, and straddles the plane if only the opposite corner, the n-vertex, is outside. The corners are
+ * chosen by the signs of the normal, which are also worked out once. The test is conservative: a box near a corner of the
+ * region can be classified as intersecting although it is outside, but never the other way round.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class PlaneSet3
+{
+   /** The classification of a box outside the region. */
+   public static final int OUTSIDE = 0;
+
+   /** The classification of a box that straddles the boundary of the region. */
+   public static final int INTERSECTING = 1;
+
+   /** The classification of a box entirely inside the region. */
+   public static final int INSIDE = 2;
+
+   private static final Operation CLASSIFY = Instrumentation.operation( "PlaneSet3.classify" ); //$NON-NLS-1$
+
+   /** Four values per plane: the unit normal and its dot product with a point on the plane. */
+   private final double[] planes;
+
+   /** Three values per plane: the offsets of the p-vertex coordinates in a packed box, each the min or max on its axis. */
+   private final int[] corners;
+
+   /**
+    * Initializes a new PlaneSet3 object.
+    *
+    * @param planes the bounding planes, whose normals point into the region. Cannot be <code>null</code>.
+    */
+   public PlaneSet3( final OrientedPlane... planes )
+   {
+      this.planes = new double[ 4 * planes.length ];
+      this.corners = new int[ 3 * planes.length ];
+      for( int i = 0; i < planes.length; i++ )
+      {
+         final Vector3 n = planes[ i ].norm;
+         this.planes[ 4 * i ] = n.x;
+         this.planes[ ( 4 * i ) + 1 ] = n.y;
+         this.planes[ ( 4 * i ) + 2 ] = n.z;
+         this.planes[ ( 4 * i ) + 3 ] = n.dot( planes[ i ].pointOnPlane );
+         this.corners[ 3 * i ] = ( n.x >= 0 ) ? 3 : 0;
+         this.corners[ ( 3 * i ) + 1 ] = ( n.y >= 0 ) ? 4 : 1;
+         this.corners[ ( 3 * i ) + 2 ] = ( n.z >= 0 ) ? 5 : 2;
+      }
+   }
+
+   /**
+    * Initializes a new PlaneSet3 object.
+    *
+    * @param planes the bounding planes, whose normals point into the region. Cannot be <code>null</code>.
+    */
+   public PlaneSet3( final Collection< OrientedPlane > planes )
+   {
+      this( planes.toArray( new OrientedPlane[ planes.size() ] ) );
+   }
+
+   /**
+    * Gets the number of planes.
+    *
+    * @return the number of planes.
+    */
+   public int size()
+   {
+      return this.corners.length / 3;
+   }
+
+   /**
+    * Classifies a box against the region.
+    *
+    * @param box the box. Cannot be <code>null</code>.
+    * @return {@link #INSIDE}, {@link #OUTSIDE} or {@link #INTERSECTING}. An empty box is outside.
+    */
+   public int classify( final BoundingBox3 box )
+   {
+      if( box.isEmpty() )
+      {
+         return OUTSIDE;
+      }
+      final double[] packed = { box.start.x, box.start.y, box.start.z, box.end.x, box.end.y, box.end.z };
+      return classify( packed, 0, null, 0 );
+   }
+
+   /**
+    * Classifies every box in a packed array against the region, writing the results into bitsets in which bit <i>i</i> is bit
+    * <code>i % 64</code> of word <code>i / 64</code>, the layout of {@link java.util.BitSet#valueOf(long[])}.
+    * <p>
+    * Each box is six values: the minimum x, y and z then the maximum x, y and z. A box is visible if it is inside or
+    * intersecting, and is also marked in the intersecting bitset if it is intersecting. Bits past the last box in the last word
+    * are cleared.
+    * </p>
+    * <p>
+    * Objects tend to be culled by the same plane from one frame to the next. A coherency cache remembers for each box the plane
+    * that last culled it and tests that plane first, so most boxes that stay outside are rejected by the first plane tested.
+    * Pass the same cache, initially zeros, every frame. Inputs larger than {@link Batch#getParallelThreshold()} boxes are
+    * classified in parallel.
+    * </p>
+    *
+    * @param boxes the packed boxes. Cannot be <code>null</code>.
+    * @param offset the index in boxes of the minimum x of the first box.
+    * @param count the number of boxes.
+    * @param visible the bitset in which to mark the visible boxes. Needs <code>( count + 63 ) / 64</code> words. Cannot be
+    *           <code>null</code>.
+    * @param intersecting the bitset in which to mark the boxes that straddle the boundary. Can be <code>null</code> if it is not
+    *           needed.
+    * @param cache the index of the plane that last culled each box. Can be <code>null</code> to test the planes in order.
+    * @return the number of visible boxes.
+    */
+   public int classify( final double[] boxes,
+                        final int offset,
+                        final int count,
+                        final long[] visible,
+                        final long[] intersecting,
+                        final int[] cache )
+   {
+      Batch.checkRange( boxes.length, offset, count, 6 );
+      final int words = ( count + 63 ) >>> 6;
+      Batch.checkRange( visible.length, 0, words, 1 );
+      if( intersecting != null )
+      {
+         Batch.checkRange( intersecting.length, 0, words, 1 );
+      }
+      if( cache != null )
+      {
+         Batch.checkRange( cache.length, 0, count, 1 );
+      }
+
+      // Chunks are whole words so that no two threads write to the same word
+      final int chunks = Batch.chunkCount( count );
+      final int chunkWords = ( ( words + chunks ) - 1 ) / chunks;
+      final int[] visibleCounts = new int[ chunks ];
+      final Operation.Span span = CLASSIFY.begin();
+      Batch.forEachChunk( chunks, c -> {
+         final int fromWord = c * chunkWords;
+         final int toWord = Math.min( words, fromWord + chunkWords );
+         int total = 0;
+         for( int w = fromWord; w < toWord; w++ )
+         {
+            long in = 0;
+            long partial = 0;
+            for( int bit = 0, i = w << 6, end = Math.min( count, i + 64 ); i < end; bit++, i++ )
+            {
+               final int result = classify( boxes, offset + ( 6 * i ), cache, i );
+               // Inside and intersecting, 2 and 1, are visible
+               in |= ( (long) ( ( result + 1 ) >>> 1 ) ) << bit;
+               partial |= ( (long) ( result & 1 ) ) << bit;
+            }
+            visible[ w ] = in;
+            if( intersecting != null )
+            {
+               intersecting[ w ] = partial;
+            }
+            total += Long.bitCount( in );
+         }
+         visibleCounts[ c ] = total;
+      } );
+      CLASSIFY.end( span, count );
+
+      int total = 0;
+      for( final int n : visibleCounts )
+      {
+         total += n;
+      }
+      return total;
+   }
+
+   /**
+    * Classifies one packed box, starting with the plane in the cache and recording the plane that culls it.
+    */
+   private int classify( final double[] boxes, final int b, final int[] cache, final int index )
+   {
+      final double[] p = this.planes;
+      final int[] c = this.corners;
+      final int n = c.length / 3;
+      final int cached = ( cache == null ) ? 0 : cache[ index ];
+      int j = ( ( cached >= 0 ) && ( cached < n ) ) ? cached : 0;
+      int result = INSIDE;
+      for( int k = 0; k < n; k++ )
+      {
+         final double nx = p[ 4 * j ];
+         final double ny = p[ ( 4 * j ) + 1 ];
+         final double nz = p[ ( 4 * j ) + 2 ];
+         final double d = p[ ( 4 * j ) + 3 ];
+         final int px = b + c[ 3 * j ];
+         final int py = b + c[ ( 3 * j ) + 1 ];
+         final int pz = b + c[ ( 3 * j ) + 2 ];
+         if( ( ( nx * boxes[ px ] ) + ( ny * boxes[ py ] ) + ( nz * boxes[ pz ] ) ) < d )
+         {
+            if( ( cache != null ) && ( j != cached ) )
+            {
+               cache[ index ] = j;
+            }
+            return OUTSIDE;
+         }
+         // The n-vertex is the opposite corner, whose offsets within the box are 3 away from those of the p-vertex
+         final int qx = ( ( 2 * b ) + 3 ) - px;
+         final int qy = ( ( 2 * b ) + 5 ) - py;
+         final int qz = ( ( 2 * b ) + 7 ) - pz;
+         if( ( ( nx * boxes[ qx ] ) + ( ny * boxes[ qy ] ) + ( nz * boxes[ qz ] ) ) < d )
+         {
+            result = INTERSECTING;
+         }
+         j = ( ( j + 1 ) == n ) ? 0 : ( j + 1 );
+      }
+      return result;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "PlaneSet3[%d planes]", size() ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,20 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Receives the coordinates of 3D points during bulk traversal, without a {@link Vector3} being created for each one.
+ *
+ * @author erodri02
+ */
+@FunctionalInterface
+public interface PointConsumer3
+{
+   /**
+    * Accepts a point.
+    *
+    * @param index the index of the point.
+    * @param x the x coordinate of the point.
+    * @param y the y coordinate of the point.
+    * @param z the z coordinate of the point.
+    */
+   void accept( long index, double x, double y, double z );
+}
@@ -0,0 +1,613 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Collection;
+import java.util.stream.Collector;
+
+/**
+ * Accumulates summary statistics of a set of 3D points in a single pass: the count, centroid, bounding box, covariance and the
+ * third and fourth central moments of each coordinate.
+ * <p>
+ * Statistics of separate parts of a point set can be combined exactly, in any order, into the statistics of the whole, so
+ * shards of a point set can be summarized independently, by different threads or on different machines, and merged without a
+ * second pass over the points. {@link GeometryWriter#write(PointStatistics3)} writes the statistics in 177 bytes however many
+ * points they summarize, and {@link GeometryReader#readPointStatistics3()} reads them back exactly.
+ * </p>
+ * <p>
+ * The moments are accumulated about the running mean, as in Welford's algorithm, so they stay accurate when the points are far
+ * from the origin compared with their spread. The bulk methods summarize blocks of points in two passes while the block is in
+ * cache, the first for its mean and the second for the moments about it, and combine the blocks, which avoids a division per
+ * point. {@link Covariance3} is built on these statistics and exposes only their mean and covariance. The accumulator is
+ * mutable and not thread safe.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class PointStatistics3
+{
+   /** The number of doubles in the serialized form. */
+   static final int SERIALIZED_SIZE = 22;
+
+   /** The number of points summarized at once by the bulk methods, small enough to stay in cache for the second pass. */
+   private static final int BLOCK_SIZE = 1024;
+
+   private static final Operation ADD = Instrumentation.operation( "PointStatistics3.add" ); //$NON-NLS-1$
+
+   private long count;
+
+   private double meanX;
+
+   private double meanY;
+
+   private double meanZ;
+
+   // The sums of the second powers and products of deviations from the mean
+   private double m2X;
+
+   private double m2Y;
+
+   private double m2Z;
+
+   private double cXY;
+
+   private double cXZ;
+
+   private double cYZ;
+
+   // The sums of the third and fourth powers of deviations from the mean
+   private double m3X;
+
+   private double m3Y;
+
+   private double m3Z;
+
+   private double m4X;
+
+   private double m4Y;
+
+   private double m4Z;
+
+   private double minX = Double.POSITIVE_INFINITY;
+
+   private double minY = Double.POSITIVE_INFINITY;
+
+   private double minZ = Double.POSITIVE_INFINITY;
+
+   private double maxX = Double.NEGATIVE_INFINITY;
+
+   private double maxY = Double.NEGATIVE_INFINITY;
+
+   private double maxZ = Double.NEGATIVE_INFINITY;
+
+   /**
+    * Adds a point.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    */
+   public void add( final Vector3 p )
+   {
+      add( p.x, p.y, p.z );
+   }
+
+   /**
+    * Adds a point.
+    *
+    * @param x the x coordinate of the point.
+    * @param y the y coordinate of the point.
+    * @param z the z coordinate of the point.
+    */
+   public void add( final double x, final double y, final double z )
+   {
+      final long n1 = this.count;
+      final long n = ++this.count;
+      final double dx = x - this.meanX;
+      final double dy = y - this.meanY;
+      final double dz = z - this.meanZ;
+      this.meanX += dx / n;
+      this.meanY += dy / n;
+      this.meanZ += dz / n;
+      final double ex = x - this.meanX;
+      final double ey = y - this.meanY;
+      final double ez = z - this.meanZ;
+      this.cXY += dx * ey;
+      this.cXZ += dx * ez;
+      this.cYZ += dy * ez;
+
+      // The higher moments are updated before the lower ones they depend on
+      final double a = ( (double) n1 * ( ( (double) n * n ) - ( 3.0 * n ) + 3 ) ) / ( (double) n * n * n );
+      final double b = ( (double) n1 * ( n - 2 ) ) / ( (double) n * n );
+      final double fx = dx / n;
+      final double fy = dy / n;
+      final double fz = dz / n;
+      this.m4X += ( dx * dx * dx * dx * a ) + ( 6 * fx * fx * this.m2X ) - ( 4 * fx * this.m3X );
+      this.m4Y += ( dy * dy * dy * dy * a ) + ( 6 * fy * fy * this.m2Y ) - ( 4 * fy * this.m3Y );
+      this.m4Z += ( dz * dz * dz * dz * a ) + ( 6 * fz * fz * this.m2Z ) - ( 4 * fz * this.m3Z );
+      this.m3X += ( dx * dx * dx * b ) - ( 3 * fx * this.m2X );
+      this.m3Y += ( dy * dy * dy * b ) - ( 3 * fy * this.m2Y );
+      this.m3Z += ( dz * dz * dz * b ) - ( 3 * fz * this.m2Z );
+      this.m2X += dx * ex;
+      this.m2Y += dy * ey;
+      this.m2Z += dz * ez;
+
+      this.minX = Math.min( x, this.minX );
+      this.minY = Math.min( y, this.minY );
+      this.minZ = Math.min( z, this.minZ );
+      this.maxX = Math.max( x, this.maxX );
+      this.maxY = Math.max( y, this.maxY );
+      this.maxZ = Math.max( z, this.maxZ );
+   }
+
+   /**
+    * Adds every point in a collection.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    */
+   public void add( final Collection< Vector3 > points )
+   {
+      for( final Vector3 p : points )
+      {
+         add( p.x, p.y, p.z );
+      }
+   }
+
+   /**
+    * Adds every point in a packed array of interleaved <code>x, y, z</code> coordinates. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are summarized in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param n the number of points.
+    */
+   public void add( final double[] coords, final int offset, final int n )
+   {
+      Batch.checkRange( coords.length, offset, n, 3 );
+      final Operation.Span span = ADD.begin();
+      combine( Batch.reduce( 0, n, ( from, to ) -> {
+         final PointStatistics3 result = new PointStatistics3();
+         final PointStatistics3 block = new PointStatistics3();
+         for( int start = from; start < to; start += BLOCK_SIZE )
+         {
+            final int s = offset + ( 3 * start );
+            result.combine( block.set( coords, s, coords, s + 1, coords, s + 2, 3, Math.min( BLOCK_SIZE, to - start ) ) );
+         }
+         return result;
+      }, PointStatistics3::combine ) );
+      ADD.end( span, n );
+   }
+
+   /**
+    * Adds every point in a buffer. Buffers larger than {@link Batch#getParallelThreshold()} points are summarized in parallel.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    */
+   public void add( final Vector3Buffer points )
+   {
+      final Operation.Span span = ADD.begin();
+      combine( Batch.reduce( 0, points.size(), ( from, to ) -> {
+         final PointStatistics3 result = new PointStatistics3();
+         final PointStatistics3 block = new PointStatistics3();
+         for( int start = from; start < to; start += BLOCK_SIZE )
+         {
+            result.combine( block.set( points.x, start, points.y, start, points.z, start, 1, Math.min( BLOCK_SIZE, to - start ) ) );
+         }
+         return result;
+      }, PointStatistics3::combine ) );
+      ADD.end( span, points.size() );
+   }
+
+   /**
+    * Adds every point in a memory-mapped store. Stores larger than {@link Batch#getParallelThreshold()} points are summarized in
+    * parallel.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    */
+   public void add( final MappedVector3Store points )
+   {
+      final Operation.Span span = ADD.begin();
+      combine( Batch.reduceLongRange( 0, points.size(), ( from, to ) -> {
+         final PointStatistics3 result = new PointStatistics3();
+         final PointStatistics3 block = new PointStatistics3();
+         final double[] coords = new double[ 3 * BLOCK_SIZE ];
+         for( long start = from; start < to; start += BLOCK_SIZE )
+         {
+            final int n = (int) Math.min( BLOCK_SIZE, to - start );
+            points.get( start, coords, 0, n );
+            result.combine( block.set( coords, 0, coords, 1, coords, 2, 3, n ) );
+         }
+         return result;
+      }, PointStatistics3::combine ) );
+      ADD.end( span, points.size() );
+   }
+
+   /**
+    * Adds all the points summarized by other statistics, as though they had been added to these. The result is the same
+    * whichever order statistics are combined in, to within rounding.
+    *
+    * @param other the statistics to combine with these. Not changed. Cannot be <code>null</code>.
+    * @return these statistics.
+    */
+   public PointStatistics3 combine( final PointStatistics3 other )
+   {
+      if( other.count == 0 )
+      {
+         return this;
+      }
+      if( this.count == 0 )
+      {
+         copy( other );
+         return this;
+      }
+      final double na = this.count;
+      final double nb = other.count;
+      final double n = na + nb;
+      final double dx = other.meanX - this.meanX;
+      final double dy = other.meanY - this.meanY;
+      final double dz = other.meanZ - this.meanZ;
+      final double f2 = ( na * nb ) / n;
+      final double f3 = ( f2 * ( na - nb ) ) / n;
+      final double f4 = ( f2 * ( ( na * na ) - ( na * nb ) + ( nb * nb ) ) ) / ( n * n );
+
+      // The higher moments are combined before the lower ones they depend on
+      this.m4X = combine4( this.m4X, other.m4X, this.m3X, other.m3X, this.m2X, other.m2X, dx, na, nb, f4 );
+      this.m4Y = combine4( this.m4Y, other.m4Y, this.m3Y, other.m3Y, this.m2Y, other.m2Y, dy, na, nb, f4 );
+      this.m4Z = combine4( this.m4Z, other.m4Z, this.m3Z, other.m3Z, this.m2Z, other.m2Z, dz, na, nb, f4 );
+      this.m3X += other.m3X + ( dx * dx * dx * f3 ) + ( ( 3 * dx * ( ( na * other.m2X ) - ( nb * this.m2X ) ) ) / n );
+      this.m3Y += other.m3Y + ( dy * dy * dy * f3 ) + ( ( 3 * dy * ( ( na * other.m2Y ) - ( nb * this.m2Y ) ) ) / n );
+      this.m3Z += other.m3Z + ( dz * dz * dz * f3 ) + ( ( 3 * dz * ( ( na * other.m2Z ) - ( nb * this.m2Z ) ) ) / n );
+      this.m2X += other.m2X + ( dx * dx * f2 );
+      this.m2Y += other.m2Y + ( dy * dy * f2 );
+      this.m2Z += other.m2Z + ( dz * dz * f2 );
+      this.cXY += other.cXY + ( dx * dy * f2 );
+      this.cXZ += other.cXZ + ( dx * dz * f2 );
+      this.cYZ += other.cYZ + ( dy * dz * f2 );
+
+      this.meanX += ( dx * nb ) / n;
+      this.meanY += ( dy * nb ) / n;
+      this.meanZ += ( dz * nb ) / n;
+      this.count += other.count;
+      this.minX = Math.min( other.minX, this.minX );
+      this.minY = Math.min( other.minY, this.minY );
+      this.minZ = Math.min( other.minZ, this.minZ );
+      this.maxX = Math.max( other.maxX, this.maxX );
+      this.maxY = Math.max( other.maxY, this.maxY );
+      this.maxZ = Math.max( other.maxZ, this.maxZ );
+      return this;
+   }
+
+   /**
+    * Removes all the points.
+    */
+   public void clear()
+   {
+      copy( new PointStatistics3() );
+   }
+
+   /**
+    * Gets the number of points summarized.
+    *
+    * @return the number of points.
+    */
+   public long getCount()
+   {
+      return this.count;
+   }
+
+   /**
+    * Gets the centroid, the mean of the points.
+    *
+    * @return the centroid, or the origin if there are no points.
+    */
+   public Vector3 getMean()
+   {
+      return new Vector3( this.meanX, this.meanY, this.meanZ );
+   }
+
+   /**
+    * Gets the bounding box of the points.
+    *
+    * @return the bounding box, which is empty if there are no points.
+    */
+   public BoundingBox3 getBounds()
+   {
+      final BoundingBox3 empty = new BoundingBox3();
+      if( this.count == 0 )
+      {
+         return empty;
+      }
+      return empty.union( new Vector3( this.minX, this.minY, this.minZ ) ).union( new Vector3( this.maxX, this.maxY, this.maxZ ) );
+   }
+
+   /**
+    * Gets the population covariance of the points, the sums of products of deviations from the mean divided by the number of
+    * points.
+    *
+    * @return the symmetric covariance matrix, or zero if there are no points.
+    */
+   public Matrix3 getCovariance()
+   {
+      final double f = ( this.count == 0 ) ? 0 : ( 1.0 / this.count );
+      final double xy = this.cXY * f;
+      final double xz = this.cXZ * f;
+      final double yz = this.cYZ * f;
+      return new Matrix3( this.m2X * f, xy, xz, xy, this.m2Y * f, yz, xz, yz, this.m2Z * f );
+   }
+
+   /**
+    * Gets the population skewness of each coordinate, the third central moment divided by the cube of the standard deviation.
+    *
+    * @return the skewness of the x, y and z coordinates. A coordinate that does not vary has a skewness of NaN.
+    */
+   public Vector3 getSkewness()
+   {
+      final double rootN = Math.sqrt( this.count );
+      return new Vector3( ( rootN * this.m3X ) / Math.pow( this.m2X, 1.5 ),
+                          ( rootN * this.m3Y ) / Math.pow( this.m2Y, 1.5 ),
+                          ( rootN * this.m3Z ) / Math.pow( this.m2Z, 1.5 ) );
+   }
+
+   /**
+    * Gets the population kurtosis of each coordinate, the fourth central moment divided by the square of the variance. The
+    * kurtosis of a normal distribution is 3.
+    *
+    * @return the kurtosis of the x, y and z coordinates. A coordinate that does not vary has a kurtosis of NaN.
+    */
+   public Vector3 getKurtosis()
+   {
+      final double n = this.count;
+      return new Vector3( ( n * this.m4X ) / ( this.m2X * this.m2X ),
+                          ( n * this.m4Y ) / ( this.m2Y * this.m2Y ),
+                          ( n * this.m4Z ) / ( this.m2Z * this.m2Z ) );
+   }
+
+   /**
+    * Creates a collector that summarizes a stream of points. The collector can be used with parallel streams.
+    *
+    * @return a collector that summarizes the points in a stream.
+    */
+   public static Collector< Vector3, ?, PointStatistics3 > collector()
+   {
+      return Collector.of( PointStatistics3::new,
+                           PointStatistics3::add,
+                           PointStatistics3::combine,
+                           Collector.Characteristics.IDENTITY_FINISH,
+                           Collector.Characteristics.UNORDERED );
+   }
+
+   /**
+    * Writes the state to an array in the order count, mean, minimum, maximum, second moments <code>xx, xy, xz, yy, yz,
+    * zz</code>, third moments and fourth moments.
+    *
+    * @param values the array into which to write {@link #SERIALIZED_SIZE} values.
+    */
+   void write( final double[] values )
+   {
+      values[ 0 ] = (double) this.count;
+      values[ 1 ] = this.meanX;
+      values[ 2 ] = this.meanY;
+      values[ 3 ] = this.meanZ;
+      values[ 4 ] = this.minX;
+      values[ 5 ] = this.minY;
+      values[ 6 ] = this.minZ;
+      values[ 7 ] = this.maxX;
+      values[ 8 ] = this.maxY;
+      values[ 9 ] = this.maxZ;
+      values[ 10 ] = this.m2X;
+      values[ 11 ] = this.cXY;
+      values[ 12 ] = this.cXZ;
+      values[ 13 ] = this.m2Y;
+      values[ 14 ] = this.cYZ;
+      values[ 15 ] = this.m2Z;
+      values[ 16 ] = this.m3X;
+      values[ 17 ] = this.m3Y;
+      values[ 18 ] = this.m3Z;
+      values[ 19 ] = this.m4X;
+      values[ 20 ] = this.m4Y;
+      values[ 21 ] = this.m4Z;
+   }
+
+   /**
+    * Creates statistics from the state written by {@link #write(double[])}.
+    *
+    * @param values the state.
+    * @return the statistics, or <code>null</code> if the count is not a whole number of points.
+    */
+   static PointStatistics3 read( final double[] values )
+   {
+      final double n = values[ 0 ];
+      if( !( n >= 0 ) || ( n != Math.rint( n ) ) )
+      {
+         return null;
+      }
+      final PointStatistics3 result = new PointStatistics3();
+      result.count = (long) n;
+      result.meanX = values[ 1 ];
+      result.meanY = values[ 2 ];
+      result.meanZ = values[ 3 ];
+      result.minX = values[ 4 ];
+      result.minY = values[ 5 ];
+      result.minZ = values[ 6 ];
+      result.maxX = values[ 7 ];
+      result.maxY = values[ 8 ];
+      result.maxZ = values[ 9 ];
+      result.m2X = values[ 10 ];
+      result.cXY = values[ 11 ];
+      result.cXZ = values[ 12 ];
+      result.m2Y = values[ 13 ];
+      result.cYZ = values[ 14 ];
+      result.m2Z = values[ 15 ];
+      result.m3X = values[ 16 ];
+      result.m3Y = values[ 17 ];
+      result.m3Z = values[ 18 ];
+      result.m4X = values[ 19 ];
+      result.m4Y = values[ 20 ];
+      result.m4Z = values[ 21 ];
+      return result;
+   }
+
+   private static double combine4( final double m4a,
+                                   final double m4b,
+                                   final double m3a,
+                                   final double m3b,
+                                   final double m2a,
+                                   final double m2b,
+                                   final double d,
+                                   final double na,
+                                   final double nb,
+                                   final double f4 )
+   {
+      final double n = na + nb;
+      final double d2 = d * d;
+      return m4a
+             + m4b
+             + ( d2 * d2 * f4 )
+             + ( ( 6 * d2 * ( ( na * na * m2b ) + ( nb * nb * m2a ) ) ) / ( n * n ) )
+             + ( ( 4 * d * ( ( na * m3b ) - ( nb * m3a ) ) ) / n );
+   }
+
+   /**
+    * Replaces the state with the statistics of a block of points, whose coordinates on each axis are at
+    * <code>offset + ( stride * i )</code> in the array for that axis, with the offset for that axis.
+    *
+    * @return these statistics.
+    */
+   private PointStatistics3 set( final double[] xs,
+                                 final int xOffset,
+                                 final double[] ys,
+                                 final int yOffset,
+                                 final double[] zs,
+                                 final int zOffset,
+                                 final int stride,
+                                 final int n )
+   {
+      double sx = 0;
+      double sy = 0;
+      double sz = 0;
+      double x0 = Double.POSITIVE_INFINITY;
+      double y0 = Double.POSITIVE_INFINITY;
+      double z0 = Double.POSITIVE_INFINITY;
+      double x1 = Double.NEGATIVE_INFINITY;
+      double y1 = Double.NEGATIVE_INFINITY;
+      double z1 = Double.NEGATIVE_INFINITY;
+      for( int i = 0, end = stride * n; i < end; i += stride )
+      {
+         final double x = xs[ xOffset + i ];
+         final double y = ys[ yOffset + i ];
+         final double z = zs[ zOffset + i ];
+         sx += x;
+         sy += y;
+         sz += z;
+         x0 = Math.min( x, x0 );
+         y0 = Math.min( y, y0 );
+         z0 = Math.min( z, z0 );
+         x1 = Math.max( x, x1 );
+         y1 = Math.max( y, y1 );
+         z1 = Math.max( z, z1 );
+      }
+      final double mx = sx / n;
+      final double my = sy / n;
+      final double mz = sz / n;
+
+      double rx = 0;
+      double ry = 0;
+      double rz = 0;
+      double xx = 0;
+      double yy = 0;
+      double zz = 0;
+      double xy = 0;
+      double xz = 0;
+      double yz = 0;
+      double xxx = 0;
+      double yyy = 0;
+      double zzz = 0;
+      double xxxx = 0;
+      double yyyy = 0;
+      double zzzz = 0;
+      for( int i = 0, end = stride * n; i < end; i += stride )
+      {
+         final double dx = xs[ xOffset + i ] - mx;
+         final double dy = ys[ yOffset + i ] - my;
+         final double dz = zs[ zOffset + i ] - mz;
+         final double dx2 = dx * dx;
+         final double dy2 = dy * dy;
+         final double dz2 = dz * dz;
+         rx += dx;
+         ry += dy;
+         rz += dz;
+         xx += dx2;
+         yy += dy2;
+         zz += dz2;
+         xy += dx * dy;
+         xz += dx * dz;
+         yz += dy * dz;
+         xxx += dx2 * dx;
+         yyy += dy2 * dy;
+         zzz += dz2 * dz;
+         xxxx += dx2 * dx2;
+         yyyy += dy2 * dy2;
+         zzzz += dz2 * dz2;
+      }
+
+      // The rounded mean is off by the mean deviation from it, so shift the sums to the corrected mean. The correction is tiny,
+      // but without it the third moment of points far from the origin loses several digits.
+      rx /= n;
+      ry /= n;
+      rz /= n;
+      this.count = n;
+      this.meanX = mx + rx;
+      this.meanY = my + ry;
+      this.meanZ = mz + rz;
+      this.m4X = ( xxxx - ( 4 * rx * xxx ) + ( 6 * rx * rx * xx ) ) - ( 3 * n * rx * rx * rx * rx );
+      this.m4Y = ( yyyy - ( 4 * ry * yyy ) + ( 6 * ry * ry * yy ) ) - ( 3 * n * ry * ry * ry * ry );
+      this.m4Z = ( zzzz - ( 4 * rz * zzz ) + ( 6 * rz * rz * zz ) ) - ( 3 * n * rz * rz * rz * rz );
+      this.m3X = ( xxx - ( 3 * rx * xx ) ) + ( 2 * n * rx * rx * rx );
+      this.m3Y = ( yyy - ( 3 * ry * yy ) ) + ( 2 * n * ry * ry * ry );
+      this.m3Z = ( zzz - ( 3 * rz * zz ) ) + ( 2 * n * rz * rz * rz );
+      this.m2X = xx - ( n * rx * rx );
+      this.m2Y = yy - ( n * ry * ry );
+      this.m2Z = zz - ( n * rz * rz );
+      this.cXY = xy - ( n * rx * ry );
+      this.cXZ = xz - ( n * rx * rz );
+      this.cYZ = yz - ( n * ry * rz );
+      this.minX = x0;
+      this.minY = y0;
+      this.minZ = z0;
+      this.maxX = x1;
+      this.maxY = y1;
+      this.maxZ = z1;
+      return this;
+   }
+
+   private void copy( final PointStatistics3 other )
+   {
+      this.count = other.count;
+      this.meanX = other.meanX;
+      this.meanY = other.meanY;
+      this.meanZ = other.meanZ;
+      this.m2X = other.m2X;
+      this.m2Y = other.m2Y;
+      this.m2Z = other.m2Z;
+      this.cXY = other.cXY;
+      this.cXZ = other.cXZ;
+      this.cYZ = other.cYZ;
+      this.m3X = other.m3X;
+      this.m3Y = other.m3Y;
+      this.m3Z = other.m3Z;
+      this.m4X = other.m4X;
+      this.m4Y = other.m4Y;
+      this.m4Z = other.m4Z;
+      this.minX = other.minX;
+      this.minY = other.minY;
+      this.minZ = other.minZ;
+      this.maxX = other.maxX;
+      this.maxY = other.maxY;
+      this.maxZ = other.maxZ;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "PointStatistics3[count: %d, mean: %s, bounds: %s]", this.count, getMean(), getBounds() ); //$NON-NLS-1$
+   }
+}
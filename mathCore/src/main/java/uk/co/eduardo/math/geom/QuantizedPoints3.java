@@ -0,0 +1,623 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+
+/**
+ * A compact, read-only container of 3D points whose coordinates are quantized to integers relative to a bounding box.
+ * <p>
+ * Each coordinate is stored as an unsigned integer of between {@value #MIN_BITS} and {@value #MAX_BITS} bits. The integer is
+ * the index of the nearest of <code>2<sup>bits</sup></code> evenly spaced levels between the start and the end of the box
+ * on that axis. Decoded points are therefore within half a level spacing of the original point on each axis, as reported by
+ * {@link #getMaxError()}. Coordinates of up to 10 bits are packed into 4 bytes per point, up to 16 bits into 6 bytes and up to
+ * 21 bits into 8 bytes. A {@link Vector3Buffer} uses 24 bytes per point.
+ * </p>
+ * <p>
+ * Points that are sorted so that consecutive points are close together, for example in Morton order, can also be delta
+ * encoded. Each point is then stored as variable length differences from the previous point. The differences restart every
+ * 64 points, so random access only decodes from the start of the enclosing block.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class QuantizedPoints3
+{
+   /** The fewest bits per coordinate. */
+   public static final int MIN_BITS = 1;
+
+   /** The most bits per coordinate. */
+   public static final int MAX_BITS = 21;
+
+   /** The number of points between the restarts of the delta encoding. */
+   private static final int BLOCK_SIZE = 64;
+
+   /** The number of points decoded at a time by the bulk operations. */
+   private static final int CHUNK_SIZE = 4 * BLOCK_SIZE;
+
+   private static final Operation ENCODE = Instrumentation.operation( "QuantizedPoints3.encode" ); //$NON-NLS-1$
+
+   private static final Operation DECODE = Instrumentation.operation( "QuantizedPoints3.decode" ); //$NON-NLS-1$
+
+   private final BoundingBox3 bounds;
+
+   private final int bits;
+
+   private final int size;
+
+   private final double stepX;
+
+   private final double stepY;
+
+   private final double stepZ;
+
+   private final Codes codes;
+
+   private QuantizedPoints3( final BoundingBox3 bounds, final int bits, final int size, final Codes codes )
+   {
+      final int max = ( 1 << bits ) - 1;
+      this.bounds = bounds;
+      this.bits = bits;
+      this.size = size;
+      this.stepX = ( bounds.end.x - bounds.start.x ) / max;
+      this.stepY = ( bounds.end.y - bounds.start.y ) / max;
+      this.stepZ = ( bounds.end.z - bounds.start.z ) / max;
+      this.codes = codes;
+   }
+
+   /**
+    * Factory method for quantizing a packed array of interleaved <code>x, y, z</code> coordinates. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are quantized in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @param bounds the box relative to which to quantize the points. Cannot be <code>null</code>. Must contain every point.
+    * @param bits the number of bits per coordinate, between {@link #MIN_BITS} and {@link #MAX_BITS}.
+    * @param delta whether to delta encode the points, which only saves memory if consecutive points are close together.
+    * @return the quantized points.
+    * @throws IllegalArgumentException if bits is out of range or a point lies outside the bounds.
+    */
+   public static QuantizedPoints3 encode( final double[] coords,
+                                          final int offset,
+                                          final int count,
+                                          final BoundingBox3 bounds,
+                                          final int bits,
+                                          final boolean delta )
+   {
+      Batch.checkRange( coords.length, offset, count, 3 );
+      final Quantizer quantizer = new Quantizer( bounds, bits );
+      final Operation.Span span = ENCODE.begin();
+      final FixedCodes codes = FixedCodes.create( bits, count );
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int s = offset + ( 3 * i );
+            codes.set( i, quantizer.x( coords[ s ] ), quantizer.y( coords[ s + 1 ] ), quantizer.z( coords[ s + 2 ] ) );
+         }
+      } );
+      final Codes stored = delta ? DeltaCodes.create( codes, count ) : codes;
+      final QuantizedPoints3 result = new QuantizedPoints3( bounds, bits, count, stored );
+      ENCODE.end( span, count );
+      return result;
+   }
+
+   /**
+    * Factory method for quantizing the vectors in a buffer. Inputs larger than {@link Batch#getParallelThreshold()} points are
+    * quantized in parallel.
+    *
+    * @param points the points to quantize. Cannot be <code>null</code>.
+    * @param bounds the box relative to which to quantize the points. Cannot be <code>null</code>. Must contain every point.
+    * @param bits the number of bits per coordinate, between {@link #MIN_BITS} and {@link #MAX_BITS}.
+    * @param delta whether to delta encode the points, which only saves memory if consecutive points are close together.
+    * @return the quantized points.
+    * @throws IllegalArgumentException if bits is out of range or a point lies outside the bounds.
+    */
+   public static QuantizedPoints3 encode( final Vector3Buffer points,
+                                          final BoundingBox3 bounds,
+                                          final int bits,
+                                          final boolean delta )
+   {
+      final Quantizer quantizer = new Quantizer( bounds, bits );
+      final int count = points.size();
+      final Operation.Span span = ENCODE.begin();
+      final FixedCodes codes = FixedCodes.create( bits, count );
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            codes.set( i, quantizer.x( points.x[ i ] ), quantizer.y( points.y[ i ] ), quantizer.z( points.z[ i ] ) );
+         }
+      } );
+      final Codes stored = delta ? DeltaCodes.create( codes, count ) : codes;
+      final QuantizedPoints3 result = new QuantizedPoints3( bounds, bits, count, stored );
+      ENCODE.end( span, count );
+      return result;
+   }
+
+   /**
+    * Gets the number of points.
+    *
+    * @return the number of points.
+    */
+   public int size()
+   {
+      return this.size;
+   }
+
+   /**
+    * Gets the box relative to which the points are quantized.
+    *
+    * @return the bounds of the points.
+    */
+   public BoundingBox3 getBounds()
+   {
+      return this.bounds;
+   }
+
+   /**
+    * Gets the number of bits per coordinate.
+    *
+    * @return the number of bits per coordinate.
+    */
+   public int getBits()
+   {
+      return this.bits;
+   }
+
+   /**
+    * Determines whether the points are delta encoded.
+    *
+    * @return whether the points are delta encoded.
+    */
+   public boolean isDeltaEncoded()
+   {
+      return this.codes instanceof DeltaCodes;
+   }
+
+   /**
+    * Gets the largest difference on each axis between a point and its decoded value, which is half the spacing between
+    * quantization levels. The decoded coordinates can differ by a few more ulps from the rounding of the decoding arithmetic.
+    *
+    * @return the maximum error on each axis.
+    */
+   public Vector3 getMaxError()
+   {
+      return new Vector3( this.stepX / 2, this.stepY / 2, this.stepZ / 2 );
+   }
+
+   /**
+    * Gets the number of bytes holding the quantized coordinates, excluding the fixed overhead of this object.
+    *
+    * @return the size of the encoded coordinates in bytes.
+    */
+   public long getEncodedSize()
+   {
+      return this.codes.getEncodedSize();
+   }
+
+   /**
+    * Decodes the point at the specified index.
+    *
+    * @param i the index of the point.
+    * @return the decoded point.
+    */
+   public Vector3 get( final int i )
+   {
+      if( ( i < 0 ) || ( i >= this.size ) )
+      {
+         throw new IndexOutOfBoundsException( String.format( "Index %d out of bounds for size %d", i, this.size ) ); //$NON-NLS-1$
+      }
+      final int[] q = new int[ 3 ];
+      this.codes.get( i, i + 1, q );
+      final Vector3 origin = this.bounds.start;
+      return new Vector3( origin.x + ( q[ 0 ] * this.stepX ),
+                          origin.y + ( q[ 1 ] * this.stepY ),
+                          origin.z + ( q[ 2 ] * this.stepZ ) );
+   }
+
+   /**
+    * Decodes a range of points into a packed array of interleaved <code>x, y, z</code> coordinates. The results are identical to
+    * calling {@link #get(int)} on each point. Inputs larger than {@link Batch#getParallelThreshold()} points are decoded in
+    * parallel.
+    *
+    * @param offset the index of the first point to decode.
+    * @param count the number of points to decode.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    */
+   public void decode( final int offset, final int count, final double[] dst, final int dstOffset )
+   {
+      Batch.checkRange( this.size, offset, count, 1 );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      final Operation.Span span = DECODE.begin();
+      Batch.forRange( offset,
+                      offset + count,
+                      ( from, to ) -> decodeInterleaved( from, to, dst, dstOffset + ( 3 * ( from - offset ) ) ) );
+      DECODE.end( span, count );
+   }
+
+   /**
+    * Decodes every point into a buffer. The results are identical to calling {@link #get(int)} on each point. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are decoded in parallel.
+    *
+    * @param dst the buffer into which to write the points. Cannot be <code>null</code>. Must be the same size as this container.
+    */
+   public void decode( final Vector3Buffer dst )
+   {
+      if( dst.size() != this.size )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", //$NON-NLS-1$
+                                                            dst.size(),
+                                                            this.size ) );
+      }
+      final Operation.Span span = DECODE.begin();
+      Batch.forRange( 0, this.size, ( from, to ) -> decodeSeparate( from, to, dst ) );
+      DECODE.end( span, this.size );
+   }
+
+   private void decodeInterleaved( final int from, final int to, final double[] dst, final int dstOffset )
+   {
+      final double ox = this.bounds.start.x;
+      final double oy = this.bounds.start.y;
+      final double oz = this.bounds.start.z;
+      final double sx = this.stepX;
+      final double sy = this.stepY;
+      final double sz = this.stepZ;
+      final int[] q = new int[ 3 * CHUNK_SIZE ];
+      int d = dstOffset;
+      for( int i = from; i < to; i += CHUNK_SIZE )
+      {
+         final int end = Math.min( to, i + CHUNK_SIZE );
+         this.codes.get( i, end, q );
+         for( int j = 0, n = 3 * ( end - i ); j < n; j += 3 )
+         {
+            dst[ d++ ] = ox + ( q[ j ] * sx );
+            dst[ d++ ] = oy + ( q[ j + 1 ] * sy );
+            dst[ d++ ] = oz + ( q[ j + 2 ] * sz );
+         }
+      }
+   }
+
+   private void decodeSeparate( final int from, final int to, final Vector3Buffer dst )
+   {
+      final double ox = this.bounds.start.x;
+      final double oy = this.bounds.start.y;
+      final double oz = this.bounds.start.z;
+      final double sx = this.stepX;
+      final double sy = this.stepY;
+      final double sz = this.stepZ;
+      final double[] xs = dst.x;
+      final double[] ys = dst.y;
+      final double[] zs = dst.z;
+      final int[] q = new int[ 3 * CHUNK_SIZE ];
+      for( int i = from; i < to; i += CHUNK_SIZE )
+      {
+         final int end = Math.min( to, i + CHUNK_SIZE );
+         this.codes.get( i, end, q );
+         for( int j = 0, k = i; k < end; j += 3, k++ )
+         {
+            xs[ k ] = ox + ( q[ j ] * sx );
+            ys[ k ] = oy + ( q[ j + 1 ] * sy );
+            zs[ k ] = oz + ( q[ j + 2 ] * sz );
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "QuantizedPoints3[%d, %d bits%s]", //$NON-NLS-1$
+                            this.size,
+                            this.bits,
+                            isDeltaEncoded() ? ", delta" : "" ); //$NON-NLS-1$ //$NON-NLS-2$
+   }
+
+   /**
+    * Maps coordinates within a bounding box to the nearest quantization level.
+    */
+   private static final class Quantizer
+   {
+      private final BoundingBox3 bounds;
+
+      private final int max;
+
+      private final double scaleX;
+
+      private final double scaleY;
+
+      private final double scaleZ;
+
+      Quantizer( final BoundingBox3 bounds, final int bits )
+      {
+         if( ( bits < MIN_BITS ) || ( bits > MAX_BITS ) )
+         {
+            throw new IllegalArgumentException( String.format( "Bits out of range: %d", bits ) ); //$NON-NLS-1$
+         }
+         this.bounds = bounds;
+         this.max = ( 1 << bits ) - 1;
+         this.scaleX = scale( bounds.start.x, bounds.end.x );
+         this.scaleY = scale( bounds.start.y, bounds.end.y );
+         this.scaleZ = scale( bounds.start.z, bounds.end.z );
+      }
+
+      int x( final double x )
+      {
+         return quantize( x, this.bounds.start.x, this.bounds.end.x, this.scaleX );
+      }
+
+      int y( final double y )
+      {
+         return quantize( y, this.bounds.start.y, this.bounds.end.y, this.scaleY );
+      }
+
+      int z( final double z )
+      {
+         return quantize( z, this.bounds.start.z, this.bounds.end.z, this.scaleZ );
+      }
+
+      private double scale( final double start, final double end )
+      {
+         return ( end > start ) ? this.max / ( end - start ) : 0;
+      }
+
+      private int quantize( final double value, final double start, final double end, final double scale )
+      {
+         if( !( ( value >= start ) && ( value <= end ) ) )
+         {
+            throw new IllegalArgumentException( String.format( "Coordinate %f outside bounds [%f, %f]", //$NON-NLS-1$
+                                                               value,
+                                                               start,
+                                                               end ) );
+         }
+         return Math.min( this.max, (int) Math.round( ( value - start ) * scale ) );
+      }
+   }
+
+   /**
+    * The quantized coordinates of the points.
+    */
+   private abstract static class Codes
+   {
+      /**
+       * Reads the codes of the points in the range <code>[from, to)</code>.
+       *
+       * @param from the first point to read.
+       * @param to one past the last point to read.
+       * @param q the array into which to write the interleaved x, y and z codes, starting at index 0.
+       */
+      abstract void get( int from, int to, int[] q );
+
+      abstract long getEncodedSize();
+   }
+
+   /**
+    * Codes held in a fixed number of bytes per point, which can be written in any order.
+    */
+   private abstract static class FixedCodes extends Codes
+   {
+      abstract void set( int i, int qx, int qy, int qz );
+
+      static FixedCodes create( final int bits, final int size )
+      {
+         if( bits <= 10 )
+         {
+            return new IntCodes( size );
+         }
+         if( bits <= 16 )
+         {
+            return new ShortCodes( size );
+         }
+         return new LongCodes( size );
+      }
+   }
+
+   /**
+    * Codes of up to 10 bits packed into an int per point.
+    */
+   private static final class IntCodes extends FixedCodes
+   {
+      private static final int MASK = ( 1 << 10 ) - 1;
+
+      private final int[] data;
+
+      IntCodes( final int size )
+      {
+         this.data = new int[ size ];
+      }
+
+      @Override
+      void set( final int i, final int qx, final int qy, final int qz )
+      {
+         this.data[ i ] = qx | ( qy << 10 ) | ( qz << 20 );
+      }
+
+      @Override
+      void get( final int from, final int to, final int[] q )
+      {
+         for( int i = from, j = 0; i < to; i++ )
+         {
+            final int code = this.data[ i ];
+            q[ j++ ] = code & MASK;
+            q[ j++ ] = ( code >>> 10 ) & MASK;
+            q[ j++ ] = code >>> 20;
+         }
+      }
+
+      @Override
+      long getEncodedSize()
+      {
+         return 4L * this.data.length;
+      }
+   }
+
+   /**
+    * Codes of up to 16 bits held in three shorts per point.
+    */
+   private static final class ShortCodes extends FixedCodes
+   {
+      private static final int MASK = ( 1 << 16 ) - 1;
+
+      private final short[] data;
+
+      ShortCodes( final int size )
+      {
+         this.data = new short[ 3 * size ];
+      }
+
+      @Override
+      void set( final int i, final int qx, final int qy, final int qz )
+      {
+         this.data[ 3 * i ] = (short) qx;
+         this.data[ ( 3 * i ) + 1 ] = (short) qy;
+         this.data[ ( 3 * i ) + 2 ] = (short) qz;
+      }
+
+      @Override
+      void get( final int from, final int to, final int[] q )
+      {
+         for( int i = 3 * from, end = 3 * to, j = 0; i < end; i++ )
+         {
+            q[ j++ ] = this.data[ i ] & MASK;
+         }
+      }
+
+      @Override
+      long getEncodedSize()
+      {
+         return 2L * this.data.length;
+      }
+   }
+
+   /**
+    * Codes of up to 21 bits packed into a long per point.
+    */
+   private static final class LongCodes extends FixedCodes
+   {
+      private static final long MASK = ( 1L << 21 ) - 1;
+
+      private final long[] data;
+
+      LongCodes( final int size )
+      {
+         this.data = new long[ size ];
+      }
+
+      @Override
+      void set( final int i, final int qx, final int qy, final int qz )
+      {
+         this.data[ i ] = qx | ( (long) qy << 21 ) | ( (long) qz << 42 );
+      }
+
+      @Override
+      void get( final int from, final int to, final int[] q )
+      {
+         for( int i = from, j = 0; i < to; i++ )
+         {
+            final long code = this.data[ i ];
+            q[ j++ ] = (int) ( code & MASK );
+            q[ j++ ] = (int) ( ( code >>> 21 ) & MASK );
+            q[ j++ ] = (int) ( code >>> 42 );
+         }
+      }
+
+      @Override
+      long getEncodedSize()
+      {
+         return 8L * this.data.length;
+      }
+   }
+
+   /**
+    * Codes held as zig-zag encoded variable length differences from the previous point, restarting from zero at the start of
+    * every block.
+    */
+   private static final class DeltaCodes extends Codes
+   {
+      private final byte[] data;
+
+      private final int[] blocks;
+
+      private DeltaCodes( final byte[] data, final int[] blocks )
+      {
+         this.data = data;
+         this.blocks = blocks;
+      }
+
+      static DeltaCodes create( final Codes codes, final int size )
+      {
+         final int[] blocks = new int[ ( size + BLOCK_SIZE - 1 ) / BLOCK_SIZE ];
+         final int[] q = new int[ 3 * BLOCK_SIZE ];
+         byte[] data = new byte[ Math.max( 16, 3 * size ) ];
+         int pos = 0;
+         for( int b = 0; b < blocks.length; b++ )
+         {
+            final int from = b * BLOCK_SIZE;
+            final int to = Math.min( size, from + BLOCK_SIZE );
+            codes.get( from, to, q );
+            blocks[ b ] = pos;
+            for( int j = 0, n = 3 * ( to - from ); j < n; j++ )
+            {
+               // The codes are interleaved, so the same axis of the previous point is three codes back
+               final int previous = ( j >= 3 ) ? q[ j - 3 ] : 0;
+               if( ( pos + 5 ) > data.length )
+               {
+                  data = Arrays.copyOf( data, 2 * data.length );
+               }
+               final int difference = q[ j ] - previous;
+               int value = ( difference << 1 ) ^ ( difference >> 31 );
+               while( ( value & ~0x7F ) != 0 )
+               {
+                  data[ pos++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+                  value >>>= 7;
+               }
+               data[ pos++ ] = (byte) value;
+            }
+         }
+         return new DeltaCodes( Arrays.copyOf( data, pos ), blocks );
+      }
+
+      @Override
+      void get( final int from, final int to, final int[] q )
+      {
+         final byte[] bytes = this.data;
+         final int block = from / BLOCK_SIZE;
+         int pos = this.blocks[ block ];
+         final int[] previous = new int[ 3 ];
+         int j = 0;
+         for( int i = block * BLOCK_SIZE; i < to; i++ )
+         {
+            if( ( i % BLOCK_SIZE ) == 0 )
+            {
+               Arrays.fill( previous, 0 );
+            }
+            for( int axis = 0; axis < 3; axis++ )
+            {
+               int value = 0;
+               int shift = 0;
+               byte b;
+               do
+               {
+                  b = bytes[ pos++ ];
+                  value |= ( b & 0x7F ) << shift;
+                  shift += 7;
+               }
+               while( b < 0 );
+               previous[ axis ] += ( value >>> 1 ) ^ -( value & 1 );
+            }
+            if( i >= from )
+            {
+               q[ j++ ] = previous[ 0 ];
+               q[ j++ ] = previous[ 1 ];
+               q[ j++ ] = previous[ 2 ];
+            }
+         }
+      }
+
+      @Override
+      long getEncodedSize()
+      {
+         return this.data.length + ( 4L * this.blocks.length );
+      }
+   }
+}
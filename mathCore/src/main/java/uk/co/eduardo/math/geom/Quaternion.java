@@ -0,0 +1,313 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents a quaternion, <code>w + xi + yj + zk</code>. Unit quaternions represent rotations in 3D space more compactly than
+ * a {@link Matrix3}: composing two rotations takes 16 multiplies rather than 27, and the drift that builds up over long chains
+ * of compositions is removed by a cheap {@link #normalize()}.
+ *
+ * @author erodri02
+ */
+public class Quaternion
+{
+   /** The identity quaternion, which represents no rotation. */
+   public static final Quaternion IDENTITY = new Quaternion( 1, 0, 0, 0 );
+
+   /** Above this dot product two rotations are close enough that {@link #slerp(Quaternion, double)} falls back to nlerp. */
+   private static final double SLERP_THRESHOLD = 0.9995;
+
+   /** The scalar part. */
+   public final double w;
+
+   /** The i component of the vector part. */
+   public final double x;
+
+   /** The j component of the vector part. */
+   public final double y;
+
+   /** The k component of the vector part. */
+   public final double z;
+
+   /**
+    * Initializes a new Quaternion object.
+    *
+    * @param w the scalar part.
+    * @param x the i component of the vector part.
+    * @param y the j component of the vector part.
+    * @param z the k component of the vector part.
+    */
+   public Quaternion( final double w, final double x, final double y, final double z )
+   {
+      this.w = w;
+      this.x = x;
+      this.y = y;
+      this.z = z;
+   }
+
+   /**
+    * Creates a unit quaternion that rotates about the unit vector, v. It represents the same rotation as
+    * {@link Matrix3#createRotationMatrix(Vector3, double)}.
+    *
+    * @param v the vector about which to rotate. Must be a unit vector.
+    * @param theta the number of degrees to rotate. If the vector v points to the viewer, then a positive value will rotate
+    *           anticlockwise.
+    * @return a quaternion for rotating around the given axis.
+    */
+   public static Quaternion createRotation( final Vector3 v, final double theta )
+   {
+      final double half = Math.toRadians( theta ) / 2;
+      final double s = Math.sin( half );
+      return new Quaternion( Math.cos( half ), v.x * s, v.y * s, v.z * s );
+   }
+
+   /**
+    * Creates the unit quaternion that represents the same rotation as a rotation matrix.
+    *
+    * @param m the rotation matrix. Must be orthonormal with a determinant of 1. Cannot be <code>null</code>.
+    * @return a quaternion for the same rotation as m.
+    */
+   public static Quaternion fromMatrix( final Matrix3 m )
+   {
+      // Divide by the largest of the four candidate components to stay well conditioned
+      final double trace = m.a00 + m.a11 + m.a22;
+      if( trace > 0 )
+      {
+         final double s = 2 * Math.sqrt( trace + 1 );
+         return new Quaternion( 0.25 * s, ( m.a21 - m.a12 ) / s, ( m.a02 - m.a20 ) / s, ( m.a10 - m.a01 ) / s );
+      }
+      if( ( m.a00 > m.a11 ) && ( m.a00 > m.a22 ) )
+      {
+         final double s = 2 * Math.sqrt( ( ( 1 + m.a00 ) - m.a11 ) - m.a22 );
+         return new Quaternion( ( m.a21 - m.a12 ) / s, 0.25 * s, ( m.a01 + m.a10 ) / s, ( m.a02 + m.a20 ) / s );
+      }
+      if( m.a11 > m.a22 )
+      {
+         final double s = 2 * Math.sqrt( ( ( 1 + m.a11 ) - m.a00 ) - m.a22 );
+         return new Quaternion( ( m.a02 - m.a20 ) / s, ( m.a01 + m.a10 ) / s, 0.25 * s, ( m.a12 + m.a21 ) / s );
+      }
+      final double s = 2 * Math.sqrt( ( ( 1 + m.a22 ) - m.a00 ) - m.a11 );
+      return new Quaternion( ( m.a10 - m.a01 ) / s, ( m.a02 + m.a20 ) / s, ( m.a12 + m.a21 ) / s, 0.25 * s );
+   }
+
+   /**
+    * Creates the rotation matrix that represents the same rotation as this quaternion. The quaternion does not need to be of
+    * unit length.
+    *
+    * @return the rotation matrix for this quaternion.
+    */
+   public Matrix3 toMatrix()
+   {
+      final double s = 2 / norm();
+      final double xs = this.x * s;
+      final double ys = this.y * s;
+      final double zs = this.z * s;
+      final double wx = this.w * xs;
+      final double wy = this.w * ys;
+      final double wz = this.w * zs;
+      final double xx = this.x * xs;
+      final double xy = this.x * ys;
+      final double xz = this.x * zs;
+      final double yy = this.y * ys;
+      final double yz = this.y * zs;
+      final double zz = this.z * zs;
+      return new Matrix3( 1 - ( yy + zz ),
+                          xy - wz,
+                          xz + wy,
+                          xy + wz,
+                          1 - ( xx + zz ),
+                          yz - wx,
+                          xz - wy,
+                          yz + wx,
+                          1 - ( xx + yy ) );
+   }
+
+   /**
+    * Calculates the Hamilton product, R, of this quaternion, Q, with the specified quaternion, S:
+    *
+    * <pre>
+    * R = Q.S
+    * </pre>
+    *
+    * As with {@link Matrix3#mul(Matrix3)}, the resulting rotation applies S first and then this rotation.
+    *
+    * @param s the quaternion with which to compose this quaternion. Cannot be <code>null</code>.
+    * @return the composition of this quaternion and the other.
+    */
+   public Quaternion mul( final Quaternion s )
+   {
+      final double rw = ( this.w * s.w ) - ( ( this.x * s.x ) + ( this.y * s.y ) + ( this.z * s.z ) );
+      final double rx = ( ( this.w * s.x ) + ( this.x * s.w ) + ( this.y * s.z ) ) - ( this.z * s.y );
+      final double ry = ( ( this.w * s.y ) - ( this.x * s.z ) ) + ( this.y * s.w ) + ( this.z * s.x );
+      final double rz = ( ( ( this.w * s.z ) + ( this.x * s.y ) ) - ( this.y * s.x ) ) + ( this.z * s.w );
+      return new Quaternion( rw, rx, ry, rz );
+   }
+
+   /**
+    * Rotates a vector by this unit quaternion.
+    *
+    * @param v the vector to rotate. Cannot be <code>null</code>.
+    * @return the rotated vector.
+    */
+   public Vector3 rotate( final Vector3 v )
+   {
+      // v' = v + w.t + (q x t), where t = 2 (q x v)
+      final double tx = 2 * ( ( this.y * v.z ) - ( this.z * v.y ) );
+      final double ty = 2 * ( ( this.z * v.x ) - ( this.x * v.z ) );
+      final double tz = 2 * ( ( this.x * v.y ) - ( this.y * v.x ) );
+      return new Vector3( v.x + ( this.w * tx ) + ( ( this.y * tz ) - ( this.z * ty ) ),
+                          v.y + ( this.w * ty ) + ( ( this.z * tx ) - ( this.x * tz ) ),
+                          v.z + ( this.w * tz ) + ( ( this.x * ty ) - ( this.y * tx ) ) );
+   }
+
+   /**
+    * Rotates every point in a packed array of interleaved <code>x, y, z</code> coordinates by this quaternion, writing the
+    * results into another packed array. The quaternion is converted to a matrix once, which is cheaper per point than
+    * {@link #rotate(Vector3)}, so the results match it only to within rounding.
+    * <p>
+    * The source and destination can be the same array with the same offset to rotate the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are rotated in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to rotate.
+    * @see Matrix3#mul(double[], int, double[], int, int)
+    */
+   public void rotate( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      toMatrix().mul( src, srcOffset, dst, dstOffset, count );
+   }
+
+   /**
+    * Rotates every vector in the source buffer by this quaternion, writing the results into the destination buffer.
+    *
+    * @param src the vectors to rotate. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the rotated vectors. Can be src. Must be the same size as src.
+    * @see #rotate(double[], int, double[], int, int)
+    */
+   public void rotate( final Vector3Buffer src, final Vector3Buffer dst )
+   {
+      toMatrix().mul( src, dst );
+   }
+
+   /**
+    * Returns the conjugate of this quaternion, <code>w - xi - yj - zk</code>. For a unit quaternion this is the inverse
+    * rotation.
+    *
+    * @return the conjugate of this quaternion.
+    */
+   public Quaternion conjugate()
+   {
+      return new Quaternion( this.w, -this.x, -this.y, -this.z );
+   }
+
+   /**
+    * Calculates the inverse of this quaternion, <code>Q<sup>-1</sup></code>.
+    *
+    * @return the inverse or <code>null</code> if the inverse could not be calculated.
+    */
+   public Quaternion inv()
+   {
+      final double norm = norm();
+      if( norm == 0 )
+      {
+         return null;
+      }
+      return new Quaternion( this.w / norm, -this.x / norm, -this.y / norm, -this.z / norm );
+   }
+
+   /**
+    * Calculates the dot product of this quaternion with another.
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @return the four-dimensional dot product of the two quaternions.
+    */
+   public double dot( final Quaternion other )
+   {
+      return ( this.w * other.w ) + ( this.x * other.x ) + ( this.y * other.y ) + ( this.z * other.z );
+   }
+
+   /**
+    * Calculates the squared length of this quaternion.
+    *
+    * @return the squared length.
+    */
+   public double norm()
+   {
+      return dot( this );
+   }
+
+   /**
+    * Calculates the length of this quaternion.
+    *
+    * @return the length.
+    */
+   public double length()
+   {
+      return Math.sqrt( norm() );
+   }
+
+   /**
+    * Scales this quaternion to unit length, removing the drift that builds up when composing many rotations.
+    *
+    * @return a unit quaternion.
+    */
+   public Quaternion normalize()
+   {
+      final double length = length();
+      return new Quaternion( this.w / length, this.x / length, this.y / length, this.z / length );
+   }
+
+   /**
+    * Interpolates linearly between this unit quaternion and another, taking the shortest path, and normalizes the result. This is
+    * cheaper than {@link #slerp(Quaternion, double)} but does not rotate at a constant angular speed.
+    *
+    * @param other the unit quaternion at which to end. Cannot be <code>null</code>.
+    * @param t the interpolation parameter: 0 for this rotation and 1 for the other.
+    * @return the interpolated unit quaternion.
+    */
+   public Quaternion nlerp( final Quaternion other, final double t )
+   {
+      final double b = ( dot( other ) < 0 ) ? -t : t;
+      final double a = 1 - t;
+      return new Quaternion( ( a * this.w ) + ( b * other.w ),
+                             ( a * this.x ) + ( b * other.x ),
+                             ( a * this.y ) + ( b * other.y ),
+                             ( a * this.z ) + ( b * other.z ) ).normalize();
+   }
+
+   /**
+    * Interpolates spherically between this unit quaternion and another, taking the shortest path at a constant angular speed.
+    *
+    * @param other the unit quaternion at which to end. Cannot be <code>null</code>.
+    * @param t the interpolation parameter: 0 for this rotation and 1 for the other.
+    * @return the interpolated unit quaternion.
+    */
+   public Quaternion slerp( final Quaternion other, final double t )
+   {
+      final double dot = dot( other );
+      final double cos = Math.abs( dot );
+      if( cos > SLERP_THRESHOLD )
+      {
+         return nlerp( other, t );
+      }
+      final double theta = Math.acos( cos );
+      final double sin = Math.sin( theta );
+      final double a = Math.sin( ( 1 - t ) * theta ) / sin;
+      final double b = ( dot < 0 ? -1 : 1 ) * ( Math.sin( t * theta ) / sin );
+      return new Quaternion( ( a * this.w ) + ( b * other.w ),
+                             ( a * this.x ) + ( b * other.x ),
+                             ( a * this.y ) + ( b * other.y ),
+                             ( a * this.z ) + ( b * other.z ) );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "[%.3f, %.3fi, %.3fj, %.3fk]", this.w, this.x, this.y, this.z ); //$NON-NLS-1$
+   }
+}
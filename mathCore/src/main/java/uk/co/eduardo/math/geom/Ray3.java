@@ -0,0 +1,208 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Objects;
+
+/**
+ * Represents a ray: the points <code>origin + t * direction</code> for <code>t &gt;= 0</code>.
+ * <p>
+ * The direction does not have to be a unit vector; distances along the ray are measured in multiples of the direction's
+ * length. The reciprocal of each direction component is computed once on construction so that slab tests against many boxes
+ * need only multiply.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Ray3
+{
+   /** The origin of the ray. */
+   public final Vector3 origin;
+
+   /** The direction of the ray. */
+   public final Vector3 direction;
+
+   /** The reciprocal of the x component of the direction. Infinite if the ray is parallel to the YZ plane. */
+   final double invX;
+
+   /** The reciprocal of the y component of the direction. Infinite if the ray is parallel to the XZ plane. */
+   final double invY;
+
+   /** The reciprocal of the z component of the direction. Infinite if the ray is parallel to the XY plane. */
+   final double invZ;
+
+   /**
+    * Initializes a new Ray3 object.
+    *
+    * @param origin the origin of the ray. Cannot be <code>null</code>.
+    * @param direction the direction of the ray. Cannot be <code>null</code>.
+    */
+   public Ray3( final Vector3 origin, final Vector3 direction )
+   {
+      this.origin = Objects.requireNonNull( origin );
+      this.direction = Objects.requireNonNull( direction );
+      this.invX = 1 / direction.x;
+      this.invY = 1 / direction.y;
+      this.invZ = 1 / direction.z;
+   }
+
+   /**
+    * Gets the point at a distance along the ray.
+    *
+    * @param t the distance along the ray, in multiples of the direction's length.
+    * @return <code>origin + t * direction</code>.
+    */
+   public Vector3 getPoint( final double t )
+   {
+      return new Vector3( this.origin.x + ( t * this.direction.x ),
+                          this.origin.y + ( t * this.direction.y ),
+                          this.origin.z + ( t * this.direction.z ) );
+   }
+
+   /**
+    * Calculates the distance along this ray at which it enters a box, using the slab test.
+    * <p>
+    * A ray that is parallel to an axis and lies exactly in a face of the box is treated as intersecting it: the
+    * <code>0 * &#x221E;</code> NaN produced for that slab is discarded rather than propagated. An empty box, stored with its
+    * minimum greater than its maximum, is never hit.
+    * </p>
+    *
+    * @param minX the minimum x coordinate of the box.
+    * @param minY the minimum y coordinate of the box.
+    * @param minZ the minimum z coordinate of the box.
+    * @param maxX the maximum x coordinate of the box.
+    * @param maxY the maximum y coordinate of the box.
+    * @param maxZ the maximum z coordinate of the box.
+    * @param tMin the start of the interval along the ray to test.
+    * @param tMax the end of the interval along the ray to test.
+    * @return the distance at which the ray enters the box, clamped to tMin, or {@link Double#POSITIVE_INFINITY} if the ray does
+    *         not intersect the box within <code>[tMin, tMax]</code>.
+    */
+   double entry( final double minX,
+                 final double minY,
+                 final double minZ,
+                 final double maxX,
+                 final double maxY,
+                 final double maxZ,
+                 final double tMin,
+                 final double tMax )
+   {
+      return entry( this.origin.x,
+                    this.origin.y,
+                    this.origin.z,
+                    this.invX,
+                    this.invY,
+                    this.invZ,
+                    minX,
+                    minY,
+                    minZ,
+                    maxX,
+                    maxY,
+                    maxZ,
+                    tMin,
+                    tMax );
+   }
+
+   /**
+    * Calculates the distance along a ray, given by its origin and the reciprocals of its direction components, at which it
+    * enters a box, without needing a Ray3 object.
+    *
+    * @param ox the x coordinate of the origin.
+    * @param oy the y coordinate of the origin.
+    * @param oz the z coordinate of the origin.
+    * @param invX the reciprocal of the x component of the direction.
+    * @param invY the reciprocal of the y component of the direction.
+    * @param invZ the reciprocal of the z component of the direction.
+    * @param minX the minimum x coordinate of the box.
+    * @param minY the minimum y coordinate of the box.
+    * @param minZ the minimum z coordinate of the box.
+    * @param maxX the maximum x coordinate of the box.
+    * @param maxY the maximum y coordinate of the box.
+    * @param maxZ the maximum z coordinate of the box.
+    * @param tMin the start of the interval along the ray to test.
+    * @param tMax the end of the interval along the ray to test.
+    * @return the distance at which the ray enters the box, clamped to tMin, or {@link Double#POSITIVE_INFINITY} if the ray does
+    *         not intersect the box within <code>[tMin, tMax]</code>.
+    * @see #entry(double, double, double, double, double, double, double, double)
+    */
+   static double entry( final double ox,
+                        final double oy,
+                        final double oz,
+                        final double invX,
+                        final double invY,
+                        final double invZ,
+                        final double minX,
+                        final double minY,
+                        final double minZ,
+                        final double maxX,
+                        final double maxY,
+                        final double maxZ,
+                        final double tMin,
+                        final double tMax )
+   {
+      if( minX > maxX )
+      {
+         // Empty
+         return Double.POSITIVE_INFINITY;
+      }
+      double near = tMin;
+      double far = tMax;
+
+      final double x1 = ( minX - ox ) * invX;
+      final double x2 = ( maxX - ox ) * invX;
+      final double xNear = Math.min( x1, x2 );
+      final double xFar = Math.max( x1, x2 );
+      near = xNear > near ? xNear : near;
+      far = xFar < far ? xFar : far;
+
+      final double y1 = ( minY - oy ) * invY;
+      final double y2 = ( maxY - oy ) * invY;
+      final double yNear = Math.min( y1, y2 );
+      final double yFar = Math.max( y1, y2 );
+      near = yNear > near ? yNear : near;
+      far = yFar < far ? yFar : far;
+
+      final double z1 = ( minZ - oz ) * invZ;
+      final double z2 = ( maxZ - oz ) * invZ;
+      final double zNear = Math.min( z1, z2 );
+      final double zFar = Math.max( z1, z2 );
+      near = zNear > near ? zNear : near;
+      far = zFar < far ? zFar : far;
+
+      return near <= far ? near : Double.POSITIVE_INFINITY;
+   }
+
+   /**
+    * Calculates the distance along this ray at which it enters a bounding box.
+    *
+    * @param box the bounding box. Cannot be <code>null</code>.
+    * @return the distance at which the ray enters the box, or zero if the origin is inside it, or
+    *         {@link Double#POSITIVE_INFINITY} if the ray misses it or the box is empty.
+    */
+   public double intersect( final BoundingBox3 box )
+   {
+      if( box.isEmpty() )
+      {
+         return Double.POSITIVE_INFINITY;
+      }
+      return entry( box.start.x, box.start.y, box.start.z, box.end.x, box.end.y, box.end.z, 0, Double.POSITIVE_INFINITY );
+   }
+
+   /**
+    * Factory method for creating a ray that runs along a line segment. The segment spans distances 0 to 1 along the ray.
+    *
+    * @param segment the line segment. Cannot be <code>null</code>.
+    * @return a ray from the start of the segment towards its end.
+    */
+   public static Ray3 fromSegment( final LineSegment3 segment )
+   {
+      return new Ray3( segment.start, segment.end.sub( segment.start ) );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "%s + t%s", this.origin, this.direction ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,66 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * A reusable record of the nearest item hit by a ray query.
+ *
+ * @author erodri02
+ */
+public class RayHit
+{
+   private int index = -1;
+
+   private double distance = Double.POSITIVE_INFINITY;
+
+   /**
+    * Tests whether anything was hit.
+    *
+    * @return whether anything was hit.
+    */
+   public boolean isHit()
+   {
+      return this.index >= 0;
+   }
+
+   /**
+    * Gets the index of the item that was hit.
+    *
+    * @return the index of the item that was hit, or -1 if nothing was hit.
+    */
+   public int getIndex()
+   {
+      return this.index;
+   }
+
+   /**
+    * Gets the distance along the ray at which the item was hit, in multiples of the ray direction's length.
+    *
+    * @return the distance of the hit, or {@link Double#POSITIVE_INFINITY} if nothing was hit.
+    */
+   public double getDistance()
+   {
+      return this.distance;
+   }
+
+   /**
+    * Resets this record to indicate that nothing was hit.
+    */
+   public void clear()
+   {
+      set( -1, Double.POSITIVE_INFINITY );
+   }
+
+   void set( final int hitIndex, final double hitDistance )
+   {
+      this.index = hitIndex;
+      this.distance = hitDistance;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return isHit() ? String.format( "hit %d at %.3f", this.index, this.distance ) : "miss"; //$NON-NLS-1$ //$NON-NLS-2$
+   }
+}
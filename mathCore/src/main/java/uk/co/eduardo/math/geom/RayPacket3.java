@@ -0,0 +1,261 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Collection;
+
+/**
+ * A packet of 3D rays stored as a structure of arrays, for testing many rays against one box at once, as when casting
+ * neighbouring rays that tend to hit the same boxes.
+ * <p>
+ * Each ray is held as its origin and the reciprocals of its direction components, computed once when the ray is set, in six
+ * primitive arrays. The slab test follows {@link BoundingBox3Buffer}: the plane of each slab that a ray crosses first is chosen
+ * from the sign of its inverse direction, and the NaN produced by a ray lying in a face of the box is ignored. The choice is
+ * made per ray, so the test is fastest for coherent packets, whose rays point the same way along each axis.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class RayPacket3
+{
+   /** The x coordinates of the origins. */
+   public final double[] originX;
+
+   /** The y coordinates of the origins. */
+   public final double[] originY;
+
+   /** The z coordinates of the origins. */
+   public final double[] originZ;
+
+   /** The reciprocals of the x components of the directions. */
+   final double[] invX;
+
+   /** The reciprocals of the y components of the directions. */
+   final double[] invY;
+
+   /** The reciprocals of the z components of the directions. */
+   final double[] invZ;
+
+   /**
+    * Initializes a new RayPacket3 object where every ray starts at the origin and points along the x axis.
+    *
+    * @param size the number of rays in the packet.
+    */
+   public RayPacket3( final int size )
+   {
+      this.originX = new double[ size ];
+      this.originY = new double[ size ];
+      this.originZ = new double[ size ];
+      this.invX = new double[ size ];
+      this.invY = new double[ size ];
+      this.invZ = new double[ size ];
+      for( int i = 0; i < size; i++ )
+      {
+         set( i, 0, 0, 0, 1, 0, 0 );
+      }
+   }
+
+   /**
+    * Initializes a new RayPacket3 object.
+    *
+    * @param rays the rays. Cannot be <code>null</code>.
+    */
+   public RayPacket3( final Ray3... rays )
+   {
+      this( rays.length );
+      for( int i = 0; i < rays.length; i++ )
+      {
+         set( i, rays[ i ] );
+      }
+   }
+
+   /**
+    * Initializes a new RayPacket3 object.
+    *
+    * @param rays the rays. Cannot be <code>null</code>.
+    */
+   public RayPacket3( final Collection< Ray3 > rays )
+   {
+      this( rays.toArray( new Ray3[ rays.size() ] ) );
+   }
+
+   /**
+    * Gets the number of rays in the packet.
+    *
+    * @return the number of rays in the packet.
+    */
+   public int size()
+   {
+      return this.originX.length;
+   }
+
+   /**
+    * Gets the ray at the specified index.
+    *
+    * @param i the index of the ray.
+    * @return a new ray with the origin and direction at the specified index.
+    */
+   public Ray3 get( final int i )
+   {
+      return new Ray3( new Vector3( this.originX[ i ], this.originY[ i ], this.originZ[ i ] ),
+                       new Vector3( 1 / this.invX[ i ], 1 / this.invY[ i ], 1 / this.invZ[ i ] ) );
+   }
+
+   /**
+    * Sets the ray at the specified index.
+    *
+    * @param i the index of the ray.
+    * @param ray the ray to store. Cannot be <code>null</code>.
+    */
+   public void set( final int i, final Ray3 ray )
+   {
+      this.originX[ i ] = ray.origin.x;
+      this.originY[ i ] = ray.origin.y;
+      this.originZ[ i ] = ray.origin.z;
+      this.invX[ i ] = ray.invX;
+      this.invY[ i ] = ray.invY;
+      this.invZ[ i ] = ray.invZ;
+   }
+
+   /**
+    * Sets the ray at the specified index.
+    *
+    * @param i the index of the ray.
+    * @param ox the x coordinate of the origin.
+    * @param oy the y coordinate of the origin.
+    * @param oz the z coordinate of the origin.
+    * @param dx the x component of the direction.
+    * @param dy the y component of the direction.
+    * @param dz the z component of the direction.
+    */
+   public void set( final int i,
+                    final double ox,
+                    final double oy,
+                    final double oz,
+                    final double dx,
+                    final double dy,
+                    final double dz )
+   {
+      this.originX[ i ] = ox;
+      this.originY[ i ] = oy;
+      this.originZ[ i ] = oz;
+      this.invX[ i ] = 1 / dx;
+      this.invY[ i ] = 1 / dy;
+      this.invZ[ i ] = 1 / dz;
+   }
+
+   /**
+    * Calculates where every ray in the packet enters and leaves a box. A ray hits the box if it is inside it anywhere between
+    * distance zero and the maximum distance, which is the case exactly when its entry distance is no greater than its exit
+    * distance.
+    *
+    * @param box the box. Cannot be <code>null</code>.
+    * @param maxDistance the distance along each ray beyond which the box is ignored.
+    * @param entries receives, for each ray, the distance at which it enters the box, which is zero if it starts inside it. Needs
+    *           as many elements as there are rays. Cannot be <code>null</code>.
+    * @param exits receives, for each ray, the distance at which it leaves the box, which is at most the maximum distance. Needs
+    *           as many elements as there are rays. An infinite maximum distance is written as {@link Double#MAX_VALUE}. Cannot be
+    *           <code>null</code>.
+    * @return the number of rays that hit the box. An empty box is hit by none.
+    */
+   public int intersect( final BoundingBox3 box, final double maxDistance, final double[] entries, final double[] exits )
+   {
+      if( box.isEmpty() )
+      {
+         return intersect( Double.POSITIVE_INFINITY,
+                           Double.POSITIVE_INFINITY,
+                           Double.POSITIVE_INFINITY,
+                           Double.NEGATIVE_INFINITY,
+                           Double.NEGATIVE_INFINITY,
+                           Double.NEGATIVE_INFINITY,
+                           maxDistance,
+                           entries,
+                           exits );
+      }
+      return intersect( box.start.x, box.start.y, box.start.z, box.end.x, box.end.y, box.end.z, maxDistance, entries, exits );
+   }
+
+   /**
+    * Calculates where every ray in the packet enters and leaves one of the boxes in a buffer.
+    *
+    * @param boxes the boxes. Cannot be <code>null</code>.
+    * @param index the index of the box to test.
+    * @param maxDistance the distance along each ray beyond which the box is ignored.
+    * @param entries receives, for each ray, the distance at which it enters the box, which is zero if it starts inside it. Needs
+    *           as many elements as there are rays. Cannot be <code>null</code>.
+    * @param exits receives, for each ray, the distance at which it leaves the box, which is at most the maximum distance. Needs
+    *           as many elements as there are rays. An infinite maximum distance is written as {@link Double#MAX_VALUE}. Cannot be
+    *           <code>null</code>.
+    * @return the number of rays that hit the box.
+    */
+   public int intersect( final BoundingBox3Buffer boxes,
+                         final int index,
+                         final double maxDistance,
+                         final double[] entries,
+                         final double[] exits )
+   {
+      return intersect( boxes.minX[ index ],
+                        boxes.minY[ index ],
+                        boxes.minZ[ index ],
+                        boxes.maxX[ index ],
+                        boxes.maxY[ index ],
+                        boxes.maxZ[ index ],
+                        maxDistance,
+                        entries,
+                        exits );
+   }
+
+   private int intersect( final double x0,
+                          final double y0,
+                          final double z0,
+                          final double x1,
+                          final double y1,
+                          final double z1,
+                          final double maxDistance,
+                          final double[] entries,
+                          final double[] exits )
+   {
+      final int n = size();
+      Batch.checkRange( entries.length, 0, n, 1 );
+      Batch.checkRange( exits.length, 0, n, 1 );
+      final double[] ox = this.originX;
+      final double[] oy = this.originY;
+      final double[] oz = this.originZ;
+      final double[] ix = this.invX;
+      final double[] iy = this.invY;
+      final double[] iz = this.invZ;
+      final double limit = BoundingBox3Buffer.limit( maxDistance );
+      int hits = 0;
+      for( int i = 0; i < n; i++ )
+      {
+         final double inverseX = ix[ i ];
+         final double inverseY = iy[ i ];
+         final double inverseZ = iz[ i ];
+         final double nx = ( ( ( inverseX >= 0 ) ? x0 : x1 ) - ox[ i ] ) * inverseX;
+         final double fx = ( ( ( inverseX >= 0 ) ? x1 : x0 ) - ox[ i ] ) * inverseX;
+         final double ny = ( ( ( inverseY >= 0 ) ? y0 : y1 ) - oy[ i ] ) * inverseY;
+         final double fy = ( ( ( inverseY >= 0 ) ? y1 : y0 ) - oy[ i ] ) * inverseY;
+         final double nz = ( ( ( inverseZ >= 0 ) ? z0 : z1 ) - oz[ i ] ) * inverseZ;
+         final double fz = ( ( ( inverseZ >= 0 ) ? z1 : z0 ) - oz[ i ] ) * inverseZ;
+         double near = 0;
+         double far = limit;
+         near = ( nx > near ) ? nx : near;
+         near = ( ny > near ) ? ny : near;
+         near = ( nz > near ) ? nz : near;
+         far = ( fx < far ) ? fx : far;
+         far = ( fy < far ) ? fy : far;
+         far = ( fz < far ) ? fz : far;
+         entries[ i ] = near;
+         exits[ i ] = far;
+         hits += ( near <= far ) ? 1 : 0;
+      }
+      return hits;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "RayPacket3[%d rays]", size() ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,27 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Emits instrumented operations as Flight Recorder events.
+ *
+ * @author erodri02
+ * @see Instrumentation
+ */
+interface Recorder
+{
+   /**
+    * Starts timing an event, if a recording has enabled events.
+    *
+    * @return the event, or <code>null</code> if no event will be recorded.
+    */
+   Object begin();
+
+   /**
+    * Finishes and commits an event started with {@link #begin()}.
+    *
+    * @param event the event. Cannot be <code>null</code>.
+    * @param operation the name of the operation.
+    * @param items the number of elements processed.
+    * @param allocatedBytes the number of bytes allocated by the calling thread.
+    */
+   void end( Object event, String operation, long items, long allocatedBytes );
+}
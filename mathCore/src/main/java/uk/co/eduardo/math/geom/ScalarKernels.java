@@ -0,0 +1,160 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Plain loop implementations of the bulk kernels, which work on every Java version. They also finish off the elements left
+ * over at the end of a range by vectorized implementations.
+ *
+ * @author erodri02
+ */
+class ScalarKernels implements BulkKernels
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void dot( final double[] ax,
+                    final double[] ay,
+                    final double[] az,
+                    final double[] bx,
+                    final double[] by,
+                    final double[] bz,
+                    final double[] result,
+                    final int from,
+                    final int to )
+   {
+      for( int i = from; i < to; i++ )
+      {
+         result[ i ] = ( ax[ i ] * bx[ i ] ) + ( ay[ i ] * by[ i ] ) + ( az[ i ] * bz[ i ] );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void cross( final double[] ax,
+                      final double[] ay,
+                      final double[] az,
+                      final double[] bx,
+                      final double[] by,
+                      final double[] bz,
+                      final double[] rx,
+                      final double[] ry,
+                      final double[] rz,
+                      final int from,
+                      final int to )
+   {
+      for( int i = from; i < to; i++ )
+      {
+         final double x0 = ax[ i ];
+         final double y0 = ay[ i ];
+         final double z0 = az[ i ];
+         final double x1 = bx[ i ];
+         final double y1 = by[ i ];
+         final double z1 = bz[ i ];
+         rx[ i ] = ( y0 * z1 ) - ( z0 * y1 );
+         ry[ i ] = ( z0 * x1 ) - ( x0 * z1 );
+         rz[ i ] = ( x0 * y1 ) - ( y0 * x1 );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void normalize( final double[] vx,
+                          final double[] vy,
+                          final double[] vz,
+                          final double[] rx,
+                          final double[] ry,
+                          final double[] rz,
+                          final int from,
+                          final int to )
+   {
+      for( int i = from; i < to; i++ )
+      {
+         final double x = vx[ i ];
+         final double y = vy[ i ];
+         final double z = vz[ i ];
+         final double length = Math.sqrt( ( x * x ) + ( y * y ) + ( z * z ) );
+         rx[ i ] = x / length;
+         ry[ i ] = y / length;
+         rz[ i ] = z / length;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void mul( final Matrix3 m,
+                    final double[] srcX,
+                    final double[] srcY,
+                    final double[] srcZ,
+                    final double[] dstX,
+                    final double[] dstY,
+                    final double[] dstZ,
+                    final int from,
+                    final int to )
+   {
+      final double m00 = m.a00;
+      final double m01 = m.a01;
+      final double m02 = m.a02;
+      final double m10 = m.a10;
+      final double m11 = m.a11;
+      final double m12 = m.a12;
+      final double m20 = m.a20;
+      final double m21 = m.a21;
+      final double m22 = m.a22;
+      for( int i = from; i < to; i++ )
+      {
+         final double x = srcX[ i ];
+         final double y = srcY[ i ];
+         final double z = srcZ[ i ];
+         dstX[ i ] = ( m00 * x ) + ( m01 * y ) + ( m02 * z );
+         dstY[ i ] = ( m10 * x ) + ( m11 * y ) + ( m12 * z );
+         dstZ[ i ] = ( m20 * x ) + ( m21 * y ) + ( m22 * z );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void extent( final double[] xs, final double[] ys, final double[] zs, final int from, final int to, final double[] extent )
+   {
+      double x0 = extent[ 0 ];
+      double y0 = extent[ 1 ];
+      double z0 = extent[ 2 ];
+      double x1 = extent[ 3 ];
+      double y1 = extent[ 4 ];
+      double z1 = extent[ 5 ];
+      for( int i = from; i < to; i++ )
+      {
+         final double x = xs[ i ];
+         final double y = ys[ i ];
+         final double z = zs[ i ];
+         x0 = Math.min( x, x0 );
+         y0 = Math.min( y, y0 );
+         z0 = Math.min( z, z0 );
+         x1 = Math.max( x, x1 );
+         y1 = Math.max( y, y1 );
+         z1 = Math.max( z, z1 );
+      }
+      extent[ 0 ] = x0;
+      extent[ 1 ] = y0;
+      extent[ 2 ] = z0;
+      extent[ 3 ] = x1;
+      extent[ 4 ] = y1;
+      extent[ 5 ] = z1;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return "scalar"; //$NON-NLS-1$
+   }
+}
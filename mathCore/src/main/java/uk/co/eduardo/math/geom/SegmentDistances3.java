@@ -0,0 +1,353 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Closest-distance queries over packed 3D line segments.
+ * <p>
+ * Segments are six values each: the x, y and z of the start then of the end. The bulk methods compute the distances of many
+ * pairs at once with the same kernels as {@link LineSegment3#distance(LineSegment3)} and
+ * {@link LineSegment3#distance(Vector3)}, reading the coordinates straight from the arrays, without allocating. Inputs larger
+ * than {@link Batch#getParallelThreshold()} pairs are processed in parallel.
+ * </p>
+ * <p>
+ * {@link #forEachPairWithin(double[], int, int, double, PairConsumer)} finds every pair of segments closer than a distance. It
+ * builds a {@link Bvh3} over the bounding boxes of the segments and only measures the pairs whose boxes come within the
+ * distance of each other, so it takes close to O(n log n) time rather than the O(n<sup>2</sup>) of measuring every pair when
+ * the segments are short compared with the extent of the set.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class SegmentDistances3
+{
+   private static final Operation DISTANCES = Instrumentation.operation( "SegmentDistances3.distances" ); //$NON-NLS-1$
+
+   private static final Operation POINT_DISTANCES = Instrumentation.operation( "SegmentDistances3.pointDistances" ); //$NON-NLS-1$
+
+   private static final Operation PAIRS_WITHIN = Instrumentation.operation( "SegmentDistances3.pairsWithin" ); //$NON-NLS-1$
+
+   private SegmentDistances3()
+   {
+      // Utility class
+   }
+
+   /**
+    * Calculates the squared distances between pairs of segments, the first segment of each pair from one array and the second
+    * from another.
+    *
+    * @param a the first segment of each pair. Cannot be <code>null</code>.
+    * @param aOffset the index in a of the start x of the first segment.
+    * @param b the second segment of each pair. Cannot be <code>null</code>.
+    * @param bOffset the index in b of the start x of the first segment.
+    * @param dst receives the squared distance of each pair. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the first distance.
+    * @param count the number of pairs.
+    */
+   public static void distancesSquared( final double[] a,
+                                        final int aOffset,
+                                        final double[] b,
+                                        final int bOffset,
+                                        final double[] dst,
+                                        final int dstOffset,
+                                        final int count )
+   {
+      closest( a, aOffset, b, bOffset, dst, dstOffset, null, 0, count );
+   }
+
+   /**
+    * Finds the closest points of pairs of segments, the first segment of each pair from one array and the second from another.
+    * Each pair is written as two parameters from 0 to 1: that of the closest point along the first segment, then that along the
+    * second.
+    *
+    * @param a the first segment of each pair. Cannot be <code>null</code>.
+    * @param aOffset the index in a of the start x of the first segment.
+    * @param b the second segment of each pair. Cannot be <code>null</code>.
+    * @param bOffset the index in b of the start x of the first segment.
+    * @param dst receives the two parameters of each pair. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the first parameter.
+    * @param count the number of pairs.
+    */
+   public static void closestParameters( final double[] a,
+                                         final int aOffset,
+                                         final double[] b,
+                                         final int bOffset,
+                                         final double[] dst,
+                                         final int dstOffset,
+                                         final int count )
+   {
+      closest( a, aOffset, b, bOffset, null, 0, dst, dstOffset, count );
+   }
+
+   private static void closest( final double[] a,
+                                final int aOffset,
+                                final double[] b,
+                                final int bOffset,
+                                final double[] distances,
+                                final int distanceOffset,
+                                final double[] params,
+                                final int paramOffset,
+                                final int count )
+   {
+      Batch.checkRange( a.length, aOffset, count, 6 );
+      Batch.checkRange( b.length, bOffset, count, 6 );
+      if( distances != null )
+      {
+         Batch.checkRange( distances.length, distanceOffset, count, 1 );
+      }
+      if( params != null )
+      {
+         Batch.checkRange( params.length, paramOffset, count, 2 );
+      }
+      final Operation.Span span = DISTANCES.begin();
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int p = aOffset + ( 6 * i );
+            final int q = bOffset + ( 6 * i );
+            final double d = LineSegment3.closest( a[ p ],
+                                                   a[ p + 1 ],
+                                                   a[ p + 2 ],
+                                                   a[ p + 3 ],
+                                                   a[ p + 4 ],
+                                                   a[ p + 5 ],
+                                                   b[ q ],
+                                                   b[ q + 1 ],
+                                                   b[ q + 2 ],
+                                                   b[ q + 3 ],
+                                                   b[ q + 4 ],
+                                                   b[ q + 5 ],
+                                                   params,
+                                                   paramOffset + ( 2 * i ) );
+            if( distances != null )
+            {
+               distances[ distanceOffset + i ] = d;
+            }
+         }
+      } );
+      DISTANCES.end( span, count );
+   }
+
+   /**
+    * Calculates the squared distances from points to segments, pairing each point with the segment at the same index.
+    *
+    * @param points the interleaved x, y, z coordinates of the points. Cannot be <code>null</code>.
+    * @param pointOffset the index in points of the x coordinate of the first point.
+    * @param segments the segments. Cannot be <code>null</code>.
+    * @param segmentOffset the index in segments of the start x of the first segment.
+    * @param dst receives the squared distance of each point from its segment. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the first distance.
+    * @param count the number of pairs.
+    */
+   public static void pointDistancesSquared( final double[] points,
+                                             final int pointOffset,
+                                             final double[] segments,
+                                             final int segmentOffset,
+                                             final double[] dst,
+                                             final int dstOffset,
+                                             final int count )
+   {
+      Batch.checkRange( points.length, pointOffset, count, 3 );
+      Batch.checkRange( segments.length, segmentOffset, count, 6 );
+      Batch.checkRange( dst.length, dstOffset, count, 1 );
+      final Operation.Span span = POINT_DISTANCES.begin();
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int p = pointOffset + ( 3 * i );
+            final int q = segmentOffset + ( 6 * i );
+            dst[ dstOffset + i ] = pointDistanceSquared( points[ p ], points[ p + 1 ], points[ p + 2 ], segments, q );
+         }
+      } );
+      POINT_DISTANCES.end( span, count );
+   }
+
+   /**
+    * Calculates the squared distance from a point to a packed segment.
+    */
+   private static double pointDistanceSquared( final double x, final double y, final double z, final double[] s, final int q )
+   {
+      final double ax = s[ q ];
+      final double ay = s[ q + 1 ];
+      final double az = s[ q + 2 ];
+      final double dx = s[ q + 3 ] - ax;
+      final double dy = s[ q + 4 ] - ay;
+      final double dz = s[ q + 5 ] - az;
+      final double t = LineSegment3.closestParameter( x, y, z, ax, ay, az, s[ q + 3 ], s[ q + 4 ], s[ q + 5 ] );
+      final double ex = ( ax + ( t * dx ) ) - x;
+      final double ey = ( ay + ( t * dy ) ) - y;
+      final double ez = ( az + ( t * dz ) ) - z;
+      return ( ex * ex ) + ( ey * ey ) + ( ez * ez );
+   }
+
+   /**
+    * Finds every pair of segments whose closest points are no further apart than a distance. Segments that touch or cross are
+    * at distance zero.
+    *
+    * @param segments the segments. Cannot be <code>null</code>.
+    * @param offset the index in segments of the start x of the first segment.
+    * @param count the number of segments.
+    * @param distance the largest distance at which a pair is reported. Must not be negative.
+    * @param consumer receives each pair once, smaller index first. The pairs are grouped by their smaller index in ascending
+    *           order. Cannot be <code>null</code>.
+    * @return the number of pairs.
+    */
+   public static long forEachPairWithin( final double[] segments,
+                                         final int offset,
+                                         final int count,
+                                         final double distance,
+                                         final PairConsumer consumer )
+   {
+      Objects.requireNonNull( consumer );
+      Batch.checkRange( segments.length, offset, count, 6 );
+      if( !( distance >= 0 ) )
+      {
+         throw new IllegalArgumentException( String.format( "Distance cannot be negative: %f", distance ) ); //$NON-NLS-1$
+      }
+
+      final Operation.Span span = PAIRS_WITHIN.begin();
+      final double[] boxes = new double[ 6 * count ];
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int s = offset + ( 6 * i );
+            final int b = 6 * i;
+            for( int axis = 0; axis < 3; axis++ )
+            {
+               boxes[ b + axis ] = Math.min( segments[ s + axis ], segments[ s + axis + 3 ] );
+               boxes[ b + axis + 3 ] = Math.max( segments[ s + axis ], segments[ s + axis + 3 ] );
+            }
+         }
+      } );
+      final Bvh3 bvh = Bvh3.fromPacked( boxes );
+
+      // Each chunk collects its own pairs so that they can be reported in order, on this thread
+      final int chunks = Batch.chunkCount( count );
+      final int chunkSize = ( ( count + chunks ) - 1 ) / chunks;
+      final PairCollector[] collectors = new PairCollector[ chunks ];
+      Batch.forEachChunk( chunks, c -> {
+         final PairCollector collector = new PairCollector( segments, offset, distance );
+         for( int i = c * chunkSize, end = Math.min( count, i + chunkSize ); i < end; i++ )
+         {
+            final int b = 6 * i;
+            collector.first = i;
+            bvh.overlapping( boxes[ b ] - distance,
+                             boxes[ b + 1 ] - distance,
+                             boxes[ b + 2 ] - distance,
+                             boxes[ b + 3 ] + distance,
+                             boxes[ b + 4 ] + distance,
+                             boxes[ b + 5 ] + distance,
+                             collector );
+         }
+         collectors[ c ] = collector;
+      } );
+
+      long found = 0;
+      for( final PairCollector collector : collectors )
+      {
+         for( int p = 0; p < collector.size; p += 2 )
+         {
+            consumer.accept( collector.pairs[ p ], collector.pairs[ p + 1 ] );
+         }
+         found += collector.size / 2;
+      }
+      PAIRS_WITHIN.end( span, count );
+      return found;
+   }
+
+   /**
+    * Finds every pair of segments whose closest points are no further apart than a distance.
+    *
+    * @param segments the segments. Pairs are reported as indices in the collection's iteration order. Cannot be
+    *           <code>null</code>.
+    * @param distance the largest distance at which a pair is reported. Must not be negative.
+    * @param consumer receives each pair once, smaller index first. The pairs are grouped by their smaller index in ascending
+    *           order. Cannot be <code>null</code>.
+    * @return the number of pairs.
+    */
+   public static long forEachPairWithin( final Collection< LineSegment3 > segments,
+                                         final double distance,
+                                         final PairConsumer consumer )
+   {
+      final double[] packed = new double[ 6 * segments.size() ];
+      int s = 0;
+      for( final LineSegment3 segment : segments )
+      {
+         packed[ s ] = segment.start.x;
+         packed[ s + 1 ] = segment.start.y;
+         packed[ s + 2 ] = segment.start.z;
+         packed[ s + 3 ] = segment.end.x;
+         packed[ s + 4 ] = segment.end.y;
+         packed[ s + 5 ] = segment.end.z;
+         s += 6;
+      }
+      return forEachPairWithin( packed, 0, segments.size(), distance, consumer );
+   }
+
+   /**
+    * Measures the candidates found by a hierarchy query against the segment being queried, keeping the pairs within the
+    * distance in a growable array.
+    */
+   private static final class PairCollector implements IntConsumer
+   {
+      private final double[] segments;
+
+      private final int offset;
+
+      private final double distanceSquared;
+
+      /** The segment being queried. */
+      int first;
+
+      int[] pairs = new int[ 16 ];
+
+      int size;
+
+      PairCollector( final double[] segments, final int offset, final double distance )
+      {
+         this.segments = segments;
+         this.offset = offset;
+         this.distanceSquared = distance * distance;
+      }
+
+      @Override
+      public void accept( final int second )
+      {
+         // Each pair is found from both ends, so keep it only from its smaller index
+         if( second <= this.first )
+         {
+            return;
+         }
+         final double[] s = this.segments;
+         final int p = this.offset + ( 6 * this.first );
+         final int q = this.offset + ( 6 * second );
+         final double d = LineSegment3.closest( s[ p ],
+                                                s[ p + 1 ],
+                                                s[ p + 2 ],
+                                                s[ p + 3 ],
+                                                s[ p + 4 ],
+                                                s[ p + 5 ],
+                                                s[ q ],
+                                                s[ q + 1 ],
+                                                s[ q + 2 ],
+                                                s[ q + 3 ],
+                                                s[ q + 4 ],
+                                                s[ q + 5 ],
+                                                null,
+                                                0 );
+         if( d <= this.distanceSquared )
+         {
+            if( this.size == this.pairs.length )
+            {
+               this.pairs = Arrays.copyOf( this.pairs, 2 * this.size );
+            }
+            this.pairs[ this.size ] = this.first;
+            this.pairs[ this.size + 1 ] = second;
+            this.size += 2;
+         }
+      }
+   }
+}
@@ -0,0 +1,639 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Finds every intersecting pair in a set of 2D line segments with a Bentley-Ottmann plane sweep.
+ * <p>
+ * A vertical line is swept from left to right, stopping at every end point and at every intersection found so far. The segments
+ * crossing the sweep line are kept in a balanced search tree ordered by height, and only segments that become adjacent in that
+ * order are tested against each other, so the sweep takes O((n + k) log n) time for n segments and k intersecting pairs rather
+ * than the O(n<sup>2</sup>) of testing every pair. Pairs are streamed to a callback as they are found rather than collected.
+ * </p>
+ * <p>
+ * Segments that touch at an end point or overlap along a common line are reported as intersecting, consistently with
+ * {@link LineSegment2#intersects(LineSegment2)}. Every pair is reported once, when the sweep reaches the first point the two
+ * segments have in common. Intersection points computed during the sweep are rounded, so segments are treated as passing
+ * through an event point if they come within a small tolerance of it, relative to the magnitude of the input coordinates; every
+ * pair is confirmed with the exact orientation tests of {@link LineSegment2#intersects(LineSegment2)} before it is reported.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class SegmentIntersections
+{
+   /** The distance, relative to the largest input coordinate, within which a segment is treated as passing through a point. */
+   private static final double TOLERANCE = 1e-10;
+
+   private SegmentIntersections()
+   {
+      // Hide the constructor for utility classes.
+   }
+
+   /**
+    * Finds every pair of intersecting segments.
+    *
+    * @param segments the segments to test. Pairs are reported as indices in the collection's iteration order. Cannot be
+    *           <code>null</code>.
+    * @param consumer receives each intersecting pair once, smaller index first, in the order the sweep reaches them. Cannot be
+    *           <code>null</code>.
+    * @return the number of intersecting pairs.
+    */
+   public static long forEachIntersectingPair( final Collection< LineSegment2 > segments, final PairConsumer consumer )
+   {
+      Objects.requireNonNull( consumer );
+      return new Sweep( segments ).run( consumer );
+   }
+
+   /**
+    * Counts the pairs of intersecting segments.
+    *
+    * @param segments the segments to test. Cannot be <code>null</code>.
+    * @return the number of intersecting pairs.
+    */
+   public static long count( final Collection< LineSegment2 > segments )
+   {
+      return forEachIntersectingPair( segments, ( a, b ) -> {
+         // Only count.
+      } );
+   }
+
+   /**
+    * The segments starting at an event point.
+    */
+   private static final class Event
+   {
+      private int[] starts = new int[ 0 ];
+
+      private int count;
+
+      void add( final int segment )
+      {
+         if( this.count == this.starts.length )
+         {
+            this.starts = Arrays.copyOf( this.starts, Math.max( 2, this.count * 2 ) );
+         }
+         this.starts[ this.count++ ] = segment;
+      }
+   }
+
+   /**
+    * The state of one sweep: the segments, the event queue and the sweep-line status.
+    * <p>
+    * The status is a treap whose nodes are the segment indices themselves, linked through flat child and parent arrays, so a
+    * segment can be removed by index without searching for it.
+    * </p>
+    */
+   private static final class Sweep
+   {
+      /** Orders event points from left to right, and from bottom to top along a vertical line. */
+      private static final Comparator< Vector2 > EVENT_ORDER = ( a, b ) -> a.x != b.x ? Double.compare( a.x, b.x )
+                                                                                    : Double.compare( a.y, b.y );
+
+      /** The left end points of the segments. */
+      private final double[] x0;
+
+      private final double[] y0;
+
+      /** The right end points of the segments. */
+      private final double[] x1;
+
+      private final double[] y1;
+
+      /** The slope of each segment, or positive infinity for vertical and zero-length segments. */
+      private final double[] slope;
+
+      private final double tolerance;
+
+      private final TreeMap< Vector2, Event > queue = new TreeMap<>( EVENT_ORDER );
+
+      private final int[] left;
+
+      private final int[] right;
+
+      private final int[] parent;
+
+      private final int[] priority;
+
+      private final boolean[] inserted;
+
+      private int root = -1;
+
+      /** The segments in the status that pass through the current event point, in status order. */
+      private int[] through = new int[ 8 ];
+
+      private int throughCount;
+
+      Sweep( final Collection< LineSegment2 > segments )
+      {
+         final int n = segments.size();
+         this.x0 = new double[ n ];
+         this.y0 = new double[ n ];
+         this.x1 = new double[ n ];
+         this.y1 = new double[ n ];
+         this.slope = new double[ n ];
+         this.left = new int[ n ];
+         this.right = new int[ n ];
+         this.parent = new int[ n ];
+         this.priority = new int[ n ];
+         this.inserted = new boolean[ n ];
+
+         double scale = 1;
+         int i = 0;
+         for( final LineSegment2 segment : segments )
+         {
+            // Adding zero folds negative zero into positive zero, so that equal points make equal event keys.
+            final double sx = segment.start.x + 0.0;
+            final double sy = segment.start.y + 0.0;
+            final double ex = segment.end.x + 0.0;
+            final double ey = segment.end.y + 0.0;
+            final boolean forwards = ( sx < ex ) || ( ( sx == ex ) && ( sy <= ey ) );
+            this.x0[ i ] = forwards ? sx : ex;
+            this.y0[ i ] = forwards ? sy : ey;
+            this.x1[ i ] = forwards ? ex : sx;
+            this.y1[ i ] = forwards ? ey : sy;
+            this.slope[ i ] = this.x0[ i ] == this.x1[ i ] ? Double.POSITIVE_INFINITY
+                                                           : ( this.y1[ i ] - this.y0[ i ] ) / ( this.x1[ i ] - this.x0[ i ] );
+            scale = Math.max( scale, Math.max( Math.max( Math.abs( sx ), Math.abs( sy ) ),
+                                               Math.max( Math.abs( ex ), Math.abs( ey ) ) ) );
+
+            this.left[ i ] = -1;
+            this.right[ i ] = -1;
+            this.parent[ i ] = -1;
+            this.priority[ i ] = mix( i );
+
+            event( this.x0[ i ], this.y0[ i ] ).add( i );
+            event( this.x1[ i ], this.y1[ i ] );
+            i++;
+         }
+         this.tolerance = scale * TOLERANCE;
+      }
+
+      long run( final PairConsumer consumer )
+      {
+         long pairs = 0;
+         while( !this.queue.isEmpty() )
+         {
+            final Map.Entry< Vector2, Event > entry = this.queue.pollFirstEntry();
+            pairs += handle( entry.getKey().x, entry.getKey().y, entry.getValue(), consumer );
+         }
+         return pairs;
+      }
+
+      private Event event( final double x, final double y )
+      {
+         return this.queue.computeIfAbsent( new Vector2( x, y ), k -> new Event() );
+      }
+
+      private long handle( final double px, final double py, final Event event, final PairConsumer consumer )
+      {
+         collectThrough( px, py );
+
+         // Report the pairs meeting at this point. Two segments already in the status are only reported if they are still
+         // converging, that is if the lower one is the steeper; otherwise they crossed at an earlier, nearly coincident event.
+         // Collinear segments have equal slopes, so an overlap is reported only when the second of the pair starts.
+         long pairs = 0;
+         final boolean converging = !inSlopeOrder();
+         for( int i = 0; i < this.throughCount; i++ )
+         {
+            final int a = this.through[ i ];
+            for( int j = i + 1; converging && ( j < this.throughCount ); j++ )
+            {
+               final int b = this.through[ j ];
+               if( ( this.slope[ a ] > this.slope[ b ] ) && intersects( a, b ) )
+               {
+                  pairs += report( a, b, consumer );
+               }
+            }
+            for( int j = 0; j < event.count; j++ )
+            {
+               if( intersects( a, event.starts[ j ] ) )
+               {
+                  pairs += report( a, event.starts[ j ], consumer );
+               }
+            }
+         }
+         for( int i = 0; i < event.count; i++ )
+         {
+            for( int j = i + 1; j < event.count; j++ )
+            {
+               pairs += report( event.starts[ i ], event.starts[ j ], consumer );
+            }
+         }
+
+         if( !converging && ( event.count == 0 ) && !endsHere( px, py ) )
+         {
+            // Nothing starts, ends or changes order here, so the status and its adjacencies are unchanged.
+            return pairs;
+         }
+
+         // Segments passing through the point swap order: remove them and re-insert them in their order just after the point,
+         // together with the segments starting here. Segments ending here are not re-inserted.
+         for( int i = 0; i < this.throughCount; i++ )
+         {
+            remove( this.through[ i ] );
+         }
+         int any = -1;
+         for( int i = 0; i < this.throughCount; i++ )
+         {
+            any = insertContinuing( this.through[ i ], px, py, any );
+         }
+         for( int i = 0; i < event.count; i++ )
+         {
+            any = insertContinuing( event.starts[ i ], px, py, any );
+         }
+
+         if( any < 0 )
+         {
+            // Nothing continues through this point, so the segments either side of it become adjacent.
+            final int above = lowestAtOrAbove( px, py );
+            final int below = above < 0 ? last() : predecessor( above );
+            check( below, above, px, py );
+            return pairs;
+         }
+
+         int lowest = any;
+         while( ( predecessor( lowest ) >= 0 ) && this.inserted[ predecessor( lowest ) ] )
+         {
+            lowest = predecessor( lowest );
+         }
+         int highest = any;
+         while( ( successor( highest ) >= 0 ) && this.inserted[ successor( highest ) ] )
+         {
+            highest = successor( highest );
+         }
+         check( predecessor( lowest ), lowest, px, py );
+         check( highest, successor( highest ), px, py );
+
+         for( int i = 0; i < this.throughCount; i++ )
+         {
+            this.inserted[ this.through[ i ] ] = false;
+         }
+         for( int i = 0; i < event.count; i++ )
+         {
+            this.inserted[ event.starts[ i ] ] = false;
+         }
+         return pairs;
+      }
+
+      /**
+       * Tests whether the segments through the event point are already in the order they take after it. Rounding can schedule
+       * several nearly coincident events where many segments meet, and this saves re-testing every pair at each of them.
+       */
+      private boolean inSlopeOrder()
+      {
+         for( int i = 1; i < this.throughCount; i++ )
+         {
+            if( this.slope[ this.through[ i - 1 ] ] > this.slope[ this.through[ i ] ] )
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      private static long report( final int a, final int b, final PairConsumer consumer )
+      {
+         consumer.accept( Math.min( a, b ), Math.max( a, b ) );
+         return 1;
+      }
+
+      private boolean endsHere( final double px, final double py )
+      {
+         for( int i = 0; i < this.throughCount; i++ )
+         {
+            if( ( this.x1[ this.through[ i ] ] == px ) && ( this.y1[ this.through[ i ] ] == py ) )
+            {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      private int insertContinuing( final int s, final double px, final double py, final int any )
+      {
+         if( ( this.x1[ s ] == px ) && ( this.y1[ s ] == py ) )
+         {
+            return any;
+         }
+         insert( s, px, py );
+         this.inserted[ s ] = true;
+         return s;
+      }
+
+      /**
+       * Schedules an event at the intersection of two segments that have just become adjacent, if it lies ahead of the sweep.
+       * Collinear overlaps need no event: they are reported when the second segment starts.
+       */
+      private void check( final int a, final int b, final double px, final double py )
+      {
+         if( ( a < 0 ) || ( b < 0 ) || !intersects( a, b ) )
+         {
+            return;
+         }
+         final int s = Math.min( a, b );
+         final int t = Math.max( a, b );
+         final double dx = this.x1[ s ] - this.x0[ s ];
+         final double dy = this.y1[ s ] - this.y0[ s ];
+         final double ex = this.x1[ t ] - this.x0[ t ];
+         final double ey = this.y1[ t ] - this.y0[ t ];
+         final double denominator = ( dx * ey ) - ( dy * ex );
+         if( denominator == 0 )
+         {
+            return;
+         }
+         final double u = ( ( ( this.x0[ t ] - this.x0[ s ] ) * ey ) - ( ( this.y0[ t ] - this.y0[ s ] ) * ex ) ) / denominator;
+         final double qx = this.x0[ s ] + ( u * dx ) + 0.0;
+         final double qy = this.y0[ s ] + ( u * dy ) + 0.0;
+         if( ( qx > px ) || ( ( qx == px ) && ( qy > py ) ) )
+         {
+            event( qx, qy );
+         }
+      }
+
+      private boolean intersects( final int a, final int b )
+      {
+         return LineSegment2.intersects( this.x0[ a ],
+                                         this.y0[ a ],
+                                         this.x1[ a ],
+                                         this.y1[ a ],
+                                         this.x0[ b ],
+                                         this.y0[ b ],
+                                         this.x1[ b ],
+                                         this.y1[ b ] );
+      }
+
+      /**
+       * Tests whether a segment passes within the tolerance of a point.
+       */
+      private boolean contains( final int s, final double px, final double py )
+      {
+         final double dx = this.x1[ s ] - this.x0[ s ];
+         final double dy = this.y1[ s ] - this.y0[ s ];
+         final double lengthSquared = ( dx * dx ) + ( dy * dy );
+         double t = lengthSquared == 0 ? 0 : ( ( ( px - this.x0[ s ] ) * dx ) + ( ( py - this.y0[ s ] ) * dy ) ) / lengthSquared;
+         t = Math.min( Math.max( t, 0 ), 1 );
+         final double ox = ( this.x0[ s ] + ( t * dx ) ) - px;
+         final double oy = ( this.y0[ s ] + ( t * dy ) ) - py;
+         return ( ( ox * ox ) + ( oy * oy ) ) <= ( this.tolerance * this.tolerance );
+      }
+
+      /**
+       * Gets the height at which a segment crosses the sweep line at the current event point. Segments through the point are at
+       * exactly its height; a vertical segment is clamped to the event point's height.
+       */
+      private double heightAt( final int s, final double px, final double py )
+      {
+         if( this.x0[ s ] == this.x1[ s ] )
+         {
+            return contains( s, px, py ) ? py : Math.min( Math.max( py, this.y0[ s ] ), this.y1[ s ] );
+         }
+         final double height;
+         if( px <= this.x0[ s ] )
+         {
+            height = this.y0[ s ];
+         }
+         else if( px >= this.x1[ s ] )
+         {
+            height = this.y1[ s ];
+         }
+         else
+         {
+            final double t = ( px - this.x0[ s ] ) / ( this.x1[ s ] - this.x0[ s ] );
+            height = this.y0[ s ] + ( t * ( this.y1[ s ] - this.y0[ s ] ) );
+         }
+         // A segment within the tolerance of the point crosses the sweep line within tolerance * (1 + |slope|) of it.
+         if( Math.abs( height - py ) > ( this.tolerance * ( 1 + Math.abs( this.slope[ s ] ) ) ) )
+         {
+            return height;
+         }
+         return contains( s, px, py ) ? py : height;
+      }
+
+      /**
+       * Collects the segments in the status that pass through the event point, in status order.
+       */
+      private void collectThrough( final double px, final double py )
+      {
+         this.throughCount = 0;
+         int lowest = lowestAtOrAbove( px, py );
+         int below = lowest < 0 ? last() : predecessor( lowest );
+         while( ( below >= 0 ) && contains( below, px, py ) )
+         {
+            lowest = below;
+            below = predecessor( below );
+         }
+         for( int s = lowest; ( s >= 0 ) && contains( s, px, py ); s = successor( s ) )
+         {
+            if( this.throughCount == this.through.length )
+            {
+               this.through = Arrays.copyOf( this.through, this.throughCount * 2 );
+            }
+            this.through[ this.throughCount++ ] = s;
+         }
+      }
+
+      /**
+       * Finds the lowest segment in the status that crosses the sweep line at or above the event point.
+       */
+      private int lowestAtOrAbove( final double px, final double py )
+      {
+         int found = -1;
+         int node = this.root;
+         while( node >= 0 )
+         {
+            if( heightAt( node, px, py ) >= py )
+            {
+               found = node;
+               node = this.left[ node ];
+            }
+            else
+            {
+               node = this.right[ node ];
+            }
+         }
+         return found;
+      }
+
+      /**
+       * Compares a segment through the event point with one in the status, in their order just to the right of the point.
+       */
+      private int compare( final int s, final int t, final double px, final double py )
+      {
+         final int byHeight = Double.compare( py, heightAt( t, px, py ) );
+         if( byHeight != 0 )
+         {
+            return byHeight;
+         }
+         final int bySlope = Double.compare( this.slope[ s ], this.slope[ t ] );
+         return bySlope != 0 ? bySlope : Integer.compare( s, t );
+      }
+
+      private void insert( final int s, final double px, final double py )
+      {
+         this.left[ s ] = -1;
+         this.right[ s ] = -1;
+         this.parent[ s ] = -1;
+         if( this.root < 0 )
+         {
+            this.root = s;
+            return;
+         }
+         int node = this.root;
+         while( true )
+         {
+            if( compare( s, node, px, py ) < 0 )
+            {
+               if( this.left[ node ] < 0 )
+               {
+                  this.left[ node ] = s;
+                  break;
+               }
+               node = this.left[ node ];
+            }
+            else
+            {
+               if( this.right[ node ] < 0 )
+               {
+                  this.right[ node ] = s;
+                  break;
+               }
+               node = this.right[ node ];
+            }
+         }
+         this.parent[ s ] = node;
+         while( ( this.parent[ s ] >= 0 ) && ( this.priority[ s ] > this.priority[ this.parent[ s ] ] ) )
+         {
+            rotateUp( s );
+         }
+      }
+
+      private void remove( final int s )
+      {
+         while( ( this.left[ s ] >= 0 ) && ( this.right[ s ] >= 0 ) )
+         {
+            rotateUp( this.priority[ this.left[ s ] ] > this.priority[ this.right[ s ] ] ? this.left[ s ] : this.right[ s ] );
+         }
+         final int child = this.left[ s ] >= 0 ? this.left[ s ] : this.right[ s ];
+         replace( s, child );
+         if( child >= 0 )
+         {
+            this.parent[ child ] = this.parent[ s ];
+         }
+         this.left[ s ] = -1;
+         this.right[ s ] = -1;
+         this.parent[ s ] = -1;
+      }
+
+      private void rotateUp( final int node )
+      {
+         final int up = this.parent[ node ];
+         if( this.left[ up ] == node )
+         {
+            this.left[ up ] = this.right[ node ];
+            if( this.right[ node ] >= 0 )
+            {
+               this.parent[ this.right[ node ] ] = up;
+            }
+            this.right[ node ] = up;
+         }
+         else
+         {
+            this.right[ up ] = this.left[ node ];
+            if( this.left[ node ] >= 0 )
+            {
+               this.parent[ this.left[ node ] ] = up;
+            }
+            this.left[ node ] = up;
+         }
+         replace( up, node );
+         this.parent[ node ] = this.parent[ up ];
+         this.parent[ up ] = node;
+      }
+
+      /**
+       * Points the parent of a node, or the root, at a replacement node.
+       */
+      private void replace( final int node, final int replacement )
+      {
+         final int up = this.parent[ node ];
+         if( up < 0 )
+         {
+            this.root = replacement;
+         }
+         else if( this.left[ up ] == node )
+         {
+            this.left[ up ] = replacement;
+         }
+         else
+         {
+            this.right[ up ] = replacement;
+         }
+      }
+
+      private int predecessor( final int node )
+      {
+         if( this.left[ node ] >= 0 )
+         {
+            int n = this.left[ node ];
+            while( this.right[ n ] >= 0 )
+            {
+               n = this.right[ n ];
+            }
+            return n;
+         }
+         int n = node;
+         while( ( this.parent[ n ] >= 0 ) && ( this.left[ this.parent[ n ] ] == n ) )
+         {
+            n = this.parent[ n ];
+         }
+         return this.parent[ n ];
+      }
+
+      private int successor( final int node )
+      {
+         if( this.right[ node ] >= 0 )
+         {
+            int n = this.right[ node ];
+            while( this.left[ n ] >= 0 )
+            {
+               n = this.left[ n ];
+            }
+            return n;
+         }
+         int n = node;
+         while( ( this.parent[ n ] >= 0 ) && ( this.right[ this.parent[ n ] ] == n ) )
+         {
+            n = this.parent[ n ];
+         }
+         return this.parent[ n ];
+      }
+
+      private int last()
+      {
+         int n = this.root;
+         while( ( n >= 0 ) && ( this.right[ n ] >= 0 ) )
+         {
+            n = this.right[ n ];
+         }
+         return n;
+      }
+
+      /**
+       * Scrambles a segment index into a treap priority.
+       */
+      private static int mix( final int index )
+      {
+         int h = index * 0x9E3779B9;
+         h ^= h >>> 16;
+         h *= 0x85EBCA6B;
+         h ^= h >>> 13;
+         return h;
+      }
+   }
+}
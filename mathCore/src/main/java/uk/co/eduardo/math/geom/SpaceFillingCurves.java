@@ -0,0 +1,317 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Morton (Z-order) and Hilbert keys for points, which map nearby points to nearby keys so that sorting by key gives a
+ * cache-friendly layout.
+ * <p>
+ * Points are first quantized to an integer grid across a bounding box, with {@value #BITS_2D} bits per axis in 2D and
+ * {@value #BITS_3D} bits per axis in 3D, so that every key fits in a <code>long</code>. Keys must be compared as unsigned
+ * values, which is how {@link SpatialSort} orders them. Points outside the box are clamped to its faces.
+ * </p>
+ * <p>
+ * Morton keys interleave the bits of the grid coordinates and are the cheaper to compute. Hilbert keys cost a little more,
+ * but consecutive Hilbert keys are always adjacent grid cells, whereas the Z-order curve makes long jumps between quadrants.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class SpaceFillingCurves
+{
+   /** The number of bits per axis of 2D keys. */
+   public static final int BITS_2D = 32;
+
+   /** The number of bits per axis of 3D keys. */
+   public static final int BITS_3D = 21;
+
+   private static final long MAX_2D = ( 1L << BITS_2D ) - 1;
+
+   private static final long MAX_3D = ( 1L << BITS_3D ) - 1;
+
+   private SpaceFillingCurves()
+   {
+      // Utility class
+   }
+
+   /**
+    * Calculates the Morton key of a 2D grid cell by interleaving the bits of its coordinates, with x in the least significant
+    * bit.
+    *
+    * @param x the x coordinate, treated as unsigned.
+    * @param y the y coordinate, treated as unsigned.
+    * @return the Morton key.
+    */
+   public static long morton( final int x, final int y )
+   {
+      return spread2( x ) | ( spread2( y ) << 1 );
+   }
+
+   /**
+    * Calculates the Morton key of a 3D grid cell by interleaving the bits of its coordinates, with x in the least significant
+    * bit.
+    *
+    * @param x the x coordinate. Only the lowest {@value #BITS_3D} bits are used.
+    * @param y the y coordinate. Only the lowest {@value #BITS_3D} bits are used.
+    * @param z the z coordinate. Only the lowest {@value #BITS_3D} bits are used.
+    * @return the Morton key.
+    */
+   public static long morton( final int x, final int y, final int z )
+   {
+      return spread3( x ) | ( spread3( y ) << 1 ) | ( spread3( z ) << 2 );
+   }
+
+   /**
+    * Calculates the index of a 2D grid cell along a Hilbert curve that starts at the origin.
+    *
+    * @param x the x coordinate, treated as unsigned.
+    * @param y the y coordinate, treated as unsigned.
+    * @return the Hilbert key.
+    */
+   public static long hilbert( final int x, final int y )
+   {
+      // Skilling's transform of the axes into the transposed Hilbert index, followed by interleaving its bits
+      long a = x & MAX_2D;
+      long b = y & MAX_2D;
+      for( long q = 1L << ( BITS_2D - 1 ); q > 1; q >>>= 1 )
+      {
+         final long p = q - 1;
+         if( ( a & q ) != 0 )
+         {
+            a ^= p;
+         }
+         if( ( b & q ) != 0 )
+         {
+            a ^= p;
+         }
+         else
+         {
+            final long t = ( a ^ b ) & p;
+            a ^= t;
+            b ^= t;
+         }
+      }
+      b ^= a;
+      long t = 0;
+      for( long q = 1L << ( BITS_2D - 1 ); q > 1; q >>>= 1 )
+      {
+         if( ( b & q ) != 0 )
+         {
+            t ^= q - 1;
+         }
+      }
+      return morton( (int) ( b ^ t ), (int) ( a ^ t ) );
+   }
+
+   /**
+    * Calculates the index of a 3D grid cell along a Hilbert curve that starts at the origin.
+    *
+    * @param x the x coordinate. Only the lowest {@value #BITS_3D} bits are used.
+    * @param y the y coordinate. Only the lowest {@value #BITS_3D} bits are used.
+    * @param z the z coordinate. Only the lowest {@value #BITS_3D} bits are used.
+    * @return the Hilbert key.
+    */
+   public static long hilbert( final int x, final int y, final int z )
+   {
+      // Skilling's transform of the axes into the transposed Hilbert index, followed by interleaving its bits
+      long a = x & MAX_3D;
+      long b = y & MAX_3D;
+      long c = z & MAX_3D;
+      for( long q = 1L << ( BITS_3D - 1 ); q > 1; q >>>= 1 )
+      {
+         final long p = q - 1;
+         if( ( a & q ) != 0 )
+         {
+            a ^= p;
+         }
+         if( ( b & q ) != 0 )
+         {
+            a ^= p;
+         }
+         else
+         {
+            final long t = ( a ^ b ) & p;
+            a ^= t;
+            b ^= t;
+         }
+         if( ( c & q ) != 0 )
+         {
+            a ^= p;
+         }
+         else
+         {
+            final long t = ( a ^ c ) & p;
+            a ^= t;
+            c ^= t;
+         }
+      }
+      b ^= a;
+      c ^= b;
+      long t = 0;
+      for( long q = 1L << ( BITS_3D - 1 ); q > 1; q >>>= 1 )
+      {
+         if( ( c & q ) != 0 )
+         {
+            t ^= q - 1;
+         }
+      }
+      return morton( (int) ( c ^ t ), (int) ( b ^ t ), (int) ( a ^ t ) );
+   }
+
+   /**
+    * Calculates the key of a point quantized across a bounding box.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    * @param bounds the bounds across which to quantize the point. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> for a Hilbert key, <code>false</code> for a Morton key.
+    * @return the key of the point.
+    */
+   public static long key( final Vector2 p, final BoundingBox2 bounds, final boolean hilbert )
+   {
+      final int x = quantize( p.x, bounds.start.x, scale( bounds.start.x, bounds.end.x, MAX_2D ), MAX_2D );
+      final int y = quantize( p.y, bounds.start.y, scale( bounds.start.y, bounds.end.y, MAX_2D ), MAX_2D );
+      return hilbert ? hilbert( x, y ) : morton( x, y );
+   }
+
+   /**
+    * Calculates the key of a point quantized across a bounding box.
+    *
+    * @param p the point. Cannot be <code>null</code>.
+    * @param bounds the bounds across which to quantize the point. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> for a Hilbert key, <code>false</code> for a Morton key.
+    * @return the key of the point.
+    */
+   public static long key( final Vector3 p, final BoundingBox3 bounds, final boolean hilbert )
+   {
+      final int x = quantize( p.x, bounds.start.x, scale( bounds.start.x, bounds.end.x, MAX_3D ), MAX_3D );
+      final int y = quantize( p.y, bounds.start.y, scale( bounds.start.y, bounds.end.y, MAX_3D ), MAX_3D );
+      final int z = quantize( p.z, bounds.start.z, scale( bounds.start.z, bounds.end.z, MAX_3D ), MAX_3D );
+      return hilbert ? hilbert( x, y, z ) : morton( x, y, z );
+   }
+
+   /**
+    * Calculates the key of every vector in a buffer. The results are identical to calling
+    * {@link #key(Vector2, BoundingBox2, boolean)} on each point. Inputs larger than {@link Batch#getParallelThreshold()} points
+    * are processed in parallel.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    * @param bounds the bounds across which to quantize the points. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> for Hilbert keys, <code>false</code> for Morton keys.
+    * @param keys the array into which to write the keys. Must be at least as long as the buffer.
+    */
+   public static void keys( final Vector2Buffer points, final BoundingBox2 bounds, final boolean hilbert, final long[] keys )
+   {
+      Batch.checkRange( keys.length, 0, points.size(), 1 );
+      final double ox = bounds.start.x;
+      final double oy = bounds.start.y;
+      final double sx = scale( bounds.start.x, bounds.end.x, MAX_2D );
+      final double sy = scale( bounds.start.y, bounds.end.y, MAX_2D );
+      Batch.forRange( 0, points.size(), ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int x = quantize( points.x[ i ], ox, sx, MAX_2D );
+            final int y = quantize( points.y[ i ], oy, sy, MAX_2D );
+            keys[ i ] = hilbert ? hilbert( x, y ) : morton( x, y );
+         }
+      } );
+   }
+
+   /**
+    * Calculates the key of every vector in a buffer. The results are identical to calling
+    * {@link #key(Vector3, BoundingBox3, boolean)} on each point. Inputs larger than {@link Batch#getParallelThreshold()} points
+    * are processed in parallel.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    * @param bounds the bounds across which to quantize the points. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> for Hilbert keys, <code>false</code> for Morton keys.
+    * @param keys the array into which to write the keys. Must be at least as long as the buffer.
+    */
+   public static void keys( final Vector3Buffer points, final BoundingBox3 bounds, final boolean hilbert, final long[] keys )
+   {
+      Batch.checkRange( keys.length, 0, points.size(), 1 );
+      final double ox = bounds.start.x;
+      final double oy = bounds.start.y;
+      final double oz = bounds.start.z;
+      final double sx = scale( bounds.start.x, bounds.end.x, MAX_3D );
+      final double sy = scale( bounds.start.y, bounds.end.y, MAX_3D );
+      final double sz = scale( bounds.start.z, bounds.end.z, MAX_3D );
+      Batch.forRange( 0, points.size(), ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int x = quantize( points.x[ i ], ox, sx, MAX_3D );
+            final int y = quantize( points.y[ i ], oy, sy, MAX_3D );
+            final int z = quantize( points.z[ i ], oz, sz, MAX_3D );
+            keys[ i ] = hilbert ? hilbert( x, y, z ) : morton( x, y, z );
+         }
+      } );
+   }
+
+   /**
+    * Calculates the key of every point in a packed array of interleaved <code>x, y, z</code> coordinates. The results are
+    * identical to calling {@link #key(Vector3, BoundingBox3, boolean)} on each point. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are processed in parallel.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @param bounds the bounds across which to quantize the points. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> for Hilbert keys, <code>false</code> for Morton keys.
+    * @param keys the array into which to write the keys, starting at index 0. Must be at least count long.
+    */
+   public static void keys( final double[] coords,
+                            final int offset,
+                            final int count,
+                            final BoundingBox3 bounds,
+                            final boolean hilbert,
+                            final long[] keys )
+   {
+      Batch.checkRange( coords.length, offset, count, 3 );
+      Batch.checkRange( keys.length, 0, count, 1 );
+      final double ox = bounds.start.x;
+      final double oy = bounds.start.y;
+      final double oz = bounds.start.z;
+      final double sx = scale( bounds.start.x, bounds.end.x, MAX_3D );
+      final double sy = scale( bounds.start.y, bounds.end.y, MAX_3D );
+      final double sz = scale( bounds.start.z, bounds.end.z, MAX_3D );
+      Batch.forRange( 0, count, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            final int s = offset + ( 3 * i );
+            final int x = quantize( coords[ s ], ox, sx, MAX_3D );
+            final int y = quantize( coords[ s + 1 ], oy, sy, MAX_3D );
+            final int z = quantize( coords[ s + 2 ], oz, sz, MAX_3D );
+            keys[ i ] = hilbert ? hilbert( x, y, z ) : morton( x, y, z );
+         }
+      } );
+   }
+
+   private static double scale( final double start, final double end, final long max )
+   {
+      // Spread the grid cells evenly, with the end of the box falling in the last cell
+      return ( end > start ) ? ( max + 1 ) / ( end - start ) : 0;
+   }
+
+   private static int quantize( final double value, final double start, final double scale, final long max )
+   {
+      final double cell = ( value - start ) * scale;
+      return (int) ( ( cell > 0 ) ? Math.min( max, (long) cell ) : 0 );
+   }
+
+   private static long spread2( final int value )
+   {
+      long v = value & MAX_2D;
+      v = ( v | ( v << 16 ) ) & 0x0000FFFF0000FFFFL;
+      v = ( v | ( v << 8 ) ) & 0x00FF00FF00FF00FFL;
+      v = ( v | ( v << 4 ) ) & 0x0F0F0F0F0F0F0F0FL;
+      v = ( v | ( v << 2 ) ) & 0x3333333333333333L;
+      return ( v | ( v << 1 ) ) & 0x5555555555555555L;
+   }
+
+   private static long spread3( final int value )
+   {
+      long v = value & MAX_3D;
+      v = ( v | ( v << 32 ) ) & 0x001F00000000FFFFL;
+      v = ( v | ( v << 16 ) ) & 0x001F0000FF0000FFL;
+      v = ( v | ( v << 8 ) ) & 0x100F00F00F00F00FL;
+      v = ( v | ( v << 4 ) ) & 0x10C30C30C30C30C3L;
+      return ( v | ( v << 2 ) ) & 0x1249249249249249L;
+   }
+}
@@ -0,0 +1,280 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+
+/**
+ * Reorders points so that points that are close together in space are close together in memory, which makes spatial indexes
+ * and batch operations over the points much more cache friendly than sensor or file order.
+ * <p>
+ * Points are sorted by their {@link SpaceFillingCurves} key with a stable least significant digit radix sort, which runs in
+ * linear time. Inputs larger than {@link Batch#getParallelThreshold()} points are sorted in parallel. The sort methods return
+ * the order in which the points were rearranged, so that attribute arrays held alongside the points, such as colours or
+ * intensities, can be rearranged to match with the <code>permute</code> methods.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class SpatialSort
+{
+   private static final int RADIX_BITS = 11;
+
+   private static final int RADIX = 1 << RADIX_BITS;
+
+   private static final Operation ORDER = Instrumentation.operation( "SpatialSort.order" ); //$NON-NLS-1$
+
+   private SpatialSort()
+   {
+      // Utility class
+   }
+
+   /**
+    * Sorts the vectors in a buffer in place by their key across the bounding box of the buffer.
+    *
+    * @param points the points to sort. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> to sort along a Hilbert curve, <code>false</code> to sort in Morton order.
+    * @return the order, where element <code>i</code> is the original index of the point now at index <code>i</code>.
+    */
+   public static int[] sort( final Vector2Buffer points, final boolean hilbert )
+   {
+      final long[] keys = new long[ points.size() ];
+      SpaceFillingCurves.keys( points, BoundingBox2.fromPoints( points ), hilbert, keys );
+      final int[] order = order( keys );
+      permute( order, points.x, 0, 1 );
+      permute( order, points.y, 0, 1 );
+      return order;
+   }
+
+   /**
+    * Sorts the vectors in a buffer in place by their key across the bounding box of the buffer.
+    *
+    * @param points the points to sort. Cannot be <code>null</code>.
+    * @param hilbert <code>true</code> to sort along a Hilbert curve, <code>false</code> to sort in Morton order.
+    * @return the order, where element <code>i</code> is the original index of the point now at index <code>i</code>.
+    */
+   public static int[] sort( final Vector3Buffer points, final boolean hilbert )
+   {
+      final long[] keys = new long[ points.size() ];
+      SpaceFillingCurves.keys( points, BoundingBox3.fromPoints( points ), hilbert, keys );
+      final int[] order = order( keys );
+      permute( order, points.x, 0, 1 );
+      permute( order, points.y, 0, 1 );
+      permute( order, points.z, 0, 1 );
+      return order;
+   }
+
+   /**
+    * Sorts the points in a packed array of interleaved <code>x, y, z</code> coordinates in place by their key across the
+    * bounding box of the points.
+    *
+    * @param coords the interleaved coordinates. Cannot be <code>null</code>.
+    * @param offset the index in coords of the x coordinate of the first point.
+    * @param count the number of points.
+    * @param hilbert <code>true</code> to sort along a Hilbert curve, <code>false</code> to sort in Morton order.
+    * @return the order, where element <code>i</code> is the original index of the point now at index <code>i</code>.
+    */
+   public static int[] sort( final double[] coords, final int offset, final int count, final boolean hilbert )
+   {
+      final long[] keys = new long[ count ];
+      SpaceFillingCurves.keys( coords, offset, count, BoundingBox3.fromPoints( coords, offset, count ), hilbert, keys );
+      final int[] order = order( keys );
+      permute( order, coords, offset, 3 );
+      return order;
+   }
+
+   /**
+    * Calculates the order that sorts keys into ascending unsigned order. The sort is stable, so equal keys keep their original
+    * order. The keys are not modified.
+    *
+    * @param keys the keys to sort. Cannot be <code>null</code>.
+    * @return the order, where element <code>i</code> is the index of the <code>i</code>th smallest key.
+    */
+   public static int[] order( final long[] keys )
+   {
+      final int n = keys.length;
+      final Operation.Span span = ORDER.begin();
+      final int[] identity = new int[ n ];
+      Batch.forRange( 0, n, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            identity[ i ] = i;
+         }
+      } );
+      if( n == 0 )
+      {
+         ORDER.end( span, n );
+         return identity;
+      }
+
+      // Skip the digits that are the same in every key, such as the high digits of keys with fewer bits
+      final long first = keys[ 0 ];
+      final long varying = Batch.reduce( 0, n, ( from, to ) -> {
+         long bits = 0;
+         for( int i = from; i < to; i++ )
+         {
+            bits |= keys[ i ] ^ first;
+         }
+         return bits;
+      }, ( a, b ) -> a | b );
+
+      int[] order = identity;
+      int[] orderBuffer = new int[ n ];
+      long[] sorted = keys.clone();
+      long[] sortedBuffer = new long[ n ];
+      final int chunks = Batch.chunkCount( n );
+      final int[][] counts = new int[ chunks ][ RADIX ];
+      for( int shift = 0; shift < Long.SIZE; shift += RADIX_BITS )
+      {
+         if( ( ( varying >>> shift ) & ( RADIX - 1 ) ) != 0 )
+         {
+            pass( sorted, order, sortedBuffer, orderBuffer, shift, counts );
+            final long[] keysSwap = sorted;
+            sorted = sortedBuffer;
+            sortedBuffer = keysSwap;
+            final int[] orderSwap = order;
+            order = orderBuffer;
+            orderBuffer = orderSwap;
+         }
+      }
+      ORDER.end( span, n );
+      return order;
+   }
+
+   /**
+    * Rearranges an attribute array held alongside points into the order returned by a sort.
+    *
+    * @param order the order returned by a sort. Cannot be <code>null</code>.
+    * @param values the attribute values, with <code>stride</code> values per point. Cannot be <code>null</code>.
+    * @param stride the number of values per point.
+    */
+   public static void permute( final int[] order, final double[] values, final int stride )
+   {
+      permute( order, values, 0, stride );
+   }
+
+   /**
+    * Rearranges an attribute array held alongside points into the order returned by a sort.
+    *
+    * @param order the order returned by a sort. Cannot be <code>null</code>.
+    * @param values the attribute values, with <code>stride</code> values per point. Cannot be <code>null</code>.
+    * @param stride the number of values per point.
+    */
+   public static void permute( final int[] order, final float[] values, final int stride )
+   {
+      Batch.checkRange( values.length, 0, order.length, stride );
+      final float[] copy = values.clone();
+      Batch.forRange( 0, order.length, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            System.arraycopy( copy, order[ i ] * stride, values, i * stride, stride );
+         }
+      } );
+   }
+
+   /**
+    * Rearranges an attribute array held alongside points into the order returned by a sort.
+    *
+    * @param order the order returned by a sort. Cannot be <code>null</code>.
+    * @param values the attribute values, with <code>stride</code> values per point. Cannot be <code>null</code>.
+    * @param stride the number of values per point.
+    */
+   public static void permute( final int[] order, final int[] values, final int stride )
+   {
+      Batch.checkRange( values.length, 0, order.length, stride );
+      final int[] copy = values.clone();
+      Batch.forRange( 0, order.length, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            System.arraycopy( copy, order[ i ] * stride, values, i * stride, stride );
+         }
+      } );
+   }
+
+   /**
+    * Rearranges an attribute array held alongside points into the order returned by a sort.
+    *
+    * @param order the order returned by a sort. Cannot be <code>null</code>.
+    * @param values the attribute values, with <code>stride</code> values per point. Cannot be <code>null</code>.
+    * @param stride the number of values per point.
+    */
+   public static void permute( final int[] order, final long[] values, final int stride )
+   {
+      Batch.checkRange( values.length, 0, order.length, stride );
+      final long[] copy = values.clone();
+      Batch.forRange( 0, order.length, ( from, to ) -> {
+         for( int i = from; i < to; i++ )
+         {
+            System.arraycopy( copy, order[ i ] * stride, values, i * stride, stride );
+         }
+      } );
+   }
+
+   private static void permute( final int[] order, final double[] values, final int offset, final int stride )
+   {
+      Batch.checkRange( values.length, offset, order.length, stride );
+      final double[] copy = new double[ order.length * stride ];
+      System.arraycopy( values, offset, copy, 0, copy.length );
+      Batch.forRange( 0, order.length, ( from, to ) -> {
+         if( stride == 1 )
+         {
+            for( int i = from; i < to; i++ )
+            {
+               values[ offset + i ] = copy[ order[ i ] ];
+            }
+            return;
+         }
+         for( int i = from; i < to; i++ )
+         {
+            System.arraycopy( copy, order[ i ] * stride, values, offset + ( i * stride ), stride );
+         }
+      } );
+   }
+
+   /**
+    * Performs one pass of the radix sort, scattering the keys and their indices by one digit. Each chunk counts its digits, the
+    * counts are turned into the position of each chunk's first key with each digit, and then each chunk scatters its keys.
+    * Chunks write to disjoint positions, in order, so the pass is stable.
+    */
+   private static void pass( final long[] keys,
+                             final int[] order,
+                             final long[] keysOut,
+                             final int[] orderOut,
+                             final int shift,
+                             final int[][] counts )
+   {
+      final int n = keys.length;
+      final int chunks = counts.length;
+      Batch.forEachChunk( chunks, c -> {
+         final int[] count = counts[ c ];
+         Arrays.fill( count, 0 );
+         for( int i = chunkStart( n, chunks, c ), end = chunkStart( n, chunks, c + 1 ); i < end; i++ )
+         {
+            count[ (int) ( keys[ i ] >>> shift ) & ( RADIX - 1 ) ]++;
+         }
+      } );
+      int position = 0;
+      for( int digit = 0; digit < RADIX; digit++ )
+      {
+         for( int c = 0; c < chunks; c++ )
+         {
+            final int count = counts[ c ][ digit ];
+            counts[ c ][ digit ] = position;
+            position += count;
+         }
+      }
+      Batch.forEachChunk( chunks, c -> {
+         final int[] next = counts[ c ];
+         for( int i = chunkStart( n, chunks, c ), end = chunkStart( n, chunks, c + 1 ); i < end; i++ )
+         {
+            final long key = keys[ i ];
+            final int d = next[ (int) ( key >>> shift ) & ( RADIX - 1 ) ]++;
+            keysOut[ d ] = key;
+            orderOut[ d ] = order[ i ];
+         }
+      } );
+   }
+
+   private static int chunkStart( final int n, final int chunks, final int chunk )
+   {
+      return (int) ( ( (long) n * chunk ) / chunks );
+   }
+}
@@ -0,0 +1,266 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * The eigen-decomposition of a symmetric 3 x 3 matrix: three real eigenvalues, in ascending order, and their orthonormal
+ * eigenvectors.
+ *
+ * <pre>
+ * M = V.D.V<sup>T</sup>
+ * </pre>
+ * <p>
+ * The decomposition uses the cyclic Jacobi method, which applies plane rotations until the off-diagonal elements vanish. It
+ * converges quadratically, takes a handful of sweeps for any 3 x 3 matrix and gives accurate eigenvectors even when
+ * eigenvalues are close or repeated, where closed-form solutions of the characteristic cubic lose precision. Only the upper
+ * triangle of the matrix is read.
+ * </p>
+ *
+ * @author erodri02
+ */
+public final class SymmetricEigen3
+{
+   /** The number of doubles written by {@link #decompose(double, double, double, double, double, double, double[], int)}. */
+   static final int RESULT_SIZE = 12;
+
+   /** The maximum number of sweeps, far more than a 3 x 3 matrix ever needs. */
+   private static final int MAX_SWEEPS = 50;
+
+   private final double[] result;
+
+   private SymmetricEigen3( final double[] result )
+   {
+      this.result = result;
+   }
+
+   /**
+    * Decomposes a symmetric matrix.
+    *
+    * @param m the matrix. Cannot be <code>null</code>. Only the upper triangle is read.
+    * @return the decomposition.
+    */
+   public static SymmetricEigen3 decompose( final Matrix3 m )
+   {
+      final double[] result = new double[ RESULT_SIZE ];
+      decompose( m.a00, m.a01, m.a02, m.a11, m.a12, m.a22, result, 0 );
+      return new SymmetricEigen3( result );
+   }
+
+   /**
+    * Gets one of the eigenvalues.
+    *
+    * @param i the index of the eigenvalue, from 0 for the smallest to 2 for the largest.
+    * @return the eigenvalue.
+    */
+   public double getEigenvalue( final int i )
+   {
+      checkIndex( i );
+      return this.result[ i ];
+   }
+
+   /**
+    * Gets the unit eigenvector of one of the eigenvalues.
+    *
+    * @param i the index of the eigenvalue, from 0 for the smallest to 2 for the largest.
+    * @return the eigenvector.
+    */
+   public Vector3 getEigenvector( final int i )
+   {
+      checkIndex( i );
+      final int v = 3 + ( 3 * i );
+      return new Vector3( this.result[ v ], this.result[ v + 1 ], this.result[ v + 2 ] );
+   }
+
+   /**
+    * Gets the rotation whose columns are the eigenvectors, in ascending order of eigenvalue.
+    *
+    * @return the matrix of eigenvectors, V.
+    */
+   public Matrix3 getEigenvectors()
+   {
+      final double[] r = this.result;
+      return new Matrix3( r[ 3 ], r[ 6 ], r[ 9 ], r[ 4 ], r[ 7 ], r[ 10 ], r[ 5 ], r[ 8 ], r[ 11 ] );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "SymmetricEigen3[%s: %s, %s: %s, %s: %s]", //$NON-NLS-1$
+                            this.result[ 0 ],
+                            getEigenvector( 0 ),
+                            this.result[ 1 ],
+                            getEigenvector( 1 ),
+                            this.result[ 2 ],
+                            getEigenvector( 2 ) );
+   }
+
+   /**
+    * Decomposes a symmetric matrix without allocating. Writes {@link #RESULT_SIZE} values to the result: the three eigenvalues
+    * in ascending order, followed by the x, y and z components of the unit eigenvector of each in the same order.
+    *
+    * @param a00 the element at row 0 column 0.
+    * @param a01 the element at row 0 column 1.
+    * @param a02 the element at row 0 column 2.
+    * @param a11 the element at row 1 column 1.
+    * @param a12 the element at row 1 column 2.
+    * @param a22 the element at row 2 column 2.
+    * @param result the array into which to write the decomposition.
+    * @param offset the index in result at which to write the smallest eigenvalue.
+    */
+   static void decompose( final double a00,
+                          final double a01,
+                          final double a02,
+                          final double a11,
+                          final double a12,
+                          final double a22,
+                          final double[] result,
+                          final int offset )
+   {
+      // The diagonal, d, the off-diagonal, e01 e02 e12, and the accumulated rotations, v, whose columns become the eigenvectors
+      double d0 = a00;
+      double d1 = a11;
+      double d2 = a22;
+      double e01 = a01;
+      double e02 = a02;
+      double e12 = a12;
+      double v00 = 1;
+      double v01 = 0;
+      double v02 = 0;
+      double v10 = 0;
+      double v11 = 1;
+      double v12 = 0;
+      double v20 = 0;
+      double v21 = 0;
+      double v22 = 1;
+
+      for( int sweep = 0; sweep < MAX_SWEEPS; sweep++ )
+      {
+         final double off = ( e01 * e01 ) + ( e02 * e02 ) + ( e12 * e12 );
+         final double diagonal = ( d0 * d0 ) + ( d1 * d1 ) + ( d2 * d2 );
+         if( off <= ( 1e-32 * diagonal ) )
+         {
+            break;
+         }
+
+         // Rotate in the (0, 1) plane to zero e01
+         if( e01 != 0 )
+         {
+            final double t = rotation( d0, d1, e01 );
+            final double c = 1 / Math.sqrt( ( t * t ) + 1 );
+            final double s = t * c;
+            d0 -= t * e01;
+            d1 += t * e01;
+            e01 = 0;
+            final double f02 = e02;
+            final double f12 = e12;
+            e02 = ( c * f02 ) - ( s * f12 );
+            e12 = ( s * f02 ) + ( c * f12 );
+            final double w00 = v00;
+            final double w10 = v10;
+            final double w20 = v20;
+            v00 = ( c * w00 ) - ( s * v01 );
+            v10 = ( c * w10 ) - ( s * v11 );
+            v20 = ( c * w20 ) - ( s * v21 );
+            v01 = ( s * w00 ) + ( c * v01 );
+            v11 = ( s * w10 ) + ( c * v11 );
+            v21 = ( s * w20 ) + ( c * v21 );
+         }
+
+         // Rotate in the (0, 2) plane to zero e02
+         if( e02 != 0 )
+         {
+            final double t = rotation( d0, d2, e02 );
+            final double c = 1 / Math.sqrt( ( t * t ) + 1 );
+            final double s = t * c;
+            d0 -= t * e02;
+            d2 += t * e02;
+            e02 = 0;
+            final double f01 = e01;
+            final double f12 = e12;
+            e01 = ( c * f01 ) - ( s * f12 );
+            e12 = ( s * f01 ) + ( c * f12 );
+            final double w00 = v00;
+            final double w10 = v10;
+            final double w20 = v20;
+            v00 = ( c * w00 ) - ( s * v02 );
+            v10 = ( c * w10 ) - ( s * v12 );
+            v20 = ( c * w20 ) - ( s * v22 );
+            v02 = ( s * w00 ) + ( c * v02 );
+            v12 = ( s * w10 ) + ( c * v12 );
+            v22 = ( s * w20 ) + ( c * v22 );
+         }
+
+         // Rotate in the (1, 2) plane to zero e12
+         if( e12 != 0 )
+         {
+            final double t = rotation( d1, d2, e12 );
+            final double c = 1 / Math.sqrt( ( t * t ) + 1 );
+            final double s = t * c;
+            d1 -= t * e12;
+            d2 += t * e12;
+            e12 = 0;
+            final double f01 = e01;
+            final double f02 = e02;
+            e01 = ( c * f01 ) - ( s * f02 );
+            e02 = ( s * f01 ) + ( c * f02 );
+            final double w01 = v01;
+            final double w11 = v11;
+            final double w21 = v21;
+            v01 = ( c * w01 ) - ( s * v02 );
+            v11 = ( c * w11 ) - ( s * v12 );
+            v21 = ( c * w21 ) - ( s * v22 );
+            v02 = ( s * w01 ) + ( c * v02 );
+            v12 = ( s * w11 ) + ( c * v12 );
+            v22 = ( s * w21 ) + ( c * v22 );
+         }
+      }
+
+      // Write each pair at its rank in ascending order of eigenvalue, breaking ties by position
+      final int rank0 = ( ( d1 < d0 ) ? 1 : 0 ) + ( ( d2 < d0 ) ? 1 : 0 );
+      final int rank1 = ( ( d0 <= d1 ) ? 1 : 0 ) + ( ( d2 < d1 ) ? 1 : 0 );
+      final int rank2 = ( ( d0 <= d2 ) ? 1 : 0 ) + ( ( d1 <= d2 ) ? 1 : 0 );
+      store( result, offset, rank0, d0, v00, v10, v20 );
+      store( result, offset, rank1, d1, v01, v11, v21 );
+      store( result, offset, rank2, d2, v02, v12, v22 );
+   }
+
+   private static void store( final double[] result,
+                              final int offset,
+                              final int rank,
+                              final double value,
+                              final double x,
+                              final double y,
+                              final double z )
+   {
+      result[ offset + rank ] = value;
+      final int v = offset + 3 + ( 3 * rank );
+      result[ v ] = x;
+      result[ v + 1 ] = y;
+      result[ v + 2 ] = z;
+   }
+
+   /**
+    * Calculates the tangent of the Jacobi rotation that zeroes the off-diagonal element of a symmetric 2 x 2 sub-matrix,
+    * choosing the smaller rotation angle.
+    */
+   private static double rotation( final double app, final double aqq, final double apq )
+   {
+      final double theta = ( aqq - app ) / ( 2 * apq );
+      if( Math.abs( theta ) > 1e150 )
+      {
+         // theta squared would overflow
+         return 1 / ( 2 * theta );
+      }
+      final double t = 1 / ( Math.abs( theta ) + Math.sqrt( ( theta * theta ) + 1 ) );
+      return ( theta < 0 ) ? -t : t;
+   }
+
+   private static void checkIndex( final int i )
+   {
+      if( ( i < 0 ) || ( i > 2 ) )
+      {
+         throw new IndexOutOfBoundsException( String.format( "Eigenvalue index out of range: %d", i ) ); //$NON-NLS-1$
+      }
+   }
+}
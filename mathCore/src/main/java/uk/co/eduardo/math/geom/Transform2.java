@@ -0,0 +1,261 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents an affine transform in 2D space: a linear part, applied first, followed by a translation.
+ *
+ * <pre>
+ * p' = L.p + t
+ * </pre>
+ * <p>
+ * Whether the linear part is orthonormal is worked out once when the transform is created. The inverse of an orthonormal
+ * transform uses the transpose of the linear part rather than a general matrix inverse.
+ * </p>
+ *
+ * @author erodri02
+ * @see Transform3
+ */
+public class Transform2
+{
+   /** The identity transform. */
+   public static final Transform2 IDENTITY = new Transform2( Matrix2.IDENTITY, Vector2.ZERO );
+
+   /** The largest difference from the identity of <code>L<sup>T</sup>.L</code> for L to be considered orthonormal. */
+   private static final double ORTHONORMAL_TOLERANCE = 1e-9;
+
+   /** The linear part of the transform. */
+   public final Matrix2 linear;
+
+   /** The translation applied after the linear part. */
+   public final Vector2 translation;
+
+   private final boolean orthonormal;
+
+   /**
+    * Initializes a new Transform2 object.
+    *
+    * @param linear the linear part of the transform. Cannot be <code>null</code>.
+    * @param translation the translation applied after the linear part. Cannot be <code>null</code>.
+    */
+   public Transform2( final Matrix2 linear, final Vector2 translation )
+   {
+      this( linear, translation, isOrthonormal( linear ) );
+   }
+
+   private Transform2( final Matrix2 linear, final Vector2 translation, final boolean orthonormal )
+   {
+      this.linear = linear;
+      this.translation = translation;
+      this.orthonormal = orthonormal;
+   }
+
+   /**
+    * Creates a transform that only translates.
+    *
+    * @param translation the translation. Cannot be <code>null</code>.
+    * @return a translation transform.
+    */
+   public static Transform2 createTranslation( final Vector2 translation )
+   {
+      return new Transform2( Matrix2.IDENTITY, translation );
+   }
+
+   /**
+    * Creates a rigid transform that rotates about the origin and then translates.
+    *
+    * @param theta the number of degrees to rotate. A positive value rotates anticlockwise.
+    * @param translation the translation applied after the rotation. Cannot be <code>null</code>.
+    * @return a rigid transform.
+    */
+   public static Transform2 createRigid( final double theta, final Vector2 translation )
+   {
+      return new Transform2( Matrix2.createRotationMatrix( theta ), translation );
+   }
+
+   /**
+    * Determines whether the linear part of this transform is orthonormal, in which case the transform preserves lengths and
+    * angles and may include a reflection.
+    *
+    * @return <code>true</code> if the linear part is orthonormal, otherwise <code>false</code>.
+    */
+   public boolean isOrthonormal()
+   {
+      return this.orthonormal;
+   }
+
+   /**
+    * Determines whether this transform is rigid: an orthonormal transform without a reflection, made up only of a rotation
+    * and a translation.
+    *
+    * @return <code>true</code> if the transform is rigid, otherwise <code>false</code>.
+    */
+   public boolean isRigid()
+   {
+      return this.orthonormal && ( this.linear.det() > 0 );
+   }
+
+   /**
+    * Transforms a point: applies the linear part and then the translation.
+    *
+    * @param p the point to transform. Cannot be <code>null</code>.
+    * @return the transformed point.
+    */
+   public Vector2 mul( final Vector2 p )
+   {
+      final Matrix2 m = this.linear;
+      final Vector2 t = this.translation;
+      return new Vector2( ( m.a00 * p.x ) + ( m.a01 * p.y ) + t.x, ( m.a10 * p.x ) + ( m.a11 * p.y ) + t.y );
+   }
+
+   /**
+    * Transforms a direction: applies the linear part but not the translation.
+    *
+    * @param v the direction to transform. Cannot be <code>null</code>.
+    * @return the transformed direction.
+    */
+   public Vector2 mulDirection( final Vector2 v )
+   {
+      return this.linear.mul( v );
+   }
+
+   /**
+    * Transforms every point in a packed array of interleaved <code>x, y</code> coordinates, applying the linear part and the
+    * translation in a single pass and writing the results into another packed array. The results are identical to calling
+    * {@link #mul(Vector2)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to transform.
+    */
+   public void mul( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 2 );
+      Batch.checkRange( dst.length, dstOffset, count, 2 );
+      Batch.forRange( 0, count, ( from, to ) -> mulInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+   }
+
+   /**
+    * Transforms every point in the source buffer in a single pass, writing the results into the destination buffer.
+    *
+    * @param src the points to transform. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the transformed points. Can be src. Must be the same size as src.
+    * @see #mul(double[], int, double[], int, int)
+    */
+   public void mul( final Vector2Buffer src, final Vector2Buffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      Batch.forRange( 0, src.size(), ( from, to ) -> mulSeparate( src, dst, from, to ) );
+   }
+
+   private void mulInterleaved( final double[] src,
+                                final int srcOffset,
+                                final double[] dst,
+                                final int dstOffset,
+                                final int from,
+                                final int to )
+   {
+      final double m00 = this.linear.a00;
+      final double m01 = this.linear.a01;
+      final double m10 = this.linear.a10;
+      final double m11 = this.linear.a11;
+      final double tx = this.translation.x;
+      final double ty = this.translation.y;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 2 * i );
+         final int d = dstOffset + ( 2 * i );
+         final double x = src[ s ];
+         final double y = src[ s + 1 ];
+         dst[ d ] = ( m00 * x ) + ( m01 * y ) + tx;
+         dst[ d + 1 ] = ( m10 * x ) + ( m11 * y ) + ty;
+      }
+   }
+
+   private void mulSeparate( final Vector2Buffer src, final Vector2Buffer dst, final int from, final int to )
+   {
+      final double m00 = this.linear.a00;
+      final double m01 = this.linear.a01;
+      final double m10 = this.linear.a10;
+      final double m11 = this.linear.a11;
+      final double tx = this.translation.x;
+      final double ty = this.translation.y;
+      for( int i = from; i < to; i++ )
+      {
+         final double x = src.x[ i ];
+         final double y = src.y[ i ];
+         dst.x[ i ] = ( m00 * x ) + ( m01 * y ) + tx;
+         dst.y[ i ] = ( m10 * x ) + ( m11 * y ) + ty;
+      }
+   }
+
+   /**
+    * Composes this transform, T, with the specified transform, S:
+    *
+    * <pre>
+    * R = T.S
+    * </pre>
+    *
+    * The resulting transform applies S first and then this transform.
+    *
+    * @param S the transform with which to compose this transform. Cannot be <code>null</code>.
+    * @return the composition of this transform and the other.
+    */
+   public Transform2 mul( final Transform2 S )
+   {
+      return new Transform2( this.linear.mul( S.linear ), mul( S.translation ) );
+   }
+
+   /**
+    * Calculates the inverse of this transform. For an orthonormal transform this uses the transpose of the linear part.
+    *
+    * @return the inverse transform or <code>null</code> if the linear part is singular.
+    */
+   public Transform2 inv()
+   {
+      if( this.orthonormal )
+      {
+         // The transpose of an orthonormal matrix is exactly orthonormal too, so there is no need to check it again
+         final Matrix2 inverse = this.linear.transpose();
+         return new Transform2( inverse, inverse.mul( this.translation ).mul( -1 ), true );
+      }
+      final Matrix2 inverse = this.linear.inv();
+      if( inverse == null )
+      {
+         return null;
+      }
+      return new Transform2( inverse, inverse.mul( this.translation ).mul( -1 ) );
+   }
+
+   private static boolean isOrthonormal( final Matrix2 m )
+   {
+      final double c00 = ( m.a00 * m.a00 ) + ( m.a10 * m.a10 );
+      final double c11 = ( m.a01 * m.a01 ) + ( m.a11 * m.a11 );
+      final double c01 = ( m.a00 * m.a01 ) + ( m.a10 * m.a11 );
+      return ( Math.abs( c00 - 1 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c11 - 1 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c01 ) <= ORTHONORMAL_TOLERANCE );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "| %.3f, %.3f, %.3f |\n| %.3f, %.3f, %.3f |", //$NON-NLS-1$
+                            this.linear.a00,
+                            this.linear.a01,
+                            this.translation.x,
+                            this.linear.a10,
+                            this.linear.a11,
+                            this.translation.y );
+   }
+}
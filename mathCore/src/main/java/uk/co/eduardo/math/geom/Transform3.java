@@ -0,0 +1,317 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents an affine transform in 3D space: a linear part, applied first, followed by a translation.
+ *
+ * <pre>
+ * p' = L.p + t
+ * </pre>
+ * <p>
+ * Whether the linear part is orthonormal is worked out once when the transform is created. The inverse of an orthonormal
+ * transform, which includes every rigid transform, uses the transpose of the linear part rather than a general matrix
+ * inverse.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Transform3
+{
+   /** The identity transform. */
+   public static final Transform3 IDENTITY = new Transform3( Matrix3.IDENTITY, Vector3.ZERO );
+
+   /** The largest difference from the identity of <code>L<sup>T</sup>.L</code> for L to be considered orthonormal. */
+   private static final double ORTHONORMAL_TOLERANCE = 1e-9;
+
+   private static final Operation MUL = Instrumentation.operation( "Transform3.mul" ); //$NON-NLS-1$
+
+   /** The linear part of the transform. */
+   public final Matrix3 linear;
+
+   /** The translation applied after the linear part. */
+   public final Vector3 translation;
+
+   private final boolean orthonormal;
+
+   /**
+    * Initializes a new Transform3 object.
+    *
+    * @param linear the linear part of the transform. Cannot be <code>null</code>.
+    * @param translation the translation applied after the linear part. Cannot be <code>null</code>.
+    */
+   public Transform3( final Matrix3 linear, final Vector3 translation )
+   {
+      this( linear, translation, isOrthonormal( linear ) );
+   }
+
+   private Transform3( final Matrix3 linear, final Vector3 translation, final boolean orthonormal )
+   {
+      this.linear = linear;
+      this.translation = translation;
+      this.orthonormal = orthonormal;
+   }
+
+   /**
+    * Creates a transform that only translates.
+    *
+    * @param translation the translation. Cannot be <code>null</code>.
+    * @return a translation transform.
+    */
+   public static Transform3 createTranslation( final Vector3 translation )
+   {
+      return new Transform3( Matrix3.IDENTITY, translation );
+   }
+
+   /**
+    * Creates a rigid transform that rotates and then translates.
+    *
+    * @param rotation the rotation. Normalized before use. Cannot be <code>null</code>.
+    * @param translation the translation applied after the rotation. Cannot be <code>null</code>.
+    * @return a rigid transform.
+    */
+   public static Transform3 createRigid( final Quaternion rotation, final Vector3 translation )
+   {
+      return new Transform3( rotation.toMatrix(), translation );
+   }
+
+   /**
+    * Determines whether the linear part of this transform is orthonormal, in which case the transform preserves lengths and
+    * angles and may include a reflection.
+    *
+    * @return <code>true</code> if the linear part is orthonormal, otherwise <code>false</code>.
+    */
+   public boolean isOrthonormal()
+   {
+      return this.orthonormal;
+   }
+
+   /**
+    * Determines whether this transform is rigid: an orthonormal transform without a reflection, made up only of a rotation
+    * and a translation.
+    *
+    * @return <code>true</code> if the transform is rigid, otherwise <code>false</code>.
+    */
+   public boolean isRigid()
+   {
+      return this.orthonormal && ( this.linear.det() > 0 );
+   }
+
+   /**
+    * Transforms a point: applies the linear part and then the translation.
+    *
+    * @param p the point to transform. Cannot be <code>null</code>.
+    * @return the transformed point.
+    */
+   public Vector3 mul( final Vector3 p )
+   {
+      final Matrix3 m = this.linear;
+      final Vector3 t = this.translation;
+      return new Vector3( ( m.a00 * p.x ) + ( m.a01 * p.y ) + ( m.a02 * p.z ) + t.x,
+                          ( m.a10 * p.x ) + ( m.a11 * p.y ) + ( m.a12 * p.z ) + t.y,
+                          ( m.a20 * p.x ) + ( m.a21 * p.y ) + ( m.a22 * p.z ) + t.z );
+   }
+
+   /**
+    * Transforms a direction: applies the linear part but not the translation.
+    *
+    * @param v the direction to transform. Cannot be <code>null</code>.
+    * @return the transformed direction.
+    */
+   public Vector3 mulDirection( final Vector3 v )
+   {
+      return this.linear.mul( v );
+   }
+
+   /**
+    * Transforms every point in a packed array of interleaved <code>x, y, z</code> coordinates, applying the linear part and the
+    * translation in a single pass and writing the results into another packed array. The results are identical to calling
+    * {@link #mul(Vector3)} on each point.
+    * <p>
+    * The source and destination can be the same array with the same offset to transform the points in place. Inputs larger than
+    * {@link Batch#getParallelThreshold()} points are transformed in parallel.
+    * </p>
+    *
+    * @param src the interleaved source coordinates. Cannot be <code>null</code>.
+    * @param srcOffset the index in src of the x coordinate of the first point.
+    * @param dst the interleaved destination coordinates. Cannot be <code>null</code>.
+    * @param dstOffset the index in dst at which to write the x coordinate of the first point.
+    * @param count the number of points to transform.
+    */
+   public void mul( final double[] src, final int srcOffset, final double[] dst, final int dstOffset, final int count )
+   {
+      Batch.checkRange( src.length, srcOffset, count, 3 );
+      Batch.checkRange( dst.length, dstOffset, count, 3 );
+      final Operation.Span span = MUL.begin();
+      Batch.forRange( 0, count, ( from, to ) -> mulInterleaved( src, srcOffset, dst, dstOffset, from, to ) );
+      MUL.end( span, count );
+   }
+
+   /**
+    * Transforms every point in the source buffer in a single pass, writing the results into the destination buffer.
+    *
+    * @param src the points to transform. Cannot be <code>null</code>.
+    * @param dst the buffer into which to write the transformed points. Can be src. Must be the same size as src.
+    * @see #mul(double[], int, double[], int, int)
+    */
+   public void mul( final Vector3Buffer src, final Vector3Buffer dst )
+   {
+      if( dst.size() != src.size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", dst.size(), src.size() ) ); //$NON-NLS-1$
+      }
+      final Operation.Span span = MUL.begin();
+      Batch.forRange( 0, src.size(), ( from, to ) -> mulSeparate( src, dst, from, to ) );
+      MUL.end( span, src.size() );
+   }
+
+   /**
+    * Transforms the points <code>[from, to)</code> of a packed array of interleaved coordinates.
+    *
+    * @param src the interleaved source coordinates.
+    * @param srcOffset the index in src of the x coordinate of point zero.
+    * @param dst the interleaved destination coordinates. Can be src with the same offset.
+    * @param dstOffset the index in dst of the x coordinate of point zero.
+    * @param from the first point to transform.
+    * @param to one past the last point to transform.
+    */
+   void mulInterleaved( final double[] src,
+                        final int srcOffset,
+                        final double[] dst,
+                        final int dstOffset,
+                        final int from,
+                        final int to )
+   {
+      final double m00 = this.linear.a00;
+      final double m01 = this.linear.a01;
+      final double m02 = this.linear.a02;
+      final double m10 = this.linear.a10;
+      final double m11 = this.linear.a11;
+      final double m12 = this.linear.a12;
+      final double m20 = this.linear.a20;
+      final double m21 = this.linear.a21;
+      final double m22 = this.linear.a22;
+      final double tx = this.translation.x;
+      final double ty = this.translation.y;
+      final double tz = this.translation.z;
+      for( int i = from; i < to; i++ )
+      {
+         final int s = srcOffset + ( 3 * i );
+         final int d = dstOffset + ( 3 * i );
+         final double x = src[ s ];
+         final double y = src[ s + 1 ];
+         final double z = src[ s + 2 ];
+         dst[ d ] = ( m00 * x ) + ( m01 * y ) + ( m02 * z ) + tx;
+         dst[ d + 1 ] = ( m10 * x ) + ( m11 * y ) + ( m12 * z ) + ty;
+         dst[ d + 2 ] = ( m20 * x ) + ( m21 * y ) + ( m22 * z ) + tz;
+      }
+   }
+
+   /**
+    * Transforms the points <code>[from, to)</code> of a buffer.
+    *
+    * @param src the source points.
+    * @param dst the buffer into which to write the transformed points. Can be src.
+    * @param from the first point to transform.
+    * @param to one past the last point to transform.
+    */
+   void mulSeparate( final Vector3Buffer src, final Vector3Buffer dst, final int from, final int to )
+   {
+      final double m00 = this.linear.a00;
+      final double m01 = this.linear.a01;
+      final double m02 = this.linear.a02;
+      final double m10 = this.linear.a10;
+      final double m11 = this.linear.a11;
+      final double m12 = this.linear.a12;
+      final double m20 = this.linear.a20;
+      final double m21 = this.linear.a21;
+      final double m22 = this.linear.a22;
+      final double tx = this.translation.x;
+      final double ty = this.translation.y;
+      final double tz = this.translation.z;
+      for( int i = from; i < to; i++ )
+      {
+         final double x = src.x[ i ];
+         final double y = src.y[ i ];
+         final double z = src.z[ i ];
+         dst.x[ i ] = ( m00 * x ) + ( m01 * y ) + ( m02 * z ) + tx;
+         dst.y[ i ] = ( m10 * x ) + ( m11 * y ) + ( m12 * z ) + ty;
+         dst.z[ i ] = ( m20 * x ) + ( m21 * y ) + ( m22 * z ) + tz;
+      }
+   }
+
+   /**
+    * Composes this transform, T, with the specified transform, S:
+    *
+    * <pre>
+    * R = T.S
+    * </pre>
+    *
+    * The resulting transform applies S first and then this transform.
+    *
+    * @param S the transform with which to compose this transform. Cannot be <code>null</code>.
+    * @return the composition of this transform and the other.
+    */
+   public Transform3 mul( final Transform3 S )
+   {
+      return new Transform3( this.linear.mul( S.linear ), mul( S.translation ) );
+   }
+
+   /**
+    * Calculates the inverse of this transform. For an orthonormal transform this uses the transpose of the linear part, which
+    * is both cheaper and more accurate than a general inverse.
+    *
+    * @return the inverse transform or <code>null</code> if the linear part is singular.
+    */
+   public Transform3 inv()
+   {
+      if( this.orthonormal )
+      {
+         // The transpose of an orthonormal matrix is exactly orthonormal too, so there is no need to check it again
+         final Matrix3 inverse = this.linear.transpose();
+         return new Transform3( inverse, inverse.mul( this.translation ).mul( -1 ), true );
+      }
+      final Matrix3 inverse = this.linear.inv();
+      if( inverse == null )
+      {
+         return null;
+      }
+      return new Transform3( inverse, inverse.mul( this.translation ).mul( -1 ) );
+   }
+
+   private static boolean isOrthonormal( final Matrix3 m )
+   {
+      // Each column must have unit length and be perpendicular to the others
+      final double c00 = ( m.a00 * m.a00 ) + ( m.a10 * m.a10 ) + ( m.a20 * m.a20 );
+      final double c11 = ( m.a01 * m.a01 ) + ( m.a11 * m.a11 ) + ( m.a21 * m.a21 );
+      final double c22 = ( m.a02 * m.a02 ) + ( m.a12 * m.a12 ) + ( m.a22 * m.a22 );
+      final double c01 = ( m.a00 * m.a01 ) + ( m.a10 * m.a11 ) + ( m.a20 * m.a21 );
+      final double c02 = ( m.a00 * m.a02 ) + ( m.a10 * m.a12 ) + ( m.a20 * m.a22 );
+      final double c12 = ( m.a01 * m.a02 ) + ( m.a11 * m.a12 ) + ( m.a21 * m.a22 );
+      return ( Math.abs( c00 - 1 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c11 - 1 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c22 - 1 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c01 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c02 ) <= ORTHONORMAL_TOLERANCE ) &&
+             ( Math.abs( c12 ) <= ORTHONORMAL_TOLERANCE );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "| %.3f, %.3f, %.3f, %.3f |\n| %.3f, %.3f, %.3f, %.3f |\n| %.3f, %.3f, %.3f, %.3f |", //$NON-NLS-1$
+                            this.linear.a00,
+                            this.linear.a01,
+                            this.linear.a02,
+                            this.translation.x,
+                            this.linear.a10,
+                            this.linear.a11,
+                            this.linear.a12,
+                            this.translation.y,
+                            this.linear.a20,
+                            this.linear.a21,
+                            this.linear.a22,
+                            this.translation.z );
+   }
+}
@@ -0,0 +1,572 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid over a 2D region that indexes points and line segments by the cells they cover.
+ * <p>
+ * Every item is identified by a non-negative integer id chosen by the caller. A point occupies the cell that contains it and a
+ * line segment occupies every cell covered by its bounding box. Items outside the grid's bounds are clamped into the edge cells,
+ * so the grid stays correct, if slower, when items drift outside the region it was created for. Each cell's bucket is a
+ * primitive <code>int</code> array of ids, allocated the first time the cell is used.
+ * </p>
+ * <p>
+ * Items can be inserted, moved and removed incrementally. The grid is not thread-safe.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class UniformGrid2
+{
+   /** The maximum number of cells in a grid. */
+   private static final int MAX_CELLS = 1 << 26;
+
+   /** The target average number of points per cell when deriving the cell size from the input. */
+   private static final double POINTS_PER_CELL = 2;
+
+   private final double minX;
+
+   private final double minY;
+
+   private final double cellSize;
+
+   private final double invCellSize;
+
+   private final int columns;
+
+   private final int rows;
+
+   private final int[][] buckets;
+
+   private final int[] bucketSizes;
+
+   /** The end points of every item, four values per id. Points are stored as zero-length segments. */
+   private double[] items = new double[ 0 ];
+
+   /** The range of cells covered by every item, four values per id: first column, first row, last column, last row. */
+   private int[] ranges = new int[ 0 ];
+
+   private int size;
+
+   /**
+    * Initializes a new UniformGrid2 object.
+    *
+    * @param bounds the region covered by the grid. Cannot be <code>null</code> or empty.
+    * @param cellSize the width and height of each cell. Must be positive.
+    */
+   public UniformGrid2( final BoundingBox2 bounds, final double cellSize )
+   {
+      if( bounds.isEmpty() )
+      {
+         throw new IllegalArgumentException( "Grid bounds cannot be empty" ); //$NON-NLS-1$
+      }
+      if( !( cellSize > 0 ) )
+      {
+         throw new IllegalArgumentException( "Cell size must be positive: " + cellSize ); //$NON-NLS-1$
+      }
+      this.minX = bounds.start.x;
+      this.minY = bounds.start.y;
+      this.cellSize = cellSize;
+      this.invCellSize = 1 / cellSize;
+      final long cols = 1 + (long) ( ( bounds.end.x - bounds.start.x ) * this.invCellSize );
+      final long rws = 1 + (long) ( ( bounds.end.y - bounds.start.y ) * this.invCellSize );
+      if( ( cols * rws ) > MAX_CELLS )
+      {
+         throw new IllegalArgumentException( String.format( "Too many cells: %d x %d", cols, rws ) ); //$NON-NLS-1$
+      }
+      this.columns = (int) cols;
+      this.rows = (int) rws;
+      this.buckets = new int[ this.columns * this.rows ][];
+      this.bucketSizes = new int[ this.columns * this.rows ];
+   }
+
+   /**
+    * Gets the width and height of each cell.
+    *
+    * @return the cell size.
+    */
+   public double getCellSize()
+   {
+      return this.cellSize;
+   }
+
+   /**
+    * Gets the number of columns of cells.
+    *
+    * @return the number of columns.
+    */
+   public int getColumns()
+   {
+      return this.columns;
+   }
+
+   /**
+    * Gets the number of rows of cells.
+    *
+    * @return the number of rows.
+    */
+   public int getRows()
+   {
+      return this.rows;
+   }
+
+   /**
+    * Gets the number of items in the grid.
+    *
+    * @return the number of items.
+    */
+   public int size()
+   {
+      return this.size;
+   }
+
+   /**
+    * Gets the cell that contains a point.
+    *
+    * @param x the x coordinate of the point.
+    * @param y the y coordinate of the point.
+    * @return the index of the cell, <code>row * columns + column</code>.
+    */
+   public int cellOf( final double x, final double y )
+   {
+      return ( row( y ) * this.columns ) + column( x );
+   }
+
+   /**
+    * Visits the ids of the items that occupy a cell.
+    *
+    * @param cell the index of the cell.
+    * @param consumer receives the id of every item in the cell. Cannot be <code>null</code>.
+    * @return the number of items in the cell.
+    */
+   public int forEachInCell( final int cell, final IntConsumer consumer )
+   {
+      final int[] bucket = this.buckets[ cell ];
+      final int n = this.bucketSizes[ cell ];
+      for( int i = 0; i < n; i++ )
+      {
+         consumer.accept( bucket[ i ] );
+      }
+      return n;
+   }
+
+   /**
+    * Tests whether an item is in the grid.
+    *
+    * @param id the id of the item.
+    * @return whether the item is in the grid.
+    */
+   public boolean contains( final int id )
+   {
+      return ( id >= 0 ) && ( ( 4 * id ) < this.ranges.length ) && ( this.ranges[ 4 * id ] >= 0 );
+   }
+
+   /**
+    * Inserts a point, or moves it if an item with the same id is already in the grid.
+    *
+    * @param id the id of the point. Must not be negative.
+    * @param p the point. Cannot be <code>null</code>.
+    */
+   public void insert( final int id, final Vector2 p )
+   {
+      insert( id, p.x, p.y, p.x, p.y );
+   }
+
+   /**
+    * Inserts a line segment, or moves it if an item with the same id is already in the grid.
+    *
+    * @param id the id of the line segment. Must not be negative.
+    * @param segment the line segment. Cannot be <code>null</code>.
+    */
+   public void insert( final int id, final LineSegment2 segment )
+   {
+      insert( id, segment.start.x, segment.start.y, segment.end.x, segment.end.y );
+   }
+
+   /**
+    * Inserts the line segment from <code>(x0, y0)</code> to <code>(x1, y1)</code>, or moves it if an item with the same id is
+    * already in the grid. A point is inserted as a segment with coincident end points.
+    *
+    * @param id the id of the item. Must not be negative.
+    * @param x0 the x coordinate of the start of the segment.
+    * @param y0 the y coordinate of the start of the segment.
+    * @param x1 the x coordinate of the end of the segment.
+    * @param y1 the y coordinate of the end of the segment.
+    */
+   public void insert( final int id, final double x0, final double y0, final double x1, final double y1 )
+   {
+      if( id < 0 )
+      {
+         throw new IllegalArgumentException( "Item ids cannot be negative: " + id ); //$NON-NLS-1$
+      }
+      ensureCapacity( id );
+
+      final int c0 = column( Math.min( x0, x1 ) );
+      final int r0 = row( Math.min( y0, y1 ) );
+      final int c1 = column( Math.max( x0, x1 ) );
+      final int r1 = row( Math.max( y0, y1 ) );
+      final int r = 4 * id;
+      final boolean present = this.ranges[ r ] >= 0;
+      final boolean sameCells = present &&
+                                ( this.ranges[ r ] == c0 ) &&
+                                ( this.ranges[ r + 1 ] == r0 ) &&
+                                ( this.ranges[ r + 2 ] == c1 ) &&
+                                ( this.ranges[ r + 3 ] == r1 );
+      if( !sameCells )
+      {
+         if( present )
+         {
+            remove( id );
+         }
+         for( int row = r0; row <= r1; row++ )
+         {
+            for( int column = c0; column <= c1; column++ )
+            {
+               addToBucket( ( row * this.columns ) + column, id );
+            }
+         }
+         this.ranges[ r ] = c0;
+         this.ranges[ r + 1 ] = r0;
+         this.ranges[ r + 2 ] = c1;
+         this.ranges[ r + 3 ] = r1;
+         this.size++;
+      }
+      this.items[ r ] = x0;
+      this.items[ r + 1 ] = y0;
+      this.items[ r + 2 ] = x1;
+      this.items[ r + 3 ] = y1;
+   }
+
+   /**
+    * Removes an item.
+    *
+    * @param id the id of the item.
+    * @return whether the item was in the grid.
+    */
+   public boolean remove( final int id )
+   {
+      if( !contains( id ) )
+      {
+         return false;
+      }
+      final int r = 4 * id;
+      for( int row = this.ranges[ r + 1 ]; row <= this.ranges[ r + 3 ]; row++ )
+      {
+         for( int column = this.ranges[ r ]; column <= this.ranges[ r + 2 ]; column++ )
+         {
+            removeFromBucket( ( row * this.columns ) + column, id );
+         }
+      }
+      this.ranges[ r ] = -1;
+      this.size--;
+      return true;
+   }
+
+   /**
+    * Finds the items whose bounding boxes overlap a query box.
+    *
+    * @param box the query box. Cannot be <code>null</code>.
+    * @param consumer receives the id of every overlapping item, once each. Cannot be <code>null</code>.
+    * @return the number of overlapping items.
+    */
+   public int query( final BoundingBox2 box, final IntConsumer consumer )
+   {
+      if( box.isEmpty() )
+      {
+         return 0;
+      }
+      final double qx0 = box.start.x;
+      final double qy0 = box.start.y;
+      final double qx1 = box.end.x;
+      final double qy1 = box.end.y;
+      final int c0 = column( qx0 );
+      final int r0 = row( qy0 );
+      final int c1 = column( qx1 );
+      final int r1 = row( qy1 );
+      int found = 0;
+      for( int row = r0; row <= r1; row++ )
+      {
+         for( int column = c0; column <= c1; column++ )
+         {
+            final int cell = ( row * this.columns ) + column;
+            final int[] bucket = this.buckets[ cell ];
+            for( int i = 0; i < this.bucketSizes[ cell ]; i++ )
+            {
+               final int id = bucket[ i ];
+               final int r = 4 * id;
+               if( isFirstSharedCell( r, c0, r0, column, row ) &&
+                   ( Math.min( this.items[ r ], this.items[ r + 2 ] ) <= qx1 ) &&
+                   ( Math.max( this.items[ r ], this.items[ r + 2 ] ) >= qx0 ) &&
+                   ( Math.min( this.items[ r + 1 ], this.items[ r + 3 ] ) <= qy1 ) &&
+                   ( Math.max( this.items[ r + 1 ], this.items[ r + 3 ] ) >= qy0 ) )
+               {
+                  consumer.accept( id );
+                  found++;
+               }
+            }
+         }
+      }
+      return found;
+   }
+
+   /**
+    * Finds the items within a distance of a point. The distance to a line segment is the distance to its closest point.
+    *
+    * @param x the x coordinate of the query point.
+    * @param y the y coordinate of the query point.
+    * @param radius the search radius.
+    * @param consumer receives the id of every item found, once each. Cannot be <code>null</code>.
+    * @return the number of items found.
+    */
+   public int withinRadius( final double x, final double y, final double radius, final IntConsumer consumer )
+   {
+      if( !( radius >= 0 ) )
+      {
+         return 0;
+      }
+      final double radiusSquared = radius * radius;
+      final int c0 = column( x - radius );
+      final int r0 = row( y - radius );
+      final int c1 = column( x + radius );
+      final int r1 = row( y + radius );
+      int found = 0;
+      for( int row = r0; row <= r1; row++ )
+      {
+         for( int column = c0; column <= c1; column++ )
+         {
+            final int cell = ( row * this.columns ) + column;
+            final int[] bucket = this.buckets[ cell ];
+            for( int i = 0; i < this.bucketSizes[ cell ]; i++ )
+            {
+               final int id = bucket[ i ];
+               final int r = 4 * id;
+               if( isFirstSharedCell( r, c0, r0, column, row ) && ( distanceSquared( r, x, y ) <= radiusSquared ) )
+               {
+                  consumer.accept( id );
+                  found++;
+               }
+            }
+         }
+      }
+      return found;
+   }
+
+   /**
+    * Enumerates every pair of items that occupy a common cell. These are the only pairs that can intersect, so this is the broad
+    * phase for intersection tests. Each pair is reported once.
+    *
+    * @param consumer receives every candidate pair. Cannot be <code>null</code>.
+    * @return the number of candidate pairs.
+    */
+   public long forEachCandidatePair( final PairConsumer consumer )
+   {
+      long found = 0;
+      for( int row = 0; row < this.rows; row++ )
+      {
+         for( int column = 0; column < this.columns; column++ )
+         {
+            final int cell = ( row * this.columns ) + column;
+            final int[] bucket = this.buckets[ cell ];
+            final int n = this.bucketSizes[ cell ];
+            for( int i = 0; i < n; i++ )
+            {
+               final int a = bucket[ i ];
+               for( int j = i + 1; j < n; j++ )
+               {
+                  final int b = bucket[ j ];
+                  // Report the pair only from the first cell that the two items share
+                  final int firstColumn = Math.max( this.ranges[ 4 * a ], this.ranges[ 4 * b ] );
+                  final int firstRow = Math.max( this.ranges[ ( 4 * a ) + 1 ], this.ranges[ ( 4 * b ) + 1 ] );
+                  if( ( firstColumn == column ) && ( firstRow == row ) )
+                  {
+                     consumer.accept( Math.min( a, b ), Math.max( a, b ) );
+                     found++;
+                  }
+               }
+            }
+         }
+      }
+      return found;
+   }
+
+   /**
+    * Tests whether a cell is the first cell visited by a query that the item also occupies, so that items covering several cells
+    * are reported once.
+    */
+   private boolean isFirstSharedCell( final int r, final int c0, final int r0, final int column, final int row )
+   {
+      return ( Math.max( this.ranges[ r ], c0 ) == column ) && ( Math.max( this.ranges[ r + 1 ], r0 ) == row );
+   }
+
+   private double distanceSquared( final int r, final double x, final double y )
+   {
+      final double ax = this.items[ r ];
+      final double ay = this.items[ r + 1 ];
+      final double dx = this.items[ r + 2 ] - ax;
+      final double dy = this.items[ r + 3 ] - ay;
+      final double lengthSquared = ( dx * dx ) + ( dy * dy );
+      double t = 0;
+      if( lengthSquared > 0 )
+      {
+         t = Math.max( 0, Math.min( 1, ( ( ( x - ax ) * dx ) + ( ( y - ay ) * dy ) ) / lengthSquared ) );
+      }
+      final double ex = ( ax + ( t * dx ) ) - x;
+      final double ey = ( ay + ( t * dy ) ) - y;
+      return ( ex * ex ) + ( ey * ey );
+   }
+
+   private int column( final double x )
+   {
+      return clamp( ( x - this.minX ) * this.invCellSize, this.columns );
+   }
+
+   private int row( final double y )
+   {
+      return clamp( ( y - this.minY ) * this.invCellSize, this.rows );
+   }
+
+   private static int clamp( final double cell, final int count )
+   {
+      if( !( cell >= 0 ) )
+      {
+         return 0;
+      }
+      return cell >= count ? count - 1 : (int) cell;
+   }
+
+   private void addToBucket( final int cell, final int id )
+   {
+      int[] bucket = this.buckets[ cell ];
+      final int n = this.bucketSizes[ cell ];
+      if( bucket == null )
+      {
+         bucket = new int[ 4 ];
+         this.buckets[ cell ] = bucket;
+      }
+      else if( n == bucket.length )
+      {
+         bucket = Arrays.copyOf( bucket, 2 * n );
+         this.buckets[ cell ] = bucket;
+      }
+      bucket[ n ] = id;
+      this.bucketSizes[ cell ] = n + 1;
+   }
+
+   private void removeFromBucket( final int cell, final int id )
+   {
+      final int[] bucket = this.buckets[ cell ];
+      final int last = this.bucketSizes[ cell ] - 1;
+      for( int i = 0; i <= last; i++ )
+      {
+         if( bucket[ i ] == id )
+         {
+            bucket[ i ] = bucket[ last ];
+            this.bucketSizes[ cell ] = last;
+            return;
+         }
+      }
+   }
+
+   private void ensureCapacity( final int id )
+   {
+      final int required = 4 * ( id + 1 );
+      if( required > this.ranges.length )
+      {
+         final int length = Math.max( required, 2 * this.ranges.length );
+         final int old = this.ranges.length;
+         this.ranges = Arrays.copyOf( this.ranges, length );
+         Arrays.fill( this.ranges, old, length, -1 );
+         this.items = Arrays.copyOf( this.items, length );
+      }
+   }
+
+   /**
+    * Factory method for creating a grid over a collection of points. The grid covers the bounding box of the points with a cell
+    * size that puts about two points in each cell. Point ids follow the iteration order of the collection.
+    *
+    * @param points the points. Cannot be <code>null</code>.
+    * @return a grid containing the points.
+    */
+   public static UniformGrid2 forPoints( final Collection< Vector2 > points )
+   {
+      final BoundingBox2 bounds = BoundingBox2.fromPoints( points );
+      final UniformGrid2 grid = new UniformGrid2( nonEmpty( bounds ), deriveCellSize( bounds, points.size(), 0 ) );
+      int id = 0;
+      for( final Vector2 p : points )
+      {
+         grid.insert( id++, p );
+      }
+      return grid;
+   }
+
+   /**
+    * Factory method for creating a grid over a collection of line segments. The grid covers the bounding box of the segments
+    * with a cell size that is no smaller than their average extent. Segment ids follow the iteration order of the collection.
+    *
+    * @param segments the line segments. Cannot be <code>null</code>.
+    * @return a grid containing the line segments.
+    */
+   public static UniformGrid2 forSegments( final Collection< LineSegment2 > segments )
+   {
+      final double[] ends = new double[ 4 * segments.size() ];
+      double extent = 0;
+      int i = 0;
+      for( final LineSegment2 s : segments )
+      {
+         ends[ i++ ] = s.start.x;
+         ends[ i++ ] = s.start.y;
+         ends[ i++ ] = s.end.x;
+         ends[ i++ ] = s.end.y;
+         extent += Math.max( Math.abs( s.end.x - s.start.x ), Math.abs( s.end.y - s.start.y ) );
+      }
+      final BoundingBox2 bounds = BoundingBox2.fromPoints( ends, 0, 2 * segments.size() );
+      final double averageExtent = segments.isEmpty() ? 0 : extent / segments.size();
+      final UniformGrid2 grid = new UniformGrid2( nonEmpty( bounds ), deriveCellSize( bounds, segments.size(), averageExtent ) );
+      int id = 0;
+      for( final LineSegment2 s : segments )
+      {
+         grid.insert( id++, s );
+      }
+      return grid;
+   }
+
+   private static BoundingBox2 nonEmpty( final BoundingBox2 bounds )
+   {
+      return bounds.isEmpty() ? new BoundingBox2().union( Vector2.X ) : bounds;
+   }
+
+   private static double deriveCellSize( final BoundingBox2 bounds, final int count, final double minimum )
+   {
+      final double width = bounds.end.x - bounds.start.x;
+      final double height = bounds.end.y - bounds.start.y;
+      final double cells = Math.max( 1, count / POINTS_PER_CELL );
+      double size;
+      if( ( width > 0 ) && ( height > 0 ) )
+      {
+         size = Math.sqrt( ( width * height ) / cells );
+      }
+      else
+      {
+         size = Math.max( width, height ) / cells;
+      }
+      size = Math.max( size, minimum );
+      // Respect the cell limit for very elongated inputs
+      size = Math.max( size, Math.max( width, height ) / ( Math.sqrt( MAX_CELLS ) - 1 ) );
+      return size > 0 ? size : 1;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "UniformGrid2[%d items, %d x %d cells of %.3f]", //$NON-NLS-1$
+                            this.size,
+                            this.columns,
+                            this.rows,
+                            this.cellSize );
+   }
+}
@@ -0,0 +1,310 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A buffer of 2D vectors stored as a structure of arrays.
+ * <p>
+ * The x and y components are held in separate primitive arrays so that large numbers of vectors can be processed without
+ * allocating a {@link Vector2} for each one. The bulk operations mirror those on {@link Vector2} and write their results into a
+ * caller-supplied buffer, which may be this buffer to operate in place.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Vector2Buffer
+{
+   /** The x components. */
+   public final double[] x;
+
+   /** The y components. */
+   public final double[] y;
+
+   /**
+    * Initializes a new Vector2Buffer object where every vector is zero.
+    *
+    * @param size the number of vectors in the buffer.
+    */
+   public Vector2Buffer( final int size )
+   {
+      this( new double[ size ], new double[ size ] );
+   }
+
+   /**
+    * Initializes a new Vector2Buffer object that wraps the given component arrays. The arrays are not copied.
+    *
+    * @param x the x components. Cannot be <code>null</code>.
+    * @param y the y components. Cannot be <code>null</code>. Must be the same length as x.
+    */
+   public Vector2Buffer( final double[] x, final double[] y )
+   {
+      this.x = Objects.requireNonNull( x );
+      this.y = Objects.requireNonNull( y );
+      if( y.length != x.length )
+      {
+         throw new IllegalArgumentException( "Component arrays must have the same length" ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * Gets the number of vectors in the buffer.
+    *
+    * @return the number of vectors in the buffer.
+    */
+   public int size()
+   {
+      return this.x.length;
+   }
+
+   /**
+    * Gets the vector at the specified index.
+    *
+    * @param i the index of the vector.
+    * @return a new vector holding the components at the specified index.
+    */
+   public Vector2 get( final int i )
+   {
+      return new Vector2( this.x[ i ], this.y[ i ] );
+   }
+
+   /**
+    * Sets the vector at the specified index.
+    *
+    * @param i the index of the vector.
+    * @param v the vector to store. Cannot be <code>null</code>.
+    */
+   public void set( final int i, final Vector2 v )
+   {
+      set( i, v.x, v.y );
+   }
+
+   /**
+    * Sets the vector at the specified index.
+    *
+    * @param i the index of the vector.
+    * @param vx the x component.
+    * @param vy the y component.
+    */
+   public void set( final int i, final double vx, final double vy )
+   {
+      this.x[ i ] = vx;
+      this.y[ i ] = vy;
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] + other[i]</code> for every vector in the buffer.
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @param result the buffer into which to write the result. Can be this buffer or other.
+    */
+   public void add( final Vector2Buffer other, final Vector2Buffer result )
+   {
+      final int n = checkSize( other, result );
+      for( int i = 0; i < n; i++ )
+      {
+         result.x[ i ] = this.x[ i ] + other.x[ i ];
+         result.y[ i ] = this.y[ i ] + other.y[ i ];
+      }
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] + v</code> for every vector in the buffer.
+    *
+    * @param v the vector to add to every vector in this buffer. Cannot be <code>null</code>.
+    * @param result the buffer into which to write the result. Can be this buffer.
+    */
+   public void add( final Vector2 v, final Vector2Buffer result )
+   {
+      final int n = checkSize( result );
+      final double vx = v.x;
+      final double vy = v.y;
+      for( int i = 0; i < n; i++ )
+      {
+         result.x[ i ] = this.x[ i ] + vx;
+         result.y[ i ] = this.y[ i ] + vy;
+      }
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] - other[i]</code> for every vector in the buffer.
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @param result the buffer into which to write the result. Can be this buffer or other.
+    */
+   public void sub( final Vector2Buffer other, final Vector2Buffer result )
+   {
+      final int n = checkSize( other, result );
+      for( int i = 0; i < n; i++ )
+      {
+         result.x[ i ] = this.x[ i ] - other.x[ i ];
+         result.y[ i ] = this.y[ i ] - other.y[ i ];
+      }
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] - v</code> for every vector in the buffer.
+    *
+    * @param v the vector to subtract from every vector in this buffer. Cannot be <code>null</code>.
+    * @param result the buffer into which to write the result. Can be this buffer.
+    */
+   public void sub( final Vector2 v, final Vector2Buffer result )
+   {
+      final int n = checkSize( result );
+      final double vx = v.x;
+      final double vy = v.y;
+      for( int i = 0; i < n; i++ )
+      {
+         result.x[ i ] = this.x[ i ] - vx;
+         result.y[ i ] = this.y[ i ] - vy;
+      }
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] * factor</code> for every vector in the buffer.
+    *
+    * @param factor the scale factor.
+    * @param result the buffer into which to write the result. Can be this buffer.
+    */
+   public void mul( final double factor, final Vector2Buffer result )
+   {
+      final int n = checkSize( result );
+      for( int i = 0; i < n; i++ )
+      {
+         result.x[ i ] = this.x[ i ] * factor;
+         result.y[ i ] = this.y[ i ] * factor;
+      }
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] / factor</code> for every vector in the buffer.
+    *
+    * @param factor the scale factor.
+    * @param result the buffer into which to write the result. Can be this buffer.
+    */
+   public void div( final double factor, final Vector2Buffer result )
+   {
+      final int n = checkSize( result );
+      for( int i = 0; i < n; i++ )
+      {
+         result.x[ i ] = this.x[ i ] / factor;
+         result.y[ i ] = this.y[ i ] / factor;
+      }
+   }
+
+   /**
+    * Computes <code>result[i] = this[i] . other[i]</code> for every vector in the buffer.
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @param result the array into which to write the dot products. Must be at least as long as this buffer.
+    */
+   public void dot( final Vector2Buffer other, final double[] result )
+   {
+      final int n = checkSize( other );
+      checkLength( result );
+      for( int i = 0; i < n; i++ )
+      {
+         result[ i ] = ( this.x[ i ] * other.x[ i ] ) + ( this.y[ i ] * other.y[ i ] );
+      }
+   }
+
+   /**
+    * Calculates the Euclidian length of every vector in the buffer.
+    *
+    * @param result the array into which to write the lengths. Must be at least as long as this buffer.
+    */
+   public void length( final double[] result )
+   {
+      final int n = checkLength( result );
+      for( int i = 0; i < n; i++ )
+      {
+         result[ i ] = Math.sqrt( ( this.x[ i ] * this.x[ i ] ) + ( this.y[ i ] * this.y[ i ] ) );
+      }
+   }
+
+   /**
+    * Normalizes every vector in the buffer.
+    *
+    * @param result the buffer into which to write the unit vectors. Can be this buffer.
+    */
+   public void normalize( final Vector2Buffer result )
+   {
+      final int n = checkSize( result );
+      for( int i = 0; i < n; i++ )
+      {
+         final double vx = this.x[ i ];
+         final double vy = this.y[ i ];
+         final double length = Math.sqrt( ( vx * vx ) + ( vy * vy ) );
+         result.x[ i ] = vx / length;
+         result.y[ i ] = vy / length;
+      }
+   }
+
+   /**
+    * Converts the buffer into a list of vectors.
+    *
+    * @return a new list containing a vector for every element of the buffer.
+    */
+   public List< Vector2 > toList()
+   {
+      final int n = size();
+      final List< Vector2 > list = new ArrayList<>( n );
+      for( int i = 0; i < n; i++ )
+      {
+         list.add( get( i ) );
+      }
+      return list;
+   }
+
+   /**
+    * Factory method for creating a buffer from a collection of points.
+    *
+    * @param points the points from which to create the buffer. Cannot be <code>null</code>.
+    * @return a new buffer containing the points in iteration order.
+    */
+   public static Vector2Buffer fromPoints( final Collection< Vector2 > points )
+   {
+      final Vector2Buffer buffer = new Vector2Buffer( points.size() );
+      int i = 0;
+      for( final Vector2 p : points )
+      {
+         buffer.set( i++, p );
+      }
+      return buffer;
+   }
+
+   private int checkSize( final Vector2Buffer other )
+   {
+      if( other.size() != size() )
+      {
+         throw new IllegalArgumentException( String.format( "Buffer size mismatch: %d != %d", other.size(), size() ) ); //$NON-NLS-1$
+      }
+      return size();
+   }
+
+   private int checkSize( final Vector2Buffer other, final Vector2Buffer result )
+   {
+      checkSize( other );
+      return checkSize( result );
+   }
+
+   private int checkLength( final double[] result )
+   {
+      if( result.length < size() )
+      {
+         throw new IllegalArgumentException( String.format( "Result array too short: %d < %d", result.length, size() ) ); //$NON-NLS-1$
+      }
+      return size();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "Vector2Buffer[%d]", size() ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,163 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents a 2D vector with single precision components.
+ * <p>
+ * The float counterpart of {@link Vector2}, for data sets where half the memory and bandwidth matters more than the extra
+ * precision. Use {@link #from(Vector2)} and {@link #toDouble()} to convert between the two.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Vector2f
+{
+   /** Zero vector. */
+   public static final Vector2f ZERO = new Vector2f( 0, 0 );
+
+   /** Unit vector in the X direction. */
+   public static final Vector2f X = new Vector2f( 1, 0 );
+
+   /** Unit vector in the Y direction. */
+   public static final Vector2f Y = new Vector2f( 0, 1 );
+
+   /** The x component. */
+   public final float x;
+
+   /** The y component. */
+   public final float y;
+
+   /**
+    * Initializes a new Vector2f object.
+    *
+    * @param x the x component.
+    * @param y the y component.
+    */
+   public Vector2f( final float x, final float y )
+   {
+      this.x = x;
+      this.y = y;
+   }
+
+   /**
+    * Computes the L2 norm of the vector.
+    *
+    * @return returns a unit vector.
+    */
+   public Vector2f normalize()
+   {
+      final float length = length();
+      return new Vector2f( this.x / length, this.y / length );
+   }
+
+   /**
+    * Calculates the Euclidian distance of the vector.
+    *
+    * @return the length of the vector.
+    */
+   public float length()
+   {
+      return (float) Math.sqrt( ( this.x * this.x ) + ( this.y * this.y ) );
+   }
+
+   /**
+    * Returns this + other. Computes:
+    *
+    * <pre>
+    *  &#x250C;                  &#x2510;
+    *  &#x2502; this.x + other.x &#x2502;
+    *  &#x2502; this.y + other.y &#x2502;
+    *  &#x2514;                  &#x2518;
+    * </pre>
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @return this + other.
+    */
+   public Vector2f add( final Vector2f other )
+   {
+      return new Vector2f( this.x + other.x, this.y + other.y );
+   }
+
+   /**
+    * Returns this - other. Computes:
+    *
+    * <pre>
+    *  &#x250C;                  &#x2510;
+    *  &#x2502; this.x - other.x &#x2502;
+    *  &#x2502; this.y - other.y &#x2502;
+    *  &#x2514;                  &#x2518;
+    * </pre>
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @return this - other.
+    */
+   public Vector2f sub( final Vector2f other )
+   {
+      return new Vector2f( this.x - other.x, this.y - other.y );
+   }
+
+   /**
+    * Returns this * factor. Computes:
+    *
+    * <pre>
+    *  &#x250C;                 &#x2510;
+    *  &#x2502; this.x * factor &#x2502;
+    *  &#x2502; this.y * factor &#x2502;
+    *  &#x2514;                 &#x2518;
+    * </pre>
+    *
+    * @param factor the scale factor.
+    * @return this * other.
+    */
+   public Vector2f mul( final float factor )
+   {
+      return new Vector2f( this.x * factor, this.y * factor );
+   }
+
+   /**
+    * Returns this / factor. Computes:
+    *
+    * <pre>
+    *  &#x250C;                 &#x2510;
+    *  &#x2502; this.x / factor &#x2502;
+    *  &#x2502; this.y / factor &#x2502;
+    *  &#x2514;                 &#x2518;
+    * </pre>
+    *
+    * @param factor the scale factor.
+    * @return this / other.
+    */
+   public Vector2f div( final float factor )
+   {
+      return new Vector2f( this.x / factor, this.y / factor );
+   }
+
+   /**
+    * Converts a double precision vector to single precision, rounding each component to the nearest float.
+    *
+    * @param v the vector to convert. Cannot be <code>null</code>.
+    * @return the single precision vector.
+    */
+   public static Vector2f from( final Vector2 v )
+   {
+      return new Vector2f( (float) v.x, (float) v.y );
+   }
+
+   /**
+    * Converts this vector to double precision. The conversion is exact.
+    *
+    * @return the double precision vector.
+    */
+   public Vector2 toDouble()
+   {
+      return new Vector2( this.x, this.y );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "[%.3f, %.3f]", this.x, this.y ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,204 @@
+package uk.co.eduardo.math.geom;
+
+/**
+ * Represents a 3D vector with single precision components.
+ * <p>
+ * The float counterpart of {@link Vector3}, for data sets where half the memory and bandwidth matters more than the extra
+ * precision. Use {@link #from(Vector3)} and {@link #toDouble()} to convert between the two.
+ * </p>
+ *
+ * @author erodri02
+ */
+public class Vector3f
+{
+   /** Zero vector. */
+   public static final Vector3f ZERO = new Vector3f( 0, 0, 0 );
+
+   /** Unit vector in the X direction. */
+   public static final Vector3f X = new Vector3f( 1, 0, 0 );
+
+   /** Unit vector in the Y direction. */
+   public static final Vector3f Y = new Vector3f( 0, 1, 0 );
+
+   /** Unit vector in the Z direction. */
+   public static final Vector3f Z = new Vector3f( 0, 0, 1 );
+
+   /** The x component. */
+   public final float x;
+
+   /** The y component. */
+   public final float y;
+
+   /** The z component. */
+   public final float z;
+
+   /**
+    * Initializes a new Vector3f object.
+    *
+    * @param x the x component.
+    * @param y the y component.
+    * @param z the z component.
+    */
+   public Vector3f( final float x, final float y, final float z )
+   {
+      this.x = x;
+      this.y = y;
+      this.z = z;
+   }
+
+   /**
+    * Computes the L2 norm of the vector.
+    *
+    * @return returns a unit vector.
+    */
+   public Vector3f normalize()
+   {
+      final float length = length();
+      return new Vector3f( this.x / length, this.y / length, this.z / length );
+   }
+
+   /**
+    * Calculates the Euclidian distance of the vector.
+    *
+    * @return the length of the vector.
+    */
+   public float length()
+   {
+      return (float) Math.sqrt( ( this.x * this.x ) + ( this.y * this.y ) + ( this.z * this.z ) );
+   }
+
+   /**
+    * Returns this + other. Computes:
+    *
+    * <pre>
+    *  &#x250C;                  &#x2510;
+    *  &#x2502; this.x + other.x &#x2502;
+    *  &#x2502; this.y + other.y &#x2502;
+    *  &#x2502; this.z + other.z &#x2502;
+    *  &#x2514;                  &#x2518;
+    * </pre>
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @return this + other.
+    */
+   public Vector3f add( final Vector3f other )
+   {
+      return new Vector3f( this.x + other.x, this.y + other.y, this.z + other.z );
+   }
+
+   /**
+    * Returns this - other. Computes:
+    *
+    * <pre>
+    *  &#x250C;                  &#x2510;
+    *  &#x2502; this.x - other.x &#x2502;
+    *  &#x2502; this.y - other.y &#x2502;
+    *  &#x2502; this.z - other.z &#x2502;
+    *  &#x2514;                  &#x2518;
+    * </pre>
+    *
+    * @param other the other operand. Cannot be <code>null</code>.
+    * @return this - other.
+    */
+   public Vector3f sub( final Vector3f other )
+   {
+      return new Vector3f( this.x - other.x, this.y - other.y, this.z - other.z );
+   }
+
+   /**
+    * Returns this * factor. Computes:
+    *
+    * <pre>
+    *  &#x250C;                 &#x2510;
+    *  &#x2502; this.x * factor &#x2502;
+    *  &#x2502; this.y * factor &#x2502;
+    *  &#x2502; this.z * factor &#x2502;
+    *  &#x2514;                 &#x2518;
+    * </pre>
+    *
+    * @param factor the scale factor.
+    * @return this * other.
+    */
+   public Vector3f mul( final float factor )
+   {
+      return new Vector3f( this.x * factor, this.y * factor, this.z * factor );
+   }
+
+   /**
+    * Returns this / factor. Computes:
+    *
+    * <pre>
+    *  &#x250C;                 &#x2510;
+    *  &#x2502; this.x / factor &#x2502;
+    *  &#x2502; this.y / factor &#x2502;
+    *  &#x2502; this.z / factor &#x2502;
+    *  &#x2514;                 &#x2518;
+    * </pre>
+    *
+    * @param factor the scale factor.
+    * @return this / other.
+    */
+   public Vector3f div( final float factor )
+   {
+      return new Vector3f( this.x / factor, this.y / factor, this.z / factor );
+   }
+
+   /**
+    * Calculates the cross product of this vector and the other.
+    *
+    * <pre>
+    * result = this x other
+    * </pre>
+    *
+    * @param other the other vector. Cannot be <code>null</code>.
+    * @return the vector perpendicular to both this vector and the other.
+    */
+   public Vector3f cross( final Vector3f other )
+   {
+      final float rx = ( this.y * other.z ) - ( this.z * other.y );
+      final float ry = ( this.z * other.x ) - ( this.x * other.z );
+      final float rz = ( this.x * other.y ) - ( this.y * other.x );
+      return new Vector3f( rx, ry, rz );
+   }
+
+   /**
+    * Calculates the dot product between this vector and the other.
+    *
+    * @param other the other vector. Cannot be <code>null</code>.
+    * @return the dot product between this vector and the other.
+    */
+   public float dot( final Vector3f other )
+   {
+      return ( this.x * other.x ) + ( this.y * other.y ) + ( this.z * other.z );
+   }
+
+   /**
+    * Converts a double precision vector to single precision, rounding each component to the nearest float.
+    *
+    * @param v the vector to convert. Cannot be <code>null</code>.
+    * @return the single precision vector.
+    */
+   public static Vector3f from( final Vector3 v )
+   {
+      return new Vector3f( (float) v.x, (float) v.y, (float) v.z );
+   }
+
+   /**
+    * Converts this vector to double precision. The conversion is exact.
+    *
+    * @return the double precision vector.
+    */
+   public Vector3 toDouble()
+   {
+      return new Vector3( this.x, this.y, this.z );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return String.format( "[%.3f, %.3f, %.3f]", this.x, this.y, this.z ); //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,85 @@
+package uk.co.eduardo.math.geom;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits instrumented operations as JDK Flight Recorder events named <code>uk.co.eduardo.math.Operation</code>. The events are
+ * enabled by default, so any recording captures them, for example one started with <code>-XX:StartFlightRecording</code>.
+ * When no recording is running {@link #begin()} returns <code>null</code> and the event is not timed.
+ * <p>
+ * Only present in the Java 17 part of the multi-release jar, and only loaded by {@link Instrumentation} once instrumentation
+ * is used.
+ * </p>
+ *
+ * @author erodri02
+ */
+final class FlightRecorder implements Recorder
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Object begin()
+   {
+      final OperationEvent event = new OperationEvent();
+      if( !event.isEnabled() )
+      {
+         return null;
+      }
+      event.begin();
+      return event;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void end( final Object event, final String operation, final long items, final long allocatedBytes )
+   {
+      final OperationEvent operationEvent = (OperationEvent) event;
+      operationEvent.end();
+      if( operationEvent.shouldCommit() )
+      {
+         operationEvent.operation = operation;
+         operationEvent.items = items;
+         operationEvent.allocated = allocatedBytes;
+         operationEvent.commit();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return "FlightRecorder"; //$NON-NLS-1$
+   }
+
+   /**
+    * A call of an instrumented operation.
+    */
+   @Name( "uk.co.eduardo.math.Operation" )
+   @Label( "Geometry Operation" )
+   @Category( "Geometry" )
+   @Description( "A call of an instrumented bulk or index operation" )
+   static final class OperationEvent extends Event
+   {
+      @Label( "Operation" )
+      String operation;
+
+      @Label( "Items" )
+      @Description( "The number of elements processed" )
+      long items;
+
+      @Label( "Allocated" )
+      @Description( "The bytes allocated by the calling thread" )
+      @DataAmount
+      long allocated;
+   }
+}
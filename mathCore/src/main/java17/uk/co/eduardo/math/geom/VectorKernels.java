@@ -0,0 +1,210 @@
+package uk.co.eduardo.math.geom;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementations of the bulk kernels written with the incubating JDK Vector API, which process as many coordinates per
+ * instruction as the CPU's preferred vector width holds. Each lane performs the same operations in the same order as the
+ * scalar loop, so the results are identical. The elements left over at the end of a range are handled by the scalar loops.
+ * <p>
+ * Only present in the Java 17 part of the multi-release jar, and only loaded by {@link Kernels} when the
+ * <code>jdk.incubator.vector</code> module is resolved.
+ * </p>
+ *
+ * @author erodri02
+ */
+final class VectorKernels extends ScalarKernels
+{
+   private static final VectorSpecies< Double > SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+   /**
+    * Initializes a new VectorKernels object.
+    *
+    * @throws UnsupportedOperationException if the CPU cannot hold more than one double in a vector register, in which case the
+    *            Vector API would be slower than the scalar loops.
+    */
+   VectorKernels()
+   {
+      if( SPECIES.length() < 2 )
+      {
+         throw new UnsupportedOperationException( "No vector registers for doubles" ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void dot( final double[] ax,
+                    final double[] ay,
+                    final double[] az,
+                    final double[] bx,
+                    final double[] by,
+                    final double[] bz,
+                    final double[] result,
+                    final int from,
+                    final int to )
+   {
+      final int step = SPECIES.length();
+      final int bound = from + SPECIES.loopBound( to - from );
+      int i = from;
+      for( ; i < bound; i += step )
+      {
+         final DoubleVector x = DoubleVector.fromArray( SPECIES, ax, i ).mul( DoubleVector.fromArray( SPECIES, bx, i ) );
+         final DoubleVector y = DoubleVector.fromArray( SPECIES, ay, i ).mul( DoubleVector.fromArray( SPECIES, by, i ) );
+         final DoubleVector z = DoubleVector.fromArray( SPECIES, az, i ).mul( DoubleVector.fromArray( SPECIES, bz, i ) );
+         x.add( y ).add( z ).intoArray( result, i );
+      }
+      super.dot( ax, ay, az, bx, by, bz, result, i, to );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void cross( final double[] ax,
+                      final double[] ay,
+                      final double[] az,
+                      final double[] bx,
+                      final double[] by,
+                      final double[] bz,
+                      final double[] rx,
+                      final double[] ry,
+                      final double[] rz,
+                      final int from,
+                      final int to )
+   {
+      final int step = SPECIES.length();
+      final int bound = from + SPECIES.loopBound( to - from );
+      int i = from;
+      for( ; i < bound; i += step )
+      {
+         final DoubleVector x0 = DoubleVector.fromArray( SPECIES, ax, i );
+         final DoubleVector y0 = DoubleVector.fromArray( SPECIES, ay, i );
+         final DoubleVector z0 = DoubleVector.fromArray( SPECIES, az, i );
+         final DoubleVector x1 = DoubleVector.fromArray( SPECIES, bx, i );
+         final DoubleVector y1 = DoubleVector.fromArray( SPECIES, by, i );
+         final DoubleVector z1 = DoubleVector.fromArray( SPECIES, bz, i );
+         y0.mul( z1 ).sub( z0.mul( y1 ) ).intoArray( rx, i );
+         z0.mul( x1 ).sub( x0.mul( z1 ) ).intoArray( ry, i );
+         x0.mul( y1 ).sub( y0.mul( x1 ) ).intoArray( rz, i );
+      }
+      super.cross( ax, ay, az, bx, by, bz, rx, ry, rz, i, to );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void normalize( final double[] vx,
+                          final double[] vy,
+                          final double[] vz,
+                          final double[] rx,
+                          final double[] ry,
+                          final double[] rz,
+                          final int from,
+                          final int to )
+   {
+      final int step = SPECIES.length();
+      final int bound = from + SPECIES.loopBound( to - from );
+      int i = from;
+      for( ; i < bound; i += step )
+      {
+         final DoubleVector x = DoubleVector.fromArray( SPECIES, vx, i );
+         final DoubleVector y = DoubleVector.fromArray( SPECIES, vy, i );
+         final DoubleVector z = DoubleVector.fromArray( SPECIES, vz, i );
+         final DoubleVector length = x.mul( x ).add( y.mul( y ) ).add( z.mul( z ) ).sqrt();
+         x.div( length ).intoArray( rx, i );
+         y.div( length ).intoArray( ry, i );
+         z.div( length ).intoArray( rz, i );
+      }
+      super.normalize( vx, vy, vz, rx, ry, rz, i, to );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void mul( final Matrix3 m,
+                    final double[] srcX,
+                    final double[] srcY,
+                    final double[] srcZ,
+                    final double[] dstX,
+                    final double[] dstY,
+                    final double[] dstZ,
+                    final int from,
+                    final int to )
+   {
+      final DoubleVector m00 = DoubleVector.broadcast( SPECIES, m.a00 );
+      final DoubleVector m01 = DoubleVector.broadcast( SPECIES, m.a01 );
+      final DoubleVector m02 = DoubleVector.broadcast( SPECIES, m.a02 );
+      final DoubleVector m10 = DoubleVector.broadcast( SPECIES, m.a10 );
+      final DoubleVector m11 = DoubleVector.broadcast( SPECIES, m.a11 );
+      final DoubleVector m12 = DoubleVector.broadcast( SPECIES, m.a12 );
+      final DoubleVector m20 = DoubleVector.broadcast( SPECIES, m.a20 );
+      final DoubleVector m21 = DoubleVector.broadcast( SPECIES, m.a21 );
+      final DoubleVector m22 = DoubleVector.broadcast( SPECIES, m.a22 );
+      final int step = SPECIES.length();
+      final int bound = from + SPECIES.loopBound( to - from );
+      int i = from;
+      for( ; i < bound; i += step )
+      {
+         final DoubleVector x = DoubleVector.fromArray( SPECIES, srcX, i );
+         final DoubleVector y = DoubleVector.fromArray( SPECIES, srcY, i );
+         final DoubleVector z = DoubleVector.fromArray( SPECIES, srcZ, i );
+         m00.mul( x ).add( m01.mul( y ) ).add( m02.mul( z ) ).intoArray( dstX, i );
+         m10.mul( x ).add( m11.mul( y ) ).add( m12.mul( z ) ).intoArray( dstY, i );
+         m20.mul( x ).add( m21.mul( y ) ).add( m22.mul( z ) ).intoArray( dstZ, i );
+      }
+      super.mul( m, srcX, srcY, srcZ, dstX, dstY, dstZ, i, to );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void extent( final double[] xs, final double[] ys, final double[] zs, final int from, final int to, final double[] extent )
+   {
+      final int step = SPECIES.length();
+      final int bound = from + SPECIES.loopBound( to - from );
+      if( bound > from )
+      {
+         DoubleVector x0 = DoubleVector.broadcast( SPECIES, extent[ 0 ] );
+         DoubleVector y0 = DoubleVector.broadcast( SPECIES, extent[ 1 ] );
+         DoubleVector z0 = DoubleVector.broadcast( SPECIES, extent[ 2 ] );
+         DoubleVector x1 = DoubleVector.broadcast( SPECIES, extent[ 3 ] );
+         DoubleVector y1 = DoubleVector.broadcast( SPECIES, extent[ 4 ] );
+         DoubleVector z1 = DoubleVector.broadcast( SPECIES, extent[ 5 ] );
+         for( int i = from; i < bound; i += step )
+         {
+            final DoubleVector x = DoubleVector.fromArray( SPECIES, xs, i );
+            final DoubleVector y = DoubleVector.fromArray( SPECIES, ys, i );
+            final DoubleVector z = DoubleVector.fromArray( SPECIES, zs, i );
+            x0 = x0.min( x );
+            y0 = y0.min( y );
+            z0 = z0.min( z );
+            x1 = x1.max( x );
+            y1 = y1.max( y );
+            z1 = z1.max( z );
+         }
+         extent[ 0 ] = x0.reduceLanes( VectorOperators.MIN );
+         extent[ 1 ] = y0.reduceLanes( VectorOperators.MIN );
+         extent[ 2 ] = z0.reduceLanes( VectorOperators.MIN );
+         extent[ 3 ] = x1.reduceLanes( VectorOperators.MAX );
+         extent[ 4 ] = y1.reduceLanes( VectorOperators.MAX );
+         extent[ 5 ] = z1.reduceLanes( VectorOperators.MAX );
+      }
+      super.extent( xs, ys, zs, bound, to, extent );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return "vector " + SPECIES; //$NON-NLS-1$
+   }
+}
@@ -0,0 +1,117 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests 3D bounding boxes
+ *
+ * @author erodri02
+ */
+public class TestBoundingBox3
+{
+   private static final int SIZE = 10000;
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static List< Vector3 > randomPoints( final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< Vector3 > points = new ArrayList<>( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.add( new Vector3( random.nextGaussian() * 100, random.nextGaussian() * 10, random.nextGaussian() + 50 ) );
+      }
+      return points;
+   }
+
+   private static BoundingBox3 foldUnion( final List< Vector3 > points )
+   {
+      BoundingBox3 box = new BoundingBox3();
+      for( final Vector3 p : points )
+      {
+         box = box.union( p );
+      }
+      return box;
+   }
+
+   private static void assertBox( final BoundingBox3 expected, final BoundingBox3 actual )
+   {
+      Assert.assertEquals( expected.start.x, actual.start.x, 0 );
+      Assert.assertEquals( expected.start.y, actual.start.y, 0 );
+      Assert.assertEquals( expected.start.z, actual.start.z, 0 );
+      Assert.assertEquals( expected.end.x, actual.end.x, 0 );
+      Assert.assertEquals( expected.end.y, actual.end.y, 0 );
+      Assert.assertEquals( expected.end.z, actual.end.z, 0 );
+   }
+
+   /**
+    * Tests that every way of computing the bounding box of some points agrees with folding union over them.
+    */
+   @Test
+   public void testFromPoints()
+   {
+      final List< Vector3 > points = randomPoints( 1 );
+      final BoundingBox3 expected = foldUnion( points );
+      final Vector3Buffer buffer = Vector3Buffer.fromPoints( points );
+      final double[] interleaved = new double[ 3 * SIZE ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         interleaved[ 3 * i ] = buffer.x[ i ];
+         interleaved[ ( 3 * i ) + 1 ] = buffer.y[ i ];
+         interleaved[ ( 3 * i ) + 2 ] = buffer.z[ i ];
+      }
+
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         assertBox( expected, BoundingBox3.fromPoints( points ) );
+         assertBox( expected, BoundingBox3.fromPoints( buffer ) );
+         assertBox( expected, BoundingBox3.fromPoints( interleaved, 0, SIZE ) );
+         assertBox( expected, points.parallelStream().collect( BoundingBox3.collector() ) );
+      }
+
+      assertBox( foldUnion( points.subList( 10, 20 ) ), BoundingBox3.fromPoints( interleaved, 30, 10 ) );
+      assertBox( foldUnion( points.subList( 10, 20 ) ), BoundingBox3.fromPoints( buffer.x, buffer.y, buffer.z, 10, 10 ) );
+   }
+
+   /**
+    * Tests the bounding box of no points.
+    */
+   @Test
+   public void testEmpty()
+   {
+      Assert.assertTrue( BoundingBox3.fromPoints( Collections.< Vector3 > emptyList() ).isEmpty() );
+      Assert.assertTrue( BoundingBox3.fromPoints( new double[ 0 ], 0, 0 ).isEmpty() );
+      Assert.assertTrue( Collections.< Vector3 > emptyList().stream().collect( BoundingBox3.collector() ).isEmpty() );
+   }
+
+   /**
+    * Tests the union of two bounding boxes.
+    */
+   @Test
+   public void testUnionBox()
+   {
+      final List< Vector3 > a = randomPoints( 2 );
+      final List< Vector3 > b = randomPoints( 3 );
+      final List< Vector3 > all = new ArrayList<>( a );
+      all.addAll( b );
+
+      assertBox( foldUnion( all ), BoundingBox3.fromPoints( a ).union( BoundingBox3.fromPoints( b ) ) );
+      assertBox( foldUnion( a ), BoundingBox3.fromPoints( a ).union( new BoundingBox3() ) );
+      assertBox( foldUnion( a ), new BoundingBox3().union( BoundingBox3.fromPoints( a ) ) );
+   }
+}
@@ -0,0 +1,192 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests slab intersection of rays against packed boxes and of ray packets against one box
+ *
+ * @author erodri02
+ */
+public class TestBoundingBox3Buffer
+{
+   private static final double[] DIRECTIONS = { 1, -1, 0, -0.0, 0.5, -2 };
+
+   /**
+    * Creates boxes and rays on a coarse lattice, so that many rays are parallel to an axis and lie in the faces of boxes.
+    */
+   private static List< BoundingBox3 > boxes( final Random random, final int count )
+   {
+      final List< BoundingBox3 > boxes = new ArrayList<>();
+      for( int i = 0; i < count; i++ )
+      {
+         if( ( i % 23 ) == 0 )
+         {
+            boxes.add( new BoundingBox3() );
+            continue;
+         }
+         final Vector3 a = new Vector3( random.nextInt( 6 ), random.nextInt( 6 ), random.nextInt( 6 ) );
+         final Vector3 b = new Vector3( random.nextInt( 6 ), random.nextInt( 6 ), random.nextInt( 6 ) );
+         boxes.add( new BoundingBox3().union( a ).union( b ) );
+      }
+      return boxes;
+   }
+
+   private static Ray3 ray( final Random random )
+   {
+      final Vector3 origin = new Vector3( random.nextInt( 8 ) - 1, random.nextInt( 8 ) - 1, random.nextInt( 8 ) - 1 );
+      final Vector3 direction = new Vector3( direction( random ), direction( random ), direction( random ) );
+      return new Ray3( origin, direction );
+   }
+
+   private static double direction( final Random random )
+   {
+      final int k = random.nextInt( DIRECTIONS.length + 1 );
+      return ( k == DIRECTIONS.length ) ? random.nextGaussian() : DIRECTIONS[ k ];
+   }
+
+   /**
+    * Calculates the exit distance of a ray from a box with the minimum and maximum of each slab. An infinite maximum distance
+    * is reported as the largest finite one.
+    */
+   private static double exit( final Ray3 ray, final BoundingBox3 box, final double maxDistance )
+   {
+      final double[] o = { ray.origin.x, ray.origin.y, ray.origin.z };
+      final double[] inv = { ray.invX, ray.invY, ray.invZ };
+      final double[] lo = { box.start.x, box.start.y, box.start.z };
+      final double[] hi = { box.end.x, box.end.y, box.end.z };
+      double far = Math.min( maxDistance, Double.MAX_VALUE );
+      for( int axis = 0; axis < 3; axis++ )
+      {
+         final double t = Math.max( ( lo[ axis ] - o[ axis ] ) * inv[ axis ], ( hi[ axis ] - o[ axis ] ) * inv[ axis ] );
+         far = ( t < far ) ? t : far;
+      }
+      return far;
+   }
+
+   /**
+    * Tests one ray against many boxes, and the nearest box, against the single box slab test of {@link Ray3}.
+    */
+   @Test
+   public void testIntersect()
+   {
+      final Random random = new Random( 1 );
+      final List< BoundingBox3 > boxes = boxes( random, 300 );
+      final BoundingBox3Buffer buffer = BoundingBox3Buffer.fromBoxes( boxes );
+      final double[] entries = new double[ boxes.size() ];
+      final double[] exits = new double[ boxes.size() ];
+      final double[] result = new double[ 2 ];
+      for( int r = 0; r < 500; r++ )
+      {
+         final Ray3 ray = ray( random );
+         final double maxDistance = ( ( r % 2 ) == 0 ) ? Double.POSITIVE_INFINITY : 4;
+         final int hits = buffer.intersect( ray, maxDistance, entries, exits );
+         int expectedHits = 0;
+         int nearest = -1;
+         for( int i = 0; i < boxes.size(); i++ )
+         {
+            final double entry = ray.intersect( boxes.get( i ) );
+            final boolean hit = ( entry != Double.POSITIVE_INFINITY ) && ( entry <= maxDistance );
+            Assert.assertEquals( hit, entries[ i ] <= exits[ i ] );
+            if( hit )
+            {
+               expectedHits++;
+               Assert.assertEquals( entry, entries[ i ], 0 );
+               Assert.assertEquals( exit( ray, boxes.get( i ), maxDistance ), exits[ i ], 0 );
+               nearest = ( ( nearest < 0 ) || ( entry < entries[ nearest ] ) ) ? i : nearest;
+            }
+         }
+         Assert.assertEquals( expectedHits, hits );
+         Assert.assertEquals( nearest, buffer.nearest( ray, maxDistance, result ) );
+         if( nearest >= 0 )
+         {
+            Assert.assertEquals( entries[ nearest ], result[ 0 ], 0 );
+            Assert.assertEquals( exits[ nearest ], result[ 1 ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests axis-parallel rays that lie in the faces and along the edges of a box, and rays pointing away from it.
+    */
+   @Test
+   public void testAxisParallel()
+   {
+      final BoundingBox3Buffer buffer = new BoundingBox3Buffer( 2 );
+      buffer.set( 0, 0, 0, 0, 1, 1, 1 );
+      final double[] entries = new double[ 2 ];
+      final double[] exits = new double[ 2 ];
+
+      // In the face x = 0, along the edge y = z = 0, and with a negative zero direction component
+      Assert.assertEquals( 1, buffer.intersect( new Ray3( new Vector3( 0, 0.5, -1 ), new Vector3( 0, 0, 1 ) ), 10, entries, exits ) );
+      Assert.assertEquals( 1, entries[ 0 ], 0 );
+      Assert.assertEquals( 2, exits[ 0 ], 0 );
+      Assert.assertEquals( 1, buffer.intersect( new Ray3( new Vector3( -1, 0, 0 ), new Vector3( 1, 0, 0 ) ), 10, entries, exits ) );
+      Assert.assertEquals( 1, entries[ 0 ], 0 );
+      Assert.assertEquals( 1, buffer.intersect( new Ray3( new Vector3( 2, 1, 0.5 ), new Vector3( -1, -0.0, 0 ) ), 10, entries, exits ) );
+      Assert.assertEquals( 2, exits[ 0 ], 0 );
+
+      // Just outside a face, towards the box but out of range, and pointing away
+      Assert.assertEquals( 0, buffer.intersect( new Ray3( new Vector3( 1.5, 0.5, -1 ), new Vector3( 0, -0.0, 1 ) ), 10, entries, exits ) );
+      Assert.assertEquals( 0, buffer.intersect( new Ray3( new Vector3( -1, 0.5, 0.5 ), new Vector3( 1, 0, 0 ) ), 0.5, entries, exits ) );
+      Assert.assertEquals( 0, buffer.intersect( new Ray3( new Vector3( -1, 0.5, 0.5 ), new Vector3( -1, 0, 0 ) ), 10, entries, exits ) );
+      Assert.assertTrue( buffer.get( 1 ).isEmpty() );
+      Assert.assertEquals( -1, buffer.nearest( new Ray3( new Vector3( 5, 5, 5 ), new Vector3( 1, 1, 1 ) ), 10, null ) );
+   }
+
+   /**
+    * Tests a packet of rays against one box against testing each ray on its own.
+    */
+   @Test
+   public void testPacket()
+   {
+      final Random random = new Random( 2 );
+      final List< Ray3 > rays = new ArrayList<>();
+      for( int r = 0; r < 200; r++ )
+      {
+         rays.add( ray( random ) );
+      }
+      final RayPacket3 packet = new RayPacket3( rays );
+      Assert.assertEquals( rays.get( 3 ).origin.z, packet.get( 3 ).origin.z, 0 );
+      Assert.assertEquals( rays.get( 3 ).direction.x, packet.get( 3 ).direction.x, 0 );
+      final List< BoundingBox3 > boxes = boxes( random, 50 );
+      final BoundingBox3Buffer buffer = BoundingBox3Buffer.fromBoxes( boxes );
+      final double[] entries = new double[ rays.size() ];
+      final double[] exits = new double[ rays.size() ];
+      final double[] bufferEntries = new double[ rays.size() ];
+      final double[] bufferExits = new double[ rays.size() ];
+      for( int b = 0; b < boxes.size(); b++ )
+      {
+         final BoundingBox3 box = boxes.get( b );
+         final int hits = packet.intersect( box, Double.POSITIVE_INFINITY, entries, exits );
+         Assert.assertEquals( hits, packet.intersect( buffer, b, Double.POSITIVE_INFINITY, bufferEntries, bufferExits ) );
+         int expectedHits = 0;
+         for( int r = 0; r < rays.size(); r++ )
+         {
+            final double entry = rays.get( r ).intersect( box );
+            Assert.assertEquals( entry != Double.POSITIVE_INFINITY, entries[ r ] <= exits[ r ] );
+            if( entry != Double.POSITIVE_INFINITY )
+            {
+               expectedHits++;
+               Assert.assertEquals( entry, entries[ r ], 0 );
+               Assert.assertEquals( exit( rays.get( r ), box, Double.POSITIVE_INFINITY ), exits[ r ], 0 );
+            }
+            Assert.assertEquals( entries[ r ], bufferEntries[ r ], 0 );
+         }
+         Assert.assertEquals( expectedHits, hits );
+      }
+   }
+
+   /**
+    * Tests that output arrays shorter than the buffer are rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testOutputTooShort()
+   {
+      new BoundingBox3Buffer( 3 ).intersect( new Ray3( Vector3.ZERO, new Vector3( 1, 0, 0 ) ), 1, new double[ 3 ], new double[ 2 ] );
+   }
+}
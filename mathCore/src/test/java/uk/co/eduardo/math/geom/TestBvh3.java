@@ -0,0 +1,202 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests bounding volume hierarchies
+ *
+ * @author erodri02
+ */
+public class TestBvh3
+{
+   private static final int SIZE = 2000;
+
+   private static BoundingBox3 randomBox( final Random random )
+   {
+      final Vector3 corner = new Vector3( random.nextInt( 100 ), random.nextInt( 100 ), random.nextInt( 100 ) );
+      final Vector3 size = new Vector3( 1 + random.nextInt( 4 ), 1 + random.nextInt( 4 ), 1 + random.nextInt( 4 ) );
+      return BoundingBox3.fromPoints( Arrays.asList( corner, corner.add( size ) ) );
+   }
+
+   private static List< BoundingBox3 > randomBoxes( final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< BoundingBox3 > boxes = new ArrayList<>( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         boxes.add( randomBox( random ) );
+      }
+      return boxes;
+   }
+
+   private static Ray3 randomRay( final Random random )
+   {
+      final Vector3 origin = new Vector3( random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100 );
+      final Vector3 direction = new Vector3( random.nextGaussian(), random.nextGaussian(), random.nextGaussian() );
+      return new Ray3( origin, direction );
+   }
+
+   private static void assertRaycast( final Bvh3 bvh, final List< BoundingBox3 > boxes, final Ray3 ray )
+   {
+      double expected = Double.POSITIVE_INFINITY;
+      for( final BoundingBox3 box : boxes )
+      {
+         expected = Math.min( expected, ray.intersect( box ) );
+      }
+
+      final RayHit hit = new RayHit();
+      final boolean isHit = bvh.raycast( ray, Double.POSITIVE_INFINITY, hit );
+      Assert.assertEquals( expected != Double.POSITIVE_INFINITY, isHit );
+      Assert.assertEquals( isHit, bvh.intersects( ray, Double.POSITIVE_INFINITY ) );
+      Assert.assertEquals( expected, hit.getDistance(), 0 );
+      if( isHit )
+      {
+         Assert.assertEquals( expected, ray.intersect( boxes.get( hit.getIndex() ) ), 0 );
+      }
+   }
+
+   /**
+    * Tests that ray casts agree with testing every box.
+    */
+   @Test
+   public void testRaycast()
+   {
+      final List< BoundingBox3 > boxes = randomBoxes( 1 );
+      final Bvh3 bvh = Bvh3.fromBoxes( boxes );
+      final Random random = new Random( 2 );
+      for( int i = 0; i < 500; i++ )
+      {
+         assertRaycast( bvh, boxes, randomRay( random ) );
+      }
+   }
+
+   /**
+    * Tests that empty boxes are never hit or overlapped, including in a hierarchy of only empty boxes.
+    */
+   @Test
+   public void testEmptyBoxes()
+   {
+      final List< BoundingBox3 > boxes = randomBoxes( 5 );
+      for( int i = 0; i < SIZE; i += 7 )
+      {
+         boxes.set( i, new BoundingBox3() );
+      }
+      final Bvh3 bvh = Bvh3.fromBoxes( boxes );
+      final Random random = new Random( 6 );
+      for( int i = 0; i < 500; i++ )
+      {
+         assertRaycast( bvh, boxes, randomRay( random ) );
+      }
+      final BoundingBox3 query = BoundingBox3.fromPoints( Arrays.asList( new Vector3( -1, -1, -1 ), new Vector3( 200, 200, 200 ) ) );
+      final int found = bvh.overlapping( query, index -> Assert.assertFalse( boxes.get( index ).isEmpty() ) );
+      Assert.assertEquals( SIZE - ( ( SIZE + 6 ) / 7 ), found );
+
+      final Bvh3 empty = Bvh3.fromBoxes( Arrays.asList( new BoundingBox3(), new BoundingBox3() ) );
+      final RayHit hit = new RayHit();
+      final Ray3 diagonal = new Ray3( new Vector3( -1, -1, -1 ), new Vector3( 1, 1, 1 ) );
+      Assert.assertFalse( empty.raycast( diagonal, Double.POSITIVE_INFINITY, hit ) );
+      Assert.assertFalse( empty.intersects( new Ray3( Vector3.ZERO, Vector3.X ), Double.POSITIVE_INFINITY ) );
+   }
+
+   /**
+    * Tests axis-parallel rays that lie in the faces of boxes.
+    */
+   @Test
+   public void testAxisParallel()
+   {
+      final BoundingBox3 box = BoundingBox3.fromPoints( Arrays.asList( new Vector3( 1, 1, 1 ), new Vector3( 2, 2, 2 ) ) );
+      final Bvh3 bvh = Bvh3.fromBoxes( Arrays.asList( box ) );
+      final RayHit hit = new RayHit();
+
+      Assert.assertTrue( bvh.raycast( new Ray3( new Vector3( 0, 1, 1 ), Vector3.X ), Double.POSITIVE_INFINITY, hit ) );
+      Assert.assertEquals( 1, hit.getDistance(), 0 );
+      Assert.assertTrue( bvh.raycast( new Ray3( new Vector3( 3, 2, 1.5 ), new Vector3( -1, 0, 0 ) ), 10, hit ) );
+      Assert.assertEquals( 1, hit.getDistance(), 0 );
+      Assert.assertFalse( bvh.raycast( new Ray3( new Vector3( 0, 2.5, 1 ), Vector3.X ), Double.POSITIVE_INFINITY, hit ) );
+      Assert.assertFalse( hit.isHit() );
+      Assert.assertFalse( bvh.raycast( new Ray3( new Vector3( 0, 1, 1 ), Vector3.X ), 0.5, hit ) );
+   }
+
+   /**
+    * Tests segment queries.
+    */
+   @Test
+   public void testSegment()
+   {
+      final List< BoundingBox3 > boxes = randomBoxes( 3 );
+      final Bvh3 bvh = Bvh3.fromBoxes( boxes );
+      final Random random = new Random( 4 );
+      final RayHit hit = new RayHit();
+      for( int i = 0; i < 500; i++ )
+      {
+         final Ray3 ray = randomRay( random );
+         final LineSegment3 segment = new LineSegment3( ray.origin, ray.getPoint( 1 ) );
+         double expected = Double.POSITIVE_INFINITY;
+         for( final BoundingBox3 box : boxes )
+         {
+            final double t = ray.intersect( box );
+            if( t <= 1 )
+            {
+               expected = Math.min( expected, t );
+            }
+         }
+         Assert.assertEquals( expected != Double.POSITIVE_INFINITY, bvh.intersects( segment ) );
+         Assert.assertEquals( expected != Double.POSITIVE_INFINITY, bvh.raycast( segment, hit ) );
+         Assert.assertEquals( expected, hit.getDistance(), 1e-12 );
+      }
+   }
+
+   private static boolean overlaps( final BoundingBox3 a, final BoundingBox3 b )
+   {
+      return ( a.start.x <= b.end.x ) &&
+             ( a.end.x >= b.start.x ) &&
+             ( a.start.y <= b.end.y ) &&
+             ( a.end.y >= b.start.y ) &&
+             ( a.start.z <= b.end.z ) &&
+             ( a.end.z >= b.start.z );
+   }
+
+   /**
+    * Tests box overlap queries, before and after refitting moved boxes.
+    */
+   @Test
+   public void testOverlapAndRefit()
+   {
+      final List< BoundingBox3 > boxes = randomBoxes( 5 );
+      final Bvh3 bvh = Bvh3.fromBoxes( boxes );
+      final Random random = new Random( 6 );
+
+      for( int pass = 0; pass < 2; pass++ )
+      {
+         for( int i = 0; i < 100; i++ )
+         {
+            final BoundingBox3 query = randomBox( random );
+            final boolean[] found = new boolean[ SIZE ];
+            final int count = bvh.overlapping( query, index -> found[ index ] = true );
+            int expectedCount = 0;
+            for( int j = 0; j < SIZE; j++ )
+            {
+               Assert.assertEquals( overlaps( boxes.get( j ), query ), found[ j ] );
+               expectedCount += found[ j ] ? 1 : 0;
+            }
+            Assert.assertEquals( expectedCount, count );
+            assertRaycast( bvh, boxes, randomRay( random ) );
+         }
+
+         // Move every box and refit
+         for( int j = 0; j < SIZE; j++ )
+         {
+            final BoundingBox3 box = randomBox( random );
+            boxes.set( j, box );
+            bvh.setBox( j, box );
+         }
+         bvh.refit();
+      }
+   }
+}
@@ -0,0 +1,176 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the single precision vectors, matrices, bounding boxes and buffers
+ *
+ * @author erodri02
+ */
+public class TestFloatTypes
+{
+   private static final int SIZE = 1000;
+
+   private static List< Vector3f > randomPoints( final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< Vector3f > points = new ArrayList<>( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.add( new Vector3f( random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f ) );
+      }
+      return points;
+   }
+
+   private static void assertVector( final Vector3f expected, final Vector3fBuffer buffer, final int i )
+   {
+      Assert.assertEquals( expected.x, buffer.x[ i ], 0 );
+      Assert.assertEquals( expected.y, buffer.y[ i ], 0 );
+      Assert.assertEquals( expected.z, buffer.z[ i ], 0 );
+   }
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   /**
+    * Tests that the bulk operations match the scalar ones.
+    */
+   @Test
+   public void testBufferMatchesScalar()
+   {
+      final List< Vector3f > a = randomPoints( 1 );
+      final List< Vector3f > b = randomPoints( 2 );
+      final Vector3fBuffer bufferA = Vector3fBuffer.fromPoints( a );
+      final Vector3fBuffer bufferB = Vector3fBuffer.fromPoints( b );
+      final Vector3fBuffer result = new Vector3fBuffer( SIZE );
+      final float[] dots = new float[ SIZE ];
+
+      bufferA.add( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).add( b.get( i ) ), result, i );
+      }
+
+      bufferA.cross( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).cross( b.get( i ) ), result, i );
+      }
+
+      bufferA.normalize( result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).normalize(), result, i );
+      }
+
+      bufferA.dot( bufferB, dots );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         Assert.assertEquals( a.get( i ).dot( b.get( i ) ), dots[ i ], 0 );
+      }
+
+      final Matrix3f m = Matrix3f.createRotationMatrix( new Vector3f( 1, 2, 3 ).normalize(), 37 );
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         m.mul( bufferA, result );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            assertVector( m.mul( a.get( i ) ), result, i );
+         }
+         Assert.assertEquals( BoundingBox3f.fromPoints( a ).toString(), BoundingBox3f.fromPoints( bufferA ).toString() );
+      }
+   }
+
+   /**
+    * Tests conversions between single and double precision.
+    */
+   @Test
+   public void testConversions()
+   {
+      final Vector3 v = new Vector3( 0.1, -2.5, 1e-3 );
+      final Vector3f vf = Vector3f.from( v );
+      Assert.assertEquals( 0.1f, vf.x, 0 );
+      Assert.assertEquals( vf.x, vf.toDouble().x, 0 );
+      Assert.assertEquals( -2.5, Vector2f.from( new Vector2( 1, -2.5 ) ).toDouble().y, 0 );
+
+      final Matrix3 m = Matrix3.createRotationMatrix( Vector3.Z, 30 );
+      final Matrix3f mf = Matrix3f.from( m );
+      Assert.assertEquals( m.mul( v ).x, mf.mul( vf ).x, 1e-6 );
+      Assert.assertEquals( (float) m.a01, mf.toDouble().a01, 0 );
+      Assert.assertEquals( (float) Matrix2.createRotationMatrix( 30 ).a10, Matrix2f.from( Matrix2.createRotationMatrix( 30 ) ).a10, 0 );
+
+      final Vector3Buffer buffer = new Vector3Buffer( 3 );
+      buffer.set( 1, v );
+      final Vector3fBuffer bufferf = Vector3fBuffer.from( buffer );
+      Assert.assertEquals( 3, bufferf.size() );
+      Assert.assertEquals( 0.1f, bufferf.x[ 1 ], 0 );
+      Assert.assertEquals( (double) 0.1f, bufferf.toDouble().x[ 1 ], 0 );
+      final Vector2fBuffer buffer2f = Vector2fBuffer.from( new Vector2Buffer( new double[] { 0.1 }, new double[] { 0.2 } ) );
+      Assert.assertEquals( 0.2f, buffer2f.toDouble().y[ 0 ], 0 );
+
+      // Converted boxes must still contain the original corners
+      final BoundingBox3 box = new BoundingBox3().union( v ).union( new Vector3( 0.3, 0.7, -0.1 ) );
+      final BoundingBox3f boxf = BoundingBox3f.from( box );
+      Assert.assertTrue( boxf.start.x <= box.start.x );
+      Assert.assertTrue( boxf.start.z <= box.start.z );
+      Assert.assertTrue( boxf.end.x >= box.end.x );
+      Assert.assertTrue( boxf.end.y >= box.end.y );
+      Assert.assertTrue( boxf.end.z >= box.end.z );
+      Assert.assertEquals( boxf.start.x, boxf.toDouble().start.x, 0 );
+      Assert.assertTrue( BoundingBox3f.from( new BoundingBox3() ).isEmpty() );
+      Assert.assertTrue( new BoundingBox3f().toDouble().isEmpty() );
+   }
+
+   /**
+    * Tests that batch transforms of interleaved coordinates match the scalar ones.
+    */
+   @Test
+   public void testInterleaved()
+   {
+      final List< Vector3f > points = randomPoints( 3 );
+      final float[] coords = new float[ 3 * SIZE ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         coords[ 3 * i ] = points.get( i ).x;
+         coords[ ( 3 * i ) + 1 ] = points.get( i ).y;
+         coords[ ( 3 * i ) + 2 ] = points.get( i ).z;
+      }
+      final Matrix3f m = Matrix3f.createRotationMatrix( Vector3f.X, 20 );
+      final float[] result = new float[ 3 * SIZE ];
+      m.mul( coords, 0, result, 0, SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final Vector3f expected = m.mul( points.get( i ) );
+         Assert.assertEquals( expected.y, result[ ( 3 * i ) + 1 ], 0 );
+      }
+      final BoundingBox3f box = BoundingBox3f.fromPoints( coords, 0, SIZE );
+      Assert.assertEquals( BoundingBox3f.fromPoints( points ).toString(), box.toString() );
+
+      final Matrix2f m2 = Matrix2f.createRotationMatrix( 45 );
+      final float[] result2 = new float[ 2 ];
+      m2.mul( new float[] { 1, 0 }, 0, result2, 0, 1 );
+      Assert.assertEquals( m2.mul( Vector2f.X ).y, result2[ 1 ], 0 );
+   }
+
+   /**
+    * Tests that a buffer size mismatch is rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testSizeMismatch()
+   {
+      new Vector3fBuffer( 2 ).add( new Vector3fBuffer( 3 ), new Vector3fBuffer( 2 ) );
+   }
+}
@@ -0,0 +1,212 @@
+package uk.co.eduardo.math.geom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the binary geometry format
+ *
+ * @author erodri02
+ */
+public class TestGeometryFormat
+{
+   private static final double[] SPECIAL = { -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE, 1.0 / 3 };
+
+   private static void writeAll( final GeometryWriter writer, final double[] values ) throws IOException
+   {
+      writer.write( new Vector2( SPECIAL[ 0 ], SPECIAL[ 1 ] ) );
+      writer.write( new Vector3( SPECIAL[ 2 ], SPECIAL[ 3 ], SPECIAL[ 4 ] ) );
+      writer.write( new Matrix2( 1, 2, 3, 4 ) );
+      writer.write( new Matrix3( 1, 2, 3, 4, 5, 6, 7, 8, 1.0 / 3 ) );
+      writer.write( new BoundingBox2() );
+      writer.write( new BoundingBox2().union( new Vector2( -1, 2 ) ).union( new Vector2( 3, -4 ) ) );
+      writer.write( new BoundingBox3() );
+      writer.write( new BoundingBox3().union( new Vector3( -1, 2, 5 ) ) );
+      writer.write( new LineSegment2( new Vector2( 1, 2 ), new Vector2( 3, 4 ) ) );
+      writer.write( new LineSegment3( new Vector3( 1, 2, 3 ), new Vector3( 4, 5, 6 ) ) );
+      final PointStatistics3 statistics = new PointStatistics3();
+      writer.write( statistics );
+      statistics.add( 1, 2, 3 );
+      statistics.add( 4, -5, 6 );
+      writer.write( statistics );
+      writer.write( values, 0, values.length );
+      writer.write( new Vector3( 7, 8, 9 ) );
+   }
+
+   private static void readAll( final GeometryReader reader, final double[] values ) throws IOException
+   {
+      final Vector2 v2 = reader.readVector2();
+      Assert.assertEquals( Double.doubleToRawLongBits( -0.0 ), Double.doubleToRawLongBits( v2.x ) );
+      Assert.assertTrue( Double.isNaN( v2.y ) );
+      final Vector3 v3 = reader.readVector3();
+      Assert.assertEquals( Double.POSITIVE_INFINITY, v3.x, 0 );
+      Assert.assertEquals( Double.MIN_VALUE, v3.y, 0 );
+      Assert.assertEquals( 1.0 / 3, v3.z, 0 );
+      Assert.assertEquals( 4, reader.readMatrix2().a11, 0 );
+      final Matrix3 m3 = reader.readMatrix3();
+      Assert.assertEquals( 2, m3.a01, 0 );
+      Assert.assertEquals( 1.0 / 3, m3.a22, 0 );
+      Assert.assertTrue( reader.readBoundingBox2().isEmpty() );
+      final BoundingBox2 box2 = reader.readBoundingBox2();
+      Assert.assertEquals( -4, box2.start.y, 0 );
+      Assert.assertEquals( 3, box2.end.x, 0 );
+      Assert.assertTrue( reader.readBoundingBox3().isEmpty() );
+      Assert.assertEquals( 5, reader.readBoundingBox3().end.z, 0 );
+      Assert.assertEquals( 4, reader.readLineSegment2().end.y, 0 );
+      Assert.assertEquals( 6, reader.readLineSegment3().end.z, 0 );
+      Assert.assertTrue( reader.readPointStatistics3().getBounds().isEmpty() );
+      final PointStatistics3 statistics = reader.readPointStatistics3();
+      Assert.assertEquals( 2, statistics.getCount() );
+      Assert.assertEquals( -1.5, statistics.getMean().y, 0 );
+      Assert.assertEquals( 12.25, statistics.getCovariance().a11, 0 );
+      Assert.assertEquals( GeometryFormat.DOUBLES, reader.nextType() );
+      Assert.assertArrayEquals( values, reader.readDoubles(), 0 );
+      Assert.assertEquals( 9, reader.readVector3().z, 0 );
+      Assert.assertEquals( GeometryFormat.END, reader.nextType() );
+   }
+
+   private static double[] randomValues( final int size )
+   {
+      final Random random = new Random( 6 );
+      final double[] values = new double[ size ];
+      for( int i = 0; i < size; i++ )
+      {
+         values[ i ] = random.nextGaussian();
+      }
+      return values;
+   }
+
+   /**
+    * Tests writing and reading every record type through a buffer.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testBuffer() throws IOException
+   {
+      final double[] values = randomValues( 1001 );
+      final ByteBuffer buffer = ByteBuffer.allocate( 1 << 16 );
+      final GeometryWriter writer = new GeometryWriter( buffer );
+      writeAll( writer, values );
+      Assert.assertEquals( buffer.position(), writer.position() );
+      buffer.flip();
+      readAll( new GeometryReader( buffer ), values );
+   }
+
+   /**
+    * Tests writing and reading every record type through channels, with an array larger than the internal buffers.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testChannel() throws IOException
+   {
+      final double[] values = randomValues( 100000 );
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try( GeometryWriter writer = new GeometryWriter( Channels.newChannel( out ) ) )
+      {
+         writeAll( writer, values );
+      }
+      try( GeometryReader reader = new GeometryReader( Channels.newChannel( new ByteArrayInputStream( out.toByteArray() ) ) ) )
+      {
+         readAll( reader, values );
+      }
+   }
+
+   /**
+    * Tests that packed arrays read from a buffer are aligned views of it rather than copies.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testZeroCopy() throws IOException
+   {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect( 1024 );
+      final GeometryWriter writer = new GeometryWriter( buffer );
+      writer.write( new Vector2( 1, 2 ) );
+      writer.write( new double[] { 1, 2, 3 }, 0, 3 );
+      buffer.flip();
+
+      final GeometryReader reader = new GeometryReader( buffer );
+      reader.readVector2();
+      final long position = reader.position();
+      final DoubleBuffer view = reader.readDoubleBuffer();
+      Assert.assertEquals( 3, view.remaining() );
+      Assert.assertEquals( 0, ( reader.position() - ( 3 * Double.BYTES ) ) % Double.BYTES );
+      Assert.assertTrue( reader.position() > ( position + 4 ) );
+      buffer.putDouble( buffer.position() - Double.BYTES, 42 );
+      Assert.assertEquals( 42, view.get( 2 ), 0 );
+   }
+
+   /**
+    * Tests that reading the wrong record type or a stream without a header fails.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testErrors() throws IOException
+   {
+      final ByteBuffer buffer = ByteBuffer.allocate( 64 );
+      new GeometryWriter( buffer ).write( new Vector2( 1, 2 ) );
+      buffer.flip();
+      try
+      {
+         new GeometryReader( buffer ).readVector3();
+         Assert.fail();
+      }
+      catch( final IOException e )
+      {
+         Assert.assertEquals( "Expected Vector3 but found Vector2", e.getMessage() ); //$NON-NLS-1$
+      }
+      try
+      {
+         new GeometryReader( ByteBuffer.wrap( new byte[ 16 ] ) );
+         Assert.fail();
+      }
+      catch( final IOException e )
+      {
+         Assert.assertTrue( e.getMessage().startsWith( "Not a geometry stream" ) ); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * Tests that writing past the end of a buffer throws an exception, leaving the buffer as it was before the record.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testBufferOverflow() throws IOException
+   {
+      final ByteBuffer buffer = ByteBuffer.allocate( 64 );
+      final GeometryWriter writer = new GeometryWriter( buffer );
+      writer.write( new double[ 4 ], 0, 4 );
+      final int position = buffer.position();
+      try
+      {
+         writer.write( new double[ 100 ], 0, 100 );
+         Assert.fail();
+      }
+      catch( final BufferOverflowException e )
+      {
+         Assert.assertEquals( position, buffer.position() );
+      }
+      try
+      {
+         writer.write( new Vector3( 1, 2, 3 ) );
+         Assert.fail();
+      }
+      catch( final BufferOverflowException e )
+      {
+         Assert.assertEquals( position, buffer.position() );
+      }
+   }
+}
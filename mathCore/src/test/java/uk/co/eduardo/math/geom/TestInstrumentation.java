@@ -0,0 +1,115 @@
+package uk.co.eduardo.math.geom;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests instrumentation of bulk and index operations
+ *
+ * @author erodri02
+ */
+public class TestInstrumentation
+{
+   private static final int SIZE = 1000;
+
+   private static Vector3Buffer randomPoints()
+   {
+      final Random random = new Random( 1 );
+      final Vector3Buffer points = new Vector3Buffer( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.set( i, random.nextDouble(), random.nextDouble(), random.nextDouble() );
+      }
+      return points;
+   }
+
+   private static OperationMXBean find( final String name )
+   {
+      for( final OperationMXBean operation : Instrumentation.getOperations() )
+      {
+         if( operation.getName().equals( name ) )
+         {
+            return operation;
+         }
+      }
+      throw new AssertionError( name );
+   }
+
+   /**
+    * Disables instrumentation again.
+    */
+   @After
+   public void tearDown()
+   {
+      Instrumentation.setEnabled( false );
+   }
+
+   /**
+    * Tests that nothing is recorded while instrumentation is disabled.
+    */
+   @Test
+   public void testDisabled()
+   {
+      Assert.assertFalse( Instrumentation.isEnabled() );
+      final Vector3Buffer points = randomPoints();
+      KdTree3.fromPoints( points );
+      Matrix3.IDENTITY.mul( points, points );
+      final OperationMXBean build = find( "KdTree3.build" ); //$NON-NLS-1$
+      final OperationMXBean mul = find( "Matrix3.mul" ); //$NON-NLS-1$
+      build.reset();
+      mul.reset();
+      KdTree3.fromPoints( points );
+      Matrix3.IDENTITY.mul( points, points );
+      Assert.assertEquals( 0, build.getCalls() );
+      Assert.assertEquals( 0, mul.getTotalNanos() );
+   }
+
+   /**
+    * Tests that calls are counted while instrumentation is enabled, and that the counters are published through JMX.
+    *
+    * @throws MalformedObjectNameException never.
+    */
+   @Test
+   public void testEnabled() throws MalformedObjectNameException
+   {
+      final Vector3Buffer points = randomPoints();
+      final OperationMXBean build = Instrumentation.operation( "KdTree3.build" ); //$NON-NLS-1$
+      final OperationMXBean mul = Instrumentation.operation( "Matrix3.mul" ); //$NON-NLS-1$
+      build.reset();
+      mul.reset();
+
+      Instrumentation.setEnabled( true );
+      KdTree3.fromPoints( points );
+      KdTree3.fromPoints( points );
+      Matrix3.IDENTITY.mul( points, points );
+      final double[] coords = new double[ 3 * SIZE ];
+      Matrix3.IDENTITY.mul( coords, 0, coords, 0, SIZE );
+      Instrumentation.setEnabled( false );
+      KdTree3.fromPoints( points );
+
+      Assert.assertEquals( 2, build.getCalls() );
+      Assert.assertEquals( 2 * SIZE, build.getItems() );
+      Assert.assertTrue( build.getTotalNanos() > 0 );
+      Assert.assertTrue( build.getAllocatedBytes() > 0 );
+      Assert.assertEquals( ( build.getItems() * 1e9 ) / build.getTotalNanos(), build.getItemsPerSecond(), 1e-6 );
+      Assert.assertEquals( 2, mul.getCalls() );
+      Assert.assertEquals( 2 * SIZE, mul.getItems() );
+
+      final OperationMXBean proxy = JMX.newMXBeanProxy( ManagementFactory.getPlatformMBeanServer(),
+                                                        new ObjectName( "uk.co.eduardo.math:type=Operation,name=KdTree3.build" ), //$NON-NLS-1$
+                                                        OperationMXBean.class );
+      Assert.assertEquals( "KdTree3.build", proxy.getName() ); //$NON-NLS-1$
+      Assert.assertEquals( 2, proxy.getCalls() );
+      proxy.reset();
+      Assert.assertEquals( 0, build.getCalls() );
+      Assert.assertEquals( 0, build.getItemsPerSecond(), 0 );
+   }
+}
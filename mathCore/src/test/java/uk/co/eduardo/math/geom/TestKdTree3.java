@@ -0,0 +1,129 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests k-d trees
+ *
+ * @author erodri02
+ */
+public class TestKdTree3
+{
+   private static final int SIZE = 5000;
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static List< Vector3 > randomPoints( final long seed, final int size )
+   {
+      final Random random = new Random( seed );
+      final List< Vector3 > points = new ArrayList<>( size );
+      for( int i = 0; i < size; i++ )
+      {
+         // Coarse coordinates so that there are plenty of duplicates and ties
+         points.add( new Vector3( random.nextInt( 50 ), random.nextInt( 50 ), random.nextInt( 5 ) ) );
+      }
+      return points;
+   }
+
+   private static double[] sortedDistances( final List< Vector3 > points, final Vector3 q )
+   {
+      final double[] distances = new double[ points.size() ];
+      for( int i = 0; i < distances.length; i++ )
+      {
+         final Vector3 d = points.get( i ).sub( q );
+         distances[ i ] = d.dot( d );
+      }
+      Arrays.sort( distances );
+      return distances;
+   }
+
+   /**
+    * Tests that k nearest neighbour queries agree with a brute force search.
+    */
+   @Test
+   public void testNearest()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final List< Vector3 > points = randomPoints( 1, SIZE );
+         final KdTree3 tree = KdTree3.fromPoints( points );
+         final List< Vector3 > queries = randomPoints( 2, 100 );
+         final Neighbours result = new Neighbours();
+         for( final Vector3 q : queries )
+         {
+            final double[] expected = sortedDistances( points, q );
+            tree.nearest( q, 10, result );
+            Assert.assertEquals( 10, result.size() );
+            for( int i = 0; i < 10; i++ )
+            {
+               Assert.assertEquals( expected[ i ], result.getDistanceSquared( i ), 0 );
+               final Vector3 d = points.get( result.getIndex( i ) ).sub( q );
+               Assert.assertEquals( d.dot( d ), result.getDistanceSquared( i ), 0 );
+            }
+
+            final Vector3 d = points.get( tree.nearest( q ) ).sub( q );
+            Assert.assertEquals( expected[ 0 ], d.dot( d ), 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that radius queries agree with a brute force search.
+    */
+   @Test
+   public void testWithinRadius()
+   {
+      final List< Vector3 > points = randomPoints( 3, SIZE );
+      final double[] interleaved = new double[ 3 * SIZE ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         interleaved[ 3 * i ] = points.get( i ).x;
+         interleaved[ ( 3 * i ) + 1 ] = points.get( i ).y;
+         interleaved[ ( 3 * i ) + 2 ] = points.get( i ).z;
+      }
+      final KdTree3 tree = KdTree3.fromPoints( interleaved, 0, SIZE );
+      final Neighbours result = new Neighbours();
+      for( final Vector3 q : randomPoints( 4, 100 ) )
+      {
+         final double radius = 4;
+         tree.withinRadius( q, radius, result );
+         final boolean[] found = new boolean[ SIZE ];
+         for( int i = 0; i < result.size(); i++ )
+         {
+            found[ result.getIndex( i ) ] = true;
+         }
+         for( int i = 0; i < SIZE; i++ )
+         {
+            Assert.assertEquals( points.get( i ).sub( q ).length() <= radius, found[ i ] );
+         }
+      }
+   }
+
+   /**
+    * Tests querying an empty tree.
+    */
+   @Test
+   public void testEmpty()
+   {
+      final KdTree3 tree = KdTree3.fromPoints( new ArrayList< Vector3 >() );
+      Assert.assertEquals( -1, tree.nearest( Vector3.ZERO ) );
+      final Neighbours result = new Neighbours();
+      tree.withinRadius( Vector3.ZERO, 10, result );
+      Assert.assertEquals( 0, result.size() );
+   }
+}
@@ -0,0 +1,137 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the kernels selected at runtime give identical results to the scalar kernels
+ *
+ * @author erodri02
+ */
+public class TestKernels
+{
+   private static final int SIZE = 1037;
+
+   private static final BulkKernels SCALAR = new ScalarKernels();
+
+   private static double[] randomArray( final long seed, final int length )
+   {
+      final Random random = new Random( seed );
+      final double[] values = new double[ length ];
+      for( int i = 0; i < length; i++ )
+      {
+         values[ i ] = ( random.nextDouble() - 0.5 ) * 1000;
+      }
+      return values;
+   }
+
+   /**
+    * Tests dot and cross products and normalization over ranges that start and end between vector boundaries.
+    */
+   @Test
+   public void testVectorOps()
+   {
+      final BulkKernels kernels = Kernels.get();
+      final double[] ax = randomArray( 1, SIZE );
+      final double[] ay = randomArray( 2, SIZE );
+      final double[] az = randomArray( 3, SIZE );
+      final double[] bx = randomArray( 4, SIZE );
+      final double[] by = randomArray( 5, SIZE );
+      final double[] bz = randomArray( 6, SIZE );
+      for( final int from : new int[] { 0, 1, 3 } )
+      {
+         for( final int to : new int[] { from, from + 1, SIZE - 5, SIZE } )
+         {
+            final double[] expected = new double[ SIZE ];
+            final double[] actual = new double[ SIZE ];
+            SCALAR.dot( ax, ay, az, bx, by, bz, expected, from, to );
+            kernels.dot( ax, ay, az, bx, by, bz, actual, from, to );
+            Assert.assertArrayEquals( expected, actual, 0 );
+
+            final Vector3Buffer expectedCross = new Vector3Buffer( SIZE );
+            final Vector3Buffer actualCross = new Vector3Buffer( SIZE );
+            SCALAR.cross( ax, ay, az, bx, by, bz, expectedCross.x, expectedCross.y, expectedCross.z, from, to );
+            kernels.cross( ax, ay, az, bx, by, bz, actualCross.x, actualCross.y, actualCross.z, from, to );
+            Assert.assertArrayEquals( expectedCross.x, actualCross.x, 0 );
+            Assert.assertArrayEquals( expectedCross.y, actualCross.y, 0 );
+            Assert.assertArrayEquals( expectedCross.z, actualCross.z, 0 );
+
+            final Vector3Buffer expectedUnit = new Vector3Buffer( SIZE );
+            final Vector3Buffer actualUnit = new Vector3Buffer( SIZE );
+            SCALAR.normalize( ax, ay, az, expectedUnit.x, expectedUnit.y, expectedUnit.z, from, to );
+            kernels.normalize( ax, ay, az, actualUnit.x, actualUnit.y, actualUnit.z, from, to );
+            Assert.assertArrayEquals( expectedUnit.x, actualUnit.x, 0 );
+            Assert.assertArrayEquals( expectedUnit.y, actualUnit.y, 0 );
+            Assert.assertArrayEquals( expectedUnit.z, actualUnit.z, 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests matrix transforms, including in place.
+    */
+   @Test
+   public void testMul()
+   {
+      final BulkKernels kernels = Kernels.get();
+      final Matrix3 m = Matrix3.createRotationMatrix( new Vector3( 1, 2, 3 ).normalize(), 37 ).mul( 1.7 );
+      final double[] x = randomArray( 1, SIZE );
+      final double[] y = randomArray( 2, SIZE );
+      final double[] z = randomArray( 3, SIZE );
+      final Vector3Buffer expected = new Vector3Buffer( SIZE );
+      SCALAR.mul( m, x, y, z, expected.x, expected.y, expected.z, 3, SIZE - 1 );
+      kernels.mul( m, x, y, z, x, y, z, 3, SIZE - 1 );
+      for( int i = 3; i < ( SIZE - 1 ); i++ )
+      {
+         Assert.assertEquals( expected.x[ i ], x[ i ], 0 );
+         Assert.assertEquals( expected.y[ i ], y[ i ], 0 );
+         Assert.assertEquals( expected.z[ i ], z[ i ], 0 );
+      }
+   }
+
+   /**
+    * Tests extents, including the signed zeros and NaNs for which {@link Math#min(double, double)} has special rules.
+    */
+   @Test
+   public void testExtent()
+   {
+      final BulkKernels kernels = Kernels.get();
+      final double[] x = randomArray( 1, SIZE );
+      final double[] y = randomArray( 2, SIZE );
+      final double[] z = randomArray( 3, SIZE );
+      for( final int to : new int[] { 0, 1, 7, SIZE } )
+      {
+         final double[] expected = { Double.POSITIVE_INFINITY, 1, 2, Double.NEGATIVE_INFINITY, 3, 4 };
+         final double[] actual = expected.clone();
+         SCALAR.extent( x, y, z, 0, to, expected );
+         kernels.extent( x, y, z, 0, to, actual );
+         Assert.assertArrayEquals( expected, actual, 0 );
+      }
+
+      x[ 100 ] = -0.0;
+      y[ 200 ] = Double.NaN;
+      final double[] expected = { 0.0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0, 0, 0 };
+      final double[] actual = expected.clone();
+      SCALAR.extent( x, y, z, 0, SIZE, expected );
+      kernels.extent( x, y, z, 0, SIZE, actual );
+      Assert.assertTrue( Double.isNaN( actual[ 1 ] ) );
+      for( int i = 0; i < 6; i++ )
+      {
+         Assert.assertEquals( Double.doubleToLongBits( expected[ i ] ), Double.doubleToLongBits( actual[ i ] ) );
+      }
+   }
+
+   /**
+    * Tests that the vectorized kernels are selected on Java 17 and later, where the build compiles them into the multi-release
+    * classes.
+    */
+   @Test
+   public void testSelected()
+   {
+      final String version = System.getProperty( "java.specification.version" ); //$NON-NLS-1$
+      final boolean java17 = !version.startsWith( "1." ) && ( Integer.parseInt( version ) >= 17 ); //$NON-NLS-1$
+      Assert.assertEquals( java17, Kernels.isVectorized() );
+   }
+}
@@ -0,0 +1,183 @@
+package uk.co.eduardo.math.geom;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests memory-mapped point stores
+ *
+ * @author erodri02
+ */
+public class TestMappedVector3Store
+{
+   private static final int SIZE = 1000;
+
+   /** Small segments so that bulk operations cross segment boundaries. */
+   private static final int SHIFT = 6;
+
+   /** The folder holding the store files. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static MappedVector3Store randomStore( final Path file, final List< Vector3 > points ) throws IOException
+   {
+      final Random random = new Random( 5 );
+      final MappedVector3Store store = MappedVector3Store.create( file, SIZE, SHIFT );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final Vector3 p = new Vector3( random.nextGaussian() * 100, random.nextGaussian() * 10, random.nextGaussian() + 50 );
+         points.add( p );
+         store.set( i, p );
+      }
+      return store;
+   }
+
+   /**
+    * Tests indexed and bulk reads and writes, and reopening the file.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testReadWrite() throws IOException
+   {
+      final List< Vector3 > points = new ArrayList<>();
+      final Path file = this.folder.newFile().toPath();
+      try( MappedVector3Store store = randomStore( file, points ) )
+      {
+         Assert.assertEquals( SIZE, store.size() );
+         Assert.assertEquals( points.get( 7 ).y, store.getY( 7 ), 0 );
+
+         final double[] coords = new double[ 3 * 200 ];
+         store.get( 50, coords, 0, 200 );
+         for( int i = 0; i < 200; i++ )
+         {
+            Assert.assertEquals( points.get( 50 + i ).z, coords[ ( 3 * i ) + 2 ], 0 );
+         }
+         store.set( 500, coords, 0, 200 );
+         Assert.assertEquals( points.get( 50 ).x, store.getX( 500 ), 0 );
+
+         final AtomicLong next = new AtomicLong();
+         store.forEach( ( index, x, y, z ) -> {
+            Assert.assertEquals( next.getAndIncrement(), index );
+            Assert.assertEquals( store.getZ( index ), z, 0 );
+         } );
+         Assert.assertEquals( SIZE, next.get() );
+         store.force();
+      }
+
+      try( MappedVector3Store reopened = MappedVector3Store.open( file, false, SHIFT ) )
+      {
+         Assert.assertEquals( SIZE, reopened.size() );
+         Assert.assertFalse( reopened.isWritable() );
+         Assert.assertEquals( points.get( 999 ).x, reopened.get( 999 ).x, 0 );
+      }
+   }
+
+   /**
+    * Tests out of range access.
+    *
+    * @throws IOException on failure.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testOutOfRange() throws IOException
+   {
+      try( MappedVector3Store store = MappedVector3Store.create( this.folder.newFile().toPath(), 10 ) )
+      {
+         store.get( 10 );
+      }
+   }
+
+   /**
+    * Tests parallel traversal, bounding boxes and transforms on a store, sequentially and in parallel.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testBulkOperations() throws IOException
+   {
+      final List< Vector3 > points = new ArrayList<>();
+      try( MappedVector3Store store = randomStore( this.folder.newFile().toPath(), points ) )
+      {
+         final BoundingBox3 expected = BoundingBox3.fromPoints( points );
+         final Matrix3 m = new Matrix3( 1, 2, 3, 4, 5, 6, 7, 8, 10 );
+         for( final int threshold : new int[] { Batch.DEFAULT_PARALLEL_THRESHOLD, 100 } )
+         {
+            Batch.setParallelThreshold( threshold );
+
+            final BoundingBox3 box = BoundingBox3.fromPoints( store );
+            Assert.assertEquals( expected.start.x, box.start.x, 0 );
+            Assert.assertEquals( expected.end.z, box.end.z, 0 );
+
+            final AtomicLong count = new AtomicLong();
+            store.parallelForEach( ( index, x, y, z ) -> count.incrementAndGet() );
+            Assert.assertEquals( SIZE, count.get() );
+
+            try( MappedVector3Store dst = MappedVector3Store.create( this.folder.newFile().toPath(), SIZE, SHIFT ) )
+            {
+               m.mul( store, dst );
+               for( int i = 0; i < SIZE; i++ )
+               {
+                  final Vector3 q = m.mul( points.get( i ) );
+                  Assert.assertEquals( q.x, dst.getX( i ), 0 );
+                  Assert.assertEquals( q.y, dst.getY( i ), 0 );
+                  Assert.assertEquals( q.z, dst.getZ( i ), 0 );
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Tests that transforming into a store of a different segment size or into a read-only store is rejected before anything is
+    * written.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testTransformErrors() throws IOException
+   {
+      final Path file = this.folder.newFile().toPath();
+      try( MappedVector3Store store = randomStore( file, new ArrayList<>() );
+           MappedVector3Store other = MappedVector3Store.create( this.folder.newFile().toPath(), SIZE, SHIFT + 1 ) )
+      {
+         try
+         {
+            Matrix3.IDENTITY.mul( store, other );
+            Assert.fail();
+         }
+         catch( final IllegalArgumentException e )
+         {
+            Assert.assertEquals( "Store segment size mismatch: 128 != 64", e.getMessage() ); //$NON-NLS-1$
+         }
+      }
+      try( MappedVector3Store store = MappedVector3Store.open( file, false, SHIFT ) )
+      {
+         Batch.setParallelThreshold( 100 );
+         Matrix3.IDENTITY.mul( store, store );
+         Assert.fail();
+      }
+      catch( final IllegalArgumentException e )
+      {
+         Assert.assertEquals( "Destination store is not writable", e.getMessage() ); //$NON-NLS-1$
+      }
+   }
+}
@@ -0,0 +1,135 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests batch point transforms on matrices
+ *
+ * @author erodri02
+ */
+public class TestMatrixBatch
+{
+   private static final int SIZE = 10000;
+
+   private static final Matrix3 M3 = Matrix3.createRotationMatrix( new Vector3( 1, 2, 3 ).normalize(), 37 ).mul( 1.7 );
+
+   private static final Matrix2 M2 = Matrix2.createRotationMatrix( 23 ).mul( 0.3 );
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static double[] randomArray( final long seed, final int length )
+   {
+      final Random random = new Random( seed );
+      final double[] values = new double[ length ];
+      for( int i = 0; i < length; i++ )
+      {
+         values[ i ] = ( random.nextDouble() - 0.5 ) * 1000;
+      }
+      return values;
+   }
+
+   /**
+    * Tests that the interleaved 3D transform matches the scalar transform, both sequentially and in parallel.
+    */
+   @Test
+   public void testMatrix3Interleaved()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] src = randomArray( 1, ( 3 * SIZE ) + 1 );
+         final double[] dst = new double[ ( 3 * SIZE ) + 2 ];
+         M3.mul( src, 1, dst, 2, SIZE );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector3 expected = M3.mul( new Vector3( src[ ( 3 * i ) + 1 ], src[ ( 3 * i ) + 2 ], src[ ( 3 * i ) + 3 ] ) );
+            Assert.assertEquals( expected.x, dst[ ( 3 * i ) + 2 ], 0 );
+            Assert.assertEquals( expected.y, dst[ ( 3 * i ) + 3 ], 0 );
+            Assert.assertEquals( expected.z, dst[ ( 3 * i ) + 4 ], 0 );
+         }
+         Assert.assertEquals( 0, dst[ 0 ], 0 );
+         Assert.assertEquals( 0, dst[ 1 ], 0 );
+
+         // In place
+         M3.mul( src, 1, src, 1, SIZE );
+         for( int i = 0; i < ( 3 * SIZE ); i++ )
+         {
+            Assert.assertEquals( dst[ i + 2 ], src[ i + 1 ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that the separate-array 3D transform matches the scalar transform, both sequentially and in parallel.
+    */
+   @Test
+   public void testMatrix3Separate()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final Vector3Buffer src = new Vector3Buffer( randomArray( 1, SIZE ), randomArray( 2, SIZE ), randomArray( 3, SIZE ) );
+         final Vector3Buffer dst = new Vector3Buffer( SIZE );
+         M3.mul( src.x, src.y, src.z, dst.x, dst.y, dst.z, 10, SIZE - 20 );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final boolean inRange = ( i >= 10 ) && ( i < ( SIZE - 10 ) );
+            final Vector3 expected = inRange ? M3.mul( src.get( i ) ) : Vector3.ZERO;
+            Assert.assertEquals( expected.x, dst.x[ i ], 0 );
+            Assert.assertEquals( expected.y, dst.y[ i ], 0 );
+            Assert.assertEquals( expected.z, dst.z[ i ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that the 2D transforms match the scalar transform.
+    */
+   @Test
+   public void testMatrix2()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] src = randomArray( 4, 2 * SIZE );
+         final double[] dst = new double[ 2 * SIZE ];
+         M2.mul( src, 0, dst, 0, SIZE );
+
+         final Vector2Buffer buffer = new Vector2Buffer( SIZE );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            buffer.set( i, src[ 2 * i ], src[ ( 2 * i ) + 1 ] );
+         }
+         M2.mul( buffer, buffer );
+
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector2 expected = M2.mul( new Vector2( src[ 2 * i ], src[ ( 2 * i ) + 1 ] ) );
+            Assert.assertEquals( expected.x, dst[ 2 * i ], 0 );
+            Assert.assertEquals( expected.y, dst[ ( 2 * i ) + 1 ], 0 );
+            Assert.assertEquals( expected.x, buffer.x[ i ], 0 );
+            Assert.assertEquals( expected.y, buffer.y[ i ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that ranges outside the array are rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testOutOfRange()
+   {
+      M3.mul( new double[ 9 ], 1, new double[ 9 ], 0, 3 );
+   }
+}
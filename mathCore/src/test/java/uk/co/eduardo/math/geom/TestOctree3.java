@@ -0,0 +1,349 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests dynamic octrees
+ *
+ * @author erodri02
+ */
+public class TestOctree3
+{
+   private static final BoundingBox3 BOUNDS = box( 0, 0, 0, 100, 100, 100 );
+
+   private static BoundingBox3 box( final double x0, final double y0, final double z0, final double x1, final double y1, final double z1 )
+   {
+      return new BoundingBox3().union( new Vector3( x0, y0, z0 ) ).union( new Vector3( x1, y1, z1 ) );
+   }
+
+   private static BoundingBox3 randomItem( final Random random )
+   {
+      // Mostly points, some small boxes, and a few items partly or wholly outside the root bounds
+      final double x = ( random.nextDouble() * 120 ) - 10;
+      final double y = ( random.nextDouble() * 120 ) - 10;
+      final double z = random.nextDouble() * 100;
+      if( random.nextInt( 3 ) == 0 )
+      {
+         return box( x, y, z, x + ( random.nextDouble() * 5 ), y + ( random.nextDouble() * 5 ), z + ( random.nextDouble() * 5 ) );
+      }
+      return box( x, y, z, x, y, z );
+   }
+
+   private static double distanceSquared( final BoundingBox3 box, final Vector3 p )
+   {
+      final double dx = Math.max( 0, Math.max( box.start.x - p.x, p.x - box.end.x ) );
+      final double dy = Math.max( 0, Math.max( box.start.y - p.y, p.y - box.end.y ) );
+      final double dz = Math.max( 0, Math.max( box.start.z - p.z, p.z - box.end.z ) );
+      return ( dx * dx ) + ( dy * dy ) + ( dz * dz );
+   }
+
+   private static boolean overlaps( final BoundingBox3 a, final BoundingBox3 b )
+   {
+      return ( a.start.x <= b.end.x ) && ( a.end.x >= b.start.x ) && ( a.start.y <= b.end.y ) && ( a.end.y >= b.start.y ) &&
+             ( a.start.z <= b.end.z ) && ( a.end.z >= b.start.z );
+   }
+
+   private static void insert( final Octree3 tree, final int id, final BoundingBox3 box )
+   {
+      if( ( box.start.x == box.end.x ) && ( box.start.y == box.end.y ) && ( box.start.z == box.end.z ) )
+      {
+         tree.insert( id, box.start );
+      }
+      else
+      {
+         tree.insert( id, box );
+      }
+   }
+
+   private static void check( final Octree3 tree, final Map< Integer, BoundingBox3 > items, final Random random )
+   {
+      Assert.assertEquals( items.size(), tree.size() );
+      final Neighbours result = new Neighbours();
+      for( int q = 0; q < 20; q++ )
+      {
+         final Vector3 p = new Vector3( random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100 );
+         final double[] expected = new double[ items.size() ];
+         int n = 0;
+         for( final BoundingBox3 item : items.values() )
+         {
+            expected[ n++ ] = distanceSquared( item, p );
+         }
+         Arrays.sort( expected );
+
+         tree.nearest( p, 10, result );
+         Assert.assertEquals( Math.min( 10, items.size() ), result.size() );
+         for( int i = 0; i < result.size(); i++ )
+         {
+            Assert.assertEquals( expected[ i ], result.getDistanceSquared( i ), 0 );
+            Assert.assertEquals( distanceSquared( items.get( result.getIndex( i ) ), p ), result.getDistanceSquared( i ), 0 );
+         }
+         final int nearest = tree.nearest( p );
+         if( items.isEmpty() )
+         {
+            Assert.assertEquals( -1, nearest );
+         }
+         else
+         {
+            Assert.assertEquals( expected[ 0 ], distanceSquared( items.get( nearest ), p ), 0 );
+         }
+
+         final double radius = random.nextDouble() * 20;
+         final Set< Integer > within = new HashSet<>();
+         for( final Map.Entry< Integer, BoundingBox3 > entry : items.entrySet() )
+         {
+            if( distanceSquared( entry.getValue(), p ) <= ( radius * radius ) )
+            {
+               within.add( entry.getKey() );
+            }
+         }
+         tree.withinRadius( p, radius, result );
+         final Set< Integer > found = new HashSet<>();
+         for( int i = 0; i < result.size(); i++ )
+         {
+            Assert.assertTrue( found.add( result.getIndex( i ) ) );
+         }
+         Assert.assertEquals( within, found );
+
+         final BoundingBox3 query = box( p.x, p.y, p.z, p.x + radius, p.y + radius, p.z + radius );
+         final Set< Integer > overlapping = new HashSet<>();
+         for( final Map.Entry< Integer, BoundingBox3 > entry : items.entrySet() )
+         {
+            if( overlaps( entry.getValue(), query ) )
+            {
+               overlapping.add( entry.getKey() );
+            }
+         }
+         found.clear();
+         Assert.assertEquals( overlapping.size(), tree.overlapping( query, id -> Assert.assertTrue( found.add( id ) ) ) );
+         Assert.assertEquals( overlapping, found );
+      }
+   }
+
+   /**
+    * Tests that queries agree with a brute force search as items are inserted, removed and moved.
+    */
+   @Test
+   public void testQueries()
+   {
+      final Random random = new Random( 1 );
+      final Octree3 tree = new Octree3( BOUNDS );
+      final Map< Integer, BoundingBox3 > items = new HashMap<>();
+      check( tree, items, random );
+      for( int id = 0; id < 2000; id++ )
+      {
+         final BoundingBox3 item = randomItem( random );
+         insert( tree, id, item );
+         items.put( id, item );
+      }
+      check( tree, items, random );
+
+      for( int i = 0; i < 3000; i++ )
+      {
+         final int id = random.nextInt( 2500 );
+         final int action = random.nextInt( 3 );
+         if( action == 0 )
+         {
+            Assert.assertEquals( items.remove( id ) != null, tree.remove( id ) );
+         }
+         else if( items.containsKey( id ) )
+         {
+            final BoundingBox3 item = randomItem( random );
+            tree.update( id, item );
+            items.put( id, item );
+         }
+         else
+         {
+            final BoundingBox3 item = randomItem( random );
+            insert( tree, id, item );
+            items.put( id, item );
+         }
+         if( ( i % 500 ) == 0 )
+         {
+            check( tree, items, random );
+         }
+      }
+      check( tree, items, random );
+   }
+
+   /**
+    * Tests that leaves split as points are added and merge back as they are removed.
+    */
+   @Test
+   public void testSplitAndMerge()
+   {
+      final Random random = new Random( 2 );
+      final Octree3 tree = new Octree3( BOUNDS );
+      for( int id = 0; id < Octree3.SPLIT_SIZE; id++ )
+      {
+         tree.insert( id, new Vector3( random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100 ) );
+      }
+      Assert.assertEquals( 0, tree.depth() );
+      tree.insert( Octree3.SPLIT_SIZE, new Vector3( 1, 1, 1 ) );
+      Assert.assertTrue( tree.depth() > 0 );
+
+      // Coincident points cannot be separated, so their leaf stops splitting at the maximum depth
+      for( int id = 100; id < 200; id++ )
+      {
+         tree.insert( id, new Vector3( 25, 25, 25 ) );
+      }
+      Assert.assertEquals( Octree3.MAX_DEPTH, tree.depth() );
+      Assert.assertEquals( 100, tree.overlapping( box( 25, 25, 25, 25, 25, 25 ), id -> Assert.assertTrue( id >= 100 ) ) );
+
+      for( int id = 100; id < 200; id++ )
+      {
+         Assert.assertTrue( tree.remove( id ) );
+      }
+      Assert.assertFalse( tree.remove( 100 ) );
+      for( int id = 0; id <= ( Octree3.SPLIT_SIZE - Octree3.MERGE_SIZE ); id++ )
+      {
+         Assert.assertTrue( tree.remove( id ) );
+      }
+      Assert.assertEquals( Octree3.MERGE_SIZE, tree.size() );
+      Assert.assertEquals( 0, tree.depth() );
+
+      for( int id = Octree3.SPLIT_SIZE - Octree3.MERGE_SIZE + 1; id <= Octree3.SPLIT_SIZE; id++ )
+      {
+         Assert.assertTrue( tree.remove( id ) );
+      }
+      Assert.assertEquals( 0, tree.size() );
+      Assert.assertEquals( -1, tree.nearest( new Vector3( 1, 1, 1 ) ) );
+   }
+
+   /**
+    * Tests that inserting an id twice is rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testDuplicateId()
+   {
+      final Octree3 tree = new Octree3( BOUNDS );
+      tree.insert( 1, new Vector3( 1, 1, 1 ) );
+      tree.insert( 1, new Vector3( 2, 2, 2 ) );
+   }
+
+   /**
+    * Tests that readers always see a consistent tree while a writer moves items. Fixed items must always be found, and moving
+    * items must be seen exactly once, at either their old or their new place.
+    *
+    * @throws InterruptedException if the test is interrupted.
+    */
+   @Test
+   public void testConcurrentReaders() throws InterruptedException
+   {
+      final int fixed = 50;
+      final int moving = 500;
+      final Octree3 tree = new Octree3( BOUNDS );
+      final Random random = new Random( 3 );
+      final List< Vector3 > anchors = new ArrayList<>();
+      for( int id = 0; id < fixed; id++ )
+      {
+         final Vector3 p = new Vector3( random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100 );
+         anchors.add( p );
+         tree.insert( id, p );
+      }
+      for( int id = fixed; id < ( fixed + moving ); id++ )
+      {
+         insert( tree, id, randomItem( random ) );
+      }
+
+      final AtomicBoolean done = new AtomicBoolean();
+      final AtomicReference< Throwable > failure = new AtomicReference<>();
+      final Thread writer = new Thread( () -> {
+         final Random writerRandom = new Random( 4 );
+         try
+         {
+            for( int i = 0; i < 50000; i++ )
+            {
+               final int id = fixed + writerRandom.nextInt( moving );
+               if( writerRandom.nextBoolean() )
+               {
+                  tree.update( id, randomItem( writerRandom ) );
+               }
+               else
+               {
+                  // Crowd points onto one plane so that leaves there split and merge as the points come and go
+                  tree.update( id, new Vector3( writerRandom.nextDouble() * 100, writerRandom.nextDouble() * 100, 50 ) );
+               }
+            }
+         }
+         catch( final Throwable e )
+         {
+            failure.compareAndSet( null, e );
+         }
+         finally
+         {
+            done.set( true );
+         }
+      } );
+
+      final BoundingBox3 everything = box( -100, -100, -100, 200, 200, 200 );
+      final List< Thread > readers = new ArrayList<>();
+      for( int r = 0; r < 3; r++ )
+      {
+         final long seed = 10 + r;
+         readers.add( new Thread( () -> {
+            final Random readerRandom = new Random( seed );
+            final Neighbours result = new Neighbours();
+            try
+            {
+               while( !done.get() )
+               {
+                  final int anchor = readerRandom.nextInt( fixed );
+                  final Vector3 p = anchors.get( anchor );
+
+                  tree.withinRadius( p, 0, result );
+                  boolean found = false;
+                  for( int i = 0; i < result.size(); i++ )
+                  {
+                     found |= result.getIndex( i ) == anchor;
+                  }
+                  Assert.assertTrue( found );
+
+                  tree.nearest( p, 5, result );
+                  Assert.assertEquals( 5, result.size() );
+                  Assert.assertEquals( 0, result.getDistanceSquared( 0 ), 0 );
+                  for( int i = 1; i < result.size(); i++ )
+                  {
+                     Assert.assertTrue( result.getDistanceSquared( i - 1 ) <= result.getDistanceSquared( i ) );
+                  }
+
+                  final Set< Integer > seen = new HashSet<>();
+                  Assert.assertEquals( fixed + moving, tree.overlapping( everything, id -> Assert.assertTrue( seen.add( id ) ) ) );
+                  Assert.assertEquals( fixed + moving, tree.size() );
+               }
+            }
+            catch( final Throwable e )
+            {
+               failure.compareAndSet( null, e );
+               done.set( true );
+            }
+         } ) );
+      }
+
+      for( final Thread reader : readers )
+      {
+         reader.start();
+      }
+      writer.start();
+      writer.join();
+      for( final Thread reader : readers )
+      {
+         reader.join();
+      }
+      if( failure.get() != null )
+      {
+         throw new AssertionError( failure.get() );
+      }
+   }
+}
@@ -0,0 +1,282 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests batch projection onto oriented planes and plane fitting
+ *
+ * @author erodri02
+ */
+public class TestOrientedPlane
+{
+   private static final int SIZE = 10000;
+
+   private static final OrientedPlane PLANE = new OrientedPlane( new Vector3( 1, 1, 0 ),
+                                                                 new Vector3( -1, 1, 1 ),
+                                                                 new Vector3( 10, 20, 30 ) );
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static double[] randomArray( final long seed, final int length )
+   {
+      final Random random = new Random( seed );
+      final double[] values = new double[ length ];
+      for( int i = 0; i < length; i++ )
+      {
+         values[ i ] = ( random.nextDouble() - 0.5 ) * 1000;
+      }
+      return values;
+   }
+
+   /**
+    * Tests the scalar signed distance and plane coordinates.
+    */
+   @Test
+   public void testScalar()
+   {
+      final OrientedPlane plane = new OrientedPlane( Vector3.X, Vector3.Y, new Vector3( 1, 2, 3 ) );
+      Assert.assertEquals( 4, plane.signedDistance( new Vector3( 5, 6, 7 ) ), 0 );
+      Assert.assertEquals( -3, plane.signedDistance( new Vector3( 5, 6, 0 ) ), 0 );
+      final Vector2 uv = plane.projectToUV( new Vector3( 5, 7, 9 ) );
+      Assert.assertEquals( 4, uv.x, 0 );
+      Assert.assertEquals( 5, uv.y, 0 );
+
+      // The plane coordinates of a point reconstruct its projection
+      final Vector3 p = new Vector3( 3, -8, 12 );
+      final Vector2 puv = PLANE.projectToUV( p );
+      final Vector3 projected = PLANE.project( p );
+      final Vector3 rebuilt = PLANE.pointOnPlane.add( PLANE.horiz.mul( puv.x ) ).add( PLANE.vert.mul( puv.y ) );
+      Assert.assertEquals( 0, PLANE.signedDistance( projected ), 1e-12 );
+      Assert.assertEquals( 0, PLANE.signedDistance( rebuilt ), 1e-12 );
+   }
+
+   /**
+    * Tests that the interleaved projection matches the scalar projection, both sequentially and in parallel.
+    */
+   @Test
+   public void testProjectInterleaved()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] src = randomArray( 1, ( 3 * SIZE ) + 1 );
+         final double[] dst = new double[ ( 3 * SIZE ) + 2 ];
+         PLANE.project( src, 1, dst, 2, SIZE );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector3 expected = PLANE.project( new Vector3( src[ ( 3 * i ) + 1 ], src[ ( 3 * i ) + 2 ], src[ ( 3 * i ) + 3 ] ) );
+            Assert.assertEquals( expected.x, dst[ ( 3 * i ) + 2 ], 0 );
+            Assert.assertEquals( expected.y, dst[ ( 3 * i ) + 3 ], 0 );
+            Assert.assertEquals( expected.z, dst[ ( 3 * i ) + 4 ], 0 );
+         }
+         Assert.assertEquals( 0, dst[ 0 ], 0 );
+         Assert.assertEquals( 0, dst[ 1 ], 0 );
+
+         // In place
+         PLANE.project( src, 1, src, 1, SIZE );
+         for( int i = 0; i < ( 3 * SIZE ); i++ )
+         {
+            Assert.assertEquals( dst[ i + 2 ], src[ i + 1 ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that the buffer projection, plane coordinates and distances match the scalar versions, both sequentially and in
+    * parallel.
+    */
+   @Test
+   public void testBuffers()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final Vector3Buffer src = new Vector3Buffer( randomArray( 1, SIZE ), randomArray( 2, SIZE ), randomArray( 3, SIZE ) );
+         final Vector3Buffer projected = new Vector3Buffer( SIZE );
+         final Vector2Buffer uv = new Vector2Buffer( SIZE );
+         final double[] distances = new double[ SIZE ];
+         PLANE.project( src, projected );
+         PLANE.projectToUV( src, uv );
+         PLANE.signedDistance( src, distances );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector3 p = src.get( i );
+            final Vector3 expected = PLANE.project( p );
+            Assert.assertEquals( expected.x, projected.x[ i ], 0 );
+            Assert.assertEquals( expected.y, projected.y[ i ], 0 );
+            Assert.assertEquals( expected.z, projected.z[ i ], 0 );
+            final Vector2 expectedUV = PLANE.projectToUV( p );
+            Assert.assertEquals( expectedUV.x, uv.x[ i ], 0 );
+            Assert.assertEquals( expectedUV.y, uv.y[ i ], 0 );
+            Assert.assertEquals( PLANE.signedDistance( p ), distances[ i ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that the interleaved plane coordinates and distances match the scalar versions, both sequentially and in parallel.
+    */
+   @Test
+   public void testUVAndDistanceInterleaved()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] src = randomArray( 4, 3 * SIZE );
+         final double[] uv = new double[ ( 2 * SIZE ) + 1 ];
+         final double[] distances = new double[ SIZE + 3 ];
+         PLANE.projectToUV( src, 0, uv, 1, SIZE );
+         PLANE.signedDistance( src, 0, distances, 3, SIZE );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector3 p = new Vector3( src[ 3 * i ], src[ ( 3 * i ) + 1 ], src[ ( 3 * i ) + 2 ] );
+            final Vector2 expected = PLANE.projectToUV( p );
+            Assert.assertEquals( expected.x, uv[ ( 2 * i ) + 1 ], 0 );
+            Assert.assertEquals( expected.y, uv[ ( 2 * i ) + 2 ], 0 );
+            Assert.assertEquals( PLANE.signedDistance( p ), distances[ i + 3 ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that a source range past the end of the array is rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testProjectOutOfRange()
+   {
+      PLANE.project( new double[ 9 ], 1, new double[ 9 ], 0, 3 );
+   }
+
+   /**
+    * Tests that a destination range past the end of the array is rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testProjectToUVOutOfRange()
+   {
+      PLANE.projectToUV( new double[ 9 ], 0, new double[ 5 ], 0, 3 );
+   }
+
+   /**
+    * Tests that buffers of different sizes are rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testProjectToUVSizeMismatch()
+   {
+      PLANE.projectToUV( new Vector3Buffer( 3 ), new Vector2Buffer( 2 ) );
+   }
+
+   /**
+    * Tests that noisy points sampled from a plane are fitted by a plane close to it, and that the sampled points are fitted
+    * exactly.
+    */
+   @Test
+   public void testFit()
+   {
+      final Random random = new Random( 3 );
+      final List< Vector3 > exact = new ArrayList<>();
+      final List< Vector3 > noisy = new ArrayList<>();
+      for( int i = 0; i < 500; i++ )
+      {
+         final double u = ( random.nextDouble() - 0.5 ) * 100;
+         final double v = ( random.nextDouble() - 0.5 ) * 20;
+         final Vector3 p = PLANE.pointOnPlane.add( PLANE.horiz.mul( u ) ).add( PLANE.vert.mul( v ) );
+         exact.add( p );
+         noisy.add( p.add( PLANE.norm.mul( random.nextGaussian() * 0.01 ) ) );
+      }
+
+      final OrientedPlane fitted = OrientedPlane.fit( exact );
+      Assert.assertEquals( 1, Math.abs( fitted.norm.dot( PLANE.norm ) ), 1e-12 );
+      Assert.assertEquals( 1, Math.abs( fitted.horiz.dot( PLANE.horiz ) ), 1e-3 );
+      for( final Vector3 p : exact )
+      {
+         Assert.assertEquals( 0, fitted.signedDistance( p ), 1e-9 );
+      }
+
+      final OrientedPlane fittedNoisy = OrientedPlane.fit( Vector3Buffer.fromPoints( noisy ) );
+      Assert.assertEquals( 1, Math.abs( fittedNoisy.norm.dot( PLANE.norm ) ), 1e-6 );
+      Assert.assertEquals( 0, PLANE.signedDistance( fittedNoisy.pointOnPlane ), 1e-2 );
+
+      Assert.assertNull( OrientedPlane.fit( exact.subList( 0, 2 ) ) );
+   }
+
+   /**
+    * Tests that fitting many neighbourhoods at once agrees with fitting each one separately.
+    */
+   @Test
+   public void testFitNormals()
+   {
+      final int count = 500;
+      final int k = 8;
+      final Random random = new Random( 4 );
+      final Vector3Buffer points = new Vector3Buffer( SIZE );
+      final double[] coords = new double[ 1 + ( 3 * SIZE ) ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.set( i, random.nextGaussian(), random.nextGaussian(), 0.1 * random.nextGaussian() );
+         coords[ 1 + ( 3 * i ) ] = points.x[ i ];
+         coords[ 2 + ( 3 * i ) ] = points.y[ i ];
+         coords[ 3 + ( 3 * i ) ] = points.z[ i ];
+      }
+
+      // Neighbourhoods of k random points, except the last, which has only two
+      final int[] starts = new int[ count + 1 ];
+      final int[] indices = new int[ ( ( count - 1 ) * k ) + 2 ];
+      for( int j = 0; j < count; j++ )
+      {
+         starts[ j ] = j * k;
+      }
+      starts[ count ] = indices.length;
+      for( int i = 0; i < indices.length; i++ )
+      {
+         indices[ i ] = random.nextInt( SIZE );
+      }
+
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] normals = new double[ 3 * count ];
+         final double[] centroids = new double[ 3 * count ];
+         OrientedPlane.fitNormals( points, starts, indices, normals, centroids );
+         final double[] interleaved = new double[ 3 * count ];
+         OrientedPlane.fitNormals( coords, 1, starts, indices, interleaved, null );
+         Assert.assertArrayEquals( normals, interleaved, 0 );
+
+         for( int j = 0; j < ( count - 1 ); j++ )
+         {
+            final List< Vector3 > neighbourhood = new ArrayList<>();
+            for( int i = starts[ j ]; i < starts[ j + 1 ]; i++ )
+            {
+               neighbourhood.add( points.get( indices[ i ] ) );
+            }
+            final OrientedPlane plane = OrientedPlane.fit( neighbourhood );
+            final Vector3 normal = new Vector3( normals[ 3 * j ], normals[ ( 3 * j ) + 1 ], normals[ ( 3 * j ) + 2 ] );
+            Assert.assertEquals( 1, Math.abs( normal.dot( plane.norm ) ), 1e-9 );
+            Assert.assertEquals( plane.pointOnPlane.x, centroids[ 3 * j ], 1e-12 );
+            Assert.assertEquals( plane.pointOnPlane.z, centroids[ ( 3 * j ) + 2 ], 1e-12 );
+         }
+         Assert.assertTrue( Double.isNaN( normals[ 3 * ( count - 1 ) ] ) );
+      }
+   }
+
+   /**
+    * Tests that neighbourhoods referring past the end of the index array are rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testFitNormalsOutOfRange()
+   {
+      OrientedPlane.fitNormals( new Vector3Buffer( 10 ), new int[] { 0, 4 }, new int[ 3 ], new double[ 3 ], null );
+   }
+}
@@ -0,0 +1,129 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests fused transform pipelines
+ *
+ * @author erodri02
+ */
+public class TestPipeline3
+{
+   private static final int SIZE = 1000;
+
+   private static final double TOLERANCE = 1e-9;
+
+   private static final Matrix3 M = new Matrix3( 1, 2, 0, -1, 3, 1, 0.5, 0, 2 );
+
+   private static final Vector3 C = new Vector3( 1, -2, 3 );
+
+   private static final Vector3 D = new Vector3( 0.5, 0.25, -1 );
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static Vector3 chain( final Vector3 p )
+   {
+      return M.mul( p ).sub( C ).mul( 2.5 ).cross( D ).normalize().add( C ).div( 4 );
+   }
+
+   private static Pipeline3 pipeline()
+   {
+      return Pipeline3.IDENTITY.mul( M ).sub( C ).mul( 2.5 ).cross( D ).normalize().add( C ).div( 4 );
+   }
+
+   private static void assertEquals( final Vector3 expected, final double x, final double y, final double z )
+   {
+      Assert.assertEquals( expected.x, x, TOLERANCE );
+      Assert.assertEquals( expected.y, y, TOLERANCE );
+      Assert.assertEquals( expected.z, z, TOLERANCE );
+   }
+
+   /**
+    * Tests that consecutive affine operations are folded into one stage.
+    */
+   @Test
+   public void testCompile()
+   {
+      Assert.assertEquals( 0, Pipeline3.IDENTITY.getStageCount() );
+      Assert.assertSame( Transform3.IDENTITY, Pipeline3.IDENTITY.toTransform() );
+
+      final Pipeline3 pipeline = pipeline();
+      Assert.assertEquals( 3, pipeline.getStageCount() );
+      Assert.assertNull( pipeline.toTransform() );
+      Assert.assertEquals( 5, pipeline.then( pipeline ).getStageCount() );
+
+      final Transform3 rigid = Transform3.createRigid( new Quaternion( 1, 2, 3, 4 ), C );
+      final Pipeline3 affine = Pipeline3.IDENTITY.mul( rigid ).sub( C ).mul( rigid.inv() );
+      Assert.assertEquals( 1, affine.getStageCount() );
+      final Transform3 t = affine.toTransform();
+      final Vector3 p = new Vector3( 3, 4, 5 );
+      final Vector3 q = t.mul( p );
+      assertEquals( rigid.inv().mul( rigid.mul( p ).sub( C ) ), q.x, q.y, q.z );
+   }
+
+   /**
+    * Tests that the pipeline agrees with applying the operations one at a time, for single points, buffers and packed arrays.
+    */
+   @Test
+   public void testApply()
+   {
+      final Random random = new Random( 1 );
+      final Pipeline3 pipeline = pipeline();
+      final Vector3Buffer points = new Vector3Buffer( SIZE );
+      final double[] coords = new double[ ( 3 * SIZE ) + 2 ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.set( i, random.nextGaussian(), random.nextGaussian(), random.nextGaussian() );
+         coords[ 2 + ( 3 * i ) ] = points.x[ i ];
+         coords[ 3 + ( 3 * i ) ] = points.y[ i ];
+         coords[ 4 + ( 3 * i ) ] = points.z[ i ];
+      }
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final Vector3 result = pipeline.apply( points.get( i ) );
+         assertEquals( chain( points.get( i ) ), result.x, result.y, result.z );
+      }
+
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final Vector3Buffer result = new Vector3Buffer( SIZE );
+         pipeline.apply( points, result );
+         final double[] packed = new double[ 3 * SIZE ];
+         pipeline.apply( coords, 2, packed, 0, SIZE );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector3 expected = chain( points.get( i ) );
+            assertEquals( expected, result.x[ i ], result.y[ i ], result.z[ i ] );
+            assertEquals( expected, packed[ 3 * i ], packed[ ( 3 * i ) + 1 ], packed[ ( 3 * i ) + 2 ] );
+         }
+
+         // In place, and the identity pipeline copies
+         final Vector3Buffer copy = new Vector3Buffer( points.x.clone(), points.y.clone(), points.z.clone() );
+         pipeline.apply( copy, copy );
+         Assert.assertArrayEquals( result.x, copy.x, 0 );
+         Pipeline3.IDENTITY.apply( points, copy );
+         Assert.assertArrayEquals( points.z, copy.z, 0 );
+      }
+   }
+
+   /**
+    * Tests that buffers of different sizes are rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testSizeMismatch()
+   {
+      pipeline().apply( new Vector3Buffer( 2 ), new Vector3Buffer( 3 ) );
+   }
+}
@@ -0,0 +1,155 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests culling boxes against plane sets
+ *
+ * @author erodri02
+ */
+public class TestPlaneSet3
+{
+   private static final int SIZE = 2000;
+
+   /** A frustum-like region: a tilted box with one sloping side. */
+   private static final PlaneSet3 REGION = new PlaneSet3( new OrientedPlane( Vector3.Y, Vector3.Z, new Vector3( -10, 0, 0 ) ),
+                                                          new OrientedPlane( Vector3.Z, Vector3.Y, new Vector3( 10, 0, 0 ) ),
+                                                          new OrientedPlane( Vector3.Z, Vector3.X, new Vector3( 0, -10, 0 ) ),
+                                                          new OrientedPlane( Vector3.X, Vector3.Z, new Vector3( 0, 10, 0 ) ),
+                                                          new OrientedPlane( Vector3.X, Vector3.Y, new Vector3( 0, 0, -10 ) ),
+                                                          new OrientedPlane( new Vector3( 1, 1, 0 ),
+                                                                             new Vector3( 0, 0.3, 1 ),
+                                                                             new Vector3( 0, 0, 10 ) ) );
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   /**
+    * Classifies a box by testing all eight corners against every plane.
+    */
+   private static int bruteForce( final OrientedPlane[] planes, final BoundingBox3 box )
+   {
+      int result = PlaneSet3.INSIDE;
+      for( final OrientedPlane plane : planes )
+      {
+         int outside = 0;
+         for( int c = 0; c < 8; c++ )
+         {
+            final Vector3 corner = new Vector3( ( ( c & 1 ) == 0 ) ? box.start.x : box.end.x,
+                                                ( ( c & 2 ) == 0 ) ? box.start.y : box.end.y,
+                                                ( ( c & 4 ) == 0 ) ? box.start.z : box.end.z );
+            outside += ( plane.signedDistance( corner ) < 0 ) ? 1 : 0;
+         }
+         if( outside == 8 )
+         {
+            return PlaneSet3.OUTSIDE;
+         }
+         if( outside > 0 )
+         {
+            result = PlaneSet3.INTERSECTING;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Tests single boxes against a brute-force corner test.
+    */
+   @Test
+   public void testClassify()
+   {
+      final OrientedPlane[] planes = { new OrientedPlane( Vector3.Y, Vector3.Z, new Vector3( -10, 0, 0 ) ),
+                                       new OrientedPlane( new Vector3( 1, 1, 0 ), new Vector3( 0, 0.3, 1 ), new Vector3( 0, 0, 10 ) ) };
+      final PlaneSet3 set = new PlaneSet3( Arrays.asList( planes ) );
+      Assert.assertEquals( 2, set.size() );
+      final Random random = new Random( 7 );
+      final int[] counts = new int[ 3 ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final BoundingBox3 box = randomBox( random );
+         final int result = set.classify( box );
+         Assert.assertEquals( bruteForce( planes, box ), result );
+         counts[ result ]++;
+      }
+      Assert.assertTrue( Arrays.toString( counts ), ( counts[ 0 ] > 0 ) && ( counts[ 1 ] > 0 ) && ( counts[ 2 ] > 0 ) );
+      Assert.assertEquals( PlaneSet3.OUTSIDE, set.classify( new BoundingBox3() ) );
+      Assert.assertEquals( PlaneSet3.INSIDE, new PlaneSet3().classify( randomBox( random ) ) );
+   }
+
+   private static BoundingBox3 randomBox( final Random random )
+   {
+      final Vector3 centre = new Vector3( random.nextGaussian(), random.nextGaussian(), random.nextGaussian() ).mul( 12 );
+      final Vector3 half = new Vector3( random.nextDouble(), random.nextDouble(), random.nextDouble() ).mul( 3 );
+      return new BoundingBox3().union( centre.sub( half ) ).union( centre.add( half ) );
+   }
+
+   /**
+    * Tests that classifying packed boxes into bitsets agrees with classifying them one at a time, with and without the coherency
+    * cache.
+    */
+   @Test
+   public void testBulk()
+   {
+      final Random random = new Random( 8 );
+      final int count = SIZE + 13;
+      final double[] boxes = new double[ 1 + ( 6 * count ) ];
+      final int[] expected = new int[ count ];
+      int visibleCount = 0;
+      for( int i = 0; i < count; i++ )
+      {
+         final BoundingBox3 box = randomBox( random );
+         final int b = 1 + ( 6 * i );
+         boxes[ b ] = box.start.x;
+         boxes[ b + 1 ] = box.start.y;
+         boxes[ b + 2 ] = box.start.z;
+         boxes[ b + 3 ] = box.end.x;
+         boxes[ b + 4 ] = box.end.y;
+         boxes[ b + 5 ] = box.end.z;
+         expected[ i ] = REGION.classify( box );
+         visibleCount += ( expected[ i ] != PlaneSet3.OUTSIDE ) ? 1 : 0;
+      }
+
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final int[] cache = new int[ count ];
+         for( int frame = 0; frame < 2; frame++ )
+         {
+            final long[] visible = new long[ ( count + 63 ) / 64 ];
+            Arrays.fill( visible, -1 );
+            final long[] intersecting = new long[ visible.length ];
+            Assert.assertEquals( visibleCount, REGION.classify( boxes, 1, count, visible, intersecting, cache ) );
+            Assert.assertEquals( visibleCount, REGION.classify( boxes, 1, count, new long[ visible.length ], null, null ) );
+            for( int i = 0; i < count; i++ )
+            {
+               final boolean in = ( visible[ i >>> 6 ] & ( 1L << i ) ) != 0;
+               final boolean partial = ( intersecting[ i >>> 6 ] & ( 1L << i ) ) != 0;
+               Assert.assertEquals( expected[ i ] != PlaneSet3.OUTSIDE, in );
+               Assert.assertEquals( expected[ i ] == PlaneSet3.INTERSECTING, partial );
+            }
+            Assert.assertEquals( visibleCount, BitSet.valueOf( visible ).cardinality() );
+         }
+      }
+   }
+
+   /**
+    * Tests that a bitset too short for the boxes is rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testBitsetTooShort()
+   {
+      REGION.classify( new double[ 6 * 65 ], 0, 65, new long[ 1 ], null, null );
+   }
+}
@@ -0,0 +1,182 @@
+package uk.co.eduardo.math.geom;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests mergeable point statistics
+ *
+ * @author erodri02
+ */
+public class TestPointStatistics3
+{
+   private static final int SIZE = 5000;
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   /**
+    * Creates skewed points far from the origin compared with their spread.
+    */
+   private static Vector3Buffer points()
+   {
+      final Random random = new Random( 5 );
+      final Vector3Buffer points = new Vector3Buffer( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final double e = -Math.log( random.nextDouble() );
+         points.set( i, 1e6 + e, -2e6 + random.nextGaussian(), 3e5 + ( 2 * random.nextDouble() ) );
+      }
+      return points;
+   }
+
+   private static void assertClose( final double expected, final double actual )
+   {
+      Assert.assertEquals( expected, actual, 1e-9 * Math.max( 1, Math.abs( expected ) ) );
+   }
+
+   /**
+    * Checks statistics against the two-pass definitions.
+    */
+   private static void assertStatistics( final Vector3Buffer points, final PointStatistics3 statistics )
+   {
+      final int n = points.size();
+      Assert.assertEquals( n, statistics.getCount() );
+      final double[][] axes = { points.x, points.y, points.z };
+      final Vector3 mean = statistics.getMean();
+      final double[] means = { mean.x, mean.y, mean.z };
+      final Vector3 skewness = statistics.getSkewness();
+      final Vector3 kurtosis = statistics.getKurtosis();
+      final double[] skews = { skewness.x, skewness.y, skewness.z };
+      final double[] kurts = { kurtosis.x, kurtosis.y, kurtosis.z };
+      final Matrix3 covariance = statistics.getCovariance();
+      final double[] variances = { covariance.a00, covariance.a11, covariance.a22 };
+      for( int a = 0; a < 3; a++ )
+      {
+         double sum = 0;
+         for( final double v : axes[ a ] )
+         {
+            sum += v;
+         }
+         // Correct the rounding error of the sum, which is large compared with the spread
+         double residual = 0;
+         for( final double v : axes[ a ] )
+         {
+            residual += v - ( sum / n );
+         }
+         final double m = ( sum / n ) + ( residual / n );
+         double m2 = 0;
+         double m3 = 0;
+         double m4 = 0;
+         for( final double v : axes[ a ] )
+         {
+            final double d = v - m;
+            m2 += d * d;
+            m3 += d * d * d;
+            m4 += d * d * d * d;
+         }
+         assertClose( m, means[ a ] );
+         assertClose( m2 / n, variances[ a ] );
+         assertClose( ( Math.sqrt( n ) * m3 ) / Math.pow( m2, 1.5 ), skews[ a ] );
+         assertClose( ( n * m4 ) / ( m2 * m2 ), kurts[ a ] );
+      }
+      double xy = 0;
+      for( int i = 0; i < n; i++ )
+      {
+         xy += ( points.x[ i ] - mean.x ) * ( points.y[ i ] - mean.y );
+      }
+      assertClose( xy / n, covariance.a01 );
+      Assert.assertEquals( covariance.a01, covariance.a10, 0 );
+
+      final BoundingBox3 bounds = BoundingBox3.fromPoints( points );
+      final BoundingBox3 actual = statistics.getBounds();
+      Assert.assertEquals( bounds.start.x, actual.start.x, 0 );
+      Assert.assertEquals( bounds.start.z, actual.start.z, 0 );
+      Assert.assertEquals( bounds.end.y, actual.end.y, 0 );
+   }
+
+   /**
+    * Tests adding points one at a time, in bulk and through a parallel stream.
+    */
+   @Test
+   public void testAdd()
+   {
+      final Vector3Buffer points = points();
+      final PointStatistics3 single = new PointStatistics3();
+      for( int i = 0; i < SIZE; i++ )
+      {
+         single.add( points.x[ i ], points.y[ i ], points.z[ i ] );
+      }
+      assertStatistics( points, single );
+
+      final double[] coords = new double[ 2 + ( 3 * SIZE ) ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         coords[ 2 + ( 3 * i ) ] = points.x[ i ];
+         coords[ 3 + ( 3 * i ) ] = points.y[ i ];
+         coords[ 4 + ( 3 * i ) ] = points.z[ i ];
+      }
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final PointStatistics3 buffer = new PointStatistics3();
+         buffer.add( points );
+         assertStatistics( points, buffer );
+         final PointStatistics3 packed = new PointStatistics3();
+         packed.add( coords, 2, SIZE );
+         assertStatistics( points, packed );
+      }
+
+      final List< Vector3 > list = points.toList();
+      assertStatistics( points, list.parallelStream().collect( PointStatistics3.collector() ) );
+   }
+
+   /**
+    * Tests that statistics of shards combine into the statistics of the whole, including empty shards, and survive being
+    * written and read back.
+    *
+    * @throws IOException on failure.
+    */
+   @Test
+   public void testCombine() throws IOException
+   {
+      final Vector3Buffer points = points();
+      final int[] cuts = { 0, 1, 1, 700, 2500, SIZE };
+      final ByteBuffer buffer = ByteBuffer.allocate( 4096 );
+      final GeometryWriter writer = new GeometryWriter( buffer );
+      for( int s = 1; s < cuts.length; s++ )
+      {
+         final PointStatistics3 shard = new PointStatistics3();
+         for( int i = cuts[ s - 1 ]; i < cuts[ s ]; i++ )
+         {
+            shard.add( points.get( i ) );
+         }
+         writer.write( shard );
+      }
+      buffer.flip();
+
+      final GeometryReader reader = new GeometryReader( buffer );
+      final PointStatistics3 combined = new PointStatistics3();
+      while( reader.nextType() != GeometryFormat.END )
+      {
+         combined.combine( reader.readPointStatistics3() );
+      }
+      assertStatistics( points, combined );
+
+      combined.clear();
+      Assert.assertEquals( 0, combined.getCount() );
+      Assert.assertTrue( combined.getBounds().isEmpty() );
+   }
+}
@@ -0,0 +1,151 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests quantized point containers
+ *
+ * @author erodri02
+ */
+public class TestQuantizedPoints3
+{
+   private static final int SIZE = 1000;
+
+   private static double[] randomWalk( final long seed, final int length )
+   {
+      final Random random = new Random( seed );
+      final double[] coords = new double[ 3 * length ];
+      double x = 0;
+      double y = 0;
+      double z = 0;
+      for( int i = 0; i < length; i++ )
+      {
+         x += random.nextDouble() - 0.5;
+         y += random.nextDouble() - 0.5;
+         z += ( random.nextDouble() - 0.5 ) * 0.01;
+         coords[ 3 * i ] = x;
+         coords[ ( 3 * i ) + 1 ] = y;
+         coords[ ( 3 * i ) + 2 ] = z;
+      }
+      return coords;
+   }
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   /**
+    * Tests that every point decodes to within the maximum error, and that random access and bulk decoding agree.
+    */
+   @Test
+   public void testRoundTrip()
+   {
+      final double[] coords = randomWalk( 1, SIZE );
+      final BoundingBox3 bounds = BoundingBox3.fromPoints( coords, 0, SIZE );
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         for( final int bits : new int[] { 1, 8, 10, 11, 16, 17, 21 } )
+         {
+            for( final boolean delta : new boolean[] { false, true } )
+            {
+               final QuantizedPoints3 points = QuantizedPoints3.encode( coords, 0, SIZE, bounds, bits, delta );
+               Assert.assertEquals( SIZE, points.size() );
+               Assert.assertEquals( delta, points.isDeltaEncoded() );
+               final Vector3 error = points.getMaxError();
+               final double[] decoded = new double[ 3 * SIZE ];
+               points.decode( 0, SIZE, decoded, 0 );
+               final Vector3Buffer buffer = new Vector3Buffer( SIZE );
+               points.decode( buffer );
+               for( int i = 0; i < SIZE; i++ )
+               {
+                  final Vector3 p = points.get( i );
+                  Assert.assertEquals( coords[ 3 * i ], p.x, error.x * ( 1 + 1e-9 ) );
+                  Assert.assertEquals( coords[ ( 3 * i ) + 1 ], p.y, error.y * ( 1 + 1e-9 ) );
+                  Assert.assertEquals( coords[ ( 3 * i ) + 2 ], p.z, error.z * ( 1 + 1e-9 ) );
+                  Assert.assertEquals( p.x, decoded[ 3 * i ], 0 );
+                  Assert.assertEquals( p.z, decoded[ ( 3 * i ) + 2 ], 0 );
+                  Assert.assertEquals( p.y, buffer.y[ i ], 0 );
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Tests decoding a range that starts part way through a delta block, and that delta encoding compresses sorted data.
+    */
+   @Test
+   public void testDelta()
+   {
+      // Points along a helix, where consecutive points are a few quantization levels apart
+      final double[] coords = new double[ 3 * SIZE ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         coords[ 3 * i ] = 10 * Math.cos( i * 0.01 );
+         coords[ ( 3 * i ) + 1 ] = 10 * Math.sin( i * 0.01 );
+         coords[ ( 3 * i ) + 2 ] = i * 0.01;
+      }
+      final BoundingBox3 bounds = BoundingBox3.fromPoints( coords, 0, SIZE );
+      final QuantizedPoints3 fixed = QuantizedPoints3.encode( coords, 0, SIZE, bounds, 12, false );
+      final QuantizedPoints3 delta = QuantizedPoints3.encode( coords, 0, SIZE, bounds, 12, true );
+      Assert.assertEquals( 6L * SIZE, fixed.getEncodedSize() );
+      Assert.assertTrue( delta.getEncodedSize() < ( fixed.getEncodedSize() / 1.5 ) );
+      Assert.assertEquals( 4L * SIZE, QuantizedPoints3.encode( coords, 0, SIZE, bounds, 10, false ).getEncodedSize() );
+
+      final double[] expected = new double[ 3 * 300 ];
+      final double[] actual = new double[ ( 3 * 300 ) + 1 ];
+      fixed.decode( 77, 300, expected, 0 );
+      delta.decode( 77, 300, actual, 1 );
+      for( int i = 0; i < expected.length; i++ )
+      {
+         Assert.assertEquals( expected[ i ], actual[ i + 1 ], 0 );
+      }
+   }
+
+   /**
+    * Tests that points along a flat axis decode exactly.
+    */
+   @Test
+   public void testFlatAxis()
+   {
+      final Vector3Buffer buffer = new Vector3Buffer( 3 );
+      buffer.set( 0, 1, 5, 2 );
+      buffer.set( 1, 2, 5, 3 );
+      buffer.set( 2, 3, 5, 4 );
+      final QuantizedPoints3 points = QuantizedPoints3.encode( buffer, BoundingBox3.fromPoints( buffer ), 12, false );
+      Assert.assertEquals( 0, points.getMaxError().y, 0 );
+      Assert.assertEquals( 5, points.get( 1 ).y, 0 );
+      Assert.assertEquals( 3, points.get( 2 ).x, 0 );
+      Assert.assertEquals( 1, points.get( 0 ).x, 0 );
+   }
+
+   /**
+    * Tests that a point outside the bounds is rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testOutsideBounds()
+   {
+      final double[] coords = { 0, 0, 0, 1, 1, 1 };
+      QuantizedPoints3.encode( coords, 0, 2, BoundingBox3.fromPoints( coords, 0, 1 ), 8, false );
+   }
+
+   /**
+    * Tests that too many bits are rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testTooManyBits()
+   {
+      final double[] coords = { 0, 0, 0, 1, 1, 1 };
+      QuantizedPoints3.encode( coords, 0, 2, BoundingBox3.fromPoints( coords, 0, 2 ), QuantizedPoints3.MAX_BITS + 1, false );
+   }
+}
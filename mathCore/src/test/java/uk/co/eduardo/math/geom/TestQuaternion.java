@@ -0,0 +1,173 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests quaternion rotations against the equivalent matrices
+ *
+ * @author erodri02
+ */
+public class TestQuaternion
+{
+   private static final double EPSILON = 1e-12;
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static void assertVector( final Vector3 expected, final Vector3 actual, final double epsilon )
+   {
+      Assert.assertEquals( expected.x, actual.x, epsilon );
+      Assert.assertEquals( expected.y, actual.y, epsilon );
+      Assert.assertEquals( expected.z, actual.z, epsilon );
+   }
+
+   private static void assertMatrix( final Matrix3 expected, final Matrix3 actual )
+   {
+      Assert.assertEquals( expected.a00, actual.a00, EPSILON );
+      Assert.assertEquals( expected.a01, actual.a01, EPSILON );
+      Assert.assertEquals( expected.a02, actual.a02, EPSILON );
+      Assert.assertEquals( expected.a10, actual.a10, EPSILON );
+      Assert.assertEquals( expected.a11, actual.a11, EPSILON );
+      Assert.assertEquals( expected.a12, actual.a12, EPSILON );
+      Assert.assertEquals( expected.a20, actual.a20, EPSILON );
+      Assert.assertEquals( expected.a21, actual.a21, EPSILON );
+      Assert.assertEquals( expected.a22, actual.a22, EPSILON );
+   }
+
+   /**
+    * Tests that rotating by a quaternion matches rotating by the matrix for the same axis and angle, and that converting
+    * between the two round trips, including near the 180 degree rotations where the trace is negative.
+    */
+   @Test
+   public void testMatrixConversion()
+   {
+      final Random random = new Random( 1 );
+      final Vector3 v = new Vector3( 3, -4, 5 );
+      for( int i = 0; i < 1000; i++ )
+      {
+         final Vector3 axis = new Vector3( random.nextGaussian(), random.nextGaussian(), random.nextGaussian() ).normalize();
+         final double theta = ( i < 10 ) ? 180 - i : ( random.nextDouble() - 0.5 ) * 720;
+         final Matrix3 m = Matrix3.createRotationMatrix( axis, theta );
+         final Quaternion q = Quaternion.createRotation( axis, theta );
+         assertMatrix( m, q.toMatrix() );
+         assertVector( m.mul( v ), q.rotate( v ), EPSILON );
+
+         // q and -q are the same rotation
+         final Quaternion back = Quaternion.fromMatrix( m );
+         Assert.assertEquals( 1, Math.abs( back.dot( q ) ), EPSILON );
+      }
+   }
+
+   /**
+    * Tests that composition follows the same order as matrix composition.
+    */
+   @Test
+   public void testComposition()
+   {
+      final Quaternion a = Quaternion.createRotation( Vector3.Z, 90 );
+      final Quaternion b = Quaternion.createRotation( Vector3.X, 90 );
+      final Matrix3 expected = a.toMatrix().mul( b.toMatrix() );
+      assertMatrix( expected, a.mul( b ).toMatrix() );
+
+      // Rotate X about X, then about Z: X -> X -> Y
+      assertVector( Vector3.Y, a.mul( b ).rotate( Vector3.X ), EPSILON );
+
+      assertVector( Vector3.X, a.mul( a.conjugate() ).rotate( Vector3.X ), EPSILON );
+      final Quaternion scaled = new Quaternion( 2, 0, 0, 0 ).mul( a );
+      final Quaternion identity = scaled.mul( scaled.inv() );
+      Assert.assertEquals( 1, identity.w, EPSILON );
+      Assert.assertEquals( 0, identity.z, EPSILON );
+   }
+
+   /**
+    * Tests that normalizing removes the drift from a long chain of compositions.
+    */
+   @Test
+   public void testNormalize()
+   {
+      final Quaternion step = new Quaternion( 1, 1e-3, 2e-3, 3e-3 );
+      Quaternion q = Quaternion.IDENTITY;
+      for( int i = 0; i < 1000; i++ )
+      {
+         q = q.mul( step );
+      }
+      Assert.assertTrue( q.length() > 1.001 );
+      Assert.assertEquals( 1, q.normalize().length(), EPSILON );
+   }
+
+   /**
+    * Tests spherical and normalized linear interpolation.
+    */
+   @Test
+   public void testInterpolation()
+   {
+      final Quaternion start = Quaternion.createRotation( Vector3.Z, 10 );
+      final Quaternion end = Quaternion.createRotation( Vector3.Z, 130 );
+      for( int i = 0; i <= 10; i++ )
+      {
+         final double t = i / 10.0;
+         final Quaternion expected = Quaternion.createRotation( Vector3.Z, 10 + ( 120 * t ) );
+         Assert.assertEquals( 1, Math.abs( start.slerp( end, t ).dot( expected ) ), EPSILON );
+         Assert.assertEquals( 1, start.nlerp( end, t ).length(), EPSILON );
+      }
+      Assert.assertEquals( 1, Math.abs( start.slerp( end, 0 ).dot( start ) ), EPSILON );
+      Assert.assertEquals( 1, Math.abs( start.slerp( end, 1 ).dot( end ) ), EPSILON );
+
+      // Takes the shortest path when the end has the opposite sign
+      final Quaternion negated = new Quaternion( -end.w, -end.x, -end.y, -end.z );
+      final Quaternion expected = Quaternion.createRotation( Vector3.Z, 70 );
+      Assert.assertEquals( 1, Math.abs( start.slerp( negated, 0.5 ).dot( expected ) ), EPSILON );
+      Assert.assertEquals( 1, Math.abs( start.nlerp( negated, 0.5 ).dot( expected ) ), EPSILON );
+
+      // Nearly equal rotations
+      final Quaternion near = Quaternion.createRotation( Vector3.Z, 10.001 );
+      Assert.assertEquals( 1, start.slerp( near, 0.5 ).length(), EPSILON );
+   }
+
+   /**
+    * Tests that batch rotation matches rotating each point, both sequentially and in parallel.
+    */
+   @Test
+   public void testBatchRotate()
+   {
+      final Quaternion q = Quaternion.createRotation( new Vector3( 1, 2, 3 ).normalize(), 37 );
+      final Random random = new Random( 2 );
+      final int size = 10000;
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] src = new double[ 3 * size ];
+         for( int i = 0; i < src.length; i++ )
+         {
+            src[ i ] = ( random.nextDouble() - 0.5 ) * 1000;
+         }
+         final double[] dst = new double[ 3 * size ];
+         q.rotate( src, 0, dst, 0, size );
+         final Vector3Buffer buffer = new Vector3Buffer( size );
+         final Vector3Buffer points = new Vector3Buffer( size );
+         for( int i = 0; i < size; i++ )
+         {
+            points.x[ i ] = src[ 3 * i ];
+            points.y[ i ] = src[ ( 3 * i ) + 1 ];
+            points.z[ i ] = src[ ( 3 * i ) + 2 ];
+         }
+         q.rotate( points, buffer );
+         for( int i = 0; i < size; i++ )
+         {
+            final Vector3 expected = q.rotate( new Vector3( src[ 3 * i ], src[ ( 3 * i ) + 1 ], src[ ( 3 * i ) + 2 ] ) );
+            assertVector( expected, new Vector3( dst[ 3 * i ], dst[ ( 3 * i ) + 1 ], dst[ ( 3 * i ) + 2 ] ), 1e-9 );
+            assertVector( expected, buffer.get( i ), 1e-9 );
+         }
+      }
+   }
+}
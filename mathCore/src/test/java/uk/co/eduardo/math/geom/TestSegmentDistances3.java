@@ -0,0 +1,247 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests closest-distance queries between line segments and points
+ *
+ * @author erodri02
+ */
+public class TestSegmentDistances3
+{
+   private static final double TOLERANCE = 1e-9;
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static LineSegment3 segment( final double x0,
+                                        final double y0,
+                                        final double z0,
+                                        final double x1,
+                                        final double y1,
+                                        final double z1 )
+   {
+      return new LineSegment3( new Vector3( x0, y0, z0 ), new Vector3( x1, y1, z1 ) );
+   }
+
+   /**
+    * Creates short random segments, some of them of zero length.
+    */
+   private static double[] segments( final Random random, final int count, final double extent, final double length )
+   {
+      final double[] packed = new double[ 6 * count ];
+      for( int i = 0; i < count; i++ )
+      {
+         for( int axis = 0; axis < 3; axis++ )
+         {
+            final double start = extent * random.nextDouble();
+            packed[ ( 6 * i ) + axis ] = start;
+            packed[ ( 6 * i ) + axis + 3 ] = ( ( i % 17 ) == 0 ) ? start : ( start + ( length * random.nextGaussian() ) );
+         }
+      }
+      return packed;
+   }
+
+   private static LineSegment3 unpack( final double[] packed, final int i )
+   {
+      final int s = 6 * i;
+      return segment( packed[ s ], packed[ s + 1 ], packed[ s + 2 ], packed[ s + 3 ], packed[ s + 4 ], packed[ s + 5 ] );
+   }
+
+   /**
+    * Finds the distance between two segments by minimizing over one parameter, with the exact point distance for the other.
+    */
+   private static double sampledDistance( final LineSegment3 a, final LineSegment3 b )
+   {
+      double best = Double.POSITIVE_INFINITY;
+      double lo = 0;
+      double hi = 1;
+      for( int pass = 0; pass < 4; pass++ )
+      {
+         double bestT = lo;
+         for( int k = 0; k <= 200; k++ )
+         {
+            final double t = lo + ( ( ( hi - lo ) * k ) / 200 );
+            final double d = b.distance( a.start.add( a.end.sub( a.start ).mul( t ) ) );
+            if( d < best )
+            {
+               best = d;
+               bestT = t;
+            }
+         }
+         final double step = ( hi - lo ) / 200;
+         lo = Math.max( 0, bestT - step );
+         hi = Math.min( 1, bestT + step );
+      }
+      return best;
+   }
+
+   /**
+    * Tests point to segment distances, including beyond the ends and for a segment of zero length.
+    */
+   @Test
+   public void testPointDistance()
+   {
+      final LineSegment3 s = segment( 0, 0, 0, 2, 0, 0 );
+      Assert.assertEquals( 3, s.distance( new Vector3( 1, 3, 0 ) ), TOLERANCE );
+      Assert.assertEquals( 5, s.distance( new Vector3( -3, 0, 4 ) ), TOLERANCE );
+      Assert.assertEquals( 1, s.distance( new Vector3( 3, 0, 0 ) ), TOLERANCE );
+      Assert.assertEquals( 0, s.closestPoint( new Vector3( 0.5, -1, 7 ) ).sub( new Vector3( 0.5, 0, 0 ) ).length(), TOLERANCE );
+
+      final LineSegment3 point = segment( 1, 1, 1, 1, 1, 1 );
+      Assert.assertEquals( Math.sqrt( 3 ), point.distance( new Vector3( 0, 0, 0 ) ), TOLERANCE );
+   }
+
+   /**
+    * Tests segment to segment distances for crossing, skew, parallel, collinear and degenerate segments.
+    */
+   @Test
+   public void testSegmentDistance()
+   {
+      final LineSegment3 x = segment( -1, 0, 0, 1, 0, 0 );
+      Assert.assertEquals( 0, x.distance( segment( 0, -1, 0, 0, 1, 0 ) ), TOLERANCE );
+      Assert.assertEquals( 2, x.distance( segment( 0.5, -1, 2, 0.5, 1, 2 ) ), TOLERANCE );
+      Assert.assertEquals( 0, x.closestPoint( segment( 0.5, -1, 2, 0.5, 1, 2 ) ).sub( new Vector3( 0.5, 0, 0 ) ).length(), TOLERANCE );
+
+      // Parallel overlapping and parallel apart, end to end
+      Assert.assertEquals( 3, x.distance( segment( 0, 3, 0, 5, 3, 0 ) ), TOLERANCE );
+      Assert.assertEquals( 5, x.distance( segment( 4, 4, 0, 9, 4, 0 ) ), TOLERANCE );
+      Assert.assertEquals( 2, x.distance( segment( 3, 0, 0, 7, 0, 0 ) ), TOLERANCE );
+      Assert.assertEquals( 0, x.distance( segment( 7, 0, 0, 0.5, 0, 0 ) ), TOLERANCE );
+
+      // Zero length segments
+      final LineSegment3 point = segment( 0, 2, 0, 0, 2, 0 );
+      Assert.assertEquals( 2, x.distance( point ), TOLERANCE );
+      Assert.assertEquals( 2, point.distance( x ), TOLERANCE );
+      Assert.assertEquals( 1, point.distance( segment( 0, 2, 1, 0, 2, 1 ) ), TOLERANCE );
+
+      final Random random = new Random( 3 );
+      for( int n = 0; n < 500; n++ )
+      {
+         final double[] packed = segments( random, 2, 10, 4 );
+         final LineSegment3 a = unpack( packed, 0 );
+         final LineSegment3 b = unpack( packed, 1 );
+         final double d = a.distance( b );
+         Assert.assertEquals( sampledDistance( a, b ), d, 1e-6 );
+         Assert.assertEquals( d, b.distance( a ), TOLERANCE );
+         Assert.assertEquals( d, b.distance( a.closestPoint( b ) ), TOLERANCE );
+      }
+   }
+
+   /**
+    * Tests that the bulk distances and parameters agree with the scalar ones.
+    */
+   @Test
+   public void testBulk()
+   {
+      final int count = 1000;
+      final Random random = new Random( 4 );
+      final double[] a = segments( random, count, 10, 3 );
+      final double[] b = new double[ 6 + ( 6 * count ) ];
+      System.arraycopy( segments( random, count, 10, 3 ), 0, b, 6, 6 * count );
+      final double[] points = new double[ 3 * count ];
+      for( int i = 0; i < points.length; i++ )
+      {
+         points[ i ] = 10 * random.nextDouble();
+      }
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] distances = new double[ count + 1 ];
+         final double[] params = new double[ 2 * count ];
+         final double[] pointDistances = new double[ count ];
+         SegmentDistances3.distancesSquared( a, 0, b, 6, distances, 1, count );
+         SegmentDistances3.closestParameters( a, 0, b, 6, params, 0, count );
+         SegmentDistances3.pointDistancesSquared( points, 0, a, 0, pointDistances, 0, count );
+         for( int i = 0; i < count; i++ )
+         {
+            final LineSegment3 s = unpack( a, i );
+            final LineSegment3 t = unpack( b, i + 1 );
+            final double d = s.distance( t );
+            Assert.assertEquals( d * d, distances[ i + 1 ], TOLERANCE );
+            final Vector3 p = s.start.add( s.end.sub( s.start ).mul( params[ 2 * i ] ) );
+            final Vector3 q = t.start.add( t.end.sub( t.start ).mul( params[ ( 2 * i ) + 1 ] ) );
+            Assert.assertEquals( d, p.sub( q ).length(), TOLERANCE );
+            final double e = s.distance( new Vector3( points[ 3 * i ], points[ ( 3 * i ) + 1 ], points[ ( 3 * i ) + 2 ] ) );
+            Assert.assertEquals( e * e, pointDistances[ i ], TOLERANCE );
+         }
+      }
+   }
+
+   /**
+    * Tests that the pruned pair query finds exactly the pairs that testing every pair finds.
+    */
+   @Test
+   public void testPairsWithin()
+   {
+      final int count = 800;
+      final double distance = 0.75;
+      final double[] packed = segments( new Random( 5 ), count, 20, 1 );
+      final List< LineSegment3 > segments = new ArrayList<>();
+      final List< Long > expected = new ArrayList<>();
+      for( int i = 0; i < count; i++ )
+      {
+         segments.add( unpack( packed, i ) );
+         for( int j = 0; j < i; j++ )
+         {
+            if( segments.get( j ).distance( segments.get( i ) ) <= distance )
+            {
+               expected.add( ( (long) j << 32 ) | i );
+            }
+         }
+      }
+      expected.sort( null );
+      Assert.assertFalse( expected.isEmpty() );
+
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final List< Long > found = new ArrayList<>();
+         final long n = SegmentDistances3.forEachPairWithin( segments, distance, ( a, b ) -> {
+            Assert.assertTrue( a < b );
+            if( !found.isEmpty() )
+            {
+               Assert.assertTrue( ( found.get( found.size() - 1 ) >>> 32 ) <= a );
+            }
+            found.add( ( (long) a << 32 ) | b );
+         } );
+         Assert.assertEquals( expected.size(), n );
+         found.sort( null );
+         Assert.assertEquals( expected, found );
+      }
+
+      Assert.assertEquals( 0, SegmentDistances3.forEachPairWithin( new double[ 0 ], 0, 0, 1, ( a, b ) -> Assert.fail() ) );
+   }
+
+   /**
+    * Tests that a negative distance is rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testNegativeDistance()
+   {
+      SegmentDistances3.forEachPairWithin( new double[ 12 ], 0, 2, -1, ( a, b ) -> {
+         // Not reached.
+      } );
+   }
+
+   /**
+    * Tests that a destination too short for the pairs is rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testOutOfRange()
+   {
+      SegmentDistances3.distancesSquared( new double[ 12 ], 0, new double[ 12 ], 0, new double[ 1 ], 0, 2 );
+   }
+}
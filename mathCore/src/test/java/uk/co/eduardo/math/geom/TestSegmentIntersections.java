@@ -0,0 +1,151 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests segment intersection and the sweep that finds all intersecting pairs.
+ *
+ * @author erodri02
+ */
+public class TestSegmentIntersections
+{
+   private static LineSegment2 segment( final double x0, final double y0, final double x1, final double y1 )
+   {
+      return new LineSegment2( new Vector2( x0, y0 ), new Vector2( x1, y1 ) );
+   }
+
+   private static void assertPoint( final double x, final double y, final Vector2 actual )
+   {
+      Assert.assertEquals( x, actual.x, 1e-12 );
+      Assert.assertEquals( y, actual.y, 1e-12 );
+   }
+
+   private static Set< Long > bruteForce( final List< LineSegment2 > segments )
+   {
+      final Set< Long > pairs = new HashSet<>();
+      for( int i = 0; i < segments.size(); i++ )
+      {
+         for( int j = i + 1; j < segments.size(); j++ )
+         {
+            if( segments.get( i ).intersects( segments.get( j ) ) )
+            {
+               pairs.add( ( ( long ) i << 32 ) | j );
+            }
+         }
+      }
+      return pairs;
+   }
+
+   private static void assertSweep( final List< LineSegment2 > segments )
+   {
+      final Set< Long > found = new HashSet<>();
+      final long count = SegmentIntersections.forEachIntersectingPair( segments, ( a, b ) -> {
+         Assert.assertTrue( a < b );
+         final String message = "Pair " + a + ", " + b + " reported twice"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+         Assert.assertTrue( message, found.add( ( (long) a << 32 ) | b ) );
+      } );
+      Assert.assertEquals( bruteForce( segments ), found );
+      Assert.assertEquals( found.size(), count );
+   }
+
+   /**
+    * Tests intersection of pairs of segments, including touching and collinear cases.
+    */
+   @Test
+   public void testIntersection()
+   {
+      final LineSegment2 s = segment( 0, 0, 4, 4 );
+      assertPoint( 2, 2, s.intersection( segment( 0, 4, 4, 0 ) ) );
+      Assert.assertNull( s.intersection( segment( 0, 1, 4, 5 ) ) );
+      Assert.assertNull( s.intersection( segment( 5, 5, 6, 6 ) ) );
+      assertPoint( 4, 4, s.intersection( segment( 4, 4, 6, 0 ) ) );
+      assertPoint( 2, 2, s.intersection( segment( 2, 2, 4, 0 ) ) );
+      assertPoint( 3, 3, s.intersection( segment( 6, 6, 3, 3 ) ) );
+      assertPoint( 0, 0, s.intersection( segment( -1, -1, 1, 1 ) ) );
+      Assert.assertFalse( s.intersects( segment( 1, 0, 4, 3 ) ) );
+      Assert.assertTrue( segment( 1, 1, 1, 1 ).intersects( s ) );
+   }
+
+   /**
+    * Tests the sweep against every pair on random segments in general position.
+    */
+   @Test
+   public void testRandom()
+   {
+      final Random random = new Random( 3 );
+      final List< LineSegment2 > segments = new ArrayList<>();
+      for( int i = 0; i < 1500; i++ )
+      {
+         final double x = random.nextDouble() * 100;
+         final double y = random.nextDouble() * 100;
+         segments.add( segment( x, y, x + ( random.nextGaussian() * 5 ), y + ( random.nextGaussian() * 5 ) ) );
+      }
+      assertSweep( segments );
+   }
+
+   /**
+    * Tests the sweep on degenerate input: shared end points, vertical and horizontal segments, collinear overlaps, many segments
+    * through one point, and zero-length segments.
+    */
+   @Test
+   public void testDegenerate()
+   {
+      final Random random = new Random( 4 );
+      final List< LineSegment2 > segments = new ArrayList<>();
+      for( int i = 0; i < 600; i++ )
+      {
+         segments.add( segment( random.nextInt( 12 ), random.nextInt( 12 ), random.nextInt( 12 ), random.nextInt( 12 ) ) );
+      }
+      for( int i = 0; i < 20; i++ )
+      {
+         segments.add( segment( i, 0, i, 11 ) );
+         segments.add( segment( 0, i * 0.5, 11, i * 0.5 ) );
+      }
+      for( int i = 0; i < 30; i++ )
+      {
+         final double angle = ( Math.PI * i ) / 30;
+         segments.add( segment( 20 - Math.cos( angle ), 20 - Math.sin( angle ), 20 + Math.cos( angle ), 20 + Math.sin( angle ) ) );
+      }
+      assertSweep( segments );
+   }
+
+   /**
+    * Tests that nearly collinear segments intersect the same way whatever the order of their end points, so the sweep still
+    * agrees with testing every pair.
+    */
+   @Test
+   public void testNearlyCollinear()
+   {
+      final Random random = new Random( 5 );
+      final List< LineSegment2 > segments = new ArrayList<>();
+      for( int i = 0; i < 400; i++ )
+      {
+         final double t0 = random.nextDouble() * 10;
+         final double t1 = random.nextDouble() * 10;
+         final double e0 = random.nextGaussian() * 1e-15;
+         final double e1 = random.nextGaussian() * 1e-15;
+         segments.add( segment( 0.1 * t0, ( 0.3 * t0 ) + e0, 0.1 * t1, ( 0.3 * t1 ) + e1 ) );
+      }
+      for( final LineSegment2 a : segments )
+      {
+         final LineSegment2 reversedA = new LineSegment2( a.end, a.start );
+         for( final LineSegment2 b : segments )
+         {
+            final LineSegment2 reversedB = new LineSegment2( b.end, b.start );
+            final boolean expected = a.intersects( b );
+            Assert.assertEquals( expected, b.intersects( a ) );
+            Assert.assertEquals( expected, reversedA.intersects( b ) );
+            Assert.assertEquals( expected, a.intersects( reversedB ) );
+            Assert.assertEquals( expected, reversedB.intersects( reversedA ) );
+         }
+      }
+      assertSweep( segments );
+   }
+}
@@ -0,0 +1,217 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests space-filling curve keys and spatial sorting
+ *
+ * @author erodri02
+ */
+public class TestSpatialSort
+{
+   private static final int SIZE = 1000;
+
+   private static long interleave( final int[] coords, final int bits )
+   {
+      long key = 0;
+      for( int bit = 0; bit < bits; bit++ )
+      {
+         for( int axis = 0; axis < coords.length; axis++ )
+         {
+            key |= ( (long) ( coords[ axis ] >>> bit ) & 1 ) << ( ( bit * coords.length ) + axis );
+         }
+      }
+      return key;
+   }
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   /**
+    * Tests Morton keys against interleaving the bits one at a time.
+    */
+   @Test
+   public void testMorton()
+   {
+      final Random random = new Random( 1 );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final int x = random.nextInt();
+         final int y = random.nextInt();
+         final int z = random.nextInt( 1 << SpaceFillingCurves.BITS_3D );
+         Assert.assertEquals( interleave( new int[] { x, y }, 32 ), SpaceFillingCurves.morton( x, y ) );
+         final int x3 = x & ( ( 1 << SpaceFillingCurves.BITS_3D ) - 1 );
+         final int y3 = y & ( ( 1 << SpaceFillingCurves.BITS_3D ) - 1 );
+         Assert.assertEquals( interleave( new int[] { x3, y3, z }, 21 ), SpaceFillingCurves.morton( x3, y3, z ) );
+      }
+   }
+
+   /**
+    * Tests that the Hilbert curve visits every cell of a grid at the origin in turn, moving to an adjacent cell at each step.
+    */
+   @Test
+   public void testHilbertAdjacency()
+   {
+      final int n2 = 16;
+      final int[][] cells2 = new int[ n2 * n2 ][];
+      for( int x = 0; x < n2; x++ )
+      {
+         for( int y = 0; y < n2; y++ )
+         {
+            final long key = SpaceFillingCurves.hilbert( x, y );
+            Assert.assertTrue( ( key >= 0 ) && ( key < cells2.length ) );
+            Assert.assertNull( cells2[ (int) key ] );
+            cells2[ (int) key ] = new int[] { x, y };
+         }
+      }
+      for( int i = 1; i < cells2.length; i++ )
+      {
+         Assert.assertEquals( 1,
+                              Math.abs( cells2[ i ][ 0 ] - cells2[ i - 1 ][ 0 ] ) + Math.abs( cells2[ i ][ 1 ] - cells2[ i - 1 ][ 1 ] ) );
+      }
+
+      final int n3 = 8;
+      final int[][] cells3 = new int[ n3 * n3 * n3 ][];
+      for( int x = 0; x < n3; x++ )
+      {
+         for( int y = 0; y < n3; y++ )
+         {
+            for( int z = 0; z < n3; z++ )
+            {
+               final long key = SpaceFillingCurves.hilbert( x, y, z );
+               Assert.assertTrue( ( key >= 0 ) && ( key < cells3.length ) );
+               Assert.assertNull( cells3[ (int) key ] );
+               cells3[ (int) key ] = new int[] { x, y, z };
+            }
+         }
+      }
+      for( int i = 1; i < cells3.length; i++ )
+      {
+         int distance = 0;
+         for( int axis = 0; axis < 3; axis++ )
+         {
+            distance += Math.abs( cells3[ i ][ axis ] - cells3[ i - 1 ][ axis ] );
+         }
+         Assert.assertEquals( 1, distance );
+      }
+   }
+
+   /**
+    * Tests that the radix sort gives the same stable unsigned order as a comparison sort.
+    */
+   @Test
+   public void testOrder()
+   {
+      final Random random = new Random( 2 );
+      final long[] keys = new long[ SIZE ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         // Include negative keys and plenty of duplicates
+         keys[ i ] = ( i % 3 ) == 0 ? random.nextLong() : random.nextInt( 50 );
+      }
+      final Integer[] expected = new Integer[ SIZE ];
+      for( int i = 0; i < SIZE; i++ )
+      {
+         expected[ i ] = i;
+      }
+      Arrays.sort( expected, Comparator.comparing( i -> keys[ i ], Long::compareUnsigned ) );
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final long[] copy = keys.clone();
+         final int[] order = SpatialSort.order( keys );
+         Assert.assertArrayEquals( copy, keys );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            Assert.assertEquals( expected[ i ].intValue(), order[ i ] );
+         }
+      }
+      Assert.assertEquals( 0, SpatialSort.order( new long[ 0 ] ).length );
+   }
+
+   /**
+    * Tests that sorting with a very low parallel threshold splits the keys into a bounded number of chunks and gives the same
+    * order as sorting sequentially.
+    */
+   @Test
+   public void testLowThreshold()
+   {
+      final int n = 100000;
+      final Random random = new Random( 4 );
+      final long[] keys = new long[ n ];
+      for( int i = 0; i < n; i++ )
+      {
+         keys[ i ] = random.nextInt( 1 << 20 );
+      }
+      final int[] expected = SpatialSort.order( keys );
+      Batch.setParallelThreshold( 1 );
+      Assert.assertTrue( Batch.chunkCount( n ) <= ( 4 * ForkJoinPool.getCommonPoolParallelism() ) );
+      Assert.assertArrayEquals( expected, SpatialSort.order( keys ) );
+   }
+
+   /**
+    * Tests sorting points and attributes, and that the sorted points are in key order.
+    */
+   @Test
+   public void testSort()
+   {
+      final Random random = new Random( 3 );
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         for( final boolean hilbert : new boolean[] { false, true } )
+         {
+            final Vector3Buffer points = new Vector3Buffer( SIZE );
+            final double[] coords = new double[ 3 * SIZE ];
+            final int[] ids = new int[ SIZE ];
+            for( int i = 0; i < SIZE; i++ )
+            {
+               points.set( i, random.nextDouble(), random.nextDouble(), random.nextDouble() );
+               coords[ 3 * i ] = points.x[ i ];
+               coords[ ( 3 * i ) + 1 ] = points.y[ i ];
+               coords[ ( 3 * i ) + 2 ] = points.z[ i ];
+               ids[ i ] = i;
+            }
+            final Vector3Buffer original = new Vector3Buffer( points.x.clone(), points.y.clone(), points.z.clone() );
+            final BoundingBox3 bounds = BoundingBox3.fromPoints( points );
+
+            final int[] order = SpatialSort.sort( points, hilbert );
+            SpatialSort.permute( order, ids, 1 );
+            Assert.assertArrayEquals( order, ids );
+            for( int i = 0; i < SIZE; i++ )
+            {
+               Assert.assertEquals( original.x[ order[ i ] ], points.x[ i ], 0 );
+               Assert.assertEquals( original.z[ order[ i ] ], points.z[ i ], 0 );
+               if( i > 0 )
+               {
+                  final long previous = SpaceFillingCurves.key( points.get( i - 1 ), bounds, hilbert );
+                  Assert.assertTrue( Long.compareUnsigned( previous, SpaceFillingCurves.key( points.get( i ), bounds, hilbert ) ) <= 0 );
+               }
+            }
+
+            Assert.assertArrayEquals( order, SpatialSort.sort( coords, 0, SIZE, hilbert ) );
+            for( int i = 0; i < SIZE; i++ )
+            {
+               Assert.assertEquals( points.y[ i ], coords[ ( 3 * i ) + 1 ], 0 );
+            }
+         }
+      }
+
+      final Vector2Buffer points2 = new Vector2Buffer( new double[] { 1, 0, 1, 0 }, new double[] { 1, 0, 0, 1 } );
+      Assert.assertArrayEquals( new int[] { 1, 2, 3, 0 }, SpatialSort.sort( points2, false ) );
+      Assert.assertEquals( 0, points2.x[ 0 ], 0 );
+   }
+}
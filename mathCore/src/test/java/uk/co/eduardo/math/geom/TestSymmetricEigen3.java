@@ -0,0 +1,166 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the symmetric eigen-solver and the streaming covariance accumulator
+ *
+ * @author erodri02
+ */
+public class TestSymmetricEigen3
+{
+   private static final double TOLERANCE = 1e-9;
+
+   private static void assertDecomposition( final Matrix3 m, final SymmetricEigen3 eigen )
+   {
+      final double scale = Math.max( 1, Math.abs( eigen.getEigenvalue( 0 ) ) + Math.abs( eigen.getEigenvalue( 2 ) ) );
+      for( int i = 0; i < 3; i++ )
+      {
+         // M.v = lambda.v for unit v
+         final Vector3 v = eigen.getEigenvector( i );
+         final Vector3 mv = m.mul( v );
+         final Vector3 lv = v.mul( eigen.getEigenvalue( i ) );
+         Assert.assertEquals( lv.x, mv.x, TOLERANCE * scale );
+         Assert.assertEquals( lv.y, mv.y, TOLERANCE * scale );
+         Assert.assertEquals( lv.z, mv.z, TOLERANCE * scale );
+         Assert.assertEquals( 1, v.length(), TOLERANCE );
+         Assert.assertEquals( 0, v.dot( eigen.getEigenvector( ( i + 1 ) % 3 ) ), TOLERANCE );
+         if( i > 0 )
+         {
+            Assert.assertTrue( eigen.getEigenvalue( i - 1 ) <= eigen.getEigenvalue( i ) );
+         }
+      }
+   }
+
+   /**
+    * Tests that random symmetric matrices are decomposed into ascending eigenvalues and orthonormal eigenvectors.
+    */
+   @Test
+   public void testRandom()
+   {
+      final Random random = new Random( 1 );
+      for( int n = 0; n < 1000; n++ )
+      {
+         final double a = random.nextGaussian();
+         final double b = random.nextGaussian();
+         final double c = random.nextGaussian();
+         final Matrix3 m = new Matrix3( random.nextGaussian(), a, b, a, random.nextGaussian(), c, b, c, random.nextGaussian() );
+         final SymmetricEigen3 eigen = SymmetricEigen3.decompose( m );
+         assertDecomposition( m, eigen );
+
+         // V.D.V^T rebuilds the matrix
+         final Matrix3 v = eigen.getEigenvectors();
+         final Matrix3 d = new Matrix3( eigen.getEigenvalue( 0 ), 0, 0, 0, eigen.getEigenvalue( 1 ), 0, 0, 0, eigen.getEigenvalue( 2 ) );
+         final Matrix3 rebuilt = v.mul( d ).mul( v.transpose() );
+         Assert.assertEquals( m.a01, rebuilt.a01, TOLERANCE );
+         Assert.assertEquals( m.a12, rebuilt.a12, TOLERANCE );
+         Assert.assertEquals( m.a22, rebuilt.a22, TOLERANCE );
+      }
+   }
+
+   /**
+    * Tests diagonal matrices and matrices with repeated eigenvalues.
+    */
+   @Test
+   public void testDegenerate()
+   {
+      final SymmetricEigen3 identity = SymmetricEigen3.decompose( Matrix3.IDENTITY );
+      assertDecomposition( Matrix3.IDENTITY, identity );
+      Assert.assertEquals( 1, identity.getEigenvalue( 0 ), 0 );
+      Assert.assertEquals( 1, identity.getEigenvalue( 2 ), 0 );
+
+      final Matrix3 diagonal = new Matrix3( 3, 0, 0, 0, -2, 0, 0, 0, 1 );
+      final SymmetricEigen3 eigen = SymmetricEigen3.decompose( diagonal );
+      Assert.assertEquals( -2, eigen.getEigenvalue( 0 ), 0 );
+      Assert.assertEquals( 1, eigen.getEigenvalue( 1 ), 0 );
+      Assert.assertEquals( 3, eigen.getEigenvalue( 2 ), 0 );
+      Assert.assertEquals( 1, Math.abs( eigen.getEigenvector( 0 ).y ), 0 );
+
+      // Eigenvalues 0, 0 and 3, and a rotated copy with eigenvalues 1, 1 and 5
+      final Matrix3 ones = new Matrix3( 1, 1, 1, 1, 1, 1, 1, 1, 1 );
+      assertDecomposition( ones, SymmetricEigen3.decompose( ones ) );
+      final Matrix3 r = Matrix3.createRotationMatrix( new Vector3( 1, -2, 0.5 ).normalize(), 0.7 );
+      final Matrix3 repeated = r.mul( new Matrix3( 1, 0, 0, 0, 5, 0, 0, 0, 1 ) ).mul( r.transpose() );
+      final SymmetricEigen3 rotated = SymmetricEigen3.decompose( repeated );
+      assertDecomposition( repeated, rotated );
+      Assert.assertEquals( 1, rotated.getEigenvalue( 1 ), TOLERANCE );
+      Assert.assertEquals( 5, rotated.getEigenvalue( 2 ), TOLERANCE );
+
+      // Tiny and huge scales
+      final Matrix3 tiny = new Matrix3( 1e-200, 1e-201, 0, 1e-201, 2e-200, 0, 0, 0, 3e-200 );
+      assertDecomposition( tiny, SymmetricEigen3.decompose( tiny ) );
+      final Matrix3 zero = new Matrix3( 0, 0, 0, 0, 0, 0, 0, 0, 0 );
+      assertDecomposition( zero, SymmetricEigen3.decompose( zero ) );
+   }
+
+   /**
+    * Tests that the streaming covariance agrees with the two-pass definition, including after merging, for points far from the
+    * origin.
+    */
+   @Test
+   public void testCovariance()
+   {
+      final Random random = new Random( 2 );
+      final Vector3 offset = new Vector3( 1e6, -2e6, 3e6 );
+      final Vector3Buffer points = new Vector3Buffer( 1000 );
+      for( int i = 0; i < points.size(); i++ )
+      {
+         points.set( i, offset.add( new Vector3( random.nextGaussian(), 2 * random.nextGaussian(), random.nextGaussian() ) ) );
+      }
+      double mx = 0;
+      double my = 0;
+      double mz = 0;
+      for( int i = 0; i < points.size(); i++ )
+      {
+         mx += points.x[ i ];
+         my += points.y[ i ];
+         mz += points.z[ i ];
+      }
+      mx /= points.size();
+      my /= points.size();
+      mz /= points.size();
+      double sxy = 0;
+      double syy = 0;
+      for( int i = 0; i < points.size(); i++ )
+      {
+         sxy += ( points.x[ i ] - mx ) * ( points.y[ i ] - my );
+         syy += ( points.y[ i ] - my ) * ( points.y[ i ] - my );
+      }
+
+      final Covariance3 all = new Covariance3();
+      all.add( points );
+      final Covariance3 first = new Covariance3();
+      final Covariance3 second = new Covariance3();
+      for( int i = 0; i < points.size(); i++ )
+      {
+         ( ( i < 300 ) ? first : second ).add( points.get( i ) );
+      }
+      first.add( second );
+      for( final Covariance3 c : new Covariance3[] { all, first } )
+      {
+         Assert.assertEquals( points.size(), c.getCount() );
+         Assert.assertEquals( mx, c.getMean().x, 1e-6 );
+         Assert.assertEquals( mz, c.getMean().z, 1e-6 );
+         final Matrix3 covariance = c.getCovariance();
+         Assert.assertEquals( sxy / points.size(), covariance.a01, 1e-9 );
+         Assert.assertEquals( sxy / points.size(), covariance.a10, 1e-9 );
+         Assert.assertEquals( syy / points.size(), covariance.a11, 1e-9 );
+      }
+
+      all.clear();
+      Assert.assertEquals( 0, all.getCount() );
+      Assert.assertNull( all.fitPlane() );
+   }
+
+   /**
+    * Tests that an eigenvalue index outside 0 to 2 is rejected.
+    */
+   @Test( expected = IndexOutOfBoundsException.class )
+   public void testIndexOutOfRange()
+   {
+      SymmetricEigen3.decompose( Matrix3.IDENTITY ).getEigenvalue( 3 );
+   }
+}
@@ -0,0 +1,169 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests affine transforms
+ *
+ * @author erodri02
+ */
+public class TestTransform
+{
+   private static final int SIZE = 10000;
+
+   private static final double EPSILON = 1e-9;
+
+   private static final Transform3 RIGID3 = Transform3.createRigid( Quaternion.createRotation( new Vector3( 1, 2, 3 ).normalize(), 37 ),
+                                                                    new Vector3( 10, -20, 30 ) );
+
+   private static final Transform3 AFFINE3 = new Transform3( new Matrix3( 2, 1, 0, 0, 3, 1, 1, 0, 0.5 ), new Vector3( 1, 2, 3 ) );
+
+   private static final Transform2 RIGID2 = Transform2.createRigid( 23, new Vector2( 5, -7 ) );
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static double[] randomArray( final long seed, final int length )
+   {
+      final Random random = new Random( seed );
+      final double[] values = new double[ length ];
+      for( int i = 0; i < length; i++ )
+      {
+         values[ i ] = ( random.nextDouble() - 0.5 ) * 1000;
+      }
+      return values;
+   }
+
+   private static void assertVector( final Vector3 expected, final Vector3 actual )
+   {
+      Assert.assertEquals( expected.x, actual.x, EPSILON );
+      Assert.assertEquals( expected.y, actual.y, EPSILON );
+      Assert.assertEquals( expected.z, actual.z, EPSILON );
+   }
+
+   /**
+    * Tests rigid and orthonormal detection.
+    */
+   @Test
+   public void testClassification()
+   {
+      Assert.assertTrue( Transform3.IDENTITY.isRigid() );
+      Assert.assertTrue( RIGID3.isRigid() );
+      Assert.assertFalse( AFFINE3.isOrthonormal() );
+      Assert.assertFalse( new Transform3( Matrix3.IDENTITY.mul( 2 ), Vector3.ZERO ).isOrthonormal() );
+
+      final Transform3 reflection = new Transform3( new Matrix3( -1, 0, 0, 0, 1, 0, 0, 0, 1 ), Vector3.X );
+      Assert.assertTrue( reflection.isOrthonormal() );
+      Assert.assertFalse( reflection.isRigid() );
+
+      Assert.assertTrue( RIGID2.isRigid() );
+      Assert.assertFalse( new Transform2( new Matrix2( 1, 1, 0, 1 ), Vector2.ZERO ).isOrthonormal() );
+      Assert.assertFalse( new Transform2( new Matrix2( 1, 0, 0, -1 ), Vector2.ZERO ).isRigid() );
+   }
+
+   /**
+    * Tests that a transform matches applying the matrix and then adding the translation, and that composition applies the
+    * right-hand transform first.
+    */
+   @Test
+   public void testMulAndCompose()
+   {
+      final Vector3 p = new Vector3( 3, -4, 5 );
+      assertVector( AFFINE3.linear.mul( p ).add( AFFINE3.translation ), AFFINE3.mul( p ) );
+      assertVector( AFFINE3.linear.mul( p ), AFFINE3.mulDirection( p ) );
+      assertVector( AFFINE3.mul( RIGID3.mul( p ) ), AFFINE3.mul( RIGID3 ).mul( p ) );
+
+      final Vector2 q = new Vector2( 3, -4 );
+      final Transform2 affine = new Transform2( new Matrix2( 2, 1, 0, 3 ), new Vector2( 1, 2 ) );
+      final Vector2 expected = affine.mul( RIGID2.mul( q ) );
+      final Vector2 actual = affine.mul( RIGID2 ).mul( q );
+      Assert.assertEquals( expected.x, actual.x, EPSILON );
+      Assert.assertEquals( expected.y, actual.y, EPSILON );
+   }
+
+   /**
+    * Tests that the inverse undoes the transform, using both the transpose and the general inverse.
+    */
+   @Test
+   public void testInverse()
+   {
+      final Vector3 p = new Vector3( 3, -4, 5 );
+      for( final Transform3 t : new Transform3[] { RIGID3, AFFINE3 } )
+      {
+         final Transform3 inverse = t.inv();
+         assertVector( p, inverse.mul( t.mul( p ) ) );
+         assertVector( p, t.mul( inverse ).mul( p ) );
+      }
+      Assert.assertTrue( RIGID3.inv().isRigid() );
+      Assert.assertNull( new Transform3( new Matrix3( 1, 2, 3, 2, 4, 6, 0, 0, 1 ), Vector3.X ).inv() );
+
+      final Vector2 q = new Vector2( 3, -4 );
+      final Vector2 back = RIGID2.inv().mul( RIGID2.mul( q ) );
+      Assert.assertEquals( q.x, back.x, EPSILON );
+      Assert.assertEquals( q.y, back.y, EPSILON );
+      Assert.assertNull( new Transform2( new Matrix2( 1, 2, 2, 4 ), Vector2.X ).inv() );
+   }
+
+   /**
+    * Tests that the batch transforms match the scalar transform, both sequentially and in parallel.
+    */
+   @Test
+   public void testBatch()
+   {
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final double[] src3 = randomArray( 1, ( 3 * SIZE ) + 1 );
+         final double[] dst3 = new double[ 3 * SIZE ];
+         AFFINE3.mul( src3, 1, dst3, 0, SIZE );
+         final Vector3Buffer buffer3 = new Vector3Buffer( randomArray( 2, SIZE ), randomArray( 3, SIZE ), randomArray( 4, SIZE ) );
+         final Vector3Buffer result3 = new Vector3Buffer( SIZE );
+         AFFINE3.mul( buffer3, result3 );
+
+         final double[] src2 = randomArray( 5, 2 * SIZE );
+         final double[] dst2 = new double[ 2 * SIZE ];
+         RIGID2.mul( src2, 0, dst2, 0, SIZE );
+         final Vector2Buffer buffer2 = new Vector2Buffer( randomArray( 6, SIZE ), randomArray( 7, SIZE ) );
+         final Vector2Buffer result2 = new Vector2Buffer( SIZE );
+         RIGID2.mul( buffer2, result2 );
+
+         for( int i = 0; i < SIZE; i++ )
+         {
+            final Vector3 expected = AFFINE3.mul( new Vector3( src3[ ( 3 * i ) + 1 ], src3[ ( 3 * i ) + 2 ], src3[ ( 3 * i ) + 3 ] ) );
+            Assert.assertEquals( expected.x, dst3[ 3 * i ], 0 );
+            Assert.assertEquals( expected.y, dst3[ ( 3 * i ) + 1 ], 0 );
+            Assert.assertEquals( expected.z, dst3[ ( 3 * i ) + 2 ], 0 );
+            final Vector3 expectedBuffer = AFFINE3.mul( buffer3.get( i ) );
+            Assert.assertEquals( expectedBuffer.x, result3.x[ i ], 0 );
+            Assert.assertEquals( expectedBuffer.y, result3.y[ i ], 0 );
+            Assert.assertEquals( expectedBuffer.z, result3.z[ i ], 0 );
+
+            final Vector2 expected2 = RIGID2.mul( new Vector2( src2[ 2 * i ], src2[ ( 2 * i ) + 1 ] ) );
+            Assert.assertEquals( expected2.x, dst2[ 2 * i ], 0 );
+            Assert.assertEquals( expected2.y, dst2[ ( 2 * i ) + 1 ], 0 );
+            final Vector2 expectedBuffer2 = RIGID2.mul( buffer2.get( i ) );
+            Assert.assertEquals( expectedBuffer2.x, result2.x[ i ], 0 );
+            Assert.assertEquals( expectedBuffer2.y, result2.y[ i ], 0 );
+         }
+      }
+   }
+
+   /**
+    * Tests that buffers of different sizes are rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testSizeMismatch()
+   {
+      RIGID3.mul( new Vector3Buffer( 3 ), new Vector3Buffer( 4 ) );
+   }
+}
@@ -0,0 +1,127 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests uniform grids
+ *
+ * @author erodri02
+ */
+public class TestUniformGrid2
+{
+   private static final int SIZE = 2000;
+
+   private static List< Vector2 > randomPoints( final Random random, final int size )
+   {
+      final List< Vector2 > points = new ArrayList<>( size );
+      for( int i = 0; i < size; i++ )
+      {
+         points.add( new Vector2( random.nextDouble() * 100, random.nextDouble() * 50 ) );
+      }
+      return points;
+   }
+
+   private static Set< Integer > withinRadius( final UniformGrid2 grid, final double x, final double y, final double radius )
+   {
+      final Set< Integer > found = new HashSet<>();
+      final int count = grid.withinRadius( x, y, radius, id -> Assert.assertTrue( found.add( id ) ) );
+      Assert.assertEquals( found.size(), count );
+      return found;
+   }
+
+   /**
+    * Tests radius queries over points, including after points are moved and removed.
+    */
+   @Test
+   public void testPoints()
+   {
+      final Random random = new Random( 1 );
+      final List< Vector2 > points = randomPoints( random, SIZE );
+      final UniformGrid2 grid = UniformGrid2.forPoints( points );
+      Assert.assertEquals( SIZE, grid.size() );
+
+      for( int pass = 0; pass < 3; pass++ )
+      {
+         for( final Vector2 q : randomPoints( random, 50 ) )
+         {
+            final Set< Integer > expected = new HashSet<>();
+            for( int i = 0; i < points.size(); i++ )
+            {
+               if( ( points.get( i ) != null ) && ( points.get( i ).sub( q ).length() <= 5 ) )
+               {
+                  expected.add( i );
+               }
+            }
+            Assert.assertEquals( expected, withinRadius( grid, q.x, q.y, 5 ) );
+         }
+
+         // Move some points, some of them outside the original bounds, and remove others
+         for( int i = 0; i < SIZE; i += 3 )
+         {
+            final Vector2 p = new Vector2( ( random.nextDouble() * 120 ) - 10, random.nextDouble() * 50 );
+            points.set( i, p );
+            grid.insert( i, p );
+         }
+         for( int i = 1; i < SIZE; i += 7 )
+         {
+            Assert.assertEquals( points.get( i ) != null, grid.remove( i ) );
+            points.set( i, null );
+         }
+      }
+   }
+
+   private static boolean boxesOverlap( final LineSegment2 a, final LineSegment2 b )
+   {
+      return ( Math.min( a.start.x, a.end.x ) <= Math.max( b.start.x, b.end.x ) ) &&
+             ( Math.min( b.start.x, b.end.x ) <= Math.max( a.start.x, a.end.x ) ) &&
+             ( Math.min( a.start.y, a.end.y ) <= Math.max( b.start.y, b.end.y ) ) &&
+             ( Math.min( b.start.y, b.end.y ) <= Math.max( a.start.y, a.end.y ) );
+   }
+
+   /**
+    * Tests that candidate pairs include every pair of segments with overlapping bounds, once each.
+    */
+   @Test
+   public void testCandidatePairs()
+   {
+      final Random random = new Random( 2 );
+      final List< LineSegment2 > segments = new ArrayList<>();
+      for( final Vector2 p : randomPoints( random, 500 ) )
+      {
+         segments.add( new LineSegment2( p, p.add( new Vector2( random.nextGaussian() * 5, random.nextGaussian() * 5 ) ) ) );
+      }
+      final UniformGrid2 grid = UniformGrid2.forSegments( segments );
+
+      final Set< Long > pairs = new HashSet<>();
+      grid.forEachCandidatePair( ( a, b ) -> {
+         Assert.assertTrue( a < b );
+         Assert.assertTrue( pairs.add( ( (long) a << 32 ) | b ) );
+      } );
+      for( int a = 0; a < segments.size(); a++ )
+      {
+         for( int b = a + 1; b < segments.size(); b++ )
+         {
+            if( boxesOverlap( segments.get( a ), segments.get( b ) ) )
+            {
+               Assert.assertTrue( pairs.contains( ( (long) a << 32 ) | b ) );
+            }
+         }
+      }
+
+      final Set< Integer > found = new HashSet<>();
+      final LineSegment2 probe = segments.get( 0 );
+      grid.query( BoundingBox2.fromPoints( Arrays.asList( probe.start, probe.end ) ), id -> found.add( id ) );
+      for( int b = 0; b < segments.size(); b++ )
+      {
+         Assert.assertEquals( boxesOverlap( probe, segments.get( b ) ), found.contains( b ) );
+      }
+   }
+}
@@ -0,0 +1,165 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests 2D vector buffers
+ *
+ * @author erodri02
+ */
+public class TestVector2Buffer
+{
+   private static final int SIZE = 1000;
+
+   /**
+    * Restores the default parallel threshold.
+    */
+   @After
+   public void tearDown()
+   {
+      Batch.setParallelThreshold( Batch.DEFAULT_PARALLEL_THRESHOLD );
+   }
+
+   private static List< Vector2 > randomPoints( final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< Vector2 > points = new ArrayList<>( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.add( new Vector2( random.nextDouble() - 0.5, random.nextDouble() - 0.5 ) );
+      }
+      return points;
+   }
+
+   private static void assertVector( final Vector2 expected, final Vector2Buffer buffer, final int i )
+   {
+      Assert.assertEquals( expected.x, buffer.x[ i ], 0 );
+      Assert.assertEquals( expected.y, buffer.y[ i ], 0 );
+   }
+
+   /**
+    * Tests that the bulk operations match the scalar ones.
+    */
+   @Test
+   public void testMatchesScalar()
+   {
+      final List< Vector2 > a = randomPoints( 1 );
+      final List< Vector2 > b = randomPoints( 2 );
+      final Vector2Buffer bufferA = Vector2Buffer.fromPoints( a );
+      final Vector2Buffer bufferB = Vector2Buffer.fromPoints( b );
+      final Vector2Buffer result = new Vector2Buffer( SIZE );
+      final double[] values = new double[ SIZE ];
+
+      bufferA.add( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).add( b.get( i ) ), result, i );
+      }
+
+      bufferA.sub( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).sub( b.get( i ) ), result, i );
+      }
+
+      bufferA.mul( 3.5, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).mul( 3.5 ), result, i );
+      }
+
+      bufferA.normalize( result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).normalize(), result, i );
+      }
+
+      bufferA.length( values );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         Assert.assertEquals( a.get( i ).length(), values[ i ], 0 );
+      }
+
+      bufferA.dot( bufferB, values );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final Vector2 p = a.get( i );
+         final Vector2 q = b.get( i );
+         Assert.assertEquals( ( p.x * q.x ) + ( p.y * q.y ), values[ i ], 0 );
+      }
+   }
+
+   /**
+    * Tests operating in place and converting back to a list.
+    */
+   @Test
+   public void testInPlace()
+   {
+      final List< Vector2 > a = randomPoints( 3 );
+      final Vector2Buffer buffer = Vector2Buffer.fromPoints( a );
+      buffer.sub( Vector2.X, buffer );
+      buffer.add( Vector2.Y, buffer );
+      buffer.div( 2, buffer );
+
+      final List< Vector2 > list = buffer.toList();
+      Assert.assertEquals( SIZE, list.size() );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final Vector2 expected = a.get( i ).sub( Vector2.X ).add( Vector2.Y ).div( 2 );
+         Assert.assertEquals( expected.x, list.get( i ).x, 0 );
+         Assert.assertEquals( expected.y, list.get( i ).y, 0 );
+      }
+   }
+
+   /**
+    * Tests the bulk operations that take buffers, sequentially and in parallel.
+    */
+   @Test
+   public void testParallel()
+   {
+      final List< Vector2 > a = randomPoints( 4 );
+      final Vector2Buffer buffer = Vector2Buffer.fromPoints( a );
+      final Matrix2 m = new Matrix2( 0.5, -2, 1.5, 3 );
+      final BoundingBox2 expected = BoundingBox2.fromPoints( a );
+      for( final int threshold : new int[] { Integer.MAX_VALUE, 100 } )
+      {
+         Batch.setParallelThreshold( threshold );
+         final Vector2Buffer result = new Vector2Buffer( SIZE );
+         m.mul( buffer, result );
+         for( int i = 0; i < SIZE; i++ )
+         {
+            assertVector( m.mul( a.get( i ) ), result, i );
+         }
+
+         final BoundingBox2 box = BoundingBox2.fromPoints( buffer );
+         Assert.assertEquals( expected.start.x, box.start.x, 0 );
+         Assert.assertEquals( expected.start.y, box.start.y, 0 );
+         Assert.assertEquals( expected.end.x, box.end.x, 0 );
+         Assert.assertEquals( expected.end.y, box.end.y, 0 );
+      }
+   }
+
+   /**
+    * Tests that mismatched buffers are rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testSizeMismatch()
+   {
+      new Vector2Buffer( 3 ).add( new Vector2Buffer( 4 ), new Vector2Buffer( 3 ) );
+   }
+
+   /**
+    * Tests that a result array shorter than the buffer is rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testResultTooShort()
+   {
+      new Vector2Buffer( 3 ).length( new double[ 2 ] );
+   }
+}
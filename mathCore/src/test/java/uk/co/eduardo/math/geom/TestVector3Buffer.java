@@ -0,0 +1,117 @@
+package uk.co.eduardo.math.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests 3D vector buffers
+ *
+ * @author erodri02
+ */
+public class TestVector3Buffer
+{
+   private static final int SIZE = 1000;
+
+   private static List< Vector3 > randomPoints( final long seed )
+   {
+      final Random random = new Random( seed );
+      final List< Vector3 > points = new ArrayList<>( SIZE );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         points.add( new Vector3( random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5 ) );
+      }
+      return points;
+   }
+
+   private static void assertVector( final Vector3 expected, final Vector3Buffer buffer, final int i )
+   {
+      Assert.assertEquals( expected.x, buffer.x[ i ], 0 );
+      Assert.assertEquals( expected.y, buffer.y[ i ], 0 );
+      Assert.assertEquals( expected.z, buffer.z[ i ], 0 );
+   }
+
+   /**
+    * Tests that the bulk operations match the scalar ones.
+    */
+   @Test
+   public void testMatchesScalar()
+   {
+      final List< Vector3 > a = randomPoints( 1 );
+      final List< Vector3 > b = randomPoints( 2 );
+      final Vector3Buffer bufferA = Vector3Buffer.fromPoints( a );
+      final Vector3Buffer bufferB = Vector3Buffer.fromPoints( b );
+      final Vector3Buffer result = new Vector3Buffer( SIZE );
+      final double[] dots = new double[ SIZE ];
+
+      bufferA.add( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).add( b.get( i ) ), result, i );
+      }
+
+      bufferA.sub( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).sub( b.get( i ) ), result, i );
+      }
+
+      bufferA.cross( bufferB, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).cross( b.get( i ) ), result, i );
+      }
+
+      bufferA.mul( 3.5, result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).mul( 3.5 ), result, i );
+      }
+
+      bufferA.normalize( result );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         assertVector( a.get( i ).normalize(), result, i );
+      }
+
+      bufferA.dot( bufferB, dots );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         Assert.assertEquals( a.get( i ).dot( b.get( i ) ), dots[ i ], 0 );
+      }
+   }
+
+   /**
+    * Tests operating in place and converting back to a list.
+    */
+   @Test
+   public void testInPlace()
+   {
+      final List< Vector3 > a = randomPoints( 3 );
+      final Vector3Buffer buffer = Vector3Buffer.fromPoints( a );
+      buffer.sub( Vector3.X, buffer );
+      buffer.div( 2, buffer );
+
+      final List< Vector3 > list = buffer.toList();
+      Assert.assertEquals( SIZE, list.size() );
+      for( int i = 0; i < SIZE; i++ )
+      {
+         final Vector3 expected = a.get( i ).sub( Vector3.X ).div( 2 );
+         Assert.assertEquals( expected.x, list.get( i ).x, 0 );
+         Assert.assertEquals( expected.y, list.get( i ).y, 0 );
+         Assert.assertEquals( expected.z, list.get( i ).z, 0 );
+      }
+   }
+
+   /**
+    * Tests that mismatched buffers are rejected.
+    */
+   @Test( expected = IllegalArgumentException.class )
+   public void testSizeMismatch()
+   {
+      new Vector3Buffer( 3 ).add( new Vector3Buffer( 4 ), new Vector3Buffer( 3 ) );
+   }
+}